@@ -32,6 +32,7 @@ public abstract class LogMiner implements ILogMiner {
 
     protected final static int ROLLBACK_TEMP_LIMIT = 50; //max temp which can be rollback
     protected final static int LOG_QUEUE_SIZE = 5000; //size of queue which read logs
+    protected final static long TRANSACTION_STATS_INTERVAL_MS = 60000L; //interval of logging open transaction stats
 
     private final static String TAG = LogMiner.class.getSimpleName();
     protected static final BeanUtils beanUtils = InstanceFactory.instance(BeanUtils.class); //bean util
@@ -43,10 +44,12 @@ public abstract class LogMiner implements ILogMiner {
 
     protected final LinkedBlockingQueue<RedoLogContent> logQueue = new LinkedBlockingQueue<>(LOG_QUEUE_SIZE); //queue for logContent
     protected final LinkedHashMap<String, LogTransaction> transactionBucket = new LinkedHashMap<>(); //transaction cache
+    protected final TransactionBuffer transactionBuffer = new TransactionBuffer(transactionBucket, TransactionBuffer.DEFAULT_HEAP_BYTES_LIMIT); //bounded view of transactionBucket, change transactions through it
     protected RedoLogContent csfLogContent = null; //when redo or undo is too long, append them
     protected final Map<Long, Long> instanceThreadMindedSCNMap = new HashMap<>(); //Map<Thread#, SCN>
     protected final Map<Long, Long> instanceThreadSCNMap = new HashMap<>(); //Map<Thread#, SCN>
     protected boolean hasRollbackTemp; //whether rollback temp exists
+    private long lastTransactionStatsTime = System.currentTimeMillis(); //last time open transaction stats were logged
 
     protected String connectorId;
     protected KVReadOnlyMap<TapTable> tableMap; //pdk tableMap in streamRead
@@ -104,12 +107,13 @@ public abstract class LogMiner implements ILogMiner {
         String xid = redoLogContent.getXid();
         String operation = redoLogContent.getOperation();
 
+        logTransactionStats();
         if (hasRollbackTemp) {
-            rollbackTempHandle(transactionBucket);
-            final List<String> oracleTransactions = commitTempHandle(transactionBucket, redoLogContent);
+            rollbackTempHandle();
+            final List<String> oracleTransactions = commitTempHandle(redoLogContent);
             if (EmptyKit.isNotEmpty(oracleTransactions)) {
                 for (String waitingCommitXid : oracleTransactions) {
-                    final LogTransaction logTransaction = transactionBucket.get(waitingCommitXid);
+                    final LogTransaction logTransaction = transactionBuffer.get(waitingCommitXid);
                     if (logTransaction != null) {
                         TapLogger.info(TAG, "Delay commit transaction[scn: {}, xid: {}], redo size: {}",
                                 logTransaction.getScn(), logTransaction.getXid(), logTransaction.getSize());
@@ -127,7 +131,7 @@ public abstract class LogMiner implements ILogMiner {
             case SqlConstant.REDO_LOG_OPERATION_LOB_TRIM:
             case SqlConstant.REDO_LOG_OPERATION_LOB_WRITE:
             case SqlConstant.REDO_LOG_OPERATION_SEL_LOB_LOCATOR:
-                if (!transactionBucket.containsKey(xid)) {
+                if (!transactionBuffer.contains(xid)) {
                     TapLogger.debug(TAG, TapLog.D_CONN_LOG_0003.getMsg(), xid);
                     Map<String, List> redoLogContents = new LinkedHashMap<>();
                     redoLogContents.put(rsId, new ArrayList<>(4));
@@ -139,13 +143,12 @@ public abstract class LogMiner implements ILogMiner {
                     if (SqlConstant.REDO_LOG_OPERATION_UPDATE.equals(redoLogContent.getOperation())) {
                         orclTransaction.getTxUpdatedRowIds().add(redoLogContent.getRowId());
                     }
-                    transactionBucket.put(xid, orclTransaction);
+                    transactionBuffer.put(orclTransaction);
                 } else {
-                    LogTransaction logTransaction = transactionBucket.get(xid);
-                    Map<String, List> redoLogContents = logTransaction.getRedoLogContents();
+                    LogTransaction logTransaction = transactionBuffer.get(xid);
                     try {
-                        if (!needToAborted(operation, redoLogContent, redoLogContents)) {
-                            logTransaction.addRedoLogContent(redoLogContent);
+                        if (!needToAborted(operation, redoLogContent, logTransaction)) {
+                            transactionBuffer.addRedoLogContent(logTransaction, redoLogContent);
                             logTransaction.incrementSize(1);
                             long txLogContentsSize = logTransaction.getSize();
                             if (txLogContentsSize % LogTransaction.LARGE_TRANSACTION_UPPER_LIMIT == 0) {
@@ -158,8 +161,8 @@ public abstract class LogMiner implements ILogMiner {
                 }
                 break;
             case SqlConstant.REDO_LOG_OPERATION_COMMIT:
-                if (transactionBucket.containsKey(xid)) {
-                    LogTransaction orclTransaction = transactionBucket.get(xid);
+                if (transactionBuffer.contains(xid)) {
+                    LogTransaction orclTransaction = transactionBuffer.get(xid);
                     if (!need2WaitingCommit(orclTransaction)) {
                         commitTransaction(redoLogContentConsumer, orclTransaction);
                     } else {
@@ -196,14 +199,15 @@ public abstract class LogMiner implements ILogMiner {
                 redoLogContentConsumer.accept(cacheCommitTraction);
                 break;
             case SqlConstant.REDO_LOG_OPERATION_ROLLBACK:
-                if (transactionBucket.containsKey(xid)) {
-                    LogTransaction logTransaction = transactionBucket.get(xid);
+                if (transactionBuffer.contains(xid)) {
+                    LogTransaction logTransaction = transactionBuffer.get(xid);
                     if (logTransaction.isLarge()) {
                         TapLogger.info(TAG, "Found large transaction be rolled back: {}", logTransaction);
                     }
                     hasRollbackTemp = true;
                     logTransaction.setRollbackTemp(1);
                     logTransaction.setHasRollback(true);
+                    transactionBuffer.markRollback(logTransaction);
                 }
                 break;
             default:
@@ -216,8 +220,7 @@ public abstract class LogMiner implements ILogMiner {
             LogTransaction logTransaction = txEntry.getValue();
             List<TapEvent> eventList = TapSimplify.list();
             RedoLogContent lastRedoLogContent = null;
-            Map<String, List> redoLogContents = logTransaction.getRedoLogContents();
-            for (List<RedoLogContent> redoLogContentList : redoLogContents.values()) {
+            for (List<RedoLogContent> redoLogContentList : logTransaction.redoLogContentGroups()) {
                 for (RedoLogContent redoLogContent : redoLogContentList) {
                     lastRedoLogContent = redoLogContent;
                     if (EmptyKit.isNull(Objects.requireNonNull(redoLogContent).getRedoRecord()) && !"DDL".equals(Objects.requireNonNull(redoLogContent).getOperation())) {
@@ -281,53 +284,62 @@ public abstract class LogMiner implements ILogMiner {
 
     protected abstract void submitEvent(RedoLogContent redoLogContent, List<TapEvent> list);
 
-    private void rollbackTempHandle(LinkedHashMap<String, LogTransaction> transactionBucket) {
-        if (EmptyKit.isEmpty(transactionBucket)) {
+    /**
+     * only transactions which were rolled back are visited
+     */
+    private void logTransactionStats() {
+        long now = System.currentTimeMillis();
+        if (now - lastTransactionStatsTime < TRANSACTION_STATS_INTERVAL_MS) {
             return;
         }
-        Iterator<String> iterator = transactionBucket.keySet().iterator();
-        hasRollbackTemp = false;
-        while (iterator.hasNext()) {
-            String bucketXid = iterator.next();
-            LogTransaction bucketTransaction = transactionBucket.get(bucketXid);
+        lastTransactionStatsTime = now;
+        if (transactionBuffer.size() > 0) {
+            TapLogger.info(TAG, "Transaction buffer {}", transactionBuffer.stats());
+        }
+    }
+
+    private void rollbackTempHandle() {
+        List<String> discardXids = new ArrayList<>();
+        for (LogTransaction bucketTransaction : transactionBuffer.getRollbackTransactions()) {
             int rollbackTemp = bucketTransaction.getRollbackTemp();
-            if (bucketTransaction.isHasRollback()) {
-                hasRollbackTemp = true;
-            }
             if (rollbackTemp <= 0) {
                 continue;
             }
             if (rollbackTemp < ROLLBACK_TEMP_LIMIT) {
                 bucketTransaction.setRollbackTemp(++rollbackTemp);
-                hasRollbackTemp = true;
             } else {
                 TapLogger.info(TAG, "It was found that the transaction[first scn: {}, xid: {}] that was rolled back did not commit after {} events, " +
-                        "and the modification of this transaction was truly discarded", bucketTransaction.getScn(), bucketXid, ROLLBACK_TEMP_LIMIT);
-                iterator.remove();
+                        "and the modification of this transaction was truly discarded", bucketTransaction.getScn(), bucketTransaction.getXid(), ROLLBACK_TEMP_LIMIT);
+                discardXids.add(bucketTransaction.getXid());
             }
         }
+        discardXids.forEach(transactionBuffer::discard);
+        hasRollbackTemp = !transactionBuffer.getRollbackTransactions().isEmpty();
     }
 
-    private List<String> commitTempHandle(LinkedHashMap<String, LogTransaction> transactionBucket, RedoLogContent redoLogContent) {
+    /**
+     * only transactions which were rolled back can be waiting for commit
+     */
+    private List<String> commitTempHandle(RedoLogContent redoLogContent) {
         List<String> need2CommitTxs = new ArrayList<>();
-        if (EmptyKit.isNotEmpty(transactionBucket)) {
-            transactionBucket.values().forEach(logTransaction -> {
-                if (logTransaction == null || logTransaction.getLastTimestamp() == null || logTransaction.getLastCommitTimestamp() == null
-                        || redoLogContent.getTimestamp() == null || redoLogContent.getCommitTimestamp() == null) {
-                    return;
-                }
-                if (logTransaction.getLastTimestamp().compareTo(redoLogContent.getTimestamp().getTime()) < 0 ||
-                        logTransaction.getLastCommitTimestamp().compareTo(redoLogContent.getCommitTimestamp().getTime()) < 0) {
-                    need2CommitTxs.add(logTransaction.getXid());
-                }
-            });
+        if (redoLogContent.getTimestamp() == null || redoLogContent.getCommitTimestamp() == null) {
+            return need2CommitTxs;
+        }
+        for (LogTransaction logTransaction : transactionBuffer.getRollbackTransactions()) {
+            if (logTransaction.getLastTimestamp() == null || logTransaction.getLastCommitTimestamp() == null) {
+                continue;
+            }
+            if (logTransaction.getLastTimestamp().compareTo(redoLogContent.getTimestamp().getTime()) < 0 ||
+                    logTransaction.getLastCommitTimestamp().compareTo(redoLogContent.getCommitTimestamp().getTime()) < 0) {
+                need2CommitTxs.add(logTransaction.getXid());
+            }
         }
         return need2CommitTxs;
     }
 
     private void commitTransaction(Consumer<Map<String, LogTransaction>> redoLogContentConsumer, LogTransaction orclTransaction) {
         final String xid = orclTransaction.getXid();
-        transactionBucket.remove(xid);
+        transactionBuffer.remove(xid);
         long txLogContentsSize = orclTransaction.getSize();
         if (orclTransaction.isHasRollback()) {
             TapLogger.info(TAG, "Found commit that had a rollback before it, first scn: {}, xid: {}, log content size: {}", orclTransaction.getScn(), xid, txLogContentsSize);
@@ -352,16 +364,19 @@ public abstract class LogMiner implements ILogMiner {
         }
     }
 
-    private boolean needToAborted(String operation, RedoLogContent redoLogContent, Map<String, List> redoLogContents) {
+    /**
+     * Changed groups are written back through the transaction, a spilled group is a copy read from chronicle map
+     */
+    private boolean needToAborted(String operation, RedoLogContent redoLogContent, LogTransaction logTransaction) {
+        Map<String, List> redoLogContents = logTransaction.getRedoLogContents();
+        Map<String, List<RedoLogContent>> changedGroups = new LinkedHashMap<>();
         boolean needToAborted = false;
         if (EmptyKit.isNotBlank(redoLogContent.getSqlUndo()) || EmptyKit.isNotEmpty(redoLogContent.getRedoRecord())) {
             return false;
         }
         String rowId = redoLogContent.getRowId();
         if (SqlConstant.REDO_LOG_OPERATION_DELETE.equals(operation)) {
-            Iterator<String> keySetIter = redoLogContents.keySet().iterator();
-            while (keySetIter.hasNext()) {
-                String key = keySetIter.next();
+            for (String key : redoLogContents.keySet()) {
                 List<RedoLogContent> logContents = redoLogContents.get(key);
                 Iterator<RedoLogContent> iterator = logContents.iterator();
                 while (iterator.hasNext()) {
@@ -372,12 +387,10 @@ public abstract class LogMiner implements ILogMiner {
                             TapLogger.info("Found insert row was deleted by row id {} on the same transaction, insert event {}, delete event {}", rowId, logContent, redoLogContent);
                             iterator.remove();
                             needToAborted = true;
+                            changedGroups.put(key, logContents);
                         }
                     }
                 }
-                if (needToAborted && EmptyKit.isEmpty(logContents)) {
-                    keySetIter.remove();
-                }
             }
         } else if (SqlConstant.REDO_LOG_OPERATION_UPDATE.equals(operation)) {
             try {
@@ -387,7 +400,8 @@ public abstract class LogMiner implements ILogMiner {
                 }
                 Iterator<String> keyIter = redoLogContents.keySet().iterator();
                 while (keyIter.hasNext() && !needToAborted) {
-                    List<RedoLogContent> logContents = redoLogContents.get(keyIter.next());
+                    String key = keyIter.next();
+                    List<RedoLogContent> logContents = redoLogContents.get(key);
                     Iterator<RedoLogContent> iterator = logContents.iterator();
                     while (iterator.hasNext()) {
                         RedoLogContent logContent = iterator.next();
@@ -403,12 +417,10 @@ public abstract class LogMiner implements ILogMiner {
                         if (needToAborted) {
                             TapLogger.debug(TAG, "Found update row was undo updated by row id {} on the same transaction, update event {}, undo update event {}", rowId, logContent, redoLogContent);
                             iterator.remove();
+                            changedGroups.put(key, logContents);
                             break;
                         }
                     }
-                    if (needToAborted && EmptyKit.isEmpty(logContents)) {
-                        keyIter.remove();
-                    }
                 }
             } catch (Exception e) {
                 throw new RuntimeException(String.format("Check abort update oracle log failed, err: %s, scn: %s, xid: %s, timestamp: %s",
@@ -420,7 +432,8 @@ public abstract class LogMiner implements ILogMiner {
             }
             Iterator<String> keyIter = redoLogContents.keySet().iterator();
             while (keyIter.hasNext()) {
-                List<RedoLogContent> logContents = redoLogContents.get(keyIter.next());
+                String key = keyIter.next();
+                List<RedoLogContent> logContents = redoLogContents.get(key);
                 Iterator<RedoLogContent> iterator = logContents.iterator();
                 while (iterator.hasNext()) {
                     RedoLogContent logContent = iterator.next();
@@ -436,13 +449,12 @@ public abstract class LogMiner implements ILogMiner {
                         TapLogger.info(TAG, "Found delete row was undo inserted by row id {} on the same transaction, delete event {}, undo insert event {}", rowId, logContent, redoLogContent);
                         iterator.remove();
                         needToAborted = true;
+                        changedGroups.put(key, logContents);
                     }
                 }
-                if (needToAborted && EmptyKit.isEmpty(logContents)) {
-                    keyIter.remove();
-                }
             }
         }
+        changedGroups.forEach(logTransaction::replaceRedoLogContents);
         return needToAborted;
     }
 
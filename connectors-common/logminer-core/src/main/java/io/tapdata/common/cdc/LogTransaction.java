@@ -16,6 +16,16 @@ public class LogTransaction {
     public static final String TX_TYPE_DML = "dml";
     public static final String TX_TYPE_COMMIT = "commit";
     public static final long LARGE_TRANSACTION_UPPER_LIMIT = 1000L;
+    public static final long OFF_HEAP_TRANSACTION_UPPER_LIMIT = 100000L;
+    private static final long FILE_TRANSACTION_ENTRIES = 500000L;
+
+    /**
+     * where redo log contents of this transaction are kept:
+     * heap -> off-heap chronicle map -> chronicle map persisted to local file
+     */
+    public enum Tier {
+        HEAP, OFF_HEAP, FILE
+    }
 
     private String connectorId;
 
@@ -36,8 +46,22 @@ public class LogTransaction {
      */
     private Map<String, List> redoLogContents;
 
+    /**
+     * spilled redo log contents, key: group sequence, value: redo log events of one heap group, or one redo log
+     * event appended after spilled (rewriting a growing group on every append would copy it again and again)
+     * chronicle map does not keep insertion order, so groups are read back by sequence
+     */
     private ChronicleMap<String, List> chronicleMap;
 
+    private Tier tier = Tier.HEAP;
+
+    private long groupCount;
+
+    /**
+     * estimated bytes of redo log contents on heap
+     */
+    private long heapBytes;
+
     private long size;
 
     private Set<String> txUpdatedRowIds = new HashSet<>();
@@ -61,13 +85,17 @@ public class LogTransaction {
         this.scn = scn;
         this.xid = xid;
         this.redoLogContents = redoLogContents;
+        if (EmptyKit.isNotEmpty(redoLogContents)) {
+            for (List<RedoLogContent> list : redoLogContents.values()) {
+                for (RedoLogContent redoLogContent : list) {
+                    heapBytes += estimateBytes(redoLogContent);
+                }
+            }
+        }
     }
 
     public LogTransaction(String rsId, long scn, String xid, Map<String, List> redoLogContents, Long firstTimestamp) {
-        this.rsId = rsId;
-        this.scn = scn;
-        this.xid = xid;
-        this.redoLogContents = redoLogContents;
+        this(rsId, scn, xid, redoLogContents);
         this.firstTimestamp = firstTimestamp;
     }
 
@@ -80,57 +108,167 @@ public class LogTransaction {
         if (EmptyKit.isNull(redoLogContents)) {
             redoLogContents = new LinkedHashMap<>();
         }
-        if (size >= 1000L) {
-            if (EmptyKit.isNull(chronicleMap)) {
-                File cacheDir = new File("cacheTransaction" + File.separator + connectorId);
-                if (!cacheDir.exists()) {
-                    cacheDir.mkdirs();
-                }
-                File cacheFile = new File("cacheTransaction" + File.separator + connectorId + File.separator + xid + ".data");
-                if (!cacheFile.exists()) {
-                    cacheFile.createNewFile();
-                }
-                chronicleMap = ChronicleMap
-                        .of(String.class, List.class)
-                        .name("xid" + xid)
-                        .averageKey(xid)
-                        .averageValue(Collections.singletonList(redoLogContent))
-                        .entries(500000L)
-                        .maxBloatFactor(200)
-                        .createPersistedTo(cacheFile);
-                chronicleMap.putAll(redoLogContents);
-            }
-            if (!chronicleMap.containsKey(rsId)) {
-                chronicleMap.put(rsId, Collections.singletonList(redoLogContent));
-            } else {
-                List<RedoLogContent> list = chronicleMap.get(rsId);
-                list.add(redoLogContent);
-                chronicleMap.put(rsId, list);
-            }
-        } else {
+        if (tier == Tier.HEAP && size >= LARGE_TRANSACTION_UPPER_LIMIT) {
+            spill();
+        }
+        if (tier == Tier.OFF_HEAP && size >= OFF_HEAP_TRANSACTION_UPPER_LIMIT) {
+            spillToFile();
+        }
+        if (tier == Tier.HEAP) {
             if (!redoLogContents.containsKey(rsId)) {
                 redoLogContents.put(rsId, new ArrayList<>());
             }
             redoLogContents.get(rsId).add(redoLogContent);
+            heapBytes += estimateBytes(redoLogContent);
+        } else {
+            List<RedoLogContent> list = new ArrayList<>(1);
+            list.add(redoLogContent);
+            chronicleMap.put(String.valueOf(groupCount++), list);
         }
         if ("UPDATE".equals(redoLogContent.getOperation())) {
             txUpdatedRowIds.add(redoLogContent.getRowId());
         }
     }
 
+    /**
+     * move redo log contents from heap to an off-heap chronicle map
+     */
+    public void spill() throws IOException {
+        if (tier != Tier.HEAP) {
+            return;
+        }
+        RedoLogContent sample = firstRedoLogContent();
+        if (sample == null) {
+            return;
+        }
+        ChronicleMap<String, List> offHeapMap = ChronicleMap
+                .of(String.class, List.class)
+                .name("xid" + xid)
+                .averageKey(String.valueOf(OFF_HEAP_TRANSACTION_UPPER_LIMIT))
+                .averageValue(Collections.singletonList(sample))
+                .entries(OFF_HEAP_TRANSACTION_UPPER_LIMIT)
+                .maxBloatFactor(200)
+                .create();
+        redoLogContents.forEach((key, list) -> offHeapMap.put(String.valueOf(groupCount++), list));
+        redoLogContents.clear();
+        chronicleMap = offHeapMap;
+        heapBytes = 0L;
+        tier = Tier.OFF_HEAP;
+    }
+
+    /**
+     * move redo log contents from off-heap to a chronicle map persisted to local file
+     */
+    private void spillToFile() throws IOException {
+        File cacheDir = new File("cacheTransaction" + File.separator + connectorId);
+        if (!cacheDir.exists()) {
+            cacheDir.mkdirs();
+        }
+        File cacheFile = cacheFile();
+        if (!cacheFile.exists()) {
+            cacheFile.createNewFile();
+        }
+        ChronicleMap<String, List> fileMap = ChronicleMap
+                .of(String.class, List.class)
+                .name("xid" + xid)
+                .averageKey(String.valueOf(FILE_TRANSACTION_ENTRIES))
+                .averageValue(Collections.singletonList(firstRedoLogContent()))
+                .entries(FILE_TRANSACTION_ENTRIES)
+                .maxBloatFactor(200)
+                .createPersistedTo(cacheFile);
+        fileMap.putAll(chronicleMap);
+        chronicleMap.close();
+        chronicleMap = fileMap;
+        tier = Tier.FILE;
+    }
+
+    private RedoLogContent firstRedoLogContent() {
+        Iterator<List<RedoLogContent>> iterator = redoLogContentGroups().iterator();
+        while (iterator.hasNext()) {
+            List<RedoLogContent> list = iterator.next();
+            if (EmptyKit.isNotEmpty(list)) {
+                return list.get(0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * redo log contents grouped by rs id, in the order they were added
+     */
+    public Iterable<List<RedoLogContent>> redoLogContentGroups() {
+        if (tier == Tier.HEAP) {
+            if (EmptyKit.isNull(redoLogContents)) {
+                return Collections.emptyList();
+            }
+            return (Iterable) redoLogContents.values();
+        }
+        return () -> new Iterator<List<RedoLogContent>>() {
+            private long next;
+            private List<RedoLogContent> current = advance();
+
+            private List<RedoLogContent> advance() {
+                while (next < groupCount) {
+                    List<RedoLogContent> list = chronicleMap.get(String.valueOf(next++));
+                    if (list != null) {
+                        return list;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return current != null;
+            }
+
+            @Override
+            public List<RedoLogContent> next() {
+                if (current == null) {
+                    throw new NoSuchElementException();
+                }
+                List<RedoLogContent> result = current;
+                current = advance();
+                return result;
+            }
+        };
+    }
+
+    private static long estimateBytes(RedoLogContent redoLogContent) {
+        long bytes = 256L;
+        if (redoLogContent.getSqlRedo() != null) {
+            bytes += 2L * redoLogContent.getSqlRedo().length();
+        }
+        if (redoLogContent.getSqlUndo() != null) {
+            bytes += 2L * redoLogContent.getSqlUndo().length();
+        }
+        if (redoLogContent.getRedoRecord() != null) {
+            bytes += 64L * redoLogContent.getRedoRecord().size();
+        }
+        if (redoLogContent.getUndoRecord() != null) {
+            bytes += 64L * redoLogContent.getUndoRecord().size();
+        }
+        return bytes;
+    }
+
+    private File cacheFile() {
+        return new File("cacheTransaction" + File.separator + connectorId + File.separator + xid + ".data");
+    }
+
     public void clearRedoLogContents() {
         if (EmptyKit.isNotEmpty(redoLogContents)) {
             redoLogContents.clear();
             txUpdatedRowIds.clear();
         }
-        if (EmptyKit.isNotEmpty(chronicleMap)) {
-            chronicleMap.clear();
+        if (EmptyKit.isNotNull(chronicleMap)) {
             chronicleMap.close();
+            chronicleMap = null;
         }
-        File cacheFile = new File("cacheTransaction" + File.separator + connectorId + File.separator + xid + ".data");
+        File cacheFile = cacheFile();
         if (cacheFile.exists()) {
             cacheFile.delete();
         }
+        heapBytes = 0L;
     }
 
     public Long getRacMinimalScn() {
@@ -166,10 +304,26 @@ public class LogTransaction {
     }
 
     public Map<String, List> getRedoLogContents() {
-        if (isLarge()) {
-            return chronicleMap;
-        } else {
+        if (tier == Tier.HEAP) {
             return redoLogContents;
+        } else {
+            return chronicleMap;
+        }
+    }
+
+    /**
+     * write back a group of {@link #getRedoLogContents()} after its list was changed, an empty group is removed.
+     * a spilled group is a copy of the stored one, changing it without writing back is lost
+     */
+    public void replaceRedoLogContents(String key, List<RedoLogContent> list) {
+        Map<String, List> contents = getRedoLogContents();
+        if (EmptyKit.isNull(contents)) {
+            return;
+        }
+        if (EmptyKit.isEmpty(list)) {
+            contents.remove(key);
+        } else if (tier != Tier.HEAP) {
+            contents.put(key, list);
         }
     }
 
@@ -197,6 +351,18 @@ public class LogTransaction {
         return this.size > LARGE_TRANSACTION_UPPER_LIMIT;
     }
 
+    public Tier getTier() {
+        return tier;
+    }
+
+    public long getHeapBytes() {
+        return heapBytes;
+    }
+
+    public long getOffHeapBytes() {
+        return EmptyKit.isNull(chronicleMap) ? 0L : chronicleMap.offHeapMemoryUsed();
+    }
+
     public Set<String> getTxUpdatedRowIds() {
         return txUpdatedRowIds;
     }
@@ -254,7 +420,9 @@ public class LogTransaction {
         return "LogTransaction{" + "rsId='" + rsId + '\'' +
                 ", scn=" + scn +
                 ", xid='" + xid + '\'' +
-                ", redoLogContents=" + redoLogContents +
+                ", size=" + size +
+                ", tier=" + tier +
+                ", heapBytes=" + heapBytes +
                 '}';
     }
 }
@@ -0,0 +1,149 @@
+package io.tapdata.common.cdc;
+
+import io.tapdata.entity.logger.TapLogger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Open transactions of log miner, in the order they began.
+ * <p>
+ * Each transaction keeps its redo log contents on heap until it becomes large, then spills to off-heap and at last to
+ * a local file (see {@link LogTransaction.Tier}). Besides, the estimated heap bytes of all transactions are bounded:
+ * when the limit is exceeded, the largest heap transactions are spilled first.
+ * <p>
+ * Transactions which were rolled back are indexed separately, so the rollback/delayed commit checks done for each redo
+ * log only visit them instead of all open transactions.
+ */
+public class TransactionBuffer {
+
+    private final static String TAG = TransactionBuffer.class.getSimpleName();
+    public static final long DEFAULT_HEAP_BYTES_LIMIT = 256L << 20;
+
+    private final LinkedHashMap<String, LogTransaction> transactions;
+    private final LinkedHashMap<String, LogTransaction> rollbackTransactions = new LinkedHashMap<>();
+    private final long heapBytesLimit;
+    private long heapBytes;
+
+    public TransactionBuffer(LinkedHashMap<String, LogTransaction> transactions, long heapBytesLimit) {
+        this.transactions = transactions;
+        this.heapBytesLimit = heapBytesLimit;
+    }
+
+    public boolean contains(String xid) {
+        return transactions.containsKey(xid);
+    }
+
+    public LogTransaction get(String xid) {
+        return transactions.get(xid);
+    }
+
+    public void put(LogTransaction logTransaction) {
+        LogTransaction old = transactions.put(logTransaction.getXid(), logTransaction);
+        if (old != null) {
+            heapBytes -= old.getHeapBytes();
+        }
+        heapBytes += logTransaction.getHeapBytes();
+    }
+
+    public void addRedoLogContent(LogTransaction logTransaction, RedoLogContent redoLogContent) throws IOException {
+        long before = logTransaction.getHeapBytes();
+        logTransaction.addRedoLogContent(redoLogContent);
+        heapBytes += logTransaction.getHeapBytes() - before;
+        if (heapBytes > heapBytesLimit) {
+            spillLargest();
+        }
+    }
+
+    public void markRollback(LogTransaction logTransaction) {
+        rollbackTransactions.put(logTransaction.getXid(), logTransaction);
+    }
+
+    /**
+     * @return transactions which were rolled back and are still open, in the order they began
+     */
+    public Collection<LogTransaction> getRollbackTransactions() {
+        return rollbackTransactions.values();
+    }
+
+    public LogTransaction remove(String xid) {
+        rollbackTransactions.remove(xid);
+        LogTransaction logTransaction = transactions.remove(xid);
+        if (logTransaction != null) {
+            heapBytes -= logTransaction.getHeapBytes();
+        }
+        return logTransaction;
+    }
+
+    /**
+     * Remove the transaction and drop its redo log contents
+     */
+    public void discard(String xid) {
+        LogTransaction logTransaction = remove(xid);
+        if (logTransaction != null) {
+            logTransaction.clearRedoLogContents();
+        }
+    }
+
+    private void spillLargest() throws IOException {
+        List<LogTransaction> heapTransactions = new ArrayList<>();
+        for (LogTransaction logTransaction : transactions.values()) {
+            if (logTransaction.getTier() == LogTransaction.Tier.HEAP && logTransaction.getHeapBytes() > 0) {
+                heapTransactions.add(logTransaction);
+            }
+        }
+        heapTransactions.sort((t1, t2) -> Long.compare(t2.getHeapBytes(), t1.getHeapBytes()));
+        long heapBytesBefore = heapBytes;
+        int spilled = 0;
+        // spill down to a half of the limit, so the next spill does not come right after
+        for (LogTransaction logTransaction : heapTransactions) {
+            if (heapBytes <= heapBytesLimit / 2) {
+                break;
+            }
+            long before = logTransaction.getHeapBytes();
+            logTransaction.spill();
+            heapBytes -= before - logTransaction.getHeapBytes();
+            spilled++;
+        }
+        TapLogger.info(TAG, "Heap bytes of open transactions {} exceed the limit {}, spilled {} largest transactions off heap, {}",
+                heapBytesBefore, heapBytesLimit, spilled, stats());
+    }
+
+    public int size() {
+        return transactions.size();
+    }
+
+    public long getHeapBytes() {
+        return heapBytes;
+    }
+
+    public long getOffHeapBytes() {
+        long bytes = 0L;
+        for (LogTransaction logTransaction : transactions.values()) {
+            bytes += logTransaction.getOffHeapBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return count of open transactions per tier and their heap/off-heap bytes, for logging
+     */
+    public String stats() {
+        int[] tiers = new int[LogTransaction.Tier.values().length];
+        long offHeapBytes = 0L;
+        for (LogTransaction logTransaction : transactions.values()) {
+            tiers[logTransaction.getTier().ordinal()]++;
+            offHeapBytes += logTransaction.getOffHeapBytes();
+        }
+        StringBuilder sb = new StringBuilder("open transactions: ").append(transactions.size());
+        for (LogTransaction.Tier tier : LogTransaction.Tier.values()) {
+            sb.append(", ").append(tier.name().toLowerCase()).append(": ").append(tiers[tier.ordinal()]);
+        }
+        return sb.append(", rolled back: ").append(rollbackTransactions.size())
+                .append(", heap bytes: ").append(heapBytes)
+                .append(", off heap bytes: ").append(offHeapBytes).toString();
+    }
+}
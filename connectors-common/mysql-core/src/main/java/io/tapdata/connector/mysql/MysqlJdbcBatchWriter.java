@@ -0,0 +1,329 @@
+package io.tapdata.connector.mysql;
+
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.logger.TapLogger;
+import io.tapdata.entity.schema.TapIndex;
+import io.tapdata.entity.schema.TapIndexField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.apis.context.TapConnectorContext;
+import io.tapdata.pdk.apis.entity.ConnectionOptions;
+import io.tapdata.pdk.apis.entity.WriteListResult;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.MapUtils;
+
+import java.sql.*;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Fold consecutive events of a table into few statements:
+ * inserts and upserting updates into multi-row INSERT ... ON DUPLICATE KEY UPDATE, other updates into a JDBC batch,
+ * deletes into DELETE ... WHERE pk IN (...).
+ * <p>
+ * Events are split into runs of one statement kind and column set, runs are executed in the order of events, and rows
+ * of one statement are applied in order, so changes of a key keep their order. If a run fails on a data error it is
+ * executed again one by one by {@link MysqlJdbcOneByOneWriter}, and so do events that can not be batched (primary key
+ * changed, null key). Errors which roll back the whole transaction or lose the connection fail the whole batch, see
+ * {@link #abortsTransaction(SQLException)}.
+ * Tables without primary key or unique index are written one by one.
+ *
+ * @author agent
+ * @Description
+ * @create 2026-10-18 15:20
+ **/
+public class MysqlJdbcBatchWriter extends MysqlJdbcOneByOneWriter {
+
+	private static final String TAG = MysqlJdbcBatchWriter.class.getSimpleName();
+	protected static final String UPSERT_SQL_TEMPLATE = "INSERT INTO `%s`.`%s`(%s) values%s ON DUPLICATE KEY UPDATE %s";
+	protected static final String DELETE_IN_SQL_TEMPLATE = "DELETE FROM `%s`.`%s` WHERE %s IN (%s)";
+	private static final int MAX_ROWS = 1000;
+	private static final int MAX_PARAMETERS = 65535;
+
+	public MysqlJdbcBatchWriter(MysqlJdbcContext mysqlJdbcContext) throws Throwable {
+		super(mysqlJdbcContext);
+	}
+
+	@Override
+	public WriteListResult<TapRecordEvent> write(TapConnectorContext tapConnectorContext, TapTable tapTable, List<TapRecordEvent> tapRecordEvents) throws Throwable {
+		if (!batchable(tapTable)) {
+			return super.write(tapConnectorContext, tapTable, tapRecordEvents);
+		}
+		String insertDmlPolicy = ConnectionOptions.DML_INSERT_POLICY_UPDATE_ON_EXISTS;
+		String updateDmlPolicy = ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS;
+		if (null != tapConnectorContext.getConnectorCapabilities()) {
+			if (null != tapConnectorContext.getConnectorCapabilities().getCapabilityAlternative(ConnectionOptions.DML_INSERT_POLICY)) {
+				insertDmlPolicy = tapConnectorContext.getConnectorCapabilities().getCapabilityAlternative(ConnectionOptions.DML_INSERT_POLICY);
+			}
+			if (null != tapConnectorContext.getConnectorCapabilities().getCapabilityAlternative(ConnectionOptions.DML_UPDATE_POLICY)) {
+				updateDmlPolicy = tapConnectorContext.getConnectorCapabilities().getCapabilityAlternative(ConnectionOptions.DML_UPDATE_POLICY);
+			}
+		}
+		WriteListResult<TapRecordEvent> writeListResult = new WriteListResult<>(0L, 0L, 0L, new HashMap<>());
+		try {
+			for (Run run : splitRuns(tapTable, getUniqueKeys(tapTable), tapRecordEvents, insertDmlPolicy, updateDmlPolicy)) {
+				if (!running.get()) break;
+				executeRun(tapConnectorContext, tapTable, run, writeListResult);
+			}
+			MysqlJdbcContext.tryCommit(connection);
+		} catch (Throwable e) {
+			writeListResult.setInsertedCount(0);
+			writeListResult.setModifiedCount(0);
+			writeListResult.setRemovedCount(0);
+			MysqlJdbcContext.tryRollBack(connection);
+			throw e;
+		}
+		return writeListResult;
+	}
+
+	/**
+	 * ON DUPLICATE KEY and IN (...) only stand for the unique keys when the target has such a primary key or unique index
+	 */
+	protected boolean batchable(TapTable tapTable) {
+		Collection<String> uniqueKeys = getUniqueKeys(tapTable);
+		if (CollectionUtils.isEmpty(uniqueKeys)) {
+			return false;
+		}
+		if (CollectionUtils.isNotEmpty(tapTable.primaryKeys())) {
+			return true;
+		}
+		return CollectionUtils.isNotEmpty(tapTable.getIndexList()) && tapTable.getIndexList().stream().filter(TapIndex::isUnique).anyMatch(index ->
+				index.getIndexFields().size() == uniqueKeys.size()
+						&& uniqueKeys.containsAll(index.getIndexFields().stream().map(TapIndexField::getName).collect(Collectors.toList())));
+	}
+
+	private void executeRun(TapConnectorContext tapConnectorContext, TapTable tapTable, Run run, WriteListResult<TapRecordEvent> writeListResult) throws Throwable {
+		if (run.type == RunType.ONE_BY_ONE) {
+			writeOneByOne(tapConnectorContext, tapTable, run.events, writeListResult);
+			return;
+		}
+		String database = tapConnectorContext.getConnectionConfig().getString("database");
+		try {
+			switch (run.type) {
+				case UPSERT:
+				case INSERT_IGNORE:
+					executeUpsert(database, tapTable, run);
+					break;
+				case UPDATE:
+					executeUpdate(database, tapTable, run);
+					break;
+				case DELETE:
+					executeDelete(database, tapTable, run);
+					break;
+			}
+		} catch (SQLException e) {
+			if (abortsTransaction(e)) {
+				// the earlier runs of this batch are rolled back too, write() rolls back and the whole batch is retried
+				throw e;
+			}
+			// a failed statement on a data error is rolled back by itself, rows of a rewritten batch which were applied are written again with the same values
+			TapLogger.warn(TAG, "Execute " + run.type + " of " + run.events.size() + " events failed, will retry one by one, message: " + e.getMessage());
+			writeOneByOne(tapConnectorContext, tapTable, run.events, writeListResult);
+			return;
+		}
+		for (TapRecordEvent tapRecordEvent : run.events) {
+			if (tapRecordEvent instanceof TapInsertRecordEvent) {
+				writeListResult.incrementInserted(1);
+			} else if (tapRecordEvent instanceof TapUpdateRecordEvent) {
+				writeListResult.incrementModified(1);
+			} else {
+				writeListResult.incrementRemove(1);
+			}
+		}
+	}
+
+	/**
+	 * Deadlock and lock wait rollback (class 40, error 1213), lock wait timeout (1205), lost connection (class 08) and
+	 * other transient errors: MySQL may have rolled back the whole transaction, so retrying only the failed run would
+	 * commit a batch missing its earlier runs
+	 */
+	static boolean abortsTransaction(SQLException e) {
+		Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		Throwable cause = e;
+		while (cause instanceof SQLException && seen.add(cause)) {
+			SQLException sqlException = (SQLException) cause;
+			if (sqlException instanceof SQLTransactionRollbackException || sqlException instanceof SQLTransientException
+					|| sqlException instanceof SQLNonTransientConnectionException || sqlException instanceof SQLRecoverableException) {
+				return true;
+			}
+			String sqlState = sqlException.getSQLState();
+			if (null != sqlState && (sqlState.startsWith("40") || sqlState.startsWith("08"))) {
+				return true;
+			}
+			if (sqlException.getErrorCode() == 1213 || sqlException.getErrorCode() == 1205) {
+				return true;
+			}
+			// a failed batch carries the error of the failed statement as cause or next exception
+			cause = null != sqlException.getCause() ? sqlException.getCause() : sqlException.getNextException();
+		}
+		return false;
+	}
+
+	private void executeUpsert(String database, TapTable tapTable, Run run) throws SQLException {
+		String row = "(" + run.fields.stream().map(f -> "?").collect(Collectors.joining(",")) + ")";
+		String update;
+		if (run.type == RunType.INSERT_IGNORE) {
+			// keep the existing row, unlike INSERT IGNORE other errors are still raised
+			String uniqueKey = "`" + getUniqueKeys(tapTable).iterator().next() + "`";
+			update = uniqueKey + "=" + uniqueKey;
+		} else {
+			update = run.fields.stream().map(f -> "`" + f + "`=VALUES(`" + f + "`)").collect(Collectors.joining(","));
+		}
+		String sql = String.format(UPSERT_SQL_TEMPLATE, database, tapTable.getId(), run.fields.stream().map(f -> "`" + f + "`").collect(Collectors.joining(",")),
+				String.join(",", Collections.nCopies(run.events.size(), row)), update);
+		try (PreparedStatement preparedStatement = this.connection.prepareStatement(sql)) {
+			int parameterIndex = 1;
+			for (TapRecordEvent tapRecordEvent : run.events) {
+				Map<String, Object> after = getAfter(tapRecordEvent);
+				for (String field : run.fields) {
+					preparedStatement.setObject(parameterIndex++, after.get(field));
+				}
+			}
+			preparedStatement.executeUpdate();
+		}
+	}
+
+	private void executeUpdate(String database, TapTable tapTable, Run run) throws Throwable {
+		Collection<String> uniqueKeys = getUniqueKeys(tapTable);
+		String sql = String.format(UPDATE_SQL_TEMPLATE, database, tapTable.getId(), run.fields.stream().map(f -> "`" + f + "`=?").collect(Collectors.joining(",")),
+				uniqueKeys.stream().map(k -> "`" + k + "`<=>?").collect(Collectors.joining(" AND ")));
+		try (PreparedStatement preparedStatement = this.connection.prepareStatement(sql)) {
+			for (TapRecordEvent tapRecordEvent : run.events) {
+				Map<String, Object> after = getAfter(tapRecordEvent);
+				int parameterIndex = 1;
+				for (String field : run.fields) {
+					preparedStatement.setObject(parameterIndex++, after.get(field));
+				}
+				setPreparedStatementWhere(tapTable, tapRecordEvent, preparedStatement, parameterIndex);
+				preparedStatement.addBatch();
+			}
+			// sent as one request with rewriteBatchedStatements
+			preparedStatement.executeBatch();
+		}
+	}
+
+	private void executeDelete(String database, TapTable tapTable, Run run) throws SQLException {
+		List<String> uniqueKeys = new ArrayList<>(getUniqueKeys(tapTable));
+		String row = uniqueKeys.size() == 1 ? "?" : "(" + uniqueKeys.stream().map(k -> "?").collect(Collectors.joining(",")) + ")";
+		String column = uniqueKeys.size() == 1 ? "`" + uniqueKeys.get(0) + "`" : "(" + uniqueKeys.stream().map(k -> "`" + k + "`").collect(Collectors.joining(",")) + ")";
+		String sql = String.format(DELETE_IN_SQL_TEMPLATE, database, tapTable.getId(), column, String.join(",", Collections.nCopies(run.events.size(), row)));
+		try (PreparedStatement preparedStatement = this.connection.prepareStatement(sql)) {
+			int parameterIndex = 1;
+			for (TapRecordEvent tapRecordEvent : run.events) {
+				Map<String, Object> before = getBefore(tapRecordEvent);
+				for (String uniqueKey : uniqueKeys) {
+					preparedStatement.setObject(parameterIndex++, before.get(uniqueKey));
+				}
+			}
+			preparedStatement.executeUpdate();
+		}
+	}
+
+	/**
+	 * Split events into runs, a new run starts when the statement kind or the columns change, or the run is full
+	 */
+	static List<Run> splitRuns(TapTable tapTable, Collection<String> uniqueKeys, List<TapRecordEvent> tapRecordEvents, String insertDmlPolicy, String updateDmlPolicy) {
+		List<Run> runs = new ArrayList<>();
+		Run current = null;
+		for (TapRecordEvent tapRecordEvent : tapRecordEvents) {
+			RunType type = runType(tapRecordEvent, uniqueKeys, insertDmlPolicy, updateDmlPolicy);
+			List<String> fields = Collections.emptyList();
+			if (type == RunType.UPSERT || type == RunType.INSERT_IGNORE || type == RunType.UPDATE) {
+				Map<String, Object> after = after(tapRecordEvent);
+				fields = tapTable.getNameFieldMap().keySet().stream().filter(after::containsKey).collect(Collectors.toList());
+			}
+			int maxRows = Math.min(MAX_ROWS, MAX_PARAMETERS / Math.max(1, Math.max(fields.size(), uniqueKeys.size())));
+			if (null == current || current.type != type || !current.fields.equals(fields) || current.events.size() >= maxRows) {
+				current = new Run(type, fields);
+				runs.add(current);
+			}
+			current.events.add(tapRecordEvent);
+		}
+		return runs;
+	}
+
+	private static RunType runType(TapRecordEvent tapRecordEvent, Collection<String> uniqueKeys, String insertDmlPolicy, String updateDmlPolicy) {
+		if (tapRecordEvent instanceof TapInsertRecordEvent) {
+			if (MapUtils.isEmpty(after(tapRecordEvent))) {
+				return RunType.ONE_BY_ONE;
+			}
+			return ConnectionOptions.DML_INSERT_POLICY_IGNORE_ON_EXISTS.equals(insertDmlPolicy) ? RunType.INSERT_IGNORE : RunType.UPSERT;
+		} else if (tapRecordEvent instanceof TapUpdateRecordEvent) {
+			Map<String, Object> before = before(tapRecordEvent);
+			Map<String, Object> after = after(tapRecordEvent);
+			if (MapUtils.isEmpty(after)) {
+				return RunType.ONE_BY_ONE;
+			}
+			if (ConnectionOptions.DML_UPDATE_POLICY_INSERT_ON_NON_EXISTS.equals(updateDmlPolicy)) {
+				// upsert by after, only if the key is in after and not changed
+				for (String uniqueKey : uniqueKeys) {
+					if (!after.containsKey(uniqueKey) || (MapUtils.isNotEmpty(before) && before.containsKey(uniqueKey)
+							&& !Objects.equals(before.get(uniqueKey), after.get(uniqueKey)))) {
+						return RunType.ONE_BY_ONE;
+					}
+				}
+				return RunType.UPSERT;
+			}
+			Map<String, Object> where = MapUtils.isNotEmpty(before) ? before : after;
+			if (!where.keySet().containsAll(uniqueKeys)) {
+				return RunType.ONE_BY_ONE;
+			}
+			return RunType.UPDATE;
+		} else if (tapRecordEvent instanceof TapDeleteRecordEvent) {
+			Map<String, Object> before = before(tapRecordEvent);
+			// IN (...) does not match null
+			if (MapUtils.isEmpty(before) || uniqueKeys.stream().anyMatch(k -> null == before.get(k))) {
+				return RunType.ONE_BY_ONE;
+			}
+			return RunType.DELETE;
+		}
+		return RunType.ONE_BY_ONE;
+	}
+
+	private static Map<String, Object> before(TapRecordEvent tapRecordEvent) {
+		if (tapRecordEvent instanceof TapUpdateRecordEvent) {
+			return ((TapUpdateRecordEvent) tapRecordEvent).getBefore();
+		} else if (tapRecordEvent instanceof TapDeleteRecordEvent) {
+			return ((TapDeleteRecordEvent) tapRecordEvent).getBefore();
+		}
+		return null;
+	}
+
+	private static Map<String, Object> after(TapRecordEvent tapRecordEvent) {
+		if (tapRecordEvent instanceof TapInsertRecordEvent) {
+			return ((TapInsertRecordEvent) tapRecordEvent).getAfter();
+		} else if (tapRecordEvent instanceof TapUpdateRecordEvent) {
+			return ((TapUpdateRecordEvent) tapRecordEvent).getAfter();
+		}
+		return null;
+	}
+
+	protected enum RunType {
+		UPSERT, INSERT_IGNORE, UPDATE, DELETE, ONE_BY_ONE
+	}
+
+	protected static class Run {
+		private final RunType type;
+		private final List<String> fields;
+		private final List<TapRecordEvent> events = new ArrayList<>();
+
+		public Run(RunType type, List<String> fields) {
+			this.type = type;
+			this.fields = fields;
+		}
+
+		public RunType getType() {
+			return type;
+		}
+
+		public List<String> getFields() {
+			return fields;
+		}
+
+		public List<TapRecordEvent> getEvents() {
+			return events;
+		}
+	}
+}
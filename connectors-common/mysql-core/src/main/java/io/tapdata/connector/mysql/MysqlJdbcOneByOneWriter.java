@@ -33,7 +33,7 @@ public class MysqlJdbcOneByOneWriter extends MysqlWriter {
 
 	private static final String TAG = MysqlJdbcOneByOneWriter.class.getSimpleName();
 	private final Map<String, JdbcCache> jdbcCacheMap = new ConcurrentHashMap<>();
-	private final AtomicBoolean running = new AtomicBoolean(true);
+	protected final AtomicBoolean running = new AtomicBoolean(true);
 
 	public MysqlJdbcOneByOneWriter(MysqlJdbcContext mysqlJdbcContext) throws Throwable {
 		super(mysqlJdbcContext);
@@ -42,40 +42,45 @@ public class MysqlJdbcOneByOneWriter extends MysqlWriter {
 	@Override
 	public WriteListResult<TapRecordEvent> write(TapConnectorContext tapConnectorContext, TapTable tapTable, List<TapRecordEvent> tapRecordEvents) throws Throwable {
 		WriteListResult<TapRecordEvent> writeListResult = new WriteListResult<>(0L, 0L, 0L, new HashMap<>());
-		TapRecordEvent errorRecord = null;
 		try {
-			for (TapRecordEvent tapRecordEvent : tapRecordEvents) {
-				if (!running.get()) break;
-				try {
-					if (tapRecordEvent instanceof TapInsertRecordEvent) {
-						int insertRow = doInsertOne(tapConnectorContext, tapTable, tapRecordEvent);
-						writeListResult.incrementInserted(insertRow);
-					} else if (tapRecordEvent instanceof TapUpdateRecordEvent) {
-						int updateRow = doUpdateOne(tapConnectorContext, tapTable, tapRecordEvent);
-						writeListResult.incrementModified(updateRow);
-					} else if (tapRecordEvent instanceof TapDeleteRecordEvent) {
-						int deleteRow = doDeleteOne(tapConnectorContext, tapTable, tapRecordEvent);
-						writeListResult.incrementRemove(deleteRow);
-					} else {
-						writeListResult.addError(tapRecordEvent, new Exception("Event type \"" + tapRecordEvent.getClass().getSimpleName() + "\" not support: " + tapRecordEvent));
-					}
-				} catch (Throwable e) {
-					errorRecord = tapRecordEvent;
-					throw e;
-				}
-			}
+			writeOneByOne(tapConnectorContext, tapTable, tapRecordEvents, writeListResult);
 			MysqlJdbcContext.tryCommit(connection);
 		} catch (Throwable e) {
 			writeListResult.setInsertedCount(0);
 			writeListResult.setModifiedCount(0);
 			writeListResult.setRemovedCount(0);
-			if (null != errorRecord) writeListResult.addError(errorRecord, e);
 			MysqlJdbcContext.tryRollBack(connection);
 			throw e;
 		}
 		return writeListResult;
 	}
 
+	/**
+	 * Execute events one statement each, without commit
+	 */
+	protected void writeOneByOne(TapConnectorContext tapConnectorContext, TapTable tapTable, List<TapRecordEvent> tapRecordEvents, WriteListResult<TapRecordEvent> writeListResult) throws Throwable {
+		for (TapRecordEvent tapRecordEvent : tapRecordEvents) {
+			if (!running.get()) break;
+			try {
+				if (tapRecordEvent instanceof TapInsertRecordEvent) {
+					int insertRow = doInsertOne(tapConnectorContext, tapTable, tapRecordEvent);
+					writeListResult.incrementInserted(insertRow);
+				} else if (tapRecordEvent instanceof TapUpdateRecordEvent) {
+					int updateRow = doUpdateOne(tapConnectorContext, tapTable, tapRecordEvent);
+					writeListResult.incrementModified(updateRow);
+				} else if (tapRecordEvent instanceof TapDeleteRecordEvent) {
+					int deleteRow = doDeleteOne(tapConnectorContext, tapTable, tapRecordEvent);
+					writeListResult.incrementRemove(deleteRow);
+				} else {
+					writeListResult.addError(tapRecordEvent, new Exception("Event type \"" + tapRecordEvent.getClass().getSimpleName() + "\" not support: " + tapRecordEvent));
+				}
+			} catch (Throwable e) {
+				writeListResult.addError(tapRecordEvent, e);
+				throw e;
+			}
+		}
+	}
+
 	@Override
 	public void onDestroy() {
 		this.running.set(false);
@@ -9,6 +9,7 @@ import io.tapdata.common.ddl.ccj.CCJBaseDDLWrapper;
 import io.tapdata.common.ddl.type.DDLParserType;
 import io.tapdata.common.ddl.wrapper.DDLWrapperConfig;
 import io.tapdata.connector.mysql.entity.MysqlBinlogPosition;
+import io.tapdata.connector.mysql.entity.MysqlSnapshotChunk;
 import io.tapdata.connector.mysql.entity.MysqlSnapshotOffset;
 import io.tapdata.connector.mysql.entity.MysqlStreamEvent;
 import io.tapdata.connector.mysql.entity.MysqlStreamOffset;
@@ -36,6 +37,7 @@ import io.tapdata.pdk.apis.consumer.StreamReadConsumer;
 import io.tapdata.pdk.apis.context.TapConnectorContext;
 import io.tapdata.pdk.apis.entity.TapAdvanceFilter;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.connect.data.Field;
 import org.apache.kafka.connect.data.Schema;
@@ -45,8 +47,11 @@ import org.apache.kafka.connect.storage.OffsetUtils;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
@@ -76,13 +81,21 @@ public class MysqlReader implements Closeable {
 	private AtomicBoolean running;
 	private MysqlJdbcContext mysqlJdbcContext;
 	private EmbeddedEngine embeddedEngine;
-	private LinkedBlockingQueue<MysqlStreamEvent> eventQueue;
+	private LinkedBlockingQueue<List<MysqlStreamEvent>> eventQueue;
 	private ExecutorService streamConsumerThreadPool;
 	private StreamReadConsumer streamReadConsumer;
 	private ScheduledExecutorService mysqlSchemaHistoryMonitor;
 	private KVReadOnlyMap<TapTable> tapTableMap;
 	private DDLParserType ddlParserType = DDLParserType.MYSQL_CCJ_SQL_PARSER;
 	private final int MIN_BATCH_SIZE = 1000;
+	private static final String SELECT_PK_RANGE = "SELECT MIN(`%s`), MAX(`%s`) FROM `%s`.`%s`";
+	private static final int SNAPSHOT_CHUNK_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+	private static final long MIN_CHUNK_KEY_RANGE = 1000000L;
+	private static final int CHUNK_ROWS_SIZE = 500;
+	private static final int EVENT_QUEUE_CAPACITY = 16;
+	private static final long MAX_LINGER_MILLIS = 500L;
+	private int eventBatchSize = MIN_BATCH_SIZE;
+	private final JsonParser jsonParser = InstanceFactory.instance(JsonParser.class);
 
 	public MysqlReader(MysqlJdbcContext mysqlJdbcContext) {
 		this.mysqlJdbcContext = mysqlJdbcContext;
@@ -91,26 +104,30 @@ public class MysqlReader implements Closeable {
 
 	public void readWithOffset(TapConnectorContext tapConnectorContext, TapTable tapTable, MysqlSnapshotOffset mysqlSnapshotOffset,
 							   Predicate<?> stop, BiConsumer<Map<String, Object>, MysqlSnapshotOffset> consumer) throws Throwable {
+		if (null == mysqlSnapshotOffset.getChunks() && MapUtils.isEmpty(mysqlSnapshotOffset.getOffset())) {
+			mysqlSnapshotOffset.setChunks(splitChunks(tapConnectorContext, tapTable));
+		}
+		if (CollectionUtils.isNotEmpty(mysqlSnapshotOffset.getChunks())) {
+			readWithChunks(tapConnectorContext, tapTable, mysqlSnapshotOffset, stop, consumer);
+			return;
+		}
 		SqlMaker sqlMaker = new MysqlMaker();
 		String sql = sqlMaker.selectSql(tapConnectorContext, tapTable, mysqlSnapshotOffset);
 		Collection<String> pks = tapTable.primaryKeys(true);
 		AtomicLong row = new AtomicLong(0L);
 		try {
 			this.mysqlJdbcContext.queryWithStream(sql, rs -> {
-				ResultSetMetaData metaData = rs.getMetaData();
+				String[] columnNames = columnNames(rs.getMetaData());
+				boolean[] isPk = new boolean[columnNames.length];
+				for (int i = 0; i < columnNames.length; i++) {
+					isPk[i] = pks.contains(columnNames[i]);
+				}
 				while ((null == stop || !stop.test(null)) && rs.next()) {
 					row.incrementAndGet();
-					Map<String, Object> data = new HashMap<>();
-					for (int i = 0; i < metaData.getColumnCount(); i++) {
-						String columnName = metaData.getColumnName(i + 1);
-						try {
-							Object value = rs.getObject(i + 1);
-							data.put(columnName, value);
-							if (pks.contains(columnName)) {
-								mysqlSnapshotOffset.getOffset().put(columnName, value);
-							}
-						} catch (Exception e) {
-							throw new Exception("Read column value failed, row: " + row.get() + ", column name: " + columnName + ", data: " + data + "; Error: " + e.getMessage(), e);
+					Map<String, Object> data = readRow(rs, columnNames, row.get());
+					for (int i = 0; i < columnNames.length; i++) {
+						if (isPk[i]) {
+							mysqlSnapshotOffset.getOffset().put(columnNames[i], data.get(columnNames[i]));
 						}
 					}
 					consumer.accept(data, mysqlSnapshotOffset);
@@ -125,6 +142,182 @@ public class MysqlReader implements Closeable {
 		}
 	}
 
+	/**
+	 * Split the table into primary key ranges, only for a single integer primary key whose range is large enough
+	 *
+	 * @return null if the table should be read by one cursor
+	 */
+	private List<MysqlSnapshotChunk> splitChunks(TapConnectorContext tapConnectorContext, TapTable tapTable) throws Throwable {
+		Collection<String> pks = tapTable.primaryKeys();
+		if (null == pks || pks.size() != 1 || SNAPSHOT_CHUNK_THREADS < 2) {
+			return null;
+		}
+		String pk = pks.iterator().next();
+		String database = tapConnectorContext.getConnectionConfig().getString("database");
+		AtomicReference<Object> min = new AtomicReference<>();
+		AtomicReference<Object> max = new AtomicReference<>();
+		this.mysqlJdbcContext.query(String.format(SELECT_PK_RANGE, pk, pk, database, tapTable.getId()), rs -> {
+			if (rs.next()) {
+				min.set(rs.getObject(1));
+				max.set(rs.getObject(2));
+			}
+		});
+		Long minValue = toLong(min.get());
+		Long maxValue = toLong(max.get());
+		if (null == minValue || null == maxValue) {
+			return null;
+		}
+		// split points by min/max assume keys are roughly evenly distributed, more chunks than threads smooth out the skew
+		long range = maxValue - minValue;
+		if (range < 0 || range / MIN_CHUNK_KEY_RANGE < 2) {
+			return null;
+		}
+		long chunkCount = Math.min(SNAPSHOT_CHUNK_THREADS * 4L, range / MIN_CHUNK_KEY_RANGE);
+		long step = range / chunkCount + 1;
+		List<MysqlSnapshotChunk> chunks = new ArrayList<>();
+		for (long lower = minValue; ; lower += step) {
+			long upper = maxValue - lower < step ? maxValue : lower + step - 1;
+			chunks.add(new MysqlSnapshotChunk(pk, lower, upper));
+			if (upper == maxValue) {
+				break;
+			}
+		}
+		TapLogger.info(TAG, "Table {} will be read in {} chunks of primary key {} from {} to {}, threads: {}",
+				tapTable.getId(), chunks.size(), pk, minValue, maxValue, SNAPSHOT_CHUNK_THREADS);
+		return chunks;
+	}
+
+	private static Long toLong(Object value) {
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return ((Number) value).longValue();
+		} else if (value instanceof BigInteger && ((BigInteger) value).bitLength() < 64) {
+			return ((BigInteger) value).longValue();
+		}
+		return null;
+	}
+
+	/**
+	 * Read chunks with a bounded pool, each chunk by its own streaming cursor.
+	 * Rows are handed back to this thread in small batches, so the consumer is called by one thread only, and chunk
+	 * offsets are moved only after their rows are consumed
+	 */
+	private void readWithChunks(TapConnectorContext tapConnectorContext, TapTable tapTable, MysqlSnapshotOffset mysqlSnapshotOffset,
+								Predicate<?> stop, BiConsumer<Map<String, Object>, MysqlSnapshotOffset> consumer) throws Throwable {
+		String database = tapConnectorContext.getConnectionConfig().getString("database");
+		List<MysqlSnapshotChunk> chunks = mysqlSnapshotOffset.getChunks().stream().filter(c -> !c.isDone()).collect(Collectors.toList());
+		if (chunks.isEmpty()) {
+			return;
+		}
+		int threads = Math.min(SNAPSHOT_CHUNK_THREADS, chunks.size());
+		LinkedBlockingQueue<ChunkRows> chunkRowsQueue = new LinkedBlockingQueue<>(threads * 2);
+		AtomicReference<Throwable> throwableAtomicReference = new AtomicReference<>();
+		AtomicBoolean chunkRunning = new AtomicBoolean(true);
+		Predicate<Object> chunkStop = n -> !chunkRunning.get() || !running.get() || null != throwableAtomicReference.get() || (null != stop && stop.test(null));
+		ExecutorService chunkThreadPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+		try {
+			for (MysqlSnapshotChunk chunk : chunks) {
+				chunkThreadPool.submit(() -> {
+					tapConnectorContext.configContext();
+					try {
+						readChunk(database, tapTable, chunk, chunkStop, chunkRowsQueue);
+					} catch (Throwable e) {
+						if (!chunkStop.test(null)) {
+							throwableAtomicReference.compareAndSet(null, e);
+						}
+					}
+				});
+			}
+			int doneChunks = 0;
+			while (doneChunks < chunks.size()) {
+				if (null != stop && stop.test(null)) {
+					return;
+				}
+				if (null != throwableAtomicReference.get()) {
+					throw throwableAtomicReference.get();
+				}
+				ChunkRows chunkRows = chunkRowsQueue.poll(1L, TimeUnit.SECONDS);
+				if (null == chunkRows) {
+					continue;
+				}
+				MysqlSnapshotChunk chunk = chunkRows.chunk;
+				for (Map<String, Object> data : chunkRows.rows) {
+					chunk.setOffset(toLong(data.get(chunk.getPk())));
+					consumer.accept(data, mysqlSnapshotOffset);
+				}
+				if (chunkRows.last) {
+					chunk.setDone(true);
+					doneChunks++;
+					TapLogger.info(TAG, "Table {} chunk {}-{} completed, {}/{} chunks left", tapTable.getId(), chunk.getMin(), chunk.getMax(),
+							chunks.size() - doneChunks, mysqlSnapshotOffset.getChunks().size());
+				}
+			}
+		} finally {
+			chunkRunning.set(false);
+			chunkThreadPool.shutdownNow();
+		}
+	}
+
+	private void readChunk(String database, TapTable tapTable, MysqlSnapshotChunk chunk, Predicate<Object> stop, LinkedBlockingQueue<ChunkRows> chunkRowsQueue) throws Throwable {
+		long lower = null == chunk.getOffset() ? chunk.getMin() : chunk.getOffset() + 1;
+		String sql = String.format(MysqlJdbcContext.SELECT_TABLE, database, tapTable.getId())
+				+ String.format(" WHERE `%s`>=%d AND `%s`<=%d ORDER BY `%s` ASC", chunk.getPk(), lower, chunk.getPk(), chunk.getMax(), chunk.getPk());
+		AtomicLong row = new AtomicLong(0L);
+		this.mysqlJdbcContext.queryWithStream(sql, rs -> {
+			String[] columnNames = columnNames(rs.getMetaData());
+			List<Map<String, Object>> rows = new ArrayList<>(CHUNK_ROWS_SIZE);
+			while (!stop.test(null) && rs.next()) {
+				rows.add(readRow(rs, columnNames, row.incrementAndGet()));
+				if (rows.size() >= CHUNK_ROWS_SIZE) {
+					offerChunkRows(new ChunkRows(chunk, rows, false), stop, chunkRowsQueue);
+					rows = new ArrayList<>(CHUNK_ROWS_SIZE);
+				}
+			}
+			if (!stop.test(null)) {
+				offerChunkRows(new ChunkRows(chunk, rows, true), stop, chunkRowsQueue);
+			}
+		});
+	}
+
+	private void offerChunkRows(ChunkRows chunkRows, Predicate<Object> stop, LinkedBlockingQueue<ChunkRows> chunkRowsQueue) throws InterruptedException {
+		while (!stop.test(null)) {
+			if (chunkRowsQueue.offer(chunkRows, 1L, TimeUnit.SECONDS)) {
+				break;
+			}
+		}
+	}
+
+	private static String[] columnNames(ResultSetMetaData metaData) throws SQLException {
+		String[] columnNames = new String[metaData.getColumnCount()];
+		for (int i = 0; i < columnNames.length; i++) {
+			columnNames[i] = metaData.getColumnName(i + 1);
+		}
+		return columnNames;
+	}
+
+	private static Map<String, Object> readRow(ResultSet rs, String[] columnNames, long row) throws Exception {
+		Map<String, Object> data = new HashMap<>(columnNames.length * 4 / 3 + 1);
+		for (int i = 0; i < columnNames.length; i++) {
+			try {
+				data.put(columnNames[i], rs.getObject(i + 1));
+			} catch (Exception e) {
+				throw new Exception("Read column value failed, row: " + row + ", column name: " + columnNames[i] + ", data: " + data + "; Error: " + e.getMessage(), e);
+			}
+		}
+		return data;
+	}
+
+	private static class ChunkRows {
+		private final MysqlSnapshotChunk chunk;
+		private final List<Map<String, Object>> rows;
+		private final boolean last;
+
+		private ChunkRows(MysqlSnapshotChunk chunk, List<Map<String, Object>> rows, boolean last) {
+			this.chunk = chunk;
+			this.rows = rows;
+			this.last = last;
+		}
+	}
+
 	public void readWithFilter(TapConnectorContext tapConnectorContext, TapTable tapTable, TapAdvanceFilter tapAdvanceFilter,
 							   Predicate<?> stop, Consumer<Map<String, Object>> consumer) throws Throwable {
 		SqlMaker sqlMaker = new MysqlMaker();
@@ -132,23 +325,12 @@ public class MysqlReader implements Closeable {
 		AtomicLong row = new AtomicLong(0L);
 		try {
 			this.mysqlJdbcContext.queryWithStream(sql, rs -> {
-				ResultSetMetaData metaData = rs.getMetaData();
+				String[] columnNames = columnNames(rs.getMetaData());
 				while (rs.next()) {
 					if (null != stop && stop.test(null)) {
 						break;
 					}
-					row.incrementAndGet();
-					Map<String, Object> data = new HashMap<>();
-					for (int i = 0; i < metaData.getColumnCount(); i++) {
-						String columnName = metaData.getColumnName(i + 1);
-						try {
-							Object value = rs.getObject(i + 1);
-							data.put(columnName, value);
-						} catch (Exception e) {
-							throw new Exception("Read column value failed, row: " + row.get() + ", column name: " + columnName + ", data: " + data + "; Error: " + e.getMessage(), e);
-						}
-					}
-					consumer.accept(data);
+					consumer.accept(readRow(rs, columnNames, row.incrementAndGet()));
 				}
 			});
 		} catch (Throwable e) {
@@ -164,6 +346,7 @@ public class MysqlReader implements Closeable {
 						   Object offset, int batchSize, DDLParserType ddlParserType, StreamReadConsumer consumer) throws Throwable {
 		try {
 			batchSize = Math.max(batchSize, MIN_BATCH_SIZE);
+			this.eventBatchSize = batchSize;
 			initDebeziumServerName(tapConnectorContext);
 			this.tapTableMap = tapConnectorContext.getTableMap();
 			this.ddlParserType = ddlParserType;
@@ -180,7 +363,8 @@ public class MysqlReader implements Closeable {
 			}
 			AtomicReference<Throwable> throwableAtomicReference = new AtomicReference<>();
 			TapLogger.info(TAG, "Starting mysql cdc, server name: " + serverName);
-			this.eventQueue = new LinkedBlockingQueue<>(10);
+			// each element is the events of one debezium batch, so the queue holds up to EVENT_QUEUE_CAPACITY * batchSize events
+			this.eventQueue = new LinkedBlockingQueue<>(EVENT_QUEUE_CAPACITY);
 			this.streamReadConsumer = consumer;
 			this.streamConsumerThreadPool = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.SECONDS, new SynchronousQueue<>());
 			this.streamConsumerThreadPool.submit(() -> {
@@ -238,7 +422,7 @@ public class MysqlReader implements Closeable {
 			TapLogger.info(TAG, configStr.toString());
 			embeddedEngine = (EmbeddedEngine) new EmbeddedEngine.BuilderImpl()
 					.using(configuration)
-					.notifying(this::sourceRecordConsumer)
+					.notifying(this::sourceRecordsConsumer)
 					.using(new DebeziumEngine.ConnectorCallback() {
 						@Override
 						public void taskStarted() {
@@ -353,17 +537,31 @@ public class MysqlReader implements Closeable {
 		});
 	}
 
-	private void sourceRecordConsumer(SourceRecord record) {
+	private void sourceRecordsConsumer(List<SourceRecord> records, DebeziumEngine.RecordCommitter<SourceRecord> committer) throws InterruptedException {
+		List<MysqlStreamEvent> mysqlStreamEvents = new ArrayList<>(records.size());
+		for (SourceRecord record : records) {
+			sourceRecordConsumer(record, mysqlStreamEvents);
+		}
+		if (!mysqlStreamEvents.isEmpty()) {
+			enqueue(mysqlStreamEvents);
+		}
+		for (SourceRecord record : records) {
+			committer.markProcessed(record);
+		}
+		committer.markBatchFinished();
+	}
+
+	private void sourceRecordConsumer(SourceRecord record, List<MysqlStreamEvent> mysqlStreamEvents) {
 		if (null == record || null == record.value()) return;
 		Schema valueSchema = record.valueSchema();
 		MysqlStreamEvent mysqlStreamEvent;
 		if (null != valueSchema.field("op")) {
 			mysqlStreamEvent = wrapDML(record);
-			Optional.ofNullable(mysqlStreamEvent).ifPresent(this::enqueue);
+			Optional.ofNullable(mysqlStreamEvent).ifPresent(mysqlStreamEvents::add);
 		} else if (null != valueSchema.field("ddl")) {
-			List<MysqlStreamEvent> mysqlStreamEvents = wrapDDL(record);
-			if (null != mysqlStreamEvents && mysqlStreamEvents.size() > 0) {
-				mysqlStreamEvents.forEach(this::enqueue);
+			List<MysqlStreamEvent> ddlStreamEvents = wrapDDL(record);
+			if (null != ddlStreamEvents && ddlStreamEvents.size() > 0) {
+				mysqlStreamEvents.addAll(ddlStreamEvents);
 			}
 		}
 	}
@@ -420,10 +618,10 @@ public class MysqlReader implements Closeable {
 		}
 		tapRecordEvent.setTableId(table);
 		tapRecordEvent.setReferenceTime(eventTime);
-		MysqlStreamOffset mysqlStreamOffset = getMysqlStreamOffset(record);
-		TapLogger.debug(TAG, "Read DML - Table: " + table + "\n  - Operation: " + mysqlOpType.getOp()
-				+ "\n  - Before: " + before + "\n  - After: " + after + "\n  - Offset: " + mysqlStreamOffset);
-		mysqlStreamEvent = new MysqlStreamEvent(tapRecordEvent, mysqlStreamOffset);
+		// offset is built when the batch is delivered, only for the last event of the batch
+		TapLogger.debug(TAG, "Read DML - Table: {}\n  - Operation: {}\n  - Before: {}\n  - After: {}\n  - Offset: {}",
+				table, mysqlOpType.getOp(), before, after, record.sourceOffset());
+		mysqlStreamEvent = new MysqlStreamEvent(tapRecordEvent, record);
 		return mysqlStreamEvent;
 	}
 
@@ -532,33 +730,65 @@ public class MysqlReader implements Closeable {
 		OffsetUtils.validateFormat(offset);
 		// When serializing the key, we add in the namespace information so the key is [namespace, real key]
 		Map<String, String> offsetMap = new HashMap<>(1);
-		String key = InstanceFactory.instance(JsonParser.class).toJson(partition);
-		String value = InstanceFactory.instance(JsonParser.class).toJson(offset);
+		String key = jsonParser.toJson(partition);
+		String value = jsonParser.toJson(offset);
 		offsetMap.put(key, value);
 		mysqlStreamOffset.setOffset(offsetMap);
 		mysqlStreamOffset.setName(serverName);
 		return mysqlStreamOffset;
 	}
 
+	/**
+	 * Coalesce events into batches of at most eventBatchSize, a batch is delivered when it is full or its first event
+	 * waited for MAX_LINGER_MILLIS
+	 */
 	private void eventQueueConsumer() {
+		List<MysqlStreamEvent> batch = new ArrayList<>(eventBatchSize);
+		long lingerDeadline = 0L;
 		while (running.get()) {
-			MysqlStreamEvent mysqlStreamEvent;
+			List<MysqlStreamEvent> mysqlStreamEvents;
 			try {
-				mysqlStreamEvent = eventQueue.poll(3L, TimeUnit.SECONDS);
+				long timeout = batch.isEmpty() ? 3000L : lingerDeadline - System.currentTimeMillis();
+				mysqlStreamEvents = timeout > 0 ? eventQueue.poll(timeout, TimeUnit.MILLISECONDS) : eventQueue.poll();
 			} catch (InterruptedException e) {
 				break;
 			}
-			if (null == mysqlStreamEvent) continue;
-			ArrayList<TapEvent> events = new ArrayList<>(1);
+			if (null != mysqlStreamEvents) {
+				for (MysqlStreamEvent mysqlStreamEvent : mysqlStreamEvents) {
+					if (batch.isEmpty()) {
+						lingerDeadline = System.currentTimeMillis() + MAX_LINGER_MILLIS;
+					}
+					batch.add(mysqlStreamEvent);
+					if (batch.size() >= eventBatchSize) {
+						accept(batch);
+						batch = new ArrayList<>(eventBatchSize);
+					}
+				}
+			}
+			if (!batch.isEmpty() && (null == mysqlStreamEvents || System.currentTimeMillis() >= lingerDeadline)) {
+				accept(batch);
+				batch = new ArrayList<>(eventBatchSize);
+			}
+		}
+	}
+
+	private void accept(List<MysqlStreamEvent> batch) {
+		List<TapEvent> events = new ArrayList<>(batch.size());
+		for (MysqlStreamEvent mysqlStreamEvent : batch) {
 			events.add(mysqlStreamEvent.getTapEvent());
-			streamReadConsumer.accept(events, mysqlStreamEvent.getMysqlStreamOffset());
 		}
+		MysqlStreamEvent last = batch.get(batch.size() - 1);
+		MysqlStreamOffset mysqlStreamOffset = last.getMysqlStreamOffset();
+		if (null == mysqlStreamOffset) {
+			mysqlStreamOffset = getMysqlStreamOffset(last.getSourceRecord());
+		}
+		streamReadConsumer.accept(events, mysqlStreamOffset);
 	}
 
-	private void enqueue(MysqlStreamEvent mysqlStreamEvent) {
+	private void enqueue(List<MysqlStreamEvent> mysqlStreamEvents) {
 		while (running.get()) {
 			try {
-				if (eventQueue.offer(mysqlStreamEvent, 3L, TimeUnit.SECONDS)) {
+				if (eventQueue.offer(mysqlStreamEvents, 3L, TimeUnit.SECONDS)) {
 					break;
 				}
 			} catch (InterruptedException e) {
@@ -0,0 +1,81 @@
+package io.tapdata.connector.mysql.entity;
+
+import java.io.Serializable;
+
+/**
+ * A primary key range [min, max] of a table read in parallel by initial sync,
+ * offset is the last primary key value consumed, the chunk is resumed after it
+ *
+ * @author agent
+ * @Description
+ * @create 2026-10-18 16:30
+ **/
+public class MysqlSnapshotChunk implements Serializable {
+
+	private static final long serialVersionUID = -3570270853208357396L;
+	private String pk;
+	private Long min;
+	private Long max;
+	private Long offset;
+	private boolean done;
+
+	public MysqlSnapshotChunk() {
+	}
+
+	public MysqlSnapshotChunk(String pk, Long min, Long max) {
+		this.pk = pk;
+		this.min = min;
+		this.max = max;
+	}
+
+	public String getPk() {
+		return pk;
+	}
+
+	public void setPk(String pk) {
+		this.pk = pk;
+	}
+
+	public Long getMin() {
+		return min;
+	}
+
+	public void setMin(Long min) {
+		this.min = min;
+	}
+
+	public Long getMax() {
+		return max;
+	}
+
+	public void setMax(Long max) {
+		this.max = max;
+	}
+
+	public Long getOffset() {
+		return offset;
+	}
+
+	public void setOffset(Long offset) {
+		this.offset = offset;
+	}
+
+	public boolean isDone() {
+		return done;
+	}
+
+	public void setDone(boolean done) {
+		this.done = done;
+	}
+
+	@Override
+	public String toString() {
+		return "MysqlSnapshotChunk{" +
+				"pk='" + pk + '\'' +
+				", min=" + min +
+				", max=" + max +
+				", offset=" + offset +
+				", done=" + done +
+				'}';
+	}
+}
@@ -2,6 +2,7 @@ package io.tapdata.connector.mysql.entity;
 
 import java.io.Serializable;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -11,6 +12,10 @@ import java.util.Map;
  **/
 public class MysqlSnapshotOffset implements Serializable {
 	private Map<String, Object> offset;
+	/**
+	 * Not null when the table is read by primary key chunks in parallel, offset is not used then
+	 */
+	private List<MysqlSnapshotChunk> chunks;
 
 	public MysqlSnapshotOffset() {
 		offset = new HashMap<>();
@@ -23,4 +28,12 @@ public class MysqlSnapshotOffset implements Serializable {
 	public void setOffset(Map<String, Object> offset) {
 		this.offset = offset;
 	}
+
+	public List<MysqlSnapshotChunk> getChunks() {
+		return chunks;
+	}
+
+	public void setChunks(List<MysqlSnapshotChunk> chunks) {
+		this.chunks = chunks;
+	}
 }
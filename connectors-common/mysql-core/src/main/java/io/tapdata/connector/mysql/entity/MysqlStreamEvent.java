@@ -1,6 +1,7 @@
 package io.tapdata.connector.mysql.entity;
 
 import io.tapdata.entity.event.TapEvent;
+import org.apache.kafka.connect.source.SourceRecord;
 
 /**
  * @author samuel
@@ -10,12 +11,21 @@ import io.tapdata.entity.event.TapEvent;
 public class MysqlStreamEvent {
 	private TapEvent tapEvent;
 	private MysqlStreamOffset mysqlStreamOffset;
+	private SourceRecord sourceRecord;
 
 	public MysqlStreamEvent(TapEvent tapEvent, MysqlStreamOffset mysqlStreamOffset) {
 		this.tapEvent = tapEvent;
 		this.mysqlStreamOffset = mysqlStreamOffset;
 	}
 
+	/**
+	 * Offset is not built yet, it can be built from the source record when needed
+	 */
+	public MysqlStreamEvent(TapEvent tapEvent, SourceRecord sourceRecord) {
+		this.tapEvent = tapEvent;
+		this.sourceRecord = sourceRecord;
+	}
+
 	public TapEvent getTapEvent() {
 		return tapEvent;
 	}
@@ -23,4 +33,8 @@ public class MysqlStreamEvent {
 	public MysqlStreamOffset getMysqlStreamOffset() {
 		return mysqlStreamOffset;
 	}
+
+	public SourceRecord getSourceRecord() {
+		return sourceRecord;
+	}
 }
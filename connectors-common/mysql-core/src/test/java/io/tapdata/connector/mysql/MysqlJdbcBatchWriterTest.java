@@ -0,0 +1,138 @@
+package io.tapdata.connector.mysql;
+
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.apis.entity.ConnectionOptions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.*;
+
+/**
+ * @author agent
+ * @Description
+ * @create 2026-10-18 15:40
+ **/
+public class MysqlJdbcBatchWriterTest {
+
+	private TapTable tapTable;
+	private final List<String> uniqueKeys = Collections.singletonList("id");
+
+	@BeforeEach
+	void beforeEach() {
+		tapTable = new TapTable("BATCH_TEST");
+		TapField id = new TapField("id", "int");
+		id.setPos(1);
+		id.setPrimaryKeyPos(1);
+		tapTable.putField(id.getName(), id);
+		TapField name = new TapField("name", "varchar(50)");
+		name.setPos(2);
+		tapTable.putField(name.getName(), name);
+	}
+
+	@Test
+	public void testSplitKeepsOrder() {
+		List<TapRecordEvent> events = new ArrayList<>();
+		events.add(insert(1, "a"));
+		events.add(insert(2, "b"));
+		events.add(update(1, 1, "c"));
+		events.add(delete(2));
+		events.add(delete(1));
+		events.add(insert(3, "d"));
+		List<MysqlJdbcBatchWriter.Run> runs = MysqlJdbcBatchWriter.splitRuns(tapTable, uniqueKeys, events,
+				ConnectionOptions.DML_INSERT_POLICY_UPDATE_ON_EXISTS, ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS);
+		Assertions.assertEquals(4, runs.size());
+		Assertions.assertEquals(MysqlJdbcBatchWriter.RunType.UPSERT, runs.get(0).getType());
+		Assertions.assertEquals(2, runs.get(0).getEvents().size());
+		Assertions.assertEquals(Arrays.asList("id", "name"), runs.get(0).getFields());
+		Assertions.assertEquals(MysqlJdbcBatchWriter.RunType.UPDATE, runs.get(1).getType());
+		Assertions.assertEquals(MysqlJdbcBatchWriter.RunType.DELETE, runs.get(2).getType());
+		Assertions.assertEquals(2, runs.get(2).getEvents().size());
+		Assertions.assertEquals(MysqlJdbcBatchWriter.RunType.UPSERT, runs.get(3).getType());
+		List<TapRecordEvent> flatten = new ArrayList<>();
+		runs.forEach(run -> flatten.addAll(run.getEvents()));
+		Assertions.assertEquals(events, flatten);
+	}
+
+	@Test
+	public void testSplitPolicies() {
+		List<TapRecordEvent> events = new ArrayList<>();
+		events.add(insert(1, "a"));
+		events.add(update(1, 1, "b"));
+		events.add(update(1, 2, "c"));
+		List<MysqlJdbcBatchWriter.Run> runs = MysqlJdbcBatchWriter.splitRuns(tapTable, uniqueKeys, events,
+				ConnectionOptions.DML_INSERT_POLICY_IGNORE_ON_EXISTS, ConnectionOptions.DML_UPDATE_POLICY_INSERT_ON_NON_EXISTS);
+		Assertions.assertEquals(3, runs.size());
+		Assertions.assertEquals(MysqlJdbcBatchWriter.RunType.INSERT_IGNORE, runs.get(0).getType());
+		Assertions.assertEquals(MysqlJdbcBatchWriter.RunType.UPSERT, runs.get(1).getType());
+		// primary key changed
+		Assertions.assertEquals(MysqlJdbcBatchWriter.RunType.ONE_BY_ONE, runs.get(2).getType());
+	}
+
+	@Test
+	public void testSplitByFieldsAndSize() {
+		List<TapRecordEvent> events = new ArrayList<>();
+		for (int i = 0; i < 1500; i++) {
+			events.add(insert(i, "n" + i));
+		}
+		Map<String, Object> after = new HashMap<>();
+		after.put("id", 2000);
+		events.add(TapInsertRecordEvent.create().after(after));
+		Map<String, Object> before = new HashMap<>();
+		before.put("id", null);
+		events.add(TapDeleteRecordEvent.create().before(before));
+		List<MysqlJdbcBatchWriter.Run> runs = MysqlJdbcBatchWriter.splitRuns(tapTable, uniqueKeys, events,
+				ConnectionOptions.DML_INSERT_POLICY_UPDATE_ON_EXISTS, ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS);
+		Assertions.assertEquals(4, runs.size());
+		Assertions.assertEquals(1000, runs.get(0).getEvents().size());
+		Assertions.assertEquals(500, runs.get(1).getEvents().size());
+		Assertions.assertEquals(Collections.singletonList("id"), runs.get(2).getFields());
+		// IN (...) does not match null
+		Assertions.assertEquals(MysqlJdbcBatchWriter.RunType.ONE_BY_ONE, runs.get(3).getType());
+	}
+
+	@Test
+	public void testAbortsTransaction() {
+		// deadlock, lock wait timeout and lost connection roll back more than the failed statement
+		Assertions.assertTrue(MysqlJdbcBatchWriter.abortsTransaction(new SQLTransactionRollbackException("Deadlock found", "40001", 1213)));
+		Assertions.assertTrue(MysqlJdbcBatchWriter.abortsTransaction(new SQLException("Deadlock found", "40001", 1213)));
+		Assertions.assertTrue(MysqlJdbcBatchWriter.abortsTransaction(new SQLException("Lock wait timeout exceeded", "HY000", 1205)));
+		Assertions.assertTrue(MysqlJdbcBatchWriter.abortsTransaction(new SQLException("Communications link failure", "08S01", 0)));
+		Assertions.assertTrue(MysqlJdbcBatchWriter.abortsTransaction(new BatchUpdateException("batch failed", null, 0, new int[0],
+				new SQLTransactionRollbackException("Deadlock found", "40001", 1213))));
+		// data errors only roll back the failed statement
+		Assertions.assertFalse(MysqlJdbcBatchWriter.abortsTransaction(new SQLException("Duplicate entry", "23000", 1062)));
+		Assertions.assertFalse(MysqlJdbcBatchWriter.abortsTransaction(new SQLException("Data too long", "22001", 1406)));
+	}
+
+	private TapInsertRecordEvent insert(int id, String name) {
+		return TapInsertRecordEvent.create().after(row(id, name));
+	}
+
+	private TapUpdateRecordEvent update(int beforeId, int afterId, String name) {
+		Map<String, Object> before = new HashMap<>();
+		before.put("id", beforeId);
+		return TapUpdateRecordEvent.create().before(before).after(row(afterId, name));
+	}
+
+	private TapDeleteRecordEvent delete(int id) {
+		Map<String, Object> before = new HashMap<>();
+		before.put("id", id);
+		return TapDeleteRecordEvent.create().before(before);
+	}
+
+	private Map<String, Object> row(int id, String name) {
+		Map<String, Object> data = new HashMap<>();
+		data.put("id", id);
+		data.put("name", name);
+		return data;
+	}
+}
@@ -5,11 +5,17 @@ import io.tapdata.entity.schema.TapTable;
 import io.tapdata.kit.EmptyKit;
 import io.tapdata.kit.StringKit;
 import io.tapdata.pdk.apis.entity.ConnectionOptions;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.temporal.Temporal;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 public class PostgresWriteRecorder extends WriteRecorder {
@@ -28,24 +34,118 @@ public class PostgresWriteRecorder extends WriteRecorder {
         if (EmptyKit.isEmpty(after)) {
             return;
         }
-        if (EmptyKit.isNotEmpty(uniqueCondition)) {
-            if (Integer.parseInt(version) > 90500 && uniqueConditionIsIndex) {
-                if (insertPolicy.equals("ignore-on-exists")) {
-                    conflictIgnoreInsert(after);
-                } else {
-                    conflictUpdateInsert(after);
+        //on conflict and just insert are written in bulk, see executeBulkInsert
+        if (EmptyKit.isEmpty(uniqueCondition) || onConflict()) {
+            addBulkInsert(after);
+            return;
+        }
+        if (insertPolicy.equals("ignore-on-exists")) {
+            notExistsInsert(after);
+        } else {
+            withUpdateInsert(after);
+        }
+        preparedStatement.addBatch();
+    }
+
+    private boolean onConflict() {
+        return EmptyKit.isNotEmpty(uniqueCondition) && Integer.parseInt(version) > 90500 && uniqueConditionIsIndex;
+    }
+
+    /**
+     * no unique condition: COPY FROM STDIN, falls back to multi-row insert for values COPY text can not express;
+     * on conflict: multi-row INSERT ... ON CONFLICT, one row kept for each key since DO UPDATE can not touch a row twice
+     */
+    @Override
+    protected void executeBulkInsert(List<Map<String, Object>> rows) throws SQLException {
+        if (onConflict() && !insertPolicy.equals("ignore-on-exists")) {
+            super.executeBulkInsert(distinctByUniqueCondition(rows, true));
+        } else {
+            super.executeBulkInsert(rows);
+        }
+    }
+
+    @Override
+    protected String bulkInsertSuffix() {
+        if (!onConflict()) {
+            return "";
+        }
+        String conflict = " ON CONFLICT(" + uniqueCondition.stream().map(k -> "\"" + k + "\"").collect(Collectors.joining(", ")) + ")";
+        if (insertPolicy.equals("ignore-on-exists")) {
+            return conflict + " DO NOTHING";
+        }
+        return conflict + " DO UPDATE SET " + allColumn.stream().map(k -> "\"" + k + "\"=EXCLUDED.\"" + k + "\"").collect(Collectors.joining(", "));
+    }
+
+    @Override
+    protected boolean copyInsert(List<Map<String, Object>> rows) throws SQLException {
+        if (EmptyKit.isNotEmpty(uniqueCondition) || !connection.isWrapperFor(PGConnection.class)
+                || rows.stream().anyMatch(row -> allColumn.stream().anyMatch(k -> !copySupported(row.get(k))))) {
+            return false;
+        }
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn("COPY \"" + schema + "\".\"" + tapTable.getId() + "\" ("
+                + allColumn.stream().map(k -> "\"" + k + "\"").collect(Collectors.joining(", ")) + ") FROM STDIN");
+        try {
+            StringBuilder line = new StringBuilder();
+            for (Map<String, Object> row : rows) {
+                line.setLength(0);
+                appendCopyRow(line, row);
+                byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            }
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+        return true;
+    }
+
+    //values whose string form is accepted by COPY text format as it is
+    private static boolean copySupported(Object value) {
+        return value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof byte[] || value instanceof UUID || value instanceof Temporal
+                || value instanceof java.sql.Timestamp || value instanceof java.sql.Date || value instanceof java.sql.Time;
+    }
+
+    //one line of COPY text format: tab separated, \N for null, backslash escaped
+    private void appendCopyRow(StringBuilder line, Map<String, Object> row) {
+        for (int i = 0; i < allColumn.size(); i++) {
+            if (i > 0) {
+                line.append('\t');
+            }
+            Object value = row.get(allColumn.get(i));
+            if (value == null) {
+                line.append("\\N");
+            } else if (value instanceof byte[]) {
+                line.append("\\\\x");
+                for (byte b : (byte[]) value) {
+                    line.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
                 }
             } else {
-                if (insertPolicy.equals("ignore-on-exists")) {
-                    notExistsInsert(after);
-                } else {
-                    withUpdateInsert(after);
+                String text = String.valueOf(value);
+                for (int j = 0; j < text.length(); j++) {
+                    char c = text.charAt(j);
+                    switch (c) {
+                        case '\\':
+                            line.append("\\\\");
+                            break;
+                        case '\t':
+                            line.append("\\t");
+                            break;
+                        case '\n':
+                            line.append("\\n");
+                            break;
+                        case '\r':
+                            line.append("\\r");
+                            break;
+                        default:
+                            line.append(c);
+                    }
                 }
             }
-        } else {
-            justInsert(after);
         }
-        preparedStatement.addBatch();
+        line.append('\n');
     }
 
 //    @Override
@@ -110,42 +210,6 @@ public class PostgresWriteRecorder extends WriteRecorder {
 //        preparedStatement.addBatch();
 //    }
 
-    //on conflict
-    private void conflictUpdateInsert(Map<String, Object> after) throws SQLException {
-        if (EmptyKit.isNull(preparedStatement)) {
-            String insertSql = "INSERT INTO \"" + schema + "\".\"" + tapTable.getId() + "\" ("
-                    + allColumn.stream().map(k -> "\"" + k + "\"").collect(Collectors.joining(", ")) + ") " +
-                    "VALUES(" + StringKit.copyString("?", allColumn.size(), ",") + ") ON CONFLICT("
-                    + uniqueCondition.stream().map(k -> "\"" + k + "\"").collect(Collectors.joining(", "))
-                    + ") DO UPDATE SET " + allColumn.stream().map(k -> "\"" + k + "\"=?").collect(Collectors.joining(", "));
-            preparedStatement = connection.prepareStatement(insertSql);
-        }
-        preparedStatement.clearParameters();
-        int pos = 1;
-        for (String key : allColumn) {
-            preparedStatement.setObject(pos++, after.get(key));
-        }
-        for (String key : allColumn) {
-            preparedStatement.setObject(pos++, after.get(key));
-        }
-    }
-
-    private void conflictIgnoreInsert(Map<String, Object> after) throws SQLException {
-        if (EmptyKit.isNull(preparedStatement)) {
-            String insertSql = "INSERT INTO \"" + schema + "\".\"" + tapTable.getId() + "\" ("
-                    + allColumn.stream().map(k -> "\"" + k + "\"").collect(Collectors.joining(", ")) + ") " +
-                    "VALUES(" + StringKit.copyString("?", allColumn.size(), ",") + ") ON CONFLICT("
-                    + uniqueCondition.stream().map(k -> "\"" + k + "\"").collect(Collectors.joining(", "))
-                    + ") DO NOTHING ";
-            preparedStatement = connection.prepareStatement(insertSql);
-        }
-        preparedStatement.clearParameters();
-        int pos = 1;
-        for (String key : allColumn) {
-            preparedStatement.setObject(pos++, after.get(key));
-        }
-    }
-
     //with update
     private void withUpdateInsert(Map<String, Object> after) throws SQLException {
         if (EmptyKit.isNull(preparedStatement)) {
@@ -219,21 +283,6 @@ public class PostgresWriteRecorder extends WriteRecorder {
         }
     }
 
-    //just insert
-    private void justInsert(Map<String, Object> after) throws SQLException {
-        if (EmptyKit.isNull(preparedStatement)) {
-            String insertSql = "INSERT INTO \"" + schema + "\".\"" + tapTable.getId() + "\" ("
-                    + allColumn.stream().map(k -> "\"" + k + "\"").collect(Collectors.joining(", ")) + ") " +
-                    "VALUES(" + StringKit.copyString("?", allColumn.size(), ",") + ") ";
-            preparedStatement = connection.prepareStatement(insertSql);
-        }
-        preparedStatement.clearParameters();
-        int pos = 1;
-        for (String key : allColumn) {
-            preparedStatement.setObject(pos++, after.get(key));
-        }
-    }
-
     @Override
     public void addUpdateBatch(Map<String, Object> after) throws SQLException {
         if (EmptyKit.isEmpty(after) || EmptyKit.isEmpty(uniqueCondition)) {
@@ -252,19 +301,19 @@ public class PostgresWriteRecorder extends WriteRecorder {
     protected void justUpdate(Map<String, Object> after, Map<String, Object> before) throws SQLException {
         if (EmptyKit.isNull(preparedStatement)) {
             if (hasPk) {
-                preparedStatement = connection.prepareStatement("UPDATE \"" + schema + "\".\"" + tapTable.getId() + "\" SET " +
+                prepareStatement("UPDATE \"" + schema + "\".\"" + tapTable.getId() + "\" SET " +
                         after.keySet().stream().map(k -> "\"" + k + "\"=?").collect(Collectors.joining(", ")) + " WHERE " +
-                        before.keySet().stream().map(k -> "\"" + k + "\"=?").collect(Collectors.joining(" AND ")));
+                        before.keySet().stream().map(k -> "\"" + k + "\"=?").collect(Collectors.joining(" AND ")), after.keySet());
             } else {
-                preparedStatement = connection.prepareStatement("UPDATE \"" + schema + "\".\"" + tapTable.getId() + "\" SET " +
+                prepareStatement("UPDATE \"" + schema + "\".\"" + tapTable.getId() + "\" SET " +
                         after.keySet().stream().map(k -> "\"" + k + "\"=?").collect(Collectors.joining(", ")) + " WHERE " +
                         before.keySet().stream().map(k -> "(\"" + k + "\"=? OR (\"" + k + "\" IS NULL AND ?::text IS NULL))")
-                                .collect(Collectors.joining(" AND ")));
+                                .collect(Collectors.joining(" AND ")), after.keySet());
             }
         }
         preparedStatement.clearParameters();
         int pos = 1;
-        for (String key : after.keySet()) {
+        for (String key : preparedColumns) {
             preparedStatement.setObject(pos++, after.get(key));
         }
         dealNullBefore(before, pos);
@@ -11,6 +11,8 @@ import io.tapdata.pdk.apis.entity.WriteListResult;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 public class RecordWriter {
@@ -21,6 +23,7 @@ public class RecordWriter {
     protected String updatePolicy = ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS;
     protected WriteRecorder deleteRecorder;
     protected String version;
+    protected Map<String, AtomicInteger> batchSizes; //adapted batch size of each table and event type, kept by the connector
     protected Connection connection;
     protected final TapTable tapTable;
 
@@ -35,6 +38,11 @@ public class RecordWriter {
         updateRecorder.setVersion(version);
         updateRecorder.setUpdatePolicy(updatePolicy);
         deleteRecorder.setVersion(version);
+        if (null != batchSizes) {
+            insertRecorder.setBatchSize(batchSizes.computeIfAbsent(tapTable.getId() + ".insert", k -> new AtomicInteger(WriteRecorder.DEFAULT_BATCH_SIZE)));
+            updateRecorder.setBatchSize(batchSizes.computeIfAbsent(tapTable.getId() + ".update", k -> new AtomicInteger(WriteRecorder.DEFAULT_BATCH_SIZE)));
+            deleteRecorder.setBatchSize(batchSizes.computeIfAbsent(tapTable.getId() + ".delete", k -> new AtomicInteger(WriteRecorder.DEFAULT_BATCH_SIZE)));
+        }
         //result of these events
         WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
         //insert,update,delete events must consecutive, so execute the other two first
@@ -49,6 +57,7 @@ public class RecordWriter {
                 insertRecorder.executeBatch(listResult);
                 deleteRecorder.executeBatch(listResult);
                 TapUpdateRecordEvent updateRecordEvent = (TapUpdateRecordEvent) recordEvent;
+                updateRecorder.checkColumns(updateRecordEvent.getAfter(), listResult);
                 updateRecorder.addUpdateBatch(updateRecordEvent.getAfter());
                 updateRecorder.addAndCheckCommit(recordEvent, listResult);
             } else if (recordEvent instanceof TapDeleteRecordEvent) {
@@ -91,4 +100,10 @@ public class RecordWriter {
         this.updatePolicy = updatePolicy;
         return this;
     }
+
+    //must be a concurrent map, it is shared by the writes of all tables
+    public RecordWriter setBatchSizes(Map<String, AtomicInteger> batchSizes) {
+        this.batchSizes = batchSizes;
+        return this;
+    }
 }
@@ -7,12 +7,14 @@ import io.tapdata.entity.schema.TapIndexField;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.simplify.TapSimplify;
 import io.tapdata.kit.EmptyKit;
+import io.tapdata.kit.StringKit;
 import io.tapdata.pdk.apis.entity.WriteListResult;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -21,6 +23,14 @@ public abstract class WriteRecorder {
 
     private static final String TAG = WriteRecorder.class.getSimpleName();
 
+    //batch size adapts to the time one batch takes, between MIN and MAX
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int MIN_BATCH_SIZE = 100;
+    public static final int MAX_BATCH_SIZE = 10000;
+    public static final long TARGET_BATCH_MILLIS = 500L;
+    //most drivers limit the placeholders of one statement
+    public static final int DEFAULT_MAX_BULK_PARAMETERS = 32767;
+
     protected final Connection connection;
     protected final TapTable tapTable;
     protected final List<String> allColumn;
@@ -35,6 +45,11 @@ public abstract class WriteRecorder {
     protected PreparedStatement preparedStatement = null;
     protected final AtomicLong atomicLong = new AtomicLong(0); //record counter
     protected final List<TapRecordEvent> batchCache = TapSimplify.list(); //event cache
+    protected final List<Map<String, Object>> bulkCache = TapSimplify.list(); //rows of multi-row insert or copy
+    protected List<String> preparedColumns; //columns which preparedStatement was built with
+    protected AtomicInteger batchSize = new AtomicInteger(DEFAULT_BATCH_SIZE); //may be shared by the writes of a table, see setBatchSize
+    private PreparedStatement bulkStatement; //multi-row insert of full size, reused by the batches of this recorder
+    private int bulkStatementRows;
 
     public WriteRecorder(Connection connection, TapTable tapTable, String schema) {
         this.connection = connection;
@@ -66,35 +81,185 @@ public abstract class WriteRecorder {
      * @param listResult results of WriteRecord
      */
     public void executeBatch(WriteListResult<TapRecordEvent> listResult) {
-        long succeed = batchCache.size();
-        if (succeed <= 0) {
+        int size = batchCache.size();
+        if (size <= 0) {
             return;
         }
+        long succeed = size;
+        long start = System.currentTimeMillis();
         try {
-            if (preparedStatement != null) {
+            if (EmptyKit.isNotEmpty(bulkCache)) {
+                executeBulkInsert(bulkCache);
+            } else if (preparedStatement != null) {
                 preparedStatement.executeBatch();
                 preparedStatement.clearBatch();
-                batchCache.clear();
             }
         } catch (SQLException e) {
             Map<TapRecordEvent, Throwable> map = batchCache.stream().collect(Collectors.toMap(Function.identity(), (v) -> e));
             listResult.addErrors(map);
             succeed = 0;
-            TapLogger.error(TAG, "failed to execute sql:{}", preparedStatement.toString(), e);
+            clearBatchQuietly();
+            TapLogger.error(TAG, "failed to execute sql:{}", EmptyKit.isNotEmpty(bulkCache) ? "bulk insert into " + tapTable.getId() : preparedStatement, e);
             e.printStackTrace();
+        } finally {
+            batchCache.clear();
+            bulkCache.clear();
         }
+        adaptBatchSize(size, System.currentTimeMillis() - start);
         atomicLong.addAndGet(succeed);
     }
 
-    //commit when cacheSize >= 1000
+    //commit when cacheSize >= batchSize
     public void addAndCheckCommit(TapRecordEvent recordEvent, WriteListResult<TapRecordEvent> listResult) {
         batchCache.add(recordEvent);
-        if (batchCache.size() >= 1000) {
+        if (batchCache.size() >= batchSize.get()) {
             executeBatch(listResult);
         }
     }
 
-    public void releaseResource() {
+    /**
+     * Grow the batch while one round trip is fast, shrink it when it is slow, so that large batches are used against a
+     * nearby database and a slow or busy one does not hold the events for long.
+     * Only full batches can grow it, batches cut by a change of event type say nothing about the round trip.
+     */
+    protected void adaptBatchSize(int size, long millis) {
+        batchSize.updateAndGet(current -> {
+            if (millis > TARGET_BATCH_MILLIS) {
+                return Math.max(MIN_BATCH_SIZE, Math.min(current, size) / 2);
+            } else if (size >= current && millis < TARGET_BATCH_MILLIS / 2) {
+                return Math.min(MAX_BATCH_SIZE, current * 2);
+            }
+            return current;
+        });
+    }
+
+    public int getBatchSize() {
+        return batchSize.get();
+    }
+
+    /**
+     * recorders are created for every write call, share the adapted size of a table across them
+     */
+    public void setBatchSize(AtomicInteger batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * statement is built with the columns of the first event, if the next event has other columns (e.g. update events
+     * carrying only changed fields), execute what is cached and build a new statement
+     */
+    public void checkColumns(Map<String, Object> data, WriteListResult<TapRecordEvent> listResult) {
+        if (EmptyKit.isNull(preparedStatement) || EmptyKit.isNull(preparedColumns) || EmptyKit.isEmpty(data)
+                || (preparedColumns.size() == data.size() && data.keySet().containsAll(preparedColumns))) {
+            return;
+        }
+        executeBatch(listResult);
+        closeStatement();
+    }
+
+    protected void prepareStatement(String sql, Collection<String> columns) throws SQLException {
+        preparedStatement = connection.prepareStatement(sql);
+        preparedColumns = new ArrayList<>(columns);
+    }
+
+    //rows are inserted by executeBulkInsert when the batch is executed
+    protected void addBulkInsert(Map<String, Object> after) {
+        bulkCache.add(after);
+    }
+
+    /**
+     * Insert rows with as few statements as possible: the dialect's streaming loader if it has one, otherwise
+     * multi-row INSERT ... VALUES (...),(...) split by the placeholder limit
+     */
+    protected void executeBulkInsert(List<Map<String, Object>> rows) throws SQLException {
+        if (copyInsert(rows)) {
+            return;
+        }
+        int rowsPerStatement = Math.max(1, maxBulkParameters() / Math.max(1, allColumn.size()));
+        for (int from = 0; from < rows.size(); from += rowsPerStatement) {
+            List<Map<String, Object>> part = rows.subList(from, Math.min(rows.size(), from + rowsPerStatement));
+            if (part.size() == rowsPerStatement) {
+                if (EmptyKit.isNull(bulkStatement) || bulkStatementRows != rowsPerStatement) {
+                    closeBulkStatement();
+                    bulkStatement = connection.prepareStatement(bulkInsertSql(rowsPerStatement));
+                    bulkStatementRows = rowsPerStatement;
+                }
+                setBulkParameters(bulkStatement, part);
+                bulkStatement.executeUpdate();
+            } else {
+                try (PreparedStatement statement = connection.prepareStatement(bulkInsertSql(part.size()))) {
+                    setBulkParameters(statement, part);
+                    statement.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private void setBulkParameters(PreparedStatement statement, List<Map<String, Object>> rows) throws SQLException {
+        statement.clearParameters();
+        int pos = 1;
+        for (Map<String, Object> row : rows) {
+            for (String key : allColumn) {
+                statement.setObject(pos++, row.get(key));
+            }
+        }
+    }
+
+    protected String bulkInsertSql(int rows) {
+        return "INSERT INTO \"" + schema + "\".\"" + tapTable.getId() + "\" ("
+                + allColumn.stream().map(k -> "\"" + k + "\"").collect(Collectors.joining(", ")) + ") VALUES "
+                + StringKit.copyString("(" + StringKit.copyString("?", allColumn.size(), ",") + ")", rows, ",")
+                + bulkInsertSuffix();
+    }
+
+    //e.g. ON CONFLICT clause of batch upsert
+    protected String bulkInsertSuffix() {
+        return "";
+    }
+
+    protected int maxBulkParameters() {
+        return DEFAULT_MAX_BULK_PARAMETERS;
+    }
+
+    /**
+     * streaming loader of the dialect (e.g. COPY), false if not supported and multi-row insert is used
+     */
+    protected boolean copyInsert(List<Map<String, Object>> rows) throws SQLException {
+        return false;
+    }
+
+    /**
+     * one statement must not touch a row twice (e.g. ON CONFLICT DO UPDATE), so keep one row for each unique key,
+     * rows having null key are kept since null does not conflict
+     * @param keepLast keep the last row of the key (upsert) or the first one (ignore on exists)
+     */
+    protected List<Map<String, Object>> distinctByUniqueCondition(List<Map<String, Object>> rows, boolean keepLast) {
+        if (EmptyKit.isEmpty(uniqueCondition) || rows.size() <= 1) {
+            return rows;
+        }
+        Map<List<Object>, Integer> keyIndex = new HashMap<>();
+        List<Map<String, Object>> distinct = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            List<Object> key = new ArrayList<>(uniqueCondition.size());
+            for (String k : uniqueCondition) {
+                key.add(row.get(k));
+            }
+            if (key.contains(null)) {
+                distinct.add(row);
+                continue;
+            }
+            Integer index = keyIndex.get(key);
+            if (EmptyKit.isNull(index)) {
+                keyIndex.put(key, distinct.size());
+                distinct.add(row);
+            } else if (keepLast) {
+                distinct.set(index, row);
+            }
+        }
+        return distinct;
+    }
+
+    protected void closeStatement() {
         try {
             if (EmptyKit.isNotNull(preparedStatement)) {
                 preparedStatement.close();
@@ -102,6 +267,33 @@ public abstract class WriteRecorder {
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        preparedStatement = null;
+        preparedColumns = null;
+    }
+
+    private void clearBatchQuietly() {
+        try {
+            if (EmptyKit.isNotNull(preparedStatement)) {
+                preparedStatement.clearBatch();
+            }
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private void closeBulkStatement() {
+        try {
+            if (EmptyKit.isNotNull(bulkStatement)) {
+                bulkStatement.close();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        bulkStatement = null;
+    }
+
+    public void releaseResource() {
+        closeStatement();
+        closeBulkStatement();
     }
 
     public void setVersion(String version) {
@@ -138,19 +330,19 @@ public abstract class WriteRecorder {
     protected void justUpdate(Map<String, Object> after, Map<String, Object> before) throws SQLException {
         if (EmptyKit.isNull(preparedStatement)) {
             if (hasPk) {
-                preparedStatement = connection.prepareStatement("UPDATE \"" + schema + "\".\"" + tapTable.getId() + "\" SET " +
+                prepareStatement("UPDATE \"" + schema + "\".\"" + tapTable.getId() + "\" SET " +
                         after.keySet().stream().map(k -> "\"" + k + "\"=?").collect(Collectors.joining(", ")) + " WHERE " +
-                        before.keySet().stream().map(k -> "\"" + k + "\"=?").collect(Collectors.joining(" AND ")));
+                        before.keySet().stream().map(k -> "\"" + k + "\"=?").collect(Collectors.joining(" AND ")), after.keySet());
             } else {
-                preparedStatement = connection.prepareStatement("UPDATE \"" + schema + "\".\"" + tapTable.getId() + "\" SET " +
+                prepareStatement("UPDATE \"" + schema + "\".\"" + tapTable.getId() + "\" SET " +
                         after.keySet().stream().map(k -> "\"" + k + "\"=?").collect(Collectors.joining(", ")) + " WHERE " +
                         before.keySet().stream().map(k -> "(\"" + k + "\"=? OR (\"" + k + "\" IS NULL AND ? IS NULL))")
-                                .collect(Collectors.joining(" AND ")));
+                                .collect(Collectors.joining(" AND ")), after.keySet());
             }
         }
         preparedStatement.clearParameters();
         int pos = 1;
-        for (String key : after.keySet()) {
+        for (String key : preparedColumns) {
             preparedStatement.setObject(pos++, after.get(key));
         }
         dealNullBefore(before, pos);
@@ -166,12 +358,12 @@ public abstract class WriteRecorder {
         }
         if (EmptyKit.isNull(preparedStatement)) {
             if (hasPk) {
-                preparedStatement = connection.prepareStatement("DELETE FROM \"" + schema + "\".\"" + tapTable.getId() + "\" WHERE " +
-                        before.keySet().stream().map(k -> "\"" + k + "\"=?").collect(Collectors.joining(" AND ")));
+                prepareStatement("DELETE FROM \"" + schema + "\".\"" + tapTable.getId() + "\" WHERE " +
+                        before.keySet().stream().map(k -> "\"" + k + "\"=?").collect(Collectors.joining(" AND ")), before.keySet());
             } else {
-                preparedStatement = connection.prepareStatement("DELETE FROM \"" + schema + "\".\"" + tapTable.getId() + "\" WHERE " +
+                prepareStatement("DELETE FROM \"" + schema + "\".\"" + tapTable.getId() + "\" WHERE " +
                         before.keySet().stream().map(k -> "(\"" + k + "\"=? OR (\"" + k + "\" IS NULL AND ? IS NULL))")
-                                .collect(Collectors.joining(" AND ")));
+                                .collect(Collectors.joining(" AND ")), before.keySet());
             }
         }
         preparedStatement.clearParameters();
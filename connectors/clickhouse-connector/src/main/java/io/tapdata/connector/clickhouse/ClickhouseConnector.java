@@ -80,7 +80,7 @@ public class ClickhouseConnector extends ConnectorBase {
         if ("Database Timezone".equals(this.connectionTimezone) || StringUtils.isBlank(this.connectionTimezone)) {
             this.connectionTimezone = clickhouseJdbcContext.timezone();
         }
-        this.clickhouseWriter = new ClickhouseWriter(clickhouseJdbcContext);
+        this.clickhouseWriter = new ClickhouseWriter(clickhouseJdbcContext, clickhouseConfig.getVersionedInsert());
     }
 
     @Override
@@ -103,6 +103,9 @@ public class ClickhouseConnector extends ConnectorBase {
                     columnList.stream().filter(col->table.equals(col.getString("table")))
                             .forEach(col->{
                                 String columnName = col.getString("name");
+                                if (ClickhouseDDLSqlMaker.isVersionColumn(columnName)) {
+                                    return;
+                                }
                                 String columnType = col.getString("type");
                                 Boolean nullable = false;
                                 if (columnType.contains("Nullable")) {
@@ -211,14 +214,7 @@ public class ClickhouseConnector extends ConnectorBase {
     private void createTable(TapConnectorContext tapConnectorContext, TapCreateTableEvent tapCreateTableEvent) {
 
         TapTable tapTable = tapCreateTableEvent.getTable();
-        Collection<String> primaryKeys = tapTable.primaryKeys(true);
-        String sql = "CREATE TABLE IF NOT EXISTS \"" + clickhouseConfig.getDatabase() + "\".\"" + tapTable.getId() + "\"(" + ClickhouseDDLSqlMaker.buildColumnDefinition(tapTable, true);
-        sql = sql.substring(0, sql.length() - 1) + ") ENGINE = MergeTree ";
-        if (EmptyKit.isNotEmpty(primaryKeys)) {
-            sql += " PRIMARY KEY (\"" + String.join("\",\"", primaryKeys) + "\")";
-        } else {
-            sql += " order by tuple()";
-        }
+        String sql = ClickhouseDDLSqlMaker.buildCreateTableSql(clickhouseConfig.getDatabase(), tapTable, clickhouseConfig.getVersionedInsert());
         try {
             List<String> sqls = TapSimplify.list();
             sqls.add(sql);
@@ -294,11 +290,12 @@ public class ClickhouseConnector extends ConnectorBase {
 
     // 不支持偏移量
     private void batchRead(TapConnectorContext tapConnectorContext, TapTable tapTable, Object offsetState, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
-        String sql = "SELECT * FROM \"" + clickhouseConfig.getDatabase() + "\".\"" + tapTable.getId()+"\"";
+        String sql = "SELECT * FROM \"" + clickhouseConfig.getDatabase() + "\".\"" + tapTable.getId()+"\"" + versionedFilter(tapTable);
         clickhouseJdbcContext.query(sql, resultSet -> {
             List<TapEvent> tapEvents = list();
             //get all column names
             List<String> columnNames = DbKit.getColumnsFromResultSet(resultSet);
+            columnNames.removeIf(ClickhouseDDLSqlMaker::isVersionColumn);
             while (isAlive() && resultSet.next()) {
                 DataMap dataMap = DbKit.getRowFromResultSet(resultSet, columnNames);
                 for (Map.Entry<String, Object> e : dataMap.entrySet()) {
@@ -320,11 +317,19 @@ public class ClickhouseConnector extends ConnectorBase {
 
     private long batchCount(TapConnectorContext tapConnectorContext, TapTable tapTable) throws Throwable {
         AtomicLong count = new AtomicLong(0);
-        String sql = "SELECT COUNT(1) FROM \"" + clickhouseConfig.getDatabase() + "\".\"" + tapTable.getId() + "\"";
+        String sql = "SELECT COUNT(1) FROM \"" + clickhouseConfig.getDatabase() + "\".\"" + tapTable.getId() + "\"" + versionedFilter(tapTable);
         clickhouseJdbcContext.queryWithNext(sql, resultSet -> count.set(resultSet.getLong(1)));
         return count.get();
     }
 
+    //tables written by versioned insert are read with the last version of each key which is not deleted
+    private String versionedFilter(TapTable tapTable) {
+        if (clickhouseConfig.getVersionedInsert() && clickhouseWriter.isVersionedTable(tapTable)) {
+            return " FINAL WHERE \"" + ClickhouseDDLSqlMaker.IS_DELETED_COLUMN + "\" = 0";
+        }
+        return "";
+    }
+
     private void clearTable(TapConnectorContext tapConnectorContext, TapClearTableEvent tapClearTableEvent) {
         try {
             if (clickhouseJdbcContext.queryAllTables(Collections.singletonList(tapClearTableEvent.getTableId())).size() == 1) {
@@ -7,9 +7,19 @@ import java.io.Serializable;
 
 public class ClickhouseConfig extends CommonDbConfig implements Serializable {
 
+    //apply cdc as versioned inserts into ReplacingMergeTree instead of ALTER TABLE mutations
+    private Boolean versionedInsert = false;
 
     public ClickhouseConfig() {
         setDbType("clickhouse");
         setJdbcDriver("ru.yandex.clickhouse.ClickHouseDriver");
     }
+
+    public Boolean getVersionedInsert() {
+        return Boolean.TRUE.equals(versionedInsert);
+    }
+
+    public void setVersionedInsert(Boolean versionedInsert) {
+        this.versionedInsert = versionedInsert;
+    }
 }
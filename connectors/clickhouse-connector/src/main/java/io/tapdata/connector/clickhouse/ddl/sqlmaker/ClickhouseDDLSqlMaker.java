@@ -20,6 +20,13 @@ public class ClickhouseDDLSqlMaker implements DDLSqlMaker {
     private final static String TABLE_NAME_FORMAT = "\"%s\".\"%s\"";
     private final static String ALTER_TABLE_PREFIX = "alter table " + TABLE_NAME_FORMAT;
 
+    /**
+     * columns of versioned insert mode: every event is appended as a row with an increasing version,
+     * ReplacingMergeTree keeps the row of the highest version for each sorting key, deleted rows are marked
+     */
+    public final static String VERSION_COLUMN = "_tapdata_version";
+    public final static String IS_DELETED_COLUMN = "_tapdata_is_deleted";
+
     @Override
     public List<String> addColumn(TapConnectorContext tapConnectorContext, TapNewFieldEvent tapNewFieldEvent) {
         List<String> sqls = new ArrayList<>();
@@ -165,6 +172,30 @@ public class ClickhouseDDLSqlMaker implements DDLSqlMaker {
         return Collections.singletonList(String.format(ALTER_TABLE_PREFIX, database, tableId) + " drop column`" + fieldName + "`");
     }
 
+    /**
+     * @param versioned append version columns and use ReplacingMergeTree, only for tables with (logic) primary keys
+     */
+    public static String buildCreateTableSql(String database, TapTable tapTable, boolean versioned) {
+        Collection<String> primaryKeys = tapTable.primaryKeys(true);
+        String sql = "CREATE TABLE IF NOT EXISTS \"" + database + "\".\"" + tapTable.getId() + "\"(" + buildColumnDefinition(tapTable, true);
+        sql = sql.substring(0, sql.length() - 1);
+        if (versioned && EmptyKit.isNotEmpty(primaryKeys)) {
+            return sql + ", \"" + VERSION_COLUMN + "\" UInt64, \"" + IS_DELETED_COLUMN + "\" UInt8 DEFAULT 0) ENGINE = ReplacingMergeTree(\""
+                    + VERSION_COLUMN + "\") ORDER BY (\"" + String.join("\",\"", primaryKeys) + "\")";
+        }
+        sql += ") ENGINE = MergeTree ";
+        if (EmptyKit.isNotEmpty(primaryKeys)) {
+            sql += " PRIMARY KEY (\"" + String.join("\",\"", primaryKeys) + "\")";
+        } else {
+            sql += " order by tuple()";
+        }
+        return sql;
+    }
+
+    public static boolean isVersionColumn(String fieldName) {
+        return VERSION_COLUMN.equals(fieldName) || IS_DELETED_COLUMN.equals(fieldName);
+    }
+
     /**
      * combine column definition for creating table
      * e.g.
@@ -1,6 +1,7 @@
 package io.tapdata.connector.clickhouse.dml;
 
 import io.tapdata.connector.clickhouse.ClickhouseJdbcContext;
+import io.tapdata.connector.clickhouse.ddl.sqlmaker.ClickhouseDDLSqlMaker;
 import io.tapdata.connector.clickhouse.util.JdbcUtil;
 import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
 import io.tapdata.entity.event.dml.TapInsertRecordEvent;
@@ -35,7 +36,11 @@ public class ClickhouseWriter {
     private final Map<String, PreparedStatement> updateMap = new LRUOnRemoveMap<>(10, entry -> JdbcUtil.closeQuietly(entry.getValue()));
     private final Map<String, PreparedStatement> deleteMap = new LRUOnRemoveMap<>(10, entry -> JdbcUtil.closeQuietly(entry.getValue()));
     private final Map<String, PreparedStatement> checkExistsMap = new LRUOnRemoveMap<>(10, entry -> JdbcUtil.closeQuietly(entry.getValue()));
+    private final Map<String, PreparedStatement> versionedInsertMap = new LRUOnRemoveMap<>(10, entry -> JdbcUtil.closeQuietly(entry.getValue()));
+    private final Map<String, Boolean> versionedTableMap = new HashMap<>();
     private AtomicBoolean running = new AtomicBoolean(true);
+    private final boolean versionedInsert;
+    private long lastVersion;
 
     protected ClickhouseJdbcContext clickhouseJdbcContext;
     protected Connection connection;
@@ -49,11 +54,19 @@ public class ClickhouseWriter {
 
 
     public ClickhouseWriter(ClickhouseJdbcContext clickhouseJdbcContext) throws Throwable {
+        this(clickhouseJdbcContext, false);
+    }
+
+    public ClickhouseWriter(ClickhouseJdbcContext clickhouseJdbcContext, boolean versionedInsert) throws Throwable {
         this.clickhouseJdbcContext = clickhouseJdbcContext;
         this.connection = this.clickhouseJdbcContext.getConnection();
+        this.versionedInsert = versionedInsert;
     }
 
     public WriteListResult<TapRecordEvent> write(TapConnectorContext tapConnectorContext, TapTable tapTable, List<TapRecordEvent> tapRecordEvents) throws Throwable {
+        if (versionedInsert && isVersionedTable(tapTable)) {
+            return writeVersioned(tapConnectorContext, tapTable, tapRecordEvents);
+        }
         WriteListResult<TapRecordEvent> writeListResult = new WriteListResult<>(0L, 0L, 0L, new HashMap<>());
         TapRecordEvent errorRecord = null;
         try {
@@ -89,8 +102,140 @@ public class ClickhouseWriter {
         return writeListResult;
     }
 
+    /**
+     * Versioned insert mode: every event is appended as a row of the table's ReplacingMergeTree, with an increasing
+     * version and a deleted mark, all rows of a batch are sent by one INSERT. No existence check and no mutation is done,
+     * merges (or queries with FINAL) keep the last version of each key.
+     * Insert policy is always update on exists, the last version wins.
+     */
+    private WriteListResult<TapRecordEvent> writeVersioned(TapConnectorContext tapConnectorContext, TapTable tapTable, List<TapRecordEvent> tapRecordEvents) throws Throwable {
+        WriteListResult<TapRecordEvent> writeListResult = new WriteListResult<>(0L, 0L, 0L, new HashMap<>());
+        List<String> fields = tapTable.getNameFieldMap().keySet().stream().filter(f -> !ClickhouseDDLSqlMaker.isVersionColumn(f)).collect(Collectors.toList());
+        Collection<String> uniqueKeys = getUniqueKeys(tapTable);
+        String key = tapTable.getId() + "-" + String.join("-", fields);
+        PreparedStatement preparedStatement = getVersionedInsertPreparedStatement(tapConnectorContext, tapTable, fields, key);
+        long inserted = 0, modified = 0, removed = 0;
+        try {
+            for (TapRecordEvent tapRecordEvent : tapRecordEvents) {
+                if (!running.get()) break;
+                if (tapRecordEvent instanceof TapInsertRecordEvent) {
+                    addVersionedRow(preparedStatement, fields, getAfter(tapRecordEvent), false);
+                    inserted++;
+                } else if (tapRecordEvent instanceof TapUpdateRecordEvent) {
+                    Map<String, Object> before = getBefore(tapRecordEvent);
+                    Map<String, Object> after = getAfter(tapRecordEvent);
+                    Map<String, Object> image = fullImage(fields, before, after);
+                    if (null == image) {
+                        //unchanged fields are unknown, only the fields in after are updated by a mutation, rows added
+                        //before it are sent first so the mutation applies after them
+                        preparedStatement.executeBatch();
+                        doUpdateOne(tapConnectorContext, tapTable, tapRecordEvent);
+                    } else {
+                        //primary key changed, the row of old key is deleted
+                        if (MapUtils.isNotEmpty(before) && uniqueKeys.stream().anyMatch(k -> after.containsKey(k) && before.containsKey(k) && !Objects.equals(before.get(k), after.get(k)))) {
+                            addVersionedRow(preparedStatement, fields, before, true);
+                        }
+                        addVersionedRow(preparedStatement, fields, image, false);
+                    }
+                    modified++;
+                } else if (tapRecordEvent instanceof TapDeleteRecordEvent) {
+                    addVersionedRow(preparedStatement, fields, getBefore(tapRecordEvent), true);
+                    removed++;
+                } else {
+                    writeListResult.addError(tapRecordEvent, new Exception("Event type \"" + tapRecordEvent.getClass().getSimpleName() + "\" not support: " + tapRecordEvent));
+                }
+            }
+            preparedStatement.executeBatch();
+            ClickhouseJdbcContext.tryCommit(connection);
+        } catch (Throwable e) {
+            versionedInsertMap.remove(key);
+            ClickhouseJdbcContext.tryRollBack(connection);
+            throw new RuntimeException("Versioned insert data failed, table: " + tapTable.getId() + ", message: " + e.getMessage(), e);
+        }
+        return writeListResult.insertedCount(inserted).modifiedCount(modified).removedCount(removed);
+    }
+
+    /**
+     * a versioned row replaces the whole row, the after image of an update may only contain the changed fields, the
+     * missing ones are taken from before
+     *
+     * @return null if some field is neither in after nor in before
+     */
+    private Map<String, Object> fullImage(List<String> fields, Map<String, Object> before, Map<String, Object> after) {
+        if (MapUtils.isEmpty(after)) {
+            return null;
+        }
+        Map<String, Object> image = after;
+        if (MapUtils.isNotEmpty(before)) {
+            image = new HashMap<>(before);
+            image.putAll(after);
+        }
+        for (String field : fields) {
+            if (!image.containsKey(field)) {
+                return null;
+            }
+        }
+        return image;
+    }
+
+    private void addVersionedRow(PreparedStatement preparedStatement, List<String> fields, Map<String, Object> data, boolean deleted) throws Throwable {
+        if (MapUtils.isEmpty(data)) {
+            throw new Exception("Add versioned row failed, data is empty");
+        }
+        int parameterIndex = 1;
+        //fields missing in data (e.g. not key fields of a delete) are inserted as default values
+        for (String field : fields) {
+            preparedStatement.setObject(parameterIndex++, data.get(field));
+        }
+        preparedStatement.setLong(parameterIndex++, nextVersion());
+        preparedStatement.setInt(parameterIndex, deleted ? 1 : 0);
+        preparedStatement.addBatch();
+    }
+
+    /**
+     * versions increase within the writer and, as they start from current time in microseconds, across restarts
+     */
+    private long nextVersion() {
+        lastVersion = Math.max(lastVersion + 1, System.currentTimeMillis() * 1000);
+        return lastVersion;
+    }
+
+    private PreparedStatement getVersionedInsertPreparedStatement(TapConnectorContext tapConnectorContext, TapTable tapTable, List<String> fields, String key) throws Throwable {
+        PreparedStatement preparedStatement = versionedInsertMap.get(key);
+        if (null == preparedStatement) {
+            String database = tapConnectorContext.getConnectionConfig().getString("database");
+            List<String> columns = fields.stream().map(f -> "`" + f + "`").collect(Collectors.toList());
+            columns.add("`" + ClickhouseDDLSqlMaker.VERSION_COLUMN + "`");
+            columns.add("`" + ClickhouseDDLSqlMaker.IS_DELETED_COLUMN + "`");
+            String sql = String.format(INSERT_SQL_TEMPLATE, database, tapTable.getId(), String.join(",", columns),
+                    columns.stream().map(f -> "?").collect(Collectors.joining(",")));
+            try {
+                preparedStatement = this.connection.prepareStatement(sql);
+            } catch (SQLException e) {
+                throw new Exception("Create versioned insert prepared statement error, sql: " + sql + ", message: " + e.getSQLState() + " " + e.getErrorCode() + " " + e.getMessage(), e);
+            }
+            versionedInsertMap.put(key, preparedStatement);
+        }
+        return preparedStatement;
+    }
+
+    /**
+     * table is written in versioned mode only if it has primary keys and it was created with the version columns
+     */
+    public boolean isVersionedTable(TapTable tapTable) {
+        if (CollectionUtils.isEmpty(getUniqueKeys(tapTable))) {
+            return false;
+        }
+        return versionedTableMap.computeIfAbsent(tapTable.getId(), tableId -> {
+            List<String> columns = clickhouseJdbcContext.queryAllColumns(Collections.singletonList(tableId)).stream()
+                    .filter(col -> tableId.equals(col.getString("table"))).map(col -> col.getString("name")).collect(Collectors.toList());
+            return columns.contains(ClickhouseDDLSqlMaker.VERSION_COLUMN) && columns.contains(ClickhouseDDLSqlMaker.IS_DELETED_COLUMN);
+        });
+    }
+
     public void onDestroy() {
         this.running.set(false);
+        this.versionedInsertMap.clear();
         this.insertMap.clear();
         this.updateMap.clear();
         this.deleteMap.clear();
@@ -25,9 +25,9 @@ import io.tapdata.pdk.apis.functions.connection.ConnectionCheckItem;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
-import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.header.internals.RecordHeaders;
 
 import java.time.Duration;
@@ -43,8 +43,21 @@ public class KafkaService extends AbstractMqService {
 
     private static final String TAG = KafkaService.class.getSimpleName();
     private static final JsonParser jsonParser = InstanceFactory.instance(JsonParser.class);
+    private static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 16L << 20;
+    private static final Map<MqOp, byte[]> MQ_OP_BYTES = new EnumMap<>(MqOp.class);
+
+    static {
+        for (MqOp mqOp : MqOp.values()) {
+            MQ_OP_BYTES.put(mqOp, mqOp.getOp().getBytes());
+        }
+    }
+
     private String connectorId;
     private final ExecutorService produceService;
+    private KafkaProducer<byte[], byte[]> kafkaProducer;
+    private final Object inFlightLock = new Object();
+    private long inFlightBytes;
+    private long maxInFlightBytes = DEFAULT_MAX_IN_FLIGHT_BYTES;
 
     public KafkaService(KafkaConfig mqConfig) {
         this.mqConfig = mqConfig;
@@ -206,78 +219,202 @@ public class KafkaService extends AbstractMqService {
         });
     }
 
+    /**
+     * One producer of this connector node is reused by every batch, records of the batch are handed to it by the
+     * produce threads, then the call waits for their acknowledgements, so each batch reports its own failures and the
+     * offset of a batch never advances before its records are written.
+     * Bytes in flight are bounded by {@link #acquireInFlight(long)}.
+     * Events of the same message key are sent by the same thread in their order, so they keep their order in partition.
+     */
     @Override
     public void produce(List<TapRecordEvent> tapRecordEvents, TapTable tapTable, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) {
-        ProducerConfiguration producerConfiguration = new ProducerConfiguration(((KafkaConfig) mqConfig), connectorId);
-        KafkaProducer<byte[], byte[]> kafkaProducer = new KafkaProducer<>(producerConfiguration.build());
-        AtomicLong insert = new AtomicLong(0);
-        AtomicLong update = new AtomicLong(0);
-        AtomicLong delete = new AtomicLong(0);
+        KafkaProducer<byte[], byte[]> kafkaProducer = getKafkaProducer();
         WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
-        List<List<TapRecordEvent>> subEventLists = Lists.partition(tapRecordEvents, tapRecordEvents.size() <= concurrency ? tapRecordEvents.size() : (tapRecordEvents.size() - 1) / concurrency + 1);
+        Collection<String> primaryKeys = tapTable.primaryKeys(true);
+        List<List<TapRecordEvent>> subEventLists = partitionByKey(tapRecordEvents, primaryKeys);
+        Queue<Map.Entry<TapRecordEvent, Future<RecordMetadata>>> sentRecords = new ConcurrentLinkedQueue<>();
+        Queue<Map.Entry<TapRecordEvent, Throwable>> sendErrors = new ConcurrentLinkedQueue<>();
         CountDownLatch countDownLatch = new CountDownLatch(subEventLists.size());
-        subEventLists.forEach(subEventList -> produceService.submit(() -> {
+        for (List<TapRecordEvent> subEventList : subEventLists) {
             try {
-                subEventList.forEach(event -> {
-                    Map<String, Object> data;
-                    MqOp mqOp = MqOp.INSERT;
-                    if (event instanceof TapInsertRecordEvent) {
-                        data = ((TapInsertRecordEvent) event).getAfter();
-                    } else if (event instanceof TapUpdateRecordEvent) {
-                        data = ((TapUpdateRecordEvent) event).getAfter();
-                        mqOp = MqOp.UPDATE;
-                    } else if (event instanceof TapDeleteRecordEvent) {
-                        data = ((TapDeleteRecordEvent) event).getBefore();
-                        mqOp = MqOp.DELETE;
-                    } else {
-                        data = new HashMap<>();
+                produceService.submit(() -> {
+                    try {
+                        sendAll(kafkaProducer, subEventList, tapTable.getId(), primaryKeys, sentRecords, sendErrors);
+                    } finally {
+                        countDownLatch.countDown();
                     }
-                    byte[] body = jsonParser.toJsonBytes(data);
-                    MqOp finalMqOp = mqOp;
-                    Callback callback = (metadata, exception) -> {
-                        if (EmptyKit.isNotNull(exception)) {
-                            listResult.addError(event, exception);
-                        }
-                        switch (finalMqOp) {
-                            case INSERT:
-                                insert.incrementAndGet();
-                                break;
-                            case UPDATE:
-                                update.incrementAndGet();
-                                break;
-                            case DELETE:
-                                delete.incrementAndGet();
-                                break;
-                        }
-                    };
-                    ProducerRecord<byte[], byte[]> producerRecord = new ProducerRecord<>(tapTable.getId(),
-                            null, event.getTime(), getKafkaMessageKey(data, tapTable), body,
-                            new RecordHeaders().add("mqOp", mqOp.getOp().getBytes()));
-                    kafkaProducer.send(producerRecord, callback);
                 });
             } catch (RejectedExecutionException e) {
-                TapLogger.warn(TAG, "task stopped, some data produce failed!", e);
-            } catch (Exception e) {
-                TapLogger.error(TAG, "produce error, or task interrupted!", e);
-            } finally {
+                subEventList.forEach(event -> sendErrors.offer(new AbstractMap.SimpleEntry<>(event, e)));
                 countDownLatch.countDown();
             }
-        }));
+        }
+        AtomicLong insert = new AtomicLong(0);
+        AtomicLong update = new AtomicLong(0);
+        AtomicLong delete = new AtomicLong(0);
         try {
             countDownLatch.await();
+            Map.Entry<TapRecordEvent, Future<RecordMetadata>> sentRecord;
+            while (null != (sentRecord = sentRecords.poll())) {
+                TapRecordEvent event = sentRecord.getKey();
+                try {
+                    sentRecord.getValue().get();
+                } catch (ExecutionException e) {
+                    sendErrors.offer(new AbstractMap.SimpleEntry<>(event, null == e.getCause() ? e : e.getCause()));
+                    continue;
+                }
+                switch (getMqOp(event)) {
+                    case INSERT:
+                        insert.incrementAndGet();
+                        break;
+                    case UPDATE:
+                        update.incrementAndGet();
+                        break;
+                    case DELETE:
+                        delete.incrementAndGet();
+                        break;
+                }
+            }
         } catch (InterruptedException e) {
-            TapLogger.error(TAG, "error occur when await", e);
+            Thread.currentThread().interrupt();
+            // records may still be sent or not acknowledged yet, the batch must not be reported as written
+            insert.set(0);
+            update.set(0);
+            delete.set(0);
+            tapRecordEvents.forEach(event -> sendErrors.offer(new AbstractMap.SimpleEntry<>(event, e)));
         } finally {
-            kafkaProducer.close();
+            Map.Entry<TapRecordEvent, Throwable> sendError;
+            while (null != (sendError = sendErrors.poll())) {
+                listResult.addError(sendError.getKey(), sendError.getValue());
+            }
             writeListResultConsumer.accept(listResult.insertedCount(insert.get()).modifiedCount(update.get()).removedCount(delete.get()));
         }
     }
 
-    private byte[] getKafkaMessageKey(Map<String, Object> data, TapTable tapTable) {
-        if (EmptyKit.isEmpty(tapTable.primaryKeys(true))) {
+    /**
+     * Send events in their order, when one fails the remaining ones are not sent, so a later event of the same key
+     * cannot be written before it
+     */
+    private void sendAll(KafkaProducer<byte[], byte[]> kafkaProducer, List<TapRecordEvent> events, String topic, Collection<String> primaryKeys,
+                         Queue<Map.Entry<TapRecordEvent, Future<RecordMetadata>>> sentRecords, Queue<Map.Entry<TapRecordEvent, Throwable>> sendErrors) {
+        Throwable error = null;
+        for (TapRecordEvent event : events) {
+            if (null != error) {
+                sendErrors.offer(new AbstractMap.SimpleEntry<>(event, error));
+                continue;
+            }
+            try {
+                Map<String, Object> data = getData(event);
+                MqOp mqOp = getMqOp(event);
+                byte[] body = jsonParser.toJsonBytes(data);
+                byte[] key = getKafkaMessageKey(data, primaryKeys);
+                long size = body.length + (null == key ? 0 : key.length);
+                acquireInFlight(size);
+                ProducerRecord<byte[], byte[]> producerRecord = new ProducerRecord<>(topic,
+                        null, event.getTime(), key, body,
+                        new RecordHeaders().add("mqOp", MQ_OP_BYTES.get(mqOp)));
+                try {
+                    sentRecords.offer(new AbstractMap.SimpleEntry<>(event, kafkaProducer.send(producerRecord, (metadata, exception) -> releaseInFlight(size))));
+                } catch (Exception e) {
+                    releaseInFlight(size);
+                    throw e;
+                }
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                TapLogger.error(TAG, "produce error, or task interrupted!", e);
+                error = e;
+                sendErrors.offer(new AbstractMap.SimpleEntry<>(event, e));
+            }
+        }
+    }
+
+    private synchronized KafkaProducer<byte[], byte[]> getKafkaProducer() {
+        if (null == kafkaProducer) {
+            ProducerConfiguration producerConfiguration = new ProducerConfiguration(((KafkaConfig) mqConfig), connectorId);
+            kafkaProducer = new KafkaProducer<>(producerConfiguration.build());
+            // keep below buffer.memory, so send never blocks on a full buffer and times out
+            Integer bufferMemory = ((KafkaConfig) mqConfig).getKafkaBufferMemory();
+            maxInFlightBytes = null != bufferMemory && bufferMemory > 0 ? bufferMemory / 2 : DEFAULT_MAX_IN_FLIGHT_BYTES;
+        }
+        return kafkaProducer;
+    }
+
+    private void acquireInFlight(long size) throws InterruptedException {
+        synchronized (inFlightLock) {
+            // a record larger than the limit is still sent when nothing else is in flight
+            while (inFlightBytes > 0 && inFlightBytes + size > maxInFlightBytes) {
+                inFlightLock.wait(100L);
+            }
+            inFlightBytes += size;
+        }
+    }
+
+    private void releaseInFlight(long size) {
+        synchronized (inFlightLock) {
+            inFlightBytes -= size;
+            inFlightLock.notifyAll();
+        }
+    }
+
+    /**
+     * split events for produce threads, events of one message key go to one list in their order,
+     * events without primary keys are split evenly
+     */
+    private List<List<TapRecordEvent>> partitionByKey(List<TapRecordEvent> tapRecordEvents, Collection<String> primaryKeys) {
+        if (tapRecordEvents.size() <= 1) {
+            return Collections.singletonList(tapRecordEvents);
+        }
+        List<List<TapRecordEvent>> subEventLists = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            subEventLists.add(new ArrayList<>(tapRecordEvents.size() / concurrency + 1));
+        }
+        int index = 0;
+        for (TapRecordEvent event : tapRecordEvents) {
+            int bucket;
+            if (EmptyKit.isEmpty(primaryKeys)) {
+                bucket = index++ % concurrency;
+            } else {
+                Map<String, Object> data = getData(event);
+                int hash = 0;
+                for (String key : primaryKeys) {
+                    hash = 31 * hash + Objects.hashCode(null == data.get(key) ? null : data.get(key).toString());
+                }
+                bucket = (hash & Integer.MAX_VALUE) % concurrency;
+            }
+            subEventLists.get(bucket).add(event);
+        }
+        subEventLists.removeIf(List::isEmpty);
+        return subEventLists;
+    }
+
+    private static Map<String, Object> getData(TapRecordEvent event) {
+        Map<String, Object> data = null;
+        if (event instanceof TapInsertRecordEvent) {
+            data = ((TapInsertRecordEvent) event).getAfter();
+        } else if (event instanceof TapUpdateRecordEvent) {
+            data = ((TapUpdateRecordEvent) event).getAfter();
+        } else if (event instanceof TapDeleteRecordEvent) {
+            data = ((TapDeleteRecordEvent) event).getBefore();
+        }
+        return null == data ? new HashMap<>() : data;
+    }
+
+    private static MqOp getMqOp(TapRecordEvent event) {
+        if (event instanceof TapUpdateRecordEvent) {
+            return MqOp.UPDATE;
+        } else if (event instanceof TapDeleteRecordEvent) {
+            return MqOp.DELETE;
+        }
+        return MqOp.INSERT;
+    }
+
+    private byte[] getKafkaMessageKey(Map<String, Object> data, Collection<String> primaryKeys) {
+        if (EmptyKit.isEmpty(primaryKeys)) {
             return null;
         } else {
-            return jsonParser.toJsonBytes(tapTable.primaryKeys(true).stream().map(key -> data.get(key).toString()).collect(Collectors.joining("_")));
+            return jsonParser.toJsonBytes(primaryKeys.stream().map(key -> data.get(key).toString()).collect(Collectors.joining("_")));
         }
     }
 
@@ -356,5 +493,17 @@ public class KafkaService extends AbstractMqService {
     public void close() {
         super.close();
         produceService.shutdown();
+        synchronized (this) {
+            if (null != kafkaProducer) {
+                try {
+                    // every batch waits for its own acknowledgements, records still in flight belong to a batch being
+                    // stopped, and their failures are reported to it
+                    kafkaProducer.flush();
+                } finally {
+                    kafkaProducer.close();
+                    kafkaProducer = null;
+                }
+            }
+        }
     }
 }
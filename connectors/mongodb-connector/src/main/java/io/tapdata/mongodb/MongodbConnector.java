@@ -2,7 +2,9 @@ package io.tapdata.mongodb;
 
 import com.mongodb.*;
 import com.mongodb.client.*;
+import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.Sorts;
 import io.tapdata.base.ConnectorBase;
 import io.tapdata.entity.codec.TapCodecsRegistry;
@@ -67,6 +69,8 @@ public class MongodbConnector extends ConnectorBase {
 
 	private static final int SAMPLE_SIZE_BATCH_SIZE = 100;
 	private static final String COLLECTION_ID_FIELD = "_id";
+	private static final long MIN_DOCUMENTS_PER_SPLIT = 500000L;
+	private static final int SAMPLES_PER_SPLIT = 20;
 	public static final String TAG = MongodbConnector.class.getSimpleName();
 	private final AtomicLong counter = new AtomicLong();
 	private final AtomicBoolean isShutDown = new AtomicBoolean(false);
@@ -362,6 +366,8 @@ public class MongodbConnector extends ConnectorBase {
 
 		//TO be as a source, need to implement below methods.
 		connectorFunctions.supportBatchRead(this::batchRead);
+		connectorFunctions.supportGetReadSplits(this::getReadSplits);
+		connectorFunctions.supportBatchReadSplit(this::batchReadSplit);
 		connectorFunctions.supportBatchCount(this::batchCount);
 		connectorFunctions.supportCreateIndex(this::createIndex);
 		connectorFunctions.supportStreamRead(this::streamRead);
@@ -666,6 +672,92 @@ public class MongodbConnector extends ConnectorBase {
 		}
 	}
 
+	/**
+	 * Split the collection into _id ranges, boundaries are picked from sampled _id values, so they fit the data
+	 * distribution whatever the _id type is
+	 */
+	private List<TapReadSplit> getReadSplits(TapConnectorContext connectorContext, TapTable table, int maxSplits) {
+		MongoCollection<Document> collection = getMongoCollection(table.getId());
+		long count = collection.estimatedDocumentCount();
+		int splitCount = (int) Math.min(maxSplits, count / MIN_DOCUMENTS_PER_SPLIT);
+		if (splitCount < 2 || !isSingleIdType(collection)) {
+			return null;
+		}
+		List<Object> ids = new ArrayList<>();
+		collection.aggregate(Arrays.asList(
+				Aggregates.sample(splitCount * SAMPLES_PER_SPLIT),
+				Aggregates.project(Projections.include(COLLECTION_ID_FIELD)),
+				Aggregates.sort(Sorts.ascending(COLLECTION_ID_FIELD))
+		)).allowDiskUse(true).forEach(document -> ids.add(document.get(COLLECTION_ID_FIELD)));
+		if (ids.size() < splitCount) {
+			return null;
+		}
+		List<TapReadSplit> splits = new ArrayList<>();
+		Object start = null;
+		for (int i = 1; i < splitCount; i++) {
+			Object end = ids.get(i * ids.size() / splitCount);
+			if (null != start && start.equals(end)) {
+				continue;
+			}
+			splits.add(new TapReadSplit(String.valueOf(splits.size()), null == start ? null : new MongoBatchOffset(COLLECTION_ID_FIELD, start),
+					new MongoBatchOffset(COLLECTION_ID_FIELD, end)));
+			start = end;
+		}
+		splits.add(new TapReadSplit(String.valueOf(splits.size()), null == start ? null : new MongoBatchOffset(COLLECTION_ID_FIELD, start), null));
+		return splits;
+	}
+
+	/**
+	 * Range filters on _id only match values of the same BSON type as the bound, so splitting is only safe when the
+	 * smallest and the largest _id share one type, which means every _id in between does too
+	 */
+	private boolean isSingleIdType(MongoCollection<Document> collection) {
+		MongoCollection<BsonDocument> bsonCollection = collection.withDocumentClass(BsonDocument.class);
+		BsonDocument min = bsonCollection.find().projection(Projections.include(COLLECTION_ID_FIELD))
+				.sort(Sorts.ascending(COLLECTION_ID_FIELD)).first();
+		BsonDocument max = bsonCollection.find().projection(Projections.include(COLLECTION_ID_FIELD))
+				.sort(Sorts.descending(COLLECTION_ID_FIELD)).first();
+		if (null == min || null == max || !min.containsKey(COLLECTION_ID_FIELD) || !max.containsKey(COLLECTION_ID_FIELD)) {
+			return false;
+		}
+		return min.get(COLLECTION_ID_FIELD).getBsonType() == max.get(COLLECTION_ID_FIELD).getBsonType();
+	}
+
+	/**
+	 * Read _id range [start, end) of a split, it is called concurrently for splits of the same collection
+	 */
+	private void batchReadSplit(TapConnectorContext connectorContext, TapTable table, TapReadSplit split, Object offset, int eventBatchSize, BiConsumer<List<TapEvent>, Object> tapReadOffsetConsumer) throws Throwable {
+		MongoCollection<Document> collection = getMongoCollection(table.getId());
+		final int batchSize = eventBatchSize > 0 ? eventBatchSize : 5000;
+		List<Bson> filters = new ArrayList<>();
+		if (null != offset) {
+			filters.add(gt(COLLECTION_ID_FIELD, ((MongoBatchOffset) offset).value()));
+		} else if (null != split.getStart()) {
+			filters.add(gte(COLLECTION_ID_FIELD, ((MongoBatchOffset) split.getStart()).value()));
+		}
+		if (null != split.getEnd()) {
+			filters.add(lt(COLLECTION_ID_FIELD, ((MongoBatchOffset) split.getEnd()).value()));
+		}
+		Bson filter = filters.isEmpty() ? new Document() : and(filters);
+		List<TapEvent> tapEvents = list();
+		Document lastDocument = null;
+		try (MongoCursor<Document> mongoCursor = collection.find(filter).sort(Sorts.ascending(COLLECTION_ID_FIELD)).batchSize(batchSize).iterator()) {
+			while (mongoCursor.hasNext()) {
+				if (!isAlive()) return;
+				lastDocument = mongoCursor.next();
+				tapEvents.add(insertRecordEvent(lastDocument, table.getId()));
+
+				if (tapEvents.size() == batchSize) {
+					tapReadOffsetConsumer.accept(tapEvents, new MongoBatchOffset(COLLECTION_ID_FIELD, lastDocument.get(COLLECTION_ID_FIELD)));
+					tapEvents = list();
+				}
+			}
+		}
+		if (!tapEvents.isEmpty()) {
+			tapReadOffsetConsumer.accept(tapEvents, new MongoBatchOffset(COLLECTION_ID_FIELD, lastDocument.get(COLLECTION_ID_FIELD)));
+		}
+	}
+
 	private Object streamOffset(TapConnectorContext connectorContext, Long offsetStartTime) {
 		if (mongodbStreamReader == null) {
 			mongodbStreamReader = createStreamReader();
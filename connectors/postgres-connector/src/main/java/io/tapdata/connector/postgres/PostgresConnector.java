@@ -35,6 +35,7 @@ import io.tapdata.pdk.apis.functions.connector.target.CreateTableOptions;
 
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
@@ -60,6 +61,7 @@ public class PostgresConnector extends ConnectorBase {
     private Object slotName; //must be stored in stateMap
     private String postgresVersion;
     private static final int BATCH_ADVANCE_READ_LIMIT = 1000;
+    private final Map<String, AtomicInteger> writeBatchSizes = new ConcurrentHashMap<>(); //adapted write batch size of each table
     private BiClassHandlers<TapFieldBaseEvent, TapConnectorContext, List<String>> fieldDDLHandlers;
     private DDLSqlGenerator ddlSqlGenerator;
 
@@ -434,6 +436,7 @@ public class PostgresConnector extends ConnectorBase {
                 .setVersion(postgresVersion)
                 .setInsertPolicy(insertDmlPolicy)
                 .setUpdatePolicy(updateDmlPolicy)
+                .setBatchSizes(writeBatchSizes)
                 .write(tapRecordEvents, writeListResultConsumer);
     }
 
@@ -0,0 +1,34 @@
+package io.tapdata.aspect;
+
+import java.util.function.Supplier;
+
+public class JsProcessorNodeAspect extends ProcessorNodeAspect<JsProcessorNodeAspect> {
+
+	private Supplier<Number> invocations;
+	public JsProcessorNodeAspect invocations(Supplier<Number> invocations) {
+		this.invocations = invocations;
+		return this;
+	}
+
+	private Supplier<Number> scriptTimeMs;
+	public JsProcessorNodeAspect scriptTimeMs(Supplier<Number> scriptTimeMs) {
+		this.scriptTimeMs = scriptTimeMs;
+		return this;
+	}
+
+	public Supplier<Number> getInvocations() {
+		return invocations;
+	}
+
+	public void setInvocations(Supplier<Number> invocations) {
+		this.invocations = invocations;
+	}
+
+	public Supplier<Number> getScriptTimeMs() {
+		return scriptTimeMs;
+	}
+
+	public void setScriptTimeMs(Supplier<Number> scriptTimeMs) {
+		this.scriptTimeMs = scriptTimeMs;
+	}
+}
@@ -0,0 +1,48 @@
+package io.tapdata.aspect;
+
+import java.util.function.Supplier;
+
+public class MergeNodeCacheAspect extends ProcessorNodeAspect<MergeNodeCacheAspect> {
+
+	private String mergeTable;
+	public MergeNodeCacheAspect mergeTable(String mergeTable) {
+		this.mergeTable = mergeTable;
+		return this;
+	}
+
+	private Supplier<Number> hitRatio;
+	public MergeNodeCacheAspect hitRatio(Supplier<Number> hitRatio) {
+		this.hitRatio = hitRatio;
+		return this;
+	}
+
+	private Supplier<Number> lookupLatencyMs;
+	public MergeNodeCacheAspect lookupLatencyMs(Supplier<Number> lookupLatencyMs) {
+		this.lookupLatencyMs = lookupLatencyMs;
+		return this;
+	}
+
+	public String getMergeTable() {
+		return mergeTable;
+	}
+
+	public void setMergeTable(String mergeTable) {
+		this.mergeTable = mergeTable;
+	}
+
+	public Supplier<Number> getHitRatio() {
+		return hitRatio;
+	}
+
+	public void setHitRatio(Supplier<Number> hitRatio) {
+		this.hitRatio = hitRatio;
+	}
+
+	public Supplier<Number> getLookupLatencyMs() {
+		return lookupLatencyMs;
+	}
+
+	public void setLookupLatencyMs(Supplier<Number> lookupLatencyMs) {
+		this.lookupLatencyMs = lookupLatencyMs;
+	}
+}
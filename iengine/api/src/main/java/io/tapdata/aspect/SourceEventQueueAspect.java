@@ -0,0 +1,48 @@
+package io.tapdata.aspect;
+
+import java.util.function.Supplier;
+
+public class SourceEventQueueAspect extends DataNodeAspect<SourceEventQueueAspect> {
+
+	private Supplier<Number> occupancy;
+	public SourceEventQueueAspect occupancy(Supplier<Number> occupancy) {
+		this.occupancy = occupancy;
+		return this;
+	}
+
+	private Supplier<Number> producerStallMs;
+	public SourceEventQueueAspect producerStallMs(Supplier<Number> producerStallMs) {
+		this.producerStallMs = producerStallMs;
+		return this;
+	}
+
+	private Supplier<Number> consumerStallMs;
+	public SourceEventQueueAspect consumerStallMs(Supplier<Number> consumerStallMs) {
+		this.consumerStallMs = consumerStallMs;
+		return this;
+	}
+
+	public Supplier<Number> getOccupancy() {
+		return occupancy;
+	}
+
+	public void setOccupancy(Supplier<Number> occupancy) {
+		this.occupancy = occupancy;
+	}
+
+	public Supplier<Number> getProducerStallMs() {
+		return producerStallMs;
+	}
+
+	public void setProducerStallMs(Supplier<Number> producerStallMs) {
+		this.producerStallMs = producerStallMs;
+	}
+
+	public Supplier<Number> getConsumerStallMs() {
+		return consumerStallMs;
+	}
+
+	public void setConsumerStallMs(Supplier<Number> consumerStallMs) {
+		this.consumerStallMs = consumerStallMs;
+	}
+}
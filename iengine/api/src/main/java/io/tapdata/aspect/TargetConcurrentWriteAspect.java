@@ -0,0 +1,35 @@
+package io.tapdata.aspect;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+public class TargetConcurrentWriteAspect extends DataNodeAspect<TargetConcurrentWriteAspect> {
+
+	private Supplier<Number> barrierWaitMs;
+	public TargetConcurrentWriteAspect barrierWaitMs(Supplier<Number> barrierWaitMs) {
+		this.barrierWaitMs = barrierWaitMs;
+		return this;
+	}
+
+	private List<Supplier<Number>> partitionQueueDepths;
+	public TargetConcurrentWriteAspect partitionQueueDepths(List<Supplier<Number>> partitionQueueDepths) {
+		this.partitionQueueDepths = partitionQueueDepths;
+		return this;
+	}
+
+	public Supplier<Number> getBarrierWaitMs() {
+		return barrierWaitMs;
+	}
+
+	public void setBarrierWaitMs(Supplier<Number> barrierWaitMs) {
+		this.barrierWaitMs = barrierWaitMs;
+	}
+
+	public List<Supplier<Number>> getPartitionQueueDepths() {
+		return partitionQueueDepths;
+	}
+
+	public void setPartitionQueueDepths(List<Supplier<Number>> partitionQueueDepths) {
+		this.partitionQueueDepths = partitionQueueDepths;
+	}
+}
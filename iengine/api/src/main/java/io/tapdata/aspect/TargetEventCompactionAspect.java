@@ -0,0 +1,20 @@
+package io.tapdata.aspect;
+
+import java.util.function.Supplier;
+
+public class TargetEventCompactionAspect extends DataNodeAspect<TargetEventCompactionAspect> {
+
+	private Supplier<Number> compactionRatio;
+	public TargetEventCompactionAspect compactionRatio(Supplier<Number> compactionRatio) {
+		this.compactionRatio = compactionRatio;
+		return this;
+	}
+
+	public Supplier<Number> getCompactionRatio() {
+		return compactionRatio;
+	}
+
+	public void setCompactionRatio(Supplier<Number> compactionRatio) {
+		this.compactionRatio = compactionRatio;
+	}
+}
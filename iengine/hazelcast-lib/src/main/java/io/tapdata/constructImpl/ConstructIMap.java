@@ -3,6 +3,10 @@ package io.tapdata.constructImpl;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.map.IMap;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * @author samuel
  * @Description
@@ -47,6 +51,28 @@ public class ConstructIMap<T> extends BaseConstruct<T> {
 		return (T) iMap.get(key);
 	}
 
+	/**
+	 * Find values of keys in one round trip per member
+	 *
+	 * @return key -> value, keys not exists are not contained
+	 */
+	public Map<String, T> findAll(Set<String> keys) throws Exception {
+		Map<String, T> result = new HashMap<>();
+		if (null == keys || keys.isEmpty()) {
+			return result;
+		}
+		iMap.getAll(keys).forEach((k, v) -> result.put(k, (T) v));
+		return result;
+	}
+
+	public int upsertAll(Map<String, T> data) throws Exception {
+		if (null == data || data.isEmpty()) {
+			return 0;
+		}
+		iMap.putAll(data);
+		return data.size();
+	}
+
 	@Override
 	public boolean exists(String key) throws Exception {
 		return iMap.containsKey(key);
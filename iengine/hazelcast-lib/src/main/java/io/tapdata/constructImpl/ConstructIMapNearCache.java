@@ -0,0 +1,219 @@
+package io.tapdata.constructImpl;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.MapEvent;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryExpiredListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.hazelcast.map.listener.MapClearedListener;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ConstructIMap} with a bounded, write-through local cache in front of it.
+ * <p>
+ * Reads are served from the local cache when possible, absent keys are cached too. Writes go to both the local cache
+ * and the IMap. Changes made by other members (another engine writes the same map, or clears it) invalidate the local
+ * entry through an entry listener.
+ * <p>
+ * Unlike {@link ConstructIMap}, {@link #find(String)} returns the cached instance, not a deserialized copy. A caller
+ * which modifies the returned value must write it back, or copy it first.
+ *
+ * @create 2026-10-18
+ **/
+public class ConstructIMapNearCache<T> extends ConstructIMap<T> {
+
+	private static final Object ABSENT = new Object();
+
+	private final Map<String, Object> nearCache;
+	private final UUID listenerId;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder lookupNanos = new LongAdder();
+	private final LongAdder lookups = new LongAdder();
+
+	public ConstructIMapNearCache(HazelcastInstance hazelcastInstance, String name, int maxSize) {
+		super(hazelcastInstance, name);
+		this.nearCache = Collections.synchronizedMap(new LinkedHashMap<String, Object>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+				return size() > maxSize;
+			}
+		});
+		this.listenerId = iMap.addEntryListener(new InvalidateListener(), false);
+	}
+
+	@Override
+	public int insert(String key, T data) throws Exception {
+		int result = super.insert(key, data);
+		nearCache.put(key, data);
+		return result;
+	}
+
+	@Override
+	public int delete(String key) throws Exception {
+		int result = super.delete(key);
+		nearCache.put(key, ABSENT);
+		return result;
+	}
+
+	@Override
+	public T find(String key) throws Exception {
+		long startNanos = System.nanoTime();
+		try {
+			Object value = nearCache.get(key);
+			if (null != value) {
+				hits.increment();
+				return value == ABSENT ? null : (T) value;
+			}
+			misses.increment();
+			T data = super.find(key);
+			nearCache.put(key, null == data ? ABSENT : data);
+			return data;
+		} finally {
+			lookups.increment();
+			lookupNanos.add(System.nanoTime() - startNanos);
+		}
+	}
+
+	/**
+	 * Load keys which are not in local cache with one getAll, then they can be found locally
+	 */
+	public void prefetch(Set<String> keys) throws Exception {
+		if (null == keys || keys.isEmpty()) {
+			return;
+		}
+		Set<String> missingKeys = new HashSet<>();
+		for (String key : keys) {
+			if (!nearCache.containsKey(key)) {
+				missingKeys.add(key);
+			}
+		}
+		if (missingKeys.isEmpty()) {
+			return;
+		}
+		Map<String, T> found = super.findAll(missingKeys);
+		for (String key : missingKeys) {
+			T data = found.get(key);
+			nearCache.putIfAbsent(key, null == data ? ABSENT : data);
+		}
+	}
+
+	@Override
+	public Map<String, T> findAll(Set<String> keys) throws Exception {
+		prefetch(keys);
+		Map<String, T> result = new HashMap<>();
+		for (String key : keys) {
+			T data = find(key);
+			if (null != data) {
+				result.put(key, data);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public int upsertAll(Map<String, T> data) throws Exception {
+		int result = super.upsertAll(data);
+		if (null != data) {
+			nearCache.putAll(data);
+		}
+		return result;
+	}
+
+	@Override
+	public void clear() throws Exception {
+		super.clear();
+		nearCache.clear();
+	}
+
+	/**
+	 * @return hit ratio(0-100) since last call, null if no lookup
+	 */
+	public Number getAndResetHitRatio() {
+		long hit = hits.sumThenReset();
+		long total = hit + misses.sumThenReset();
+		return total == 0 ? null : hit * 100D / total;
+	}
+
+	/**
+	 * @return average lookup latency(ms) since last call, null if no lookup
+	 */
+	public Number getAndResetLookupLatencyMs() {
+		long count = lookups.sumThenReset();
+		long nanos = lookupNanos.sumThenReset();
+		return count == 0 ? null : (double) nanos / count / TimeUnit.MILLISECONDS.toNanos(1L);
+	}
+
+	public int nearCacheSize() {
+		return nearCache.size();
+	}
+
+	/**
+	 * Stop listening to the map and drop the local cache, the IMap is kept
+	 */
+	public void close() {
+		try {
+			iMap.removeEntryListener(listenerId);
+		} finally {
+			nearCache.clear();
+		}
+	}
+
+	private class InvalidateListener implements EntryAddedListener<String, Object>, EntryUpdatedListener<String, Object>,
+			EntryRemovedListener<String, Object>, EntryEvictedListener<String, Object>, EntryExpiredListener<String, Object>,
+			MapClearedListener {
+
+		private void invalidate(EntryEvent<String, Object> event) {
+			// Local writes already updated the near cache
+			if (null == event.getMember() || !event.getMember().localMember()) {
+				nearCache.remove(event.getKey());
+			}
+		}
+
+		@Override
+		public void entryAdded(EntryEvent<String, Object> event) {
+			invalidate(event);
+		}
+
+		@Override
+		public void entryUpdated(EntryEvent<String, Object> event) {
+			invalidate(event);
+		}
+
+		@Override
+		public void entryRemoved(EntryEvent<String, Object> event) {
+			invalidate(event);
+		}
+
+		@Override
+		public void entryEvicted(EntryEvent<String, Object> event) {
+			// Eviction is not a write of this member, the local value may be gone
+			nearCache.remove(event.getKey());
+		}
+
+		@Override
+		public void entryExpired(EntryEvent<String, Object> event) {
+			nearCache.remove(event.getKey());
+		}
+
+		@Override
+		public void mapCleared(MapEvent event) {
+			if (null == event.getMember() || !event.getMember().localMember()) {
+				nearCache.clear();
+			}
+		}
+	}
+}
@@ -1,12 +1,23 @@
 package io.tapdata.constructImpl;
 
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IFunction;
 import com.hazelcast.persistence.PersistenceStorage;
+import com.hazelcast.ringbuffer.ReadResultSet;
 import com.hazelcast.ringbuffer.Ringbuffer;
 import io.tapdata.ConstructIterator;
+import org.apache.commons.lang3.StringUtils;
 import org.bson.Document;
 
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * @author samuel
@@ -16,6 +27,19 @@ import java.util.Map;
 public class ConstructRingBuffer<T extends Document> extends BaseConstruct<T> {
 
 	public final static String SEQUENCE_KEY = "sequence";
+	/**
+	 * Read up to this number of items per round trip, see {@link RingBufferBatchIterator}
+	 */
+	public final static String BATCH_SIZE_KEY = "batchSize";
+	/**
+	 * Max wait time(ms) of a batch read, next() returns null when there is no new item within this time
+	 */
+	public final static String MAX_WAIT_MS_KEY = "maxWaitMs";
+	/**
+	 * Collection of table names, only items whose fromTable is blank or in it are sent back from the member
+	 */
+	public final static String FROM_TABLES_KEY = "fromTables";
+	public final static int DEFAULT_MAX_WAIT_MS = 1000;
 
 	private Ringbuffer<Document> ringbuffer;
 
@@ -66,6 +90,26 @@ public class ConstructRingBuffer<T extends Document> extends BaseConstruct<T> {
 				throw new Exception("Filter is invalid, should be {\"" + SEQUENCE_KEY + "\", some-long-value}");
 			}
 		}
+		if (filter != null && (filter.containsKey(BATCH_SIZE_KEY) || filter.containsKey(FROM_TABLES_KEY))) {
+			int batchSize = 1;
+			int maxWaitMs = DEFAULT_MAX_WAIT_MS;
+			FromTableFilter fromTableFilter = null;
+			try {
+				if (filter.containsKey(BATCH_SIZE_KEY)) {
+					batchSize = Integer.parseInt(filter.get(BATCH_SIZE_KEY).toString());
+				}
+				if (filter.containsKey(MAX_WAIT_MS_KEY)) {
+					maxWaitMs = Integer.parseInt(filter.get(MAX_WAIT_MS_KEY).toString());
+				}
+			} catch (NumberFormatException e) {
+				throw new Exception("Filter is invalid, " + BATCH_SIZE_KEY + " and " + MAX_WAIT_MS_KEY + " should be int value");
+			}
+			Object fromTables = filter.get(FROM_TABLES_KEY);
+			if (fromTables instanceof Collection) {
+				fromTableFilter = new FromTableFilter((Collection<?>) fromTables);
+			}
+			return new RingBufferBatchIterator(ringbuffer, sequence, batchSize, maxWaitMs, fromTableFilter);
+		}
 		return new RingBufferIterator(ringbuffer, sequence);
 	}
 
@@ -136,4 +180,129 @@ public class ConstructRingBuffer<T extends Document> extends BaseConstruct<T> {
 			return sequence;
 		}
 	}
+
+	/**
+	 * Read the ring buffer with readManyAsync, one round trip returns up to batch size items, filtered on the member side
+	 */
+	static class RingBufferBatchIterator<E extends Document> implements ConstructIterator<E> {
+
+		private final Ringbuffer<E> ringbuffer;
+		private final int batchSize;
+		private final long maxWaitMs;
+		private final IFunction<E, Boolean> filter;
+		/**
+		 * Next sequence to read from ring buffer
+		 */
+		private long sequence;
+		private final ArrayDeque<E> buffer;
+		private final ArrayDeque<Long> bufferSequences;
+		/**
+		 * Keep the read which is not finished in max wait time, it will be used by next fetch
+		 */
+		private CompletableFuture<ReadResultSet<E>> pendingRead;
+
+		public RingBufferBatchIterator(Ringbuffer<E> ringbuffer, long sequence, int batchSize, long maxWaitMs, IFunction<E, Boolean> filter) {
+			assert ringbuffer != null;
+			assert sequence >= 0;
+			this.ringbuffer = ringbuffer;
+			this.sequence = sequence;
+			this.batchSize = Math.max(1, batchSize);
+			this.maxWaitMs = maxWaitMs > 0 ? maxWaitMs : DEFAULT_MAX_WAIT_MS;
+			this.filter = filter;
+			this.buffer = new ArrayDeque<>(this.batchSize);
+			this.bufferSequences = new ArrayDeque<>(this.batchSize);
+		}
+
+		@Override
+		public E tryNext() {
+			if (hasNext()) {
+				return next();
+			} else {
+				return null;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !buffer.isEmpty() || sequence <= ringbuffer.tailSequence();
+		}
+
+		/**
+		 * @return null if no item can be read in max wait time
+		 */
+		@Override
+		public E peek() {
+			if (buffer.isEmpty()) {
+				fetch();
+			}
+			return buffer.peek();
+		}
+
+		/**
+		 * @return null if no item can be read in max wait time
+		 */
+		@Override
+		public E next() {
+			if (buffer.isEmpty()) {
+				fetch();
+			}
+			bufferSequences.poll();
+			return buffer.poll();
+		}
+
+		@Override
+		public long getSequence() {
+			Long bufferSequence = bufferSequences.peek();
+			return null != bufferSequence ? bufferSequence : sequence;
+		}
+
+		private void fetch() {
+			if (null == pendingRead) {
+				pendingRead = ringbuffer.readManyAsync(sequence, 1, batchSize, filter).toCompletableFuture();
+			}
+			ReadResultSet<E> resultSet;
+			try {
+				resultSet = pendingRead.get(maxWaitMs, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				return;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				pendingRead = null;
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new RuntimeException("Read many from ring buffer " + ringbuffer.getName() + " failed, sequence: " + sequence, e.getCause());
+			}
+			pendingRead = null;
+			for (int i = 0; i < resultSet.size(); i++) {
+				buffer.add(resultSet.get(i));
+				bufferSequences.add(resultSet.getSequence(i));
+			}
+			sequence = resultSet.getNextSequenceToReadFrom();
+		}
+	}
+
+	static class FromTableFilter<E extends Document> implements IFunction<E, Boolean> {
+
+		private static final long serialVersionUID = 4466251658716862406L;
+
+		private final Set<String> tables;
+
+		FromTableFilter(Collection<?> tables) {
+			this.tables = new HashSet<>();
+			for (Object table : tables) {
+				if (null != table) {
+					this.tables.add(table.toString());
+				}
+			}
+		}
+
+		@Override
+		public Boolean apply(E document) {
+			String tableName = document.getString("fromTable");
+			return StringUtils.isBlank(tableName) || tables.contains(tableName);
+		}
+	}
 }
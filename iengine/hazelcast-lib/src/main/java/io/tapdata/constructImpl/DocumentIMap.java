@@ -4,6 +4,10 @@ import com.hazelcast.core.HazelcastInstance;
 import org.bson.Document;
 import org.bson.types.Decimal128;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * @author samuel
  * @Description Since the current implementation of Hazelcast iMap external memory only supports the value of Document type, if non-Document type wants to use external memory, use this class to adapt
@@ -41,13 +45,44 @@ public class DocumentIMap<T> extends ConstructIMap<T> {
 	public T find(String key) throws Exception {
 		Object obj = iMap.get(key);
 		if (obj instanceof Document && ((Document) obj).containsKey(DOCUMENT_KEY)) {
-			Object data = ((Document) obj).get(DOCUMENT_KEY);
-			if (data instanceof Decimal128) {
-				data = ((Decimal128) data).bigDecimalValue();
-			}
-			return (T) data;
+			return unwrap((Document) obj);
 		} else {
 			return super.find(key);
 		}
 	}
+
+	@Override
+	public Map<String, T> findAll(Set<String> keys) throws Exception {
+		Map<String, T> result = new HashMap<>();
+		if (null == keys || keys.isEmpty()) {
+			return result;
+		}
+		iMap.getAll(keys).forEach((k, v) -> {
+			if (v instanceof Document && ((Document) v).containsKey(DOCUMENT_KEY)) {
+				result.put(k, unwrap((Document) v));
+			} else {
+				result.put(k, (T) v);
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public int upsertAll(Map<String, T> data) throws Exception {
+		if (null == data || data.isEmpty()) {
+			return 0;
+		}
+		Map<String, Object> documents = new HashMap<>(data.size() * 4 / 3 + 1);
+		data.forEach((k, v) -> documents.put(k, v instanceof Document ? v : new Document(DOCUMENT_KEY, v)));
+		iMap.putAll(documents);
+		return data.size();
+	}
+
+	private T unwrap(Document document) {
+		Object data = document.get(DOCUMENT_KEY);
+		if (data instanceof Decimal128) {
+			data = ((Decimal128) data).bigDecimalValue();
+		}
+		return (T) data;
+	}
 }
@@ -0,0 +1,66 @@
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.tapdata.constant.HazelcastUtil;
+import com.tapdata.entity.hazelcast.HZLoggingType;
+import io.tapdata.constructImpl.ConstructIMapNearCache;
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+public class ConstructIMapNearCacheTest {
+
+	private HazelcastInstance hazelcastInstance;
+	private ConstructIMapNearCache<Document> nearCache;
+
+	@Before
+	public void init() {
+		String instanceName = "unit-test-" + System.currentTimeMillis();
+		Config config = HazelcastUtil.getConfig(instanceName, HZLoggingType.NONE);
+		hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+		nearCache = new ConstructIMapNearCache<>(hazelcastInstance, "unit-test-near-cache", 2);
+	}
+
+	@After
+	public void after() throws Exception {
+		if (nearCache != null) {
+			nearCache.clear();
+			nearCache.close();
+		}
+		if (hazelcastInstance != null) {
+			hazelcastInstance.shutdown();
+		}
+	}
+
+	@Test
+	public void testWriteThroughAndHitRatio() throws Exception {
+		Document document = new Document("a", 1);
+		nearCache.upsert("k1", document);
+		Assert.assertSame(document, nearCache.find("k1"));
+		Assert.assertEquals(document, hazelcastInstance.getMap("unit-test-near-cache").get("k1"));
+		Assert.assertNull(nearCache.find("k2"));
+		Assert.assertNull(nearCache.find("k2"));
+		// k1 hit, k2 miss then hit
+		Assert.assertEquals(200D / 3, nearCache.getAndResetHitRatio().doubleValue(), 0.001D);
+		Assert.assertNull(nearCache.getAndResetHitRatio());
+
+		nearCache.delete("k1");
+		Assert.assertNull(nearCache.find("k1"));
+		Assert.assertFalse(nearCache.exists("k1"));
+	}
+
+	@Test
+	public void testPrefetchAndBounded() throws Exception {
+		hazelcastInstance.getMap("unit-test-near-cache").put("k1", new Document("a", 1));
+		hazelcastInstance.getMap("unit-test-near-cache").put("k2", new Document("a", 2));
+		hazelcastInstance.getMap("unit-test-near-cache").put("k3", new Document("a", 3));
+		nearCache.prefetch(new HashSet<>(Arrays.asList("k1", "k2", "k3")));
+		Assert.assertTrue(nearCache.nearCacheSize() <= 2);
+		Assert.assertEquals(3, nearCache.findAll(new HashSet<>(Arrays.asList("k1", "k2", "k3"))).size());
+	}
+}
@@ -15,6 +15,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
@@ -91,6 +92,32 @@ public class ConstructRingBufferTest {
 		Assert.assertEquals(0, iterator.getSequence());
 	}
 
+	@Test
+	public void testFindBatchWithFromTables() throws Exception {
+		int num = 100;
+		for (int i = 0; i < num; i++) {
+			hazelcastConstruct.insert(mockDocument().append("fromTable", i % 2 == 0 ? "t1" : "t2"));
+		}
+		ConstructIterator<Document> iterator = hazelcastConstruct.find(new HashMap<String, Object>() {{
+			put(ConstructRingBuffer.SEQUENCE_KEY, 0);
+			put(ConstructRingBuffer.BATCH_SIZE_KEY, 30);
+			put(ConstructRingBuffer.MAX_WAIT_MS_KEY, 100);
+			put(ConstructRingBuffer.FROM_TABLES_KEY, Collections.singletonList("t1"));
+		}});
+		List<Document> list = new ArrayList<>();
+		while (iterator.hasNext()) {
+			Document row = iterator.next();
+			if (null != row) {
+				list.add(row);
+			}
+		}
+		Assert.assertEquals(num / 2, list.size());
+		Assert.assertTrue(list.stream().allMatch(d -> "t1".equals(d.getString("fromTable"))));
+		Assert.assertEquals(num, iterator.getSequence());
+		// no more data, next returns null after max wait
+		Assert.assertNull(iterator.next());
+	}
+
 	private Document mockDocument() {
 		return new Document("name", RandomStringUtils.randomAlphabetic(10))
 				.append("insertTs", System.currentTimeMillis())
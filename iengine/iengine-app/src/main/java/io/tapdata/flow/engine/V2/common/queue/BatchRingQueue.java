@@ -0,0 +1,261 @@
+package io.tapdata.flow.engine.V2.common.queue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single producer, single consumer ring buffer which carries whole batches of elements.
+ * <p>
+ * The producer is the blocking pdk reader thread, it hands over the batch produced by batch read or stream read at once.
+ * The consumer is the jet processor thread, it takes elements one by one from the current batch, so no lock and no
+ * park/unpark is needed for every single element.
+ * <p>
+ * Depth is adaptive: it starts at {@link #minDepth} batches, grows when the consumer finds the ring empty (source is
+ * the bottleneck, more lookahead helps), and shrinks back when the producer is blocked by a full ring (target is the
+ * bottleneck, buffering more only costs memory). Besides the depth limit, the ring is bounded by {@link #maxElements}.
+ * Both sides spin first, then yield, then park until the other side unparks them or the timeout is reached. Sequences
+ * are published with volatile writes before the waiting thread is read, so a wake up cannot be lost.
+ *
+ * @author agent
+ * @Description
+ * @create 2026-10-18
+ **/
+public class BatchRingQueue<E> {
+	private static final int SPIN_TIMES = 100;
+	private static final int YIELD_TIMES = 10;
+
+	private final AtomicReferenceArray<List<E>> ring;
+	private final int mask;
+	private final int minDepth;
+	private final int maxDepth;
+	private final int maxElements;
+
+	/**
+	 * Next sequence to be read, only written by consumer
+	 */
+	private final AtomicLong head = new AtomicLong();
+	/**
+	 * Next sequence to be written, only written by producer
+	 */
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicInteger elements = new AtomicInteger();
+	private volatile int depth;
+
+	private volatile Thread waitingProducer;
+	private volatile Thread waitingConsumer;
+
+	/**
+	 * Only accessed by consumer thread
+	 */
+	private List<E> currentBatch;
+	private int currentIndex;
+
+	private final LongAdder producerStallNanos = new LongAdder();
+	private final LongAdder consumerStallNanos = new LongAdder();
+
+	public BatchRingQueue(int minDepth, int maxDepth, int maxElements) {
+		if (minDepth <= 0 || maxDepth < minDepth) {
+			throw new IllegalArgumentException("Illegal depth, min: " + minDepth + ", max: " + maxDepth);
+		}
+		if (maxElements <= 0) {
+			throw new IllegalArgumentException("Illegal max elements: " + maxElements);
+		}
+		int capacity = 1;
+		while (capacity < maxDepth) {
+			capacity <<= 1;
+		}
+		this.ring = new AtomicReferenceArray<>(capacity);
+		this.mask = capacity - 1;
+		this.minDepth = minDepth;
+		this.maxDepth = maxDepth;
+		this.maxElements = maxElements;
+		this.depth = minDepth;
+	}
+
+	/**
+	 * Producer side, hand over a batch. An empty batch is ignored.
+	 * A batch larger than {@link #maxElements} is still accepted when the ring is empty, so it can never block forever.
+	 *
+	 * @return false if timeout before there is room for the batch
+	 */
+	public boolean offer(List<E> batch, long timeout, TimeUnit unit) throws InterruptedException {
+		if (null == batch || batch.isEmpty()) {
+			return true;
+		}
+		long t = tail.get();
+		if (!hasRoom(t, batch.size())) {
+			long startNanos = System.nanoTime();
+			long deadline = startNanos + unit.toNanos(timeout);
+			try {
+				if (!awaitRoom(t, batch.size(), deadline)) {
+					return false;
+				}
+			} finally {
+				producerStallNanos.add(System.nanoTime() - startNanos);
+			}
+		}
+		ring.lazySet((int) (t & mask), batch);
+		elements.addAndGet(batch.size());
+		tail.set(t + 1);
+		Thread consumer = waitingConsumer;
+		if (null != consumer) {
+			LockSupport.unpark(consumer);
+		}
+		return true;
+	}
+
+	/**
+	 * Consumer side, take next element
+	 *
+	 * @return null if timeout before any element is available
+	 */
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		if (null == currentBatch) {
+			long h = head.get();
+			if (h == tail.get()) {
+				long startNanos = System.nanoTime();
+				try {
+					if (!awaitElement(h, startNanos + unit.toNanos(timeout))) {
+						return null;
+					}
+				} finally {
+					consumerStallNanos.add(System.nanoTime() - startNanos);
+				}
+			}
+			int index = (int) (h & mask);
+			currentBatch = ring.get(index);
+			currentIndex = 0;
+			ring.lazySet(index, null);
+			head.set(h + 1);
+			// a slot is free now, the element room is only given back when the batch is consumed
+			unparkProducer();
+		}
+		E element = currentBatch.get(currentIndex++);
+		elements.decrementAndGet();
+		if (currentIndex >= currentBatch.size()) {
+			currentBatch = null;
+			unparkProducer();
+		}
+		return element;
+	}
+
+	private void unparkProducer() {
+		Thread producer = waitingProducer;
+		if (null != producer) {
+			LockSupport.unpark(producer);
+		}
+	}
+
+	private boolean hasRoom(long t, int size) {
+		long used = t - head.get();
+		if (used == 0) {
+			return true;
+		}
+		return used < depth && elements.get() + size <= maxElements;
+	}
+
+	private boolean awaitRoom(long t, int size, long deadline) throws InterruptedException {
+		// The consumer is too slow, buffering more does not help, shrink the depth to save memory
+		if (depth > minDepth) {
+			depth = Math.max(minDepth, depth >> 1);
+		}
+		int times = 0;
+		while (!hasRoom(t, size)) {
+			if (System.nanoTime() - deadline >= 0) {
+				return false;
+			}
+			if (times < SPIN_TIMES) {
+				times++;
+			} else if (times < SPIN_TIMES + YIELD_TIMES) {
+				times++;
+				Thread.yield();
+			} else {
+				waitingProducer = Thread.currentThread();
+				try {
+					if (!hasRoom(t, size)) {
+						LockSupport.parkNanos(this, deadline - System.nanoTime());
+					}
+				} finally {
+					waitingProducer = null;
+				}
+			}
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+		return true;
+	}
+
+	private boolean awaitElement(long h, long deadline) throws InterruptedException {
+		// The producer is the bottleneck, allow more lookahead so the next burst can be buffered
+		if (depth < maxDepth) {
+			depth = Math.min(maxDepth, depth << 1);
+		}
+		int times = 0;
+		while (h == tail.get()) {
+			if (System.nanoTime() - deadline >= 0) {
+				return false;
+			}
+			if (times < SPIN_TIMES) {
+				times++;
+			} else if (times < SPIN_TIMES + YIELD_TIMES) {
+				times++;
+				Thread.yield();
+			} else {
+				waitingConsumer = Thread.currentThread();
+				try {
+					if (h == tail.get()) {
+						LockSupport.parkNanos(this, deadline - System.nanoTime());
+					}
+				} finally {
+					waitingConsumer = null;
+				}
+			}
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+		return true;
+	}
+
+	public boolean isEmpty() {
+		return elements.get() == 0;
+	}
+
+	/**
+	 * @return number of elements not taken by consumer yet
+	 */
+	public int size() {
+		return elements.get();
+	}
+
+	/**
+	 * @return number of batches waiting in the ring, not including the batch being consumed
+	 */
+	public int batches() {
+		return (int) (tail.get() - head.get());
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Time the producer was blocked since last call, a high value means the downstream is the bottleneck
+	 */
+	public long getAndResetProducerStallMs() {
+		return TimeUnit.NANOSECONDS.toMillis(producerStallNanos.sumThenReset());
+	}
+
+	/**
+	 * Time the consumer was waiting for data since last call, a high value means the source is the bottleneck
+	 */
+	public long getAndResetConsumerStallMs() {
+		return TimeUnit.NANOSECONDS.toMillis(consumerStallNanos.sumThenReset());
+	}
+}
@@ -86,6 +86,10 @@ public abstract class HazelcastBaseNode extends AbstractProcessor {
 	protected static final String REMOVE_METADATA_INFO_KEY = "REMOVE_METADATA";
 	protected static final String QUALIFIED_NAME_ID_MAP_INFO_KEY = "QUALIFIED_NAME_ID_MAP";
 	private static final String TAG = HazelcastBaseNode.class.getSimpleName();
+	/**
+	 * Opt-in switch, when true the nodes which {@link #supportCooperative()} run in jet's cooperative thread pool
+	 */
+	public static final String COOPERATIVE_MODE_PROP = "JET_NODE_COOPERATIVE_MODE";
 
 	//  protected BaseMetrics taskNodeMetrics;
 //  protected ScheduledExecutorService metricsThreadPool;
@@ -111,6 +115,17 @@ public abstract class HazelcastBaseNode extends AbstractProcessor {
 
 	protected ObsLogger obsLogger;
 
+	/**
+	 * The event being emitted to multiple outbox buckets and the next bucket to emit to,
+	 * so a retry of {@link #offer(TapdataEvent)} does not emit the event to the same bucket twice
+	 */
+	private TapdataEvent fanOutEvent;
+	private int fanOutOrdinal;
+	/**
+	 * Answer of {@link #isCooperative()} fixed on first call
+	 */
+	private volatile Boolean cooperative;
+
 	public HazelcastBaseNode(ProcessorBaseContext processorBaseContext) {
 		this.processorBaseContext = processorBaseContext;
 		this.obsLogger = ObsLoggerFactory.getInstance().getObsLogger(
@@ -319,12 +334,19 @@ public abstract class HazelcastBaseNode extends AbstractProcessor {
 			}
 			final int bucketCount = outbox.bucketCount();
 			if (bucketCount > 1) {
-				for (int ordinal = 0; ordinal < bucketCount; ordinal++) {
-					final TapdataEvent cloneEvent = (TapdataEvent) dataEvent.clone();
-					if (!tryEmit(ordinal, cloneEvent)) {
+				if (dataEvent != fanOutEvent) {
+					// downstream nodes share one tap event, the copy happens only when a node modifies it
+					dataEvent.shareTapEvent(bucketCount);
+					fanOutEvent = dataEvent;
+					fanOutOrdinal = 0;
+				}
+				for (; fanOutOrdinal < bucketCount; fanOutOrdinal++) {
+					final TapdataEvent emitEvent = fanOutOrdinal == bucketCount - 1 ? dataEvent : (TapdataEvent) dataEvent.clone();
+					if (!tryEmit(fanOutOrdinal, emitEvent)) {
 						return false;
 					}
 				}
+				fanOutEvent = null;
 			} else {
 				return tryEmit(dataEvent);
 			}
@@ -474,6 +496,11 @@ public abstract class HazelcastBaseNode extends AbstractProcessor {
 	}
 
 	protected void doClose() throws Exception {
+		CommonUtils.ignoreAnyError(() -> Optional.ofNullable(processorBaseContext.getTapTableMap()).ifPresent(tapTableMap -> {
+			if (tapTableMap.getSnapshotHits() + tapTableMap.getSnapshotMisses() > 0) {
+				obsLogger.info("Table schema lookups: {}", tapTableMap.stats());
+			}
+		}), TAG);
 		CommonUtils.ignoreAnyError(() -> Optional.ofNullable(processorBaseContext.getTapTableMap()).ifPresent(TapTableMap::reset), TAG);
 	}
 
@@ -676,8 +703,34 @@ public abstract class HazelcastBaseNode extends AbstractProcessor {
 		return false;
 	}
 
+	/**
+	 * Jet schedules the node by the first answer of {@link #isCooperative()}, it is kept so the node keeps matching its
+	 * thread when a ddl later adds tables which no longer fit in the schema snapshot
+	 */
 	@Override
 	public boolean isCooperative() {
+		Boolean result = cooperative;
+		if (null == result) {
+			result = checkCooperative();
+			cooperative = result;
+		}
+		return result;
+	}
+
+	private boolean checkCooperative() {
+		if (!supportCooperative() || !Boolean.parseBoolean(CommonUtils.getProperty(COOPERATIVE_MODE_PROP, "false"))) {
+			return false;
+		}
+		// schemas are preloaded in init, a table which does not fit in the snapshot may be loaded from TM over http
+		TapTableMap<String, TapTable> tapTableMap = processorBaseContext.getTapTableMap();
+		return null == tapTableMap || tapTableMap.canSnapshotAll();
+	}
+
+	/**
+	 * Pure cpu nodes can override this to run in jet's cooperative thread pool instead of a dedicated thread.
+	 * A cooperative node must never block in tryProcess/process/complete, blocking work should be moved behind an async call
+	 */
+	protected boolean supportCooperative() {
 		return false;
 	}
 
@@ -8,6 +8,7 @@ import com.tapdata.entity.dataflow.SyncProgress;
 import com.tapdata.entity.task.context.DataProcessorContext;
 import io.tapdata.flow.engine.V2.common.task.SyncTypeEnum;
 import io.tapdata.flow.engine.V2.node.hazelcast.HazelcastBaseNode;
+import io.tapdata.flow.engine.V2.progress.SyncProgressCheckpointLog;
 import lombok.SneakyThrows;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
@@ -76,6 +77,8 @@ public abstract class HazelcastDataBaseNode extends HazelcastBaseNode {
 			}
 			Object syncProgressObj = attrs.get("syncProgress");
 			if (syncProgressObj instanceof Map) {
+				syncProgressObj = SyncProgressCheckpointLog.restore(dataProcessorContext.getTaskDto().getId().toHexString(),
+						dataProcessorContext.getTaskDto().getTaskRecordId(), (Map<?, ?>) syncProgressObj);
 				for (Map.Entry<?, ?> entry : ((Map<?, ?>) syncProgressObj).entrySet()) {
 					Object key = entry.getKey();
 					Object syncProgressString = entry.getValue();
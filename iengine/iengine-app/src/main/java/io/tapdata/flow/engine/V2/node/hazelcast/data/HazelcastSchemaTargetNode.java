@@ -116,6 +116,7 @@ public class HazelcastSchemaTargetNode extends HazelcastVirtualTargetNode {
 
 						TapRecordEvent tapEvent;
 						for (TapdataEvent tapdataEvent : tapdataEvents) {
+							tapdataEvent.ownTapEvent();
 							if (logger.isDebugEnabled()) {
 								logger.debug("tapdata event [{}]", tapdataEvent.toString());
 							}
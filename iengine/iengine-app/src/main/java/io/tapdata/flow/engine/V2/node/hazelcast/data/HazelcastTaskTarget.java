@@ -163,6 +163,7 @@ public class HazelcastTaskTarget extends HazelcastBaseNode {
 
 						MessageEntity messageEntity;
 						for (TapdataEvent tapdataEvent : tapdataEvents) {
+							tapdataEvent.ownTapEvent();
 							if (tapdataEvent.getMessageEntity() != null) {
 								messageEntity = tapdataEvent.getMessageEntity();
 							} else {
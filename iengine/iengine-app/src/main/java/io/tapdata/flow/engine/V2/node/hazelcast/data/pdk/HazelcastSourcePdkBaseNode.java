@@ -25,6 +25,7 @@ import com.tapdata.tm.commons.task.dto.TaskDto;
 import io.tapdata.Runnable.LoadSchemaRunner;
 import io.tapdata.aspect.SourceCDCDelayAspect;
 import io.tapdata.aspect.SourceDynamicTableAspect;
+import io.tapdata.aspect.SourceEventQueueAspect;
 import io.tapdata.aspect.StreamReadFuncAspect;
 import io.tapdata.aspect.TaskMilestoneFuncAspect;
 import io.tapdata.aspect.utils.AspectUtils;
@@ -40,6 +41,7 @@ import io.tapdata.entity.mapping.DefaultExpressionMatchingMap;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.utils.InstanceFactory;
 import io.tapdata.exception.SourceException;
+import io.tapdata.flow.engine.V2.common.queue.BatchRingQueue;
 import io.tapdata.flow.engine.V2.common.task.SyncTypeEnum;
 import io.tapdata.flow.engine.V2.ddl.DDLFilter;
 import io.tapdata.flow.engine.V2.ddl.DDLSchemaHandler;
@@ -82,6 +84,9 @@ import java.util.stream.Collectors;
 public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 	private static final String TAG = HazelcastTargetPdkDataNode.class.getSimpleName();
 	public static final long PERIOD_SECOND_HANDLE_TABLE_MONITOR_RESULT = 10L;
+	public static final String EVENT_QUEUE_MIN_DEPTH_PROP = "SOURCE_EVENT_QUEUE_MIN_DEPTH";
+	public static final String EVENT_QUEUE_MAX_DEPTH_PROP = "SOURCE_EVENT_QUEUE_MAX_DEPTH";
+	public static final String EVENT_QUEUE_MAX_EVENTS_PROP = "SOURCE_EVENT_QUEUE_MAX_EVENTS";
 	private final Logger logger = LogManager.getLogger(HazelcastSourcePdkBaseNode.class);
 	protected SyncProgress syncProgress;
 	protected ExecutorService sourceRunner = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.SECONDS, new SynchronousQueue<>());
@@ -91,8 +96,17 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 	/**
 	 * This is added as an async control center because pdk and jet have two different thread model. pdk thread is
 	 * blocked when reading data from data source while jet using async when passing the event to next node.
+	 * Events are handed over as whole batches, see {@link BatchRingQueue}
 	 */
-	protected LinkedBlockingQueue<TapdataEvent> eventQueue = new LinkedBlockingQueue<>(10);
+	protected BatchRingQueue<TapdataEvent> eventQueue = new BatchRingQueue<>(
+			CommonUtils.getPropertyInt(EVENT_QUEUE_MIN_DEPTH_PROP, 4),
+			CommonUtils.getPropertyInt(EVENT_QUEUE_MAX_DEPTH_PROP, 64),
+			CommonUtils.getPropertyInt(EVENT_QUEUE_MAX_EVENTS_PROP, 10000)
+	);
+	/**
+	 * Event queue is single producer, but table monitor thread may enqueue with source runner thread at the same time
+	 */
+	private final ReentrantLock enqueueLock = new ReentrantLock();
 	protected StreamReadFuncAspect streamReadFuncAspect;
 	private TapdataEvent pendingEvent;
 	protected SourceMode sourceMode = SourceMode.NORMAL;
@@ -148,6 +162,11 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 		this.sourceRunnerFirstTime = new AtomicBoolean(true);
 		sourceRunnerFuture = this.sourceRunner.submit(this::startSourceRunner);
 		initTableMonitor();
+		executeAspect(SourceEventQueueAspect.class, () -> new SourceEventQueueAspect()
+				.dataProcessorContext(dataProcessorContext)
+				.occupancy(eventQueue::size)
+				.producerStallMs(eventQueue::getAndResetProducerStallMs)
+				.consumerStallMs(eventQueue::getAndResetConsumerStallMs));
 	}
 
 	private void initDDLFilter() {
@@ -419,7 +438,7 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 								if (!isRunning()) {
 									return;
 								}
-								tapdataEvents.forEach(this::enqueue);
+								enqueue(tapdataEvents);
 								this.newTables.addAll(addList);
 								AspectUtils.executeAspect(new SourceDynamicTableAspect()
 										.dataProcessorContext(getDataProcessorContext())
@@ -475,7 +494,7 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 									TapdataEvent tapdataEvent = wrapTapdataEvent(tapDropTableEvent, SyncStage.valueOf(syncProgress.getSyncStage()), null, false);
 									tapdataEvents.add(tapdataEvent);
 								}
-								tapdataEvents.forEach(this::enqueue);
+								enqueue(tapdataEvents);
 								AspectUtils.executeAspect(new SourceDynamicTableAspect()
 										.dataProcessorContext(getDataProcessorContext())
 										.type(SourceDynamicTableAspect.DYNAMIC_TABLE_TYPE_REMOVE)
@@ -673,23 +692,40 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 	}
 
 	protected void enqueue(TapdataEvent tapdataEvent) {
+		enqueue(Collections.singletonList(tapdataEvent));
+	}
+
+	protected void enqueue(List<TapdataEvent> tapdataEvents) {
+		List<TapdataEvent> batch = tapdataEvents;
 		try {
-			if (tapdataEvent.getTapEvent() instanceof TapRecordEvent) {
-				String tableId = ((TapRecordEvent) tapdataEvent.getTapEvent()).getTableId();
-				if (removeTables != null && removeTables.contains(tableId)) {
-					return;
+			if (CollectionUtils.isNotEmpty(removeTables)) {
+				batch = new ArrayList<>(tapdataEvents.size());
+				for (TapdataEvent tapdataEvent : tapdataEvents) {
+					if (tapdataEvent.getTapEvent() instanceof TapRecordEvent
+							&& removeTables.contains(((TapRecordEvent) tapdataEvent.getTapEvent()).getTableId())) {
+						continue;
+					}
+					batch.add(tapdataEvent);
 				}
 			}
+			if (batch.isEmpty()) {
+				return;
+			}
 
-			while (isRunning()) {
-				if (eventQueue.offer(tapdataEvent, 3, TimeUnit.SECONDS)) {
-					break;
+			enqueueLock.lockInterruptibly();
+			try {
+				while (isRunning()) {
+					if (eventQueue.offer(batch, 3, TimeUnit.SECONDS)) {
+						break;
+					}
 				}
+			} finally {
+				enqueueLock.unlock();
 			}
 		} catch (InterruptedException ignore) {
 			logger.warn("TapdataEvent enqueue thread interrupted");
 		} catch (Throwable throwable) {
-			throw new NodeException(throwable).context(getDataProcessorContext()).event(tapdataEvent.getTapEvent());
+			throw new NodeException(throwable).context(getDataProcessorContext()).event(batch.isEmpty() ? null : batch.get(0).getTapEvent());
 		}
 	}
 
@@ -703,7 +739,7 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 		}
 	}
 
-	public LinkedBlockingQueue<TapdataEvent> getEventQueue() {
+	public BatchRingQueue<TapdataEvent> getEventQueue() {
 		return eventQueue;
 	}
 
@@ -14,6 +14,7 @@ import com.tapdata.tm.commons.dag.Node;
 import com.tapdata.tm.commons.task.dto.TaskDto;
 import io.tapdata.aspect.*;
 import io.tapdata.aspect.utils.AspectUtils;
+import io.tapdata.entity.event.TapEvent;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.flow.engine.V2.exception.node.NodeException;
 import io.tapdata.flow.engine.V2.progress.SnapshotProgressManager;
@@ -26,9 +27,13 @@ import io.tapdata.flow.engine.V2.sharecdc.impl.ShareCdcFactory;
 import io.tapdata.milestone.MilestoneStage;
 import io.tapdata.milestone.MilestoneStatus;
 import io.tapdata.pdk.apis.consumer.StreamReadConsumer;
+import io.tapdata.pdk.apis.entity.TapReadSplit;
+import io.tapdata.pdk.apis.entity.TapReadSplitsOffset;
 import io.tapdata.pdk.apis.functions.PDKMethod;
 import io.tapdata.pdk.apis.functions.connector.source.BatchCountFunction;
 import io.tapdata.pdk.apis.functions.connector.source.BatchReadFunction;
+import io.tapdata.pdk.apis.functions.connector.source.BatchReadSplitFunction;
+import io.tapdata.pdk.apis.functions.connector.source.GetReadSplitsFunction;
 import io.tapdata.pdk.apis.functions.connector.source.RawDataCallbackFilterFunction;
 import io.tapdata.pdk.apis.functions.connector.source.StreamReadFunction;
 import io.tapdata.pdk.core.api.ConnectorNode;
@@ -45,6 +50,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -56,6 +62,7 @@ public class HazelcastSourcePdkDataNode extends HazelcastSourcePdkBaseNode {
 	private final Logger logger = LogManager.getLogger(HazelcastSourcePdkDataNode.class);
 
 	private static final int ASYNCLY_COUNT_SNAPSHOT_ROW_SIZE_TABLE_THRESHOLD = 100;
+	private static final int SPLIT_READ_THREADS = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
 
 	private ShareCdcReader shareCdcReader;
 
@@ -132,6 +139,9 @@ public class HazelcastSourcePdkDataNode extends HazelcastSourcePdkBaseNode {
 				getConnectorNode(), dataProcessorContext.getTapTableMap());
 		snapshotProgressManager.startStatsSnapshotEdgeProgress(dataProcessorContext.getNode());
 
+		// load the schemas of the tables to read into heap, they are read for each batch of events
+		dataProcessorContext.getTapTableMap().preload(tableList);
+
 		// count the data size of the tables;
 		doCount(tableList);
 
@@ -177,42 +187,21 @@ public class HazelcastSourcePdkDataNode extends HazelcastSourcePdkBaseNode {
 									.offsetState(tableOffset)
 									.dataProcessorContext(this.getDataProcessorContext())
 									.start()
-									.table(tapTable), batchReadFuncAspect -> PDKInvocationMonitor.invoke(getConnectorNode(), PDKMethod.SOURCE_BATCH_READ,
-									PDKMethodInvoker.create()
-											.runnable(() -> batchReadFunction.batchRead(getConnectorNode().getConnectorContext(), tapTable, tableOffset, eventBatchSize, (events, offsetObject) -> {
-														if (events != null && !events.isEmpty()) {
-															events.forEach(event -> {
-																if (null == event.getTime()) {
-																	throw new NodeException("Invalid TapEvent, `TapEvent.time` should be NonNUll").context(getProcessorBaseContext()).event(event);
-																}
-																event.addInfo("eventId", UUID.randomUUID().toString());
-															});
-
-															if (batchReadFuncAspect != null)
-																AspectUtils.accept(batchReadFuncAspect.state(BatchReadFuncAspect.STATE_READ_COMPLETE).getReadCompleteConsumers(), events);
-
-															if (logger.isDebugEnabled()) {
-																logger.debug("Batch read {} of events, {}", events.size(), LoggerUtils.sourceNodeMessage(getConnectorNode()));
-															}
-															((Map<String, Object>) syncProgress.getBatchOffsetObj()).put(tapTable.getId(), offsetObject);
-															List<TapdataEvent> tapdataEvents = wrapTapdataEvent(events);
-
-															if (batchReadFuncAspect != null)
-																AspectUtils.accept(batchReadFuncAspect.state(BatchReadFuncAspect.STATE_PROCESS_COMPLETE).getProcessCompleteConsumers(), tapdataEvents);
-
-															if (CollectionUtil.isNotEmpty(tapdataEvents)) {
-																tapdataEvents.forEach(this::enqueue);
-
-																if (batchReadFuncAspect != null)
-																	AspectUtils.accept(batchReadFuncAspect.state(BatchReadFuncAspect.STATE_ENQUEUED).getEnqueuedConsumers(), tapdataEvents);
-															}
-														}
-													})
-											)
-											.logTag(TAG)
-											.retryPeriodSeconds(dataProcessorContext.getTaskConfig().getTaskRetryConfig().getRetryIntervalSecond())
-											.maxRetryTimeMinute(dataProcessorContext.getTaskConfig().getTaskRetryConfig().getMaxRetryTime(TimeUnit.MINUTES))
-							));
+									.table(tapTable), batchReadFuncAspect -> {
+								TapReadSplitsOffset readSplitsOffset = getReadSplitsOffset(tapTable, tableOffset);
+								if (null != readSplitsOffset) {
+									batchReadSplits(tapTable, readSplitsOffset, eventBatchSize, batchReadFuncAspect);
+									return;
+								}
+								PDKInvocationMonitor.invoke(getConnectorNode(), PDKMethod.SOURCE_BATCH_READ,
+										PDKMethodInvoker.create()
+												.runnable(() -> batchReadFunction.batchRead(getConnectorNode().getConnectorContext(), tapTable, tableOffset, eventBatchSize,
+														(events, offsetObject) -> handleBatchReadEvents(tapTable, events, offsetObject, batchReadFuncAspect)))
+												.logTag(TAG)
+												.retryPeriodSeconds(dataProcessorContext.getTaskConfig().getTaskRetryConfig().getRetryIntervalSecond())
+												.maxRetryTimeMinute(dataProcessorContext.getTaskConfig().getTaskRetryConfig().getMaxRetryTime(TimeUnit.MINUTES))
+								);
+							});
 						} catch (Throwable throwable) {
 							Throwable throwableWrapper = throwable;
 							if (!(throwableWrapper instanceof NodeException)) {
@@ -239,6 +228,7 @@ public class HazelcastSourcePdkDataNode extends HazelcastSourcePdkBaseNode {
 						if (CollectionUtils.isNotEmpty(newTables)) {
 							tableList.clear();
 							tableList.addAll(newTables);
+							dataProcessorContext.getTapTableMap().preload(tableList);
 							doCount(tableList);
 							newTables.clear();
 						} else {
@@ -267,6 +257,141 @@ public class HazelcastSourcePdkDataNode extends HazelcastSourcePdkBaseNode {
 		}
 	}
 
+	private void handleBatchReadEvents(TapTable tapTable, List<TapEvent> events, Object offsetObject, BatchReadFuncAspect batchReadFuncAspect) {
+		if (events != null && !events.isEmpty()) {
+			events.forEach(event -> {
+				if (null == event.getTime()) {
+					throw new NodeException("Invalid TapEvent, `TapEvent.time` should be NonNUll").context(getProcessorBaseContext()).event(event);
+				}
+				event.addInfo("eventId", UUID.randomUUID().toString());
+			});
+
+			if (batchReadFuncAspect != null)
+				AspectUtils.accept(batchReadFuncAspect.state(BatchReadFuncAspect.STATE_READ_COMPLETE).getReadCompleteConsumers(), events);
+
+			if (logger.isDebugEnabled()) {
+				logger.debug("Batch read {} of events, {}", events.size(), LoggerUtils.sourceNodeMessage(getConnectorNode()));
+			}
+			((Map<String, Object>) syncProgress.getBatchOffsetObj()).put(tapTable.getId(), offsetObject);
+			List<TapdataEvent> tapdataEvents = wrapTapdataEvent(events);
+
+			if (batchReadFuncAspect != null)
+				AspectUtils.accept(batchReadFuncAspect.state(BatchReadFuncAspect.STATE_PROCESS_COMPLETE).getProcessCompleteConsumers(), tapdataEvents);
+
+			if (CollectionUtil.isNotEmpty(tapdataEvents)) {
+				enqueue(tapdataEvents);
+
+				if (batchReadFuncAspect != null)
+					AspectUtils.accept(batchReadFuncAspect.state(BatchReadFuncAspect.STATE_ENQUEUED).getEnqueuedConsumers(), tapdataEvents);
+			}
+		}
+	}
+
+	/**
+	 * @return splits offset of the table, null if the table should be read by BatchReadFunction
+	 */
+	@SneakyThrows
+	private TapReadSplitsOffset getReadSplitsOffset(TapTable tapTable, Object tableOffset) {
+		GetReadSplitsFunction getReadSplitsFunction = getConnectorNode().getConnectorFunctions().getGetReadSplitsFunction();
+		if (null == getReadSplitsFunction || null == getConnectorNode().getConnectorFunctions().getBatchReadSplitFunction()) {
+			return null;
+		}
+		if (tableOffset instanceof TapReadSplitsOffset) {
+			return (TapReadSplitsOffset) tableOffset;
+		}
+		if (null != tableOffset) {
+			// resume the offset of BatchReadFunction
+			return null;
+		}
+		AtomicReference<List<TapReadSplit>> splits = new AtomicReference<>();
+		PDKInvocationMonitor.invoke(getConnectorNode(), PDKMethod.SOURCE_GET_READ_SPLITS,
+				PDKMethodInvoker.create()
+						.runnable(() -> splits.set(getReadSplitsFunction.getReadSplits(getConnectorNode().getConnectorContext(), tapTable, SPLIT_READ_THREADS * 4)))
+						.logTag(TAG)
+						.retryPeriodSeconds(dataProcessorContext.getTaskConfig().getTaskRetryConfig().getRetryIntervalSecond())
+						.maxRetryTimeMinute(dataProcessorContext.getTaskConfig().getTaskRetryConfig().getMaxRetryTime(TimeUnit.MINUTES))
+		);
+		if (null == splits.get() || splits.get().size() < 2) {
+			return null;
+		}
+		logger.info("Table {} is split into {} splits, they will be read by {} threads", tapTable.getId(), splits.get().size(), Math.min(SPLIT_READ_THREADS, splits.get().size()));
+		obsLogger.info("Table {} is split into {} splits, they will be read by {} threads", tapTable.getId(), splits.get().size(), Math.min(SPLIT_READ_THREADS, splits.get().size()));
+		return new TapReadSplitsOffset(splits.get());
+	}
+
+	/**
+	 * Read the splits of a table concurrently.
+	 * Events of all splits are handed over under the lock of the splits offset, so the offset saved with the events is
+	 * always consistent with the events enqueued. A failed split stops the other splits at their next batch.
+	 */
+	@SneakyThrows
+	private void batchReadSplits(TapTable tapTable, TapReadSplitsOffset readSplitsOffset, int eventBatchSize, BatchReadFuncAspect batchReadFuncAspect) {
+		BatchReadSplitFunction batchReadSplitFunction = getConnectorNode().getConnectorFunctions().getBatchReadSplitFunction();
+		List<TapReadSplit> splits = new ArrayList<>();
+		for (TapReadSplit split : readSplitsOffset.getSplits()) {
+			if (!readSplitsOffset.isCompleted(split.getId())) {
+				splits.add(split);
+			}
+		}
+		if (splits.isEmpty()) {
+			return;
+		}
+		int threads = Math.min(SPLIT_READ_THREADS, splits.size());
+		TaskDto taskDto = dataProcessorContext.getTaskDto();
+		AtomicReference<Throwable> throwableAtomicReference = new AtomicReference<>();
+		AtomicInteger completedSplits = new AtomicInteger(readSplitsOffset.getSplits().size() - splits.size());
+		ExecutorService splitReadThreadPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+		try {
+			List<Future<?>> futures = new ArrayList<>(splits.size());
+			for (TapReadSplit split : splits) {
+				futures.add(splitReadThreadPool.submit(() -> {
+					Thread.currentThread().setName("PDK-SPLIT-READER-" + taskDto.getName() + "-" + tapTable.getId() + "-" + split.getId());
+					Log4jUtil.setThreadContext(taskDto);
+					if (!isRunning() || null != throwableAtomicReference.get()) {
+						return;
+					}
+					try {
+						PDKInvocationMonitor.invoke(getConnectorNode(), PDKMethod.SOURCE_BATCH_READ_SPLIT,
+								PDKMethodInvoker.create()
+										.runnable(() -> batchReadSplitFunction.batchReadSplit(getConnectorNode().getConnectorContext(), tapTable, split,
+												readSplitsOffset.offset(split.getId()), eventBatchSize, (events, offsetObject) -> {
+													if (null != throwableAtomicReference.get()) {
+														throw new RuntimeException("Batch read split " + split.getId() + " of table " + tapTable.getId() + " is stopped, because another split failed");
+													}
+													synchronized (readSplitsOffset) {
+														if (null != offsetObject) {
+															readSplitsOffset.offset(split.getId(), offsetObject);
+														}
+														handleBatchReadEvents(tapTable, events, readSplitsOffset, batchReadFuncAspect);
+													}
+												}))
+										.logTag(TAG)
+										.retryPeriodSeconds(dataProcessorContext.getTaskConfig().getTaskRetryConfig().getRetryIntervalSecond())
+										.maxRetryTimeMinute(dataProcessorContext.getTaskConfig().getTaskRetryConfig().getMaxRetryTime(TimeUnit.MINUTES))
+						);
+						if (isRunning()) {
+							synchronized (readSplitsOffset) {
+								readSplitsOffset.complete(split.getId());
+							}
+							logger.info("Batch read split {} of table {} completed, {}/{}", split.getId(), tapTable.getId(),
+									completedSplits.incrementAndGet(), readSplitsOffset.getSplits().size());
+						}
+					} catch (Throwable e) {
+						throwableAtomicReference.compareAndSet(null, e);
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			if (null != throwableAtomicReference.get()) {
+				throw throwableAtomicReference.get();
+			}
+		} finally {
+			splitReadThreadPool.shutdownNow();
+		}
+	}
+
 	@SneakyThrows
 	private void doCount(List<String> tableList) {
 		BatchCountFunction batchCountFunction = getConnectorNode().getConnectorFunctions().getBatchCountFunction();
@@ -458,7 +583,7 @@ public class HazelcastSourcePdkDataNode extends HazelcastSourcePdkBaseNode {
 														AspectUtils.accept(streamReadFuncAspect.state(StreamReadFuncAspect.STATE_STREAMING_PROCESS_COMPLETED).getStreamingProcessCompleteConsumers(), tapdataEvents);
 
 													if (CollectionUtils.isNotEmpty(tapdataEvents)) {
-														tapdataEvents.forEach(this::enqueue);
+														enqueue(tapdataEvents);
 														syncProgress.setStreamOffsetObj(offsetObj);
 														if (streamReadFuncAspect != null)
 															AspectUtils.accept(streamReadFuncAspect.state(StreamReadFuncAspect.STATE_STREAMING_ENQUEUED).getStreamingEnqueuedConsumers(), tapdataEvents);
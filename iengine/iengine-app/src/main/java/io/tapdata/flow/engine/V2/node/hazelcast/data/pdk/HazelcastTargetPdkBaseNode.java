@@ -17,6 +17,7 @@ import com.tapdata.tm.commons.schema.MetadataInstancesDto;
 import com.tapdata.tm.commons.schema.TransformerWsMessageResult;
 import com.tapdata.tm.commons.task.dto.MergeTableProperties;
 import com.tapdata.tm.commons.task.dto.TaskDto;
+import io.tapdata.aspect.TargetConcurrentWriteAspect;
 import io.tapdata.aspect.TaskMilestoneFuncAspect;
 import io.tapdata.entity.event.TapEvent;
 import io.tapdata.entity.event.ddl.TapDDLEvent;
@@ -26,8 +27,10 @@ import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.flow.engine.V2.exception.node.NodeException;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.PartitionConcurrentProcessor;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.TargetWritePipeline;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.partitioner.KeysPartitioner;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.selector.TapEventPartitionKeySelector;
+import io.tapdata.flow.engine.V2.progress.SyncProgressCheckpointLog;
 import io.tapdata.flow.engine.V2.util.PdkUtil;
 import io.tapdata.flow.engine.V2.util.TapEventUtil;
 import io.tapdata.milestone.MilestoneContext;
@@ -42,12 +45,14 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
 
@@ -57,6 +62,11 @@ import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
  * @create 2022-05-11 14:58
  **/
 public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
+	/**
+	 * Max batches written in the background while the next ones are drained, 0 writes each batch before the next drain.
+	 * Only used by the stages not written by a partition concurrent processor.
+	 */
+	public static final String TARGET_WRITE_PIPELINE_WINDOW_PROP = "TARGET_WRITE_PIPELINE_WINDOW";
 	private static final String TAG = HazelcastTargetPdkDataNode.class.getSimpleName();
 	private final Logger logger = LogManager.getLogger(HazelcastTargetPdkBaseNode.class);
 	protected Map<String, SyncProgress> syncProgressMap = new ConcurrentHashMap<>();
@@ -77,6 +87,12 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 	private int cdcConcurrentWriteNum;
 	private PartitionConcurrentProcessor initialPartitionConcurrentProcessor;
 	private PartitionConcurrentProcessor cdcPartitionConcurrentProcessor;
+	private TargetWritePipeline writePipeline;
+	private SyncProgressCheckpointLog checkpointLog;
+	/**
+	 * Event serial number of each progress key when it was last written to the checkpoint log
+	 */
+	private final Map<String, Long> checkpointSerialNos = new ConcurrentHashMap<>();
 	private boolean inCdc = false;
 
 	public HazelcastTargetPdkBaseNode(DataProcessorContext dataProcessorContext) {
@@ -127,6 +143,9 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 				}
 			}
 		}
+		initConcurrentWriteMetrics();
+		initWritePipeline();
+		initCheckpointLog();
 
 		TaskDto taskDto = dataProcessorContext.getTaskDto();
 		String type = taskDto.getType();
@@ -144,6 +163,7 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 					List<TapdataEvent> tapdataEvents = new ArrayList<>();
 					final int count = inbox.drainTo(tapdataEvents, dataProcessorContext.getTaskDto().getReadBatchSize());
 					if (count > 0) {
+						tapdataEvents.forEach(TapdataEvent::ownTapEvent);
 						if (!inCdc) {
 							List<TapdataEvent> partialCdcEvents = new ArrayList<>();
 							final Iterator<TapdataEvent> iterator = tapdataEvents.iterator();
@@ -159,6 +179,9 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 							// initial events and cdc events both in the queue
 							if (CollectionUtils.isNotEmpty(partialCdcEvents)) {
 								initialProcessEvents(tapdataEvents, false);
+								if (this.writePipeline != null) {
+									this.writePipeline.waitingForWriteToCurrent();
+								}
 								// process partial cdc event
 								if (this.initialPartitionConcurrentProcessor != null) {
 									this.initialPartitionConcurrentProcessor.stop();
@@ -183,13 +206,30 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 		}
 	}
 
+	/**
+	 * Called by jet when all inputs are processed, the batches still in the write pipeline (and the complete snapshot
+	 * event among them) are written before the node is closed. Must not block, returns false until they are written
+	 */
+	@Override
+	public boolean complete() {
+		if (null == writePipeline) {
+			return true;
+		}
+		try {
+			Log4jUtil.setThreadContext(dataProcessorContext.getTaskDto());
+			return writePipeline.isWrittenToCurrent();
+		} finally {
+			ThreadContext.clearAll();
+		}
+	}
+
 	private void initialProcessEvents(List<TapdataEvent> initialEvents, boolean async) {
 
 		if (CollectionUtils.isNotEmpty(initialEvents)) {
 			if (initialConcurrent) {
 				this.initialPartitionConcurrentProcessor.process(initialEvents, async);
 			} else {
-				this.handleTapdataEvents(initialEvents);
+				this.writeTapdataEvents(initialEvents);
 			}
 		}
 	}
@@ -200,12 +240,41 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 			if (cdcConcurrent) {
 				this.cdcPartitionConcurrentProcessor.process(cdcEvents, true);
 			} else {
-				this.handleTapdataEvents(cdcEvents);
+				this.writeTapdataEvents(cdcEvents);
+			}
+		}
+	}
+
+	/**
+	 * With a write pipeline the values are converted here and the batch is written by the pipeline thread, offsets,
+	 * heartbeats and ddl are handled there too so that they follow the writes before them
+	 */
+	private void writeTapdataEvents(List<TapdataEvent> tapdataEvents) {
+		if (null == writePipeline) {
+			handleTapdataEvents(tapdataEvents);
+			return;
+		}
+		if (null != getConnectorNode()) {
+			codecsFilterManager = getConnectorNode().getCodecsFilterManager();
+		}
+		for (TapdataEvent tapdataEvent : tapdataEvents) {
+			if (tapdataEvent.isDML() && !(tapdataEvent instanceof TapdataShareLogEvent)) {
+				fromTapValue(TapEventUtil.getBefore(tapdataEvent.getTapEvent()), codecsFilterManager);
+				fromTapValue(TapEventUtil.getAfter(tapdataEvent.getTapEvent()), codecsFilterManager);
 			}
 		}
+		writePipeline.submit(tapdataEvents);
 	}
 
 	private void handleTapdataEvents(List<TapdataEvent> tapdataEvents) {
+		handleTapdataEvents(tapdataEvents, false);
+	}
+
+	/**
+	 * @param valuesConverted true if the values of the record events are already converted from tap values by
+	 *                        {@link #writeTapdataEvents(List)}
+	 */
+	private void handleTapdataEvents(List<TapdataEvent> tapdataEvents, boolean valuesConverted) {
 		List<TapEvent> tapEvents = new ArrayList<>();
 		List<TapdataShareLogEvent> tapdataShareLogEvents = new ArrayList<>();
 		if (null != getConnectorNode()) {
@@ -236,7 +305,7 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 					handleTapdataShareLogEvent(tapdataShareLogEvents, tapdataEvent, lastDmlTapdataEvent::set);
 				} else {
 					if (tapdataEvent.isDML()) {
-						handleTapdataRecordEvent(tapdataEvent, tapEvents, lastDmlTapdataEvent::set);
+						handleTapdataRecordEvent(tapdataEvent, tapEvents, lastDmlTapdataEvent::set, valuesConverted);
 					} else if (tapdataEvent.isDDL()) {
 						handleTapdataDDLEvent(tapdataEvent, tapEvents, lastDmlTapdataEvent::set);
 					} else {
@@ -296,15 +365,17 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 		saveToSnapshot();
 	}
 
-	private void handleTapdataRecordEvent(TapdataEvent tapdataEvent, List<TapEvent> tapEvents, Consumer<TapdataEvent> consumer) {
+	private void handleTapdataRecordEvent(TapdataEvent tapdataEvent, List<TapEvent> tapEvents, Consumer<TapdataEvent> consumer, boolean valuesConverted) {
 		TapRecordEvent tapRecordEvent = (TapRecordEvent) tapdataEvent.getTapEvent();
 		if (writeStrategy.equals(MergeTableProperties.MergeType.appendWrite.name())) {
 			if (!(tapRecordEvent instanceof TapInsertRecordEvent)) {
 				return;
 			}
 		}
-		fromTapValue(TapEventUtil.getBefore(tapRecordEvent), codecsFilterManager);
-		fromTapValue(TapEventUtil.getAfter(tapRecordEvent), codecsFilterManager);
+		if (!valuesConverted) {
+			fromTapValue(TapEventUtil.getBefore(tapRecordEvent), codecsFilterManager);
+			fromTapValue(TapEventUtil.getAfter(tapRecordEvent), codecsFilterManager);
+		}
 		tapEvents.add(tapRecordEvent);
 		if (null != tapdataEvent.getBatchOffset() || null != tapdataEvent.getStreamOffset()) {
 			consumer.accept(tapdataEvent);
@@ -406,16 +477,29 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 		}
 	}
 
+	/**
+	 * Called by jet on the node thread and by heartbeat/start cdc events on the write pipeline thread, synchronized
+	 * so the progress is uploaded in the order it is taken
+	 */
 	@Override
-	public boolean saveToSnapshot() {
+	public synchronized boolean saveToSnapshot() {
 		try {
 			Log4jUtil.setThreadContext(dataProcessorContext.getTaskDto());
 			if (!flushOffset.get()) return true;
 			if (MapUtils.isEmpty(syncProgressMap)) return true;
 			Map<String, String> syncProgressJsonMap = new HashMap<>(syncProgressMap.size());
+			Map<String, Long> serialNos = new HashMap<>();
 			for (Map.Entry<String, SyncProgress> entry : syncProgressMap.entrySet()) {
 				String key = entry.getKey();
 				SyncProgress syncProgress = entry.getValue();
+				if (null != checkpointLog) {
+					// The serial number is taken before the progress is encoded, a change made while encoding is written next time
+					Long serialNo = syncProgress.getEventSerialNo();
+					if (Objects.equals(checkpointSerialNos.get(key), serialNo)) {
+						continue;
+					}
+					serialNos.put(key, serialNo);
+				}
 				List<String> list = Arrays.asList(key.split(","));
 				if (null != syncProgress.getBatchOffsetObj()) {
 					syncProgress.setBatchOffset(PdkUtil.encodeOffset(syncProgress.getBatchOffsetObj()));
@@ -430,11 +514,10 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 				}
 			}
 			TaskDto taskDto = dataProcessorContext.getTaskDto();
-			String collection = ConnectorConstant.TASK_COLLECTION + "/syncProgress/" + taskDto.getId();
-			try {
-				clientMongoOperator.insertOne(syncProgressJsonMap, collection);
-			} catch (Exception e) {
-				throw new RuntimeException("Save to snapshot failed, collection: " + collection + ", object: " + this.syncProgressMap + "errors: " + e.getMessage(), e);
+			if (null != checkpointLog) {
+				appendCheckpointLog(syncProgressJsonMap, serialNos);
+			} else {
+				uploadSyncProgress(syncProgressJsonMap);
 			}
 			if (uploadDagService.get()) {
 				// Upload DAG
@@ -464,6 +547,60 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 		return true;
 	}
 
+	private void appendCheckpointLog(Map<String, String> syncProgressJsonMap, Map<String, Long> serialNos) {
+		if (MapUtils.isEmpty(syncProgressJsonMap)) {
+			return;
+		}
+		try {
+			checkpointLog.append(syncProgressJsonMap);
+		} catch (IOException e) {
+			throw new RuntimeException("Save to snapshot failed, append checkpoint log failed: " + e.getMessage(), e);
+		}
+		checkpointSerialNos.putAll(serialNos);
+	}
+
+	private void uploadSyncProgress(Map<String, String> syncProgressJsonMap) {
+		String collection = ConnectorConstant.TASK_COLLECTION + "/syncProgress/" + dataProcessorContext.getTaskDto().getId();
+		try {
+			clientMongoOperator.insertOne(syncProgressJsonMap, collection);
+		} catch (Exception e) {
+			throw new RuntimeException("Save to snapshot failed, collection: " + collection + ", object: " + syncProgressJsonMap + "errors: " + e.getMessage(), e);
+		}
+	}
+
+	private void initCheckpointLog() {
+		if (!SyncProgressCheckpointLog.enabled()) {
+			return;
+		}
+		TaskDto taskDto = dataProcessorContext.getTaskDto();
+		Object remoteProgress = MapUtils.isEmpty(taskDto.getAttrs()) ? null : taskDto.getAttrs().get("syncProgress");
+		try {
+			this.checkpointLog = new SyncProgressCheckpointLog(
+					taskDto.getId().toHexString(),
+					taskDto.getTaskRecordId(),
+					dataProcessorContext.getNode().getId(),
+					remoteProgress instanceof Map ? (Map<?, ?>) remoteProgress : null,
+					this::uploadSyncProgress
+			);
+		} catch (IOException e) {
+			throw new NodeException("Open sync progress checkpoint log failed: " + e.getMessage(), e).context(getProcessorBaseContext());
+		}
+	}
+
+	private void initWritePipeline() {
+		final int inFlightWindow = CommonUtils.getPropertyInt(TARGET_WRITE_PIPELINE_WINDOW_PROP, 0);
+		if (inFlightWindow <= 0 || (initialConcurrent && cdcConcurrent)) {
+			return;
+		}
+		this.writePipeline = new TargetWritePipeline(
+				inFlightWindow,
+				tapdataEvents -> handleTapdataEvents(tapdataEvents, true),
+				this::errorHandle,
+				this::isRunning,
+				dataProcessorContext.getTaskDto()
+		);
+	}
+
 	@NotNull
 	private PartitionConcurrentProcessor initConcurrentProcessor(int cdcConcurrentWriteNum) {
 		return new PartitionConcurrentProcessor(
@@ -484,11 +621,36 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 		);
 	}
 
+	/**
+	 * Initial and cdc processors of the node are reported together, only one of them has events at a time
+	 */
+	private void initConcurrentWriteMetrics() {
+		final List<PartitionConcurrentProcessor> processors = new ArrayList<>();
+		Optional.ofNullable(initialPartitionConcurrentProcessor).ifPresent(processors::add);
+		Optional.ofNullable(cdcPartitionConcurrentProcessor).ifPresent(processors::add);
+		if (processors.isEmpty()) {
+			return;
+		}
+		final List<Supplier<Number>> partitionQueueDepths = new ArrayList<>();
+		final int partitionSize = processors.stream().mapToInt(PartitionConcurrentProcessor::getPartitionSize).max().orElse(0);
+		for (int i = 0; i < partitionSize; i++) {
+			final int partition = i;
+			partitionQueueDepths.add(() -> processors.stream().mapToInt(processor -> processor.getPartitionQueueDepth(partition)).sum());
+		}
+		executeAspect(TargetConcurrentWriteAspect.class, () -> new TargetConcurrentWriteAspect()
+				.dataProcessorContext(dataProcessorContext)
+				.barrierWaitMs(() -> processors.stream().mapToLong(PartitionConcurrentProcessor::getAndResetBarrierWaitMs).sum())
+				.partitionQueueDepths(partitionQueueDepths));
+	}
+
 	@Override
 	public void doClose() throws Exception {
 		try {
 			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(this.initialPartitionConcurrentProcessor).ifPresent(PartitionConcurrentProcessor::forceStop), TAG);
 			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(this.cdcPartitionConcurrentProcessor).ifPresent(PartitionConcurrentProcessor::forceStop), TAG);
+			// drained by complete() if the node completed, what is left belongs to a failed or cancelled node
+			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(this.writePipeline).ifPresent(TargetWritePipeline::forceStop), TAG);
+			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(this.checkpointLog).ifPresent(SyncProgressCheckpointLog::close), TAG);
 			CommonUtils.ignoreAnyError(() -> removeGlobalMap(getCompletedInitialKey()), TAG);
 		} finally {
 			super.doClose();
@@ -63,7 +63,7 @@ public class HazelcastTargetPdkCacheNode extends HazelcastPdkBaseNode {
 					if (count > 0) {
 						List<TapEvent> tapEvents = new ArrayList<>();
 						for (TapdataEvent tapdataEvent : tapdataEvents) {
-
+							tapdataEvent.ownTapEvent();
 							if (tapdataEvent.isDML()) {
 								TapRecordEvent tapRecordEvent = (TapRecordEvent) tapdataEvent.getTapEvent();
 								fromTapValue(TapEventUtil.getBefore(tapRecordEvent), codecsFilterManager);
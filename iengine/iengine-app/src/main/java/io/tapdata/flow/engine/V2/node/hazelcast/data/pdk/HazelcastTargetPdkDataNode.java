@@ -23,6 +23,7 @@ import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.simplify.pretty.ClassHandlers;
 import io.tapdata.flow.engine.V2.common.task.SyncTypeEnum;
 import io.tapdata.flow.engine.V2.exception.node.NodeException;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.compaction.TapRecordEventCompactor;
 import io.tapdata.milestone.MilestoneStage;
 import io.tapdata.milestone.MilestoneStatus;
 import io.tapdata.pdk.apis.entity.merge.MergeInfo;
@@ -58,8 +59,13 @@ import static io.tapdata.entity.simplify.TapSimplify.*;
 public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 	private static final String TAG = HazelcastTargetPdkDataNode.class.getSimpleName();
 	public static final int MAX_INDEX_FIELDS_COUNT = 10;
+	/**
+	 * Fold the record events of each primary key in a write batch into their net effect
+	 */
+	public static final String TARGET_EVENT_COMPACTION_PROP = "TARGET_EVENT_COMPACTION";
 	private final Logger logger = LogManager.getLogger(HazelcastTargetPdkDataNode.class);
 	private ClassHandlers ddlEventHandlers;
+	private TapRecordEventCompactor tapRecordEventCompactor;
 
 	public HazelcastTargetPdkDataNode(DataProcessorContext dataProcessorContext) {
 		super(dataProcessorContext);
@@ -76,6 +82,7 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 				writeStrategy = ((TableNode) node).getWriteStrategy();
 			}
 			initTargetDB();
+			initEventCompaction();
 			// MILESTONE-INIT_TRANSFORMER-FINISH
 			TaskMilestoneFuncAspect.execute(dataProcessorContext, MilestoneStage.INIT_TRANSFORMER, MilestoneStatus.FINISH);
 			MilestoneUtil.updateMilestone(milestoneService, MilestoneStage.INIT_TRANSFORMER, MilestoneStatus.FINISH);
@@ -103,6 +110,17 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 		});
 	}
 
+	private void initEventCompaction() {
+		if (!CommonUtils.getPropertyBool(TARGET_EVENT_COMPACTION_PROP, false)
+				|| MergeTableProperties.MergeType.appendWrite.name().equals(writeStrategy)) {
+			return;
+		}
+		tapRecordEventCompactor = new TapRecordEventCompactor();
+		executeAspect(TargetEventCompactionAspect.class, () -> new TargetEventCompactionAspect()
+				.dataProcessorContext(dataProcessorContext)
+				.compactionRatio(tapRecordEventCompactor::getAndResetCompactionRatio));
+	}
+
 	private void initTargetDB() {
 		TapTableMap<String, TapTable> tapTableMap = dataProcessorContext.getTapTableMap();
 		Node<?> node = dataProcessorContext.getNode();
@@ -493,9 +511,9 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 	}
 
 	private void writeRecord(List<TapEvent> events) {
-		List<TapRecordEvent> tapRecordEvents = new ArrayList<>();
-		events.forEach(event -> tapRecordEvents.add((TapRecordEvent) event));
-		TapRecordEvent firstEvent = tapRecordEvents.get(0);
+		List<TapRecordEvent> recordEvents = new ArrayList<>();
+		events.forEach(event -> recordEvents.add((TapRecordEvent) event));
+		TapRecordEvent firstEvent = recordEvents.get(0);
 		String tableId = firstEvent.getTableId();
 		String tgtTableName = getTgtTableNameFromTapEvent(firstEvent);
 		if (StringUtils.isBlank(tgtTableName)) {
@@ -504,6 +522,7 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 		}
 		TapTable tapTable = dataProcessorContext.getTapTableMap().get(tgtTableName);
 		handleTapTablePrimaryKeys(tapTable);
+		List<TapRecordEvent> tapRecordEvents = compactRecordEvents(recordEvents, tapTable);
 		events.forEach(this::addPropertyForMergeEvent);
 		WriteRecordFunction writeRecordFunction = getConnectorNode().getConnectorFunctions().getWriteRecordFunction();
 		if (writeRecordFunction != null) {
@@ -548,6 +567,26 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 		}
 	}
 
+	/**
+	 * Events of a merge node carry their own write properties, they are written as they are. Events of a table with
+	 * other unique indexes are not compacted either
+	 */
+	private List<TapRecordEvent> compactRecordEvents(List<TapRecordEvent> tapRecordEvents, TapTable tapTable) {
+		if (null == tapRecordEventCompactor) {
+			return tapRecordEvents;
+		}
+		for (TapRecordEvent tapRecordEvent : tapRecordEvents) {
+			if (tapRecordEvent.getInfo(MergeInfo.EVENT_INFO_KEY) instanceof MergeInfo) {
+				return tapRecordEvents;
+			}
+		}
+		Collection<String> primaryKeys = tapTable.primaryKeys(true);
+		if (TapRecordEventCompactor.hasOtherUniqueIndex(tapTable.getIndexList(), primaryKeys)) {
+			return tapRecordEvents;
+		}
+		return tapRecordEventCompactor.compact(tapRecordEvents, primaryKeys);
+	}
+
 	private void dispatchTapRecordEvents(List<TapEvent> tapEvents, Predicate<DispatchEntity> dispatchClause, Consumer<List<TapEvent>> consumer) {
 		DispatchEntity dispatchEntity = new DispatchEntity();
 		List<TapEvent> tempList = new ArrayList<>();
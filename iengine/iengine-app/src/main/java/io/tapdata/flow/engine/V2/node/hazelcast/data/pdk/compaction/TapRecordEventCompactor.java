@@ -0,0 +1,202 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.compaction;
+
+import com.tapdata.constant.MapUtil;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapIndex;
+import io.tapdata.entity.schema.TapIndexField;
+import io.tapdata.entity.schema.value.TapValue;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fold the record events of one table batch into the net effect of each primary key:
+ * <ul>
+ *     <li>insert + updates: one insert with the merged after</li>
+ *     <li>updates: one update with the first before and the merged after</li>
+ *     <li>insert/update + delete: the delete</li>
+ * </ul>
+ * The folded event takes the place of the first event of its key, so the events of one key keep their order and
+ * the keys keep the order they first appeared in. An insert + delete is not dropped, the insert may be a replay of a
+ * row the initial sync already wrote.
+ * <p>
+ * Writes are reordered across keys: for events a1, b1, a2 the target receives a(1+2), b1, so the net change of a is
+ * applied before b1 although a2 happened after it. The target only sees the net state of each key, rows may pass
+ * through intermediate states the source never had, e.g. a swap of unique secondary index values between two rows
+ * (a: x to tmp, b: y to x, a: tmp to y) is written as a: x to y while b still holds y. Keeping the net event at the
+ * last position of its key does not help, b1 would then be written while a still holds x. So events of a table with
+ * a unique index other than the primary key are not compacted, see {@link #hasOtherUniqueIndex(List, Collection)}.
+ * <p>
+ * A key stops folding when an event may not be merged into the previous one (insert after delete, duplicate insert),
+ * an update changing the key ends both keys, an event without key values ends all keys.
+ *
+ * @author agent
+ **/
+public class TapRecordEventCompactor {
+
+	private final LongAdder inputEvents = new LongAdder();
+	private final LongAdder outputEvents = new LongAdder();
+
+	/**
+	 * @param tapRecordEvents events of the same table, in the order they happened
+	 * @param primaryKeys     primary keys the target writes by
+	 * @return folded events, the input list itself if nothing is folded
+	 */
+	public List<TapRecordEvent> compact(List<TapRecordEvent> tapRecordEvents, Collection<String> primaryKeys) {
+		if (CollectionUtils.isEmpty(tapRecordEvents) || CollectionUtils.isEmpty(primaryKeys) || !hasChangeEvent(tapRecordEvents)) {
+			return tapRecordEvents;
+		}
+		final List<TapRecordEvent> result = new ArrayList<>(tapRecordEvents.size());
+		final Map<List<Object>, Integer> openKeys = new HashMap<>();
+		int folded = 0;
+		for (TapRecordEvent tapRecordEvent : tapRecordEvents) {
+			List<Object> key;
+			if (tapRecordEvent instanceof TapUpdateRecordEvent) {
+				final TapUpdateRecordEvent updateRecordEvent = (TapUpdateRecordEvent) tapRecordEvent;
+				final List<Object> afterKey = keyValues(updateRecordEvent.getAfter(), primaryKeys);
+				key = MapUtils.isNotEmpty(updateRecordEvent.getBefore()) ? keyValues(updateRecordEvent.getBefore(), primaryKeys) : afterKey;
+				if (null != key && null != afterKey && !key.equals(afterKey)) {
+					openKeys.remove(key);
+					openKeys.remove(afterKey);
+					result.add(tapRecordEvent);
+					continue;
+				}
+			} else if (tapRecordEvent instanceof TapInsertRecordEvent) {
+				key = keyValues(((TapInsertRecordEvent) tapRecordEvent).getAfter(), primaryKeys);
+			} else if (tapRecordEvent instanceof TapDeleteRecordEvent) {
+				key = keyValues(((TapDeleteRecordEvent) tapRecordEvent).getBefore(), primaryKeys);
+			} else {
+				key = null;
+			}
+			if (null == key) {
+				openKeys.clear();
+				result.add(tapRecordEvent);
+				continue;
+			}
+			final Integer index = openKeys.get(key);
+			if (null != index) {
+				final TapRecordEvent folding = fold(result.get(index), tapRecordEvent);
+				if (null != folding) {
+					result.set(index, folding);
+					folded++;
+					continue;
+				}
+			}
+			openKeys.put(key, result.size());
+			result.add(tapRecordEvent);
+		}
+		inputEvents.add(tapRecordEvents.size());
+		outputEvents.add(result.size());
+		return folded > 0 ? result : tapRecordEvents;
+	}
+
+	/**
+	 * True if a unique index of the table is not on the primary keys, the net events could break it
+	 */
+	public static boolean hasOtherUniqueIndex(List<TapIndex> indexList, Collection<String> primaryKeys) {
+		if (CollectionUtils.isEmpty(indexList)) {
+			return false;
+		}
+		for (TapIndex tapIndex : indexList) {
+			if (null == tapIndex || !tapIndex.isUnique() || tapIndex.isPrimary() || CollectionUtils.isEmpty(tapIndex.getIndexFields())) {
+				continue;
+			}
+			final Set<String> fields = new HashSet<>();
+			for (TapIndexField tapIndexField : tapIndex.getIndexFields()) {
+				fields.add(tapIndexField.getName());
+			}
+			if (null == primaryKeys || !fields.equals(new HashSet<>(primaryKeys))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Input events per output event since the last call, null if no event was compacted
+	 */
+	public synchronized Number getAndResetCompactionRatio() {
+		final long input = inputEvents.sumThenReset();
+		final long output = outputEvents.sumThenReset();
+		if (input <= 0) {
+			return null;
+		}
+		return output <= 0 ? input : Math.round(input * 100.0 / output) / 100.0;
+	}
+
+	/**
+	 * @return net event of the previous and the current event of a key, null if they can not be folded
+	 */
+	private static TapRecordEvent fold(TapRecordEvent previous, TapRecordEvent current) {
+		if (current instanceof TapDeleteRecordEvent) {
+			if (previous instanceof TapDeleteRecordEvent) {
+				previous.setReferenceTime(current.getReferenceTime());
+				return previous;
+			}
+			return current;
+		}
+		if (current instanceof TapUpdateRecordEvent) {
+			final Map<String, Object> after = ((TapUpdateRecordEvent) current).getAfter();
+			if (previous instanceof TapInsertRecordEvent) {
+				final TapInsertRecordEvent insertRecordEvent = (TapInsertRecordEvent) previous;
+				insertRecordEvent.setAfter(merge(insertRecordEvent.getAfter(), after));
+				insertRecordEvent.setReferenceTime(current.getReferenceTime());
+				return insertRecordEvent;
+			}
+			if (previous instanceof TapUpdateRecordEvent) {
+				final TapUpdateRecordEvent updateRecordEvent = (TapUpdateRecordEvent) previous;
+				updateRecordEvent.setAfter(merge(updateRecordEvent.getAfter(), after));
+				updateRecordEvent.setReferenceTime(current.getReferenceTime());
+				return updateRecordEvent;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * After of an update may only contain the changed fields, later values overwrite earlier ones
+	 */
+	private static Map<String, Object> merge(Map<String, Object> previous, Map<String, Object> current) {
+		final Map<String, Object> merged = null == previous ? new LinkedHashMap<>() : new LinkedHashMap<>(previous);
+		if (null != current) {
+			merged.putAll(current);
+		}
+		return merged;
+	}
+
+	private static boolean hasChangeEvent(List<TapRecordEvent> tapRecordEvents) {
+		for (TapRecordEvent tapRecordEvent : tapRecordEvents) {
+			if (!(tapRecordEvent instanceof TapInsertRecordEvent)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Key values compared by content, null if the row misses any of the keys
+	 */
+	private static List<Object> keyValues(Map<String, Object> row, Collection<String> primaryKeys) {
+		if (MapUtils.isEmpty(row)) {
+			return null;
+		}
+		final List<Object> values = new ArrayList<>(primaryKeys.size());
+		for (String primaryKey : primaryKeys) {
+			Object value = MapUtil.getValueByKey(row, primaryKey);
+			if (value instanceof TapValue) {
+				value = ((TapValue<?, ?>) value).getOriginValue();
+			}
+			if (null == value) {
+				return null;
+			}
+			values.add(value instanceof byte[] ? ByteBuffer.wrap((byte[]) value) : value);
+		}
+		return values;
+	}
+}
@@ -0,0 +1,31 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Ordering point between two partitions, used instead of a barrier over all partitions when an update moves a record
+ * from one partition key to another.
+ * When the event is taken, the partition processes the events before it, releases {@link #getRelease()} and then waits
+ * for {@link #getWaitFor()}, either of them can be null.
+ *
+ * @author agent
+ **/
+public class DependencyEvent implements PartitionEvent {
+
+	private final CountDownLatch waitFor;
+
+	private final CountDownLatch release;
+
+	public DependencyEvent(CountDownLatch waitFor, CountDownLatch release) {
+		this.waitFor = waitFor;
+		this.release = release;
+	}
+
+	public CountDownLatch getWaitFor() {
+		return waitFor;
+	}
+
+	public CountDownLatch getRelease() {
+		return release;
+	}
+}
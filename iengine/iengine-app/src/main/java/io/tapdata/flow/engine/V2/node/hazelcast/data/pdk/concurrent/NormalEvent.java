@@ -10,9 +10,19 @@ public class NormalEvent<T> implements PartitionEvent<T> {
 
 	private T event;
 
+	/**
+	 * Hashes of the partition keys the event holds until it is processed, empty if the event is not tracked
+	 */
+	private int[] partitionKeys;
+
 	public NormalEvent(long eventSeqNo, T tapdataEvent) {
+		this(eventSeqNo, tapdataEvent, new int[0]);
+	}
+
+	public NormalEvent(long eventSeqNo, T tapdataEvent, int[] partitionKeys) {
 		this.eventSeqNo = eventSeqNo;
 		this.event = tapdataEvent;
+		this.partitionKeys = partitionKeys;
 	}
 
 	public long getEventSeqNo() {
@@ -30,4 +40,8 @@ public class NormalEvent<T> implements PartitionEvent<T> {
 	public void setEvent(T event) {
 		this.event = event;
 	}
+
+	public int[] getPartitionKeys() {
+		return partitionKeys;
+	}
 }
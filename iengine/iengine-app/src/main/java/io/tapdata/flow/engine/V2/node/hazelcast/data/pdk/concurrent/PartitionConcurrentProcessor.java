@@ -9,11 +9,11 @@ import io.tapdata.entity.event.TapEvent;
 import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
 import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.partitioner.KeysPartitioner;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.partitioner.PartitionResult;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.partitioner.Partitioner;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.selector.PartitionKeySelector;
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.collections.MapUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
@@ -23,6 +23,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -30,12 +31,20 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
+ * Events with the same partition key are processed by the same thread in order.
+ * <p>
+ * A key is bound to a partition while it has events waiting or being processed, a key without such events can be
+ * placed again, so new keys of a hot partition go to the least loaded one. An update changing the key only orders the
+ * two partitions holding the old and the new key, non-DML events still wait for all partitions because offsets are
+ * flushed with them.
+ *
  * @author jackin
  * @date 2022/7/25 16:42
  **/
@@ -73,6 +82,16 @@ public class PartitionConcurrentProcessor {
 	private final Supplier<Boolean> nodeRunning;
 	private TaskDto taskDto;
 
+	/**
+	 * Partition and count of the not processed events of each key, keyed by {@link KeysPartitioner#hash(List)}
+	 */
+	private final Map<Integer, KeyState> keyStates = new ConcurrentHashMap<>();
+	/**
+	 * Queue depth from which a partition gives its new keys to a less loaded one
+	 */
+	private final int hotPartitionDepth;
+	private final LongAdder barrierWaitMs = new LongAdder();
+
 	public PartitionConcurrentProcessor(
 			int partitionSize,
 			int batchSize,
@@ -91,6 +110,7 @@ public class PartitionConcurrentProcessor {
 		this.batchSize = batchSize;
 
 		this.partitionSize = partitionSize;
+		this.hotPartitionDepth = Math.max(batchSize, 1);
 
 		this.executorService = new ThreadPoolExecutor(partitionSize + 1, partitionSize + 1,
 				60L, TimeUnit.SECONDS,
@@ -159,7 +179,7 @@ public class PartitionConcurrentProcessor {
 				try {
 					Log4jUtil.setThreadContext(taskDto);
 					Thread.currentThread().setName(concurrentProcessThreadNamePrefix + finalPartition);
-					List<TapdataEvent> processEvents = new ArrayList<>();
+					List<NormalEvent<TapdataEvent>> processEvents = new ArrayList<>();
 					while (isRunning()) {
 						try {
 							List<PartitionEvent<TapdataEvent>> events = new ArrayList<>();
@@ -167,30 +187,29 @@ public class PartitionConcurrentProcessor {
 							if (CollectionUtils.isNotEmpty(events)) {
 								for (PartitionEvent partitionEvent : events) {
 									if (partitionEvent instanceof NormalEvent) {
-										final NormalEvent<?> normalEvent = (NormalEvent<?>) partitionEvent;
-										final TapdataEvent event = (TapdataEvent) normalEvent.getEvent();
-										processEvents.add(event);
+										processEvents.add((NormalEvent<TapdataEvent>) partitionEvent);
 									} else if (partitionEvent instanceof WatermarkEvent) {
+										// the waiter and the offset flush expect every event before the watermark written
+										processEvents(processEvents);
 										final CountDownLatch countDownLatch = ((WatermarkEvent) partitionEvent).getCountDownLatch();
 										countDownLatch.countDown();
-									} else {
-										if (CollectionUtils.isNotEmpty(processEvents)) {
-											eventProcessor.accept(processEvents);
-											processEvents.clear();
+									} else if (partitionEvent instanceof DependencyEvent) {
+										processEvents(processEvents);
+										final DependencyEvent dependencyEvent = (DependencyEvent) partitionEvent;
+										if (dependencyEvent.getRelease() != null) {
+											dependencyEvent.getRelease().countDown();
+										}
+										if (dependencyEvent.getWaitFor() != null) {
+											awaitBarrier(dependencyEvent.getWaitFor(), finalPartition);
 										}
+									} else {
+										processEvents(processEvents);
 										final CountDownLatch countDownLatch = ((BarrierEvent) partitionEvent).getCountDownLatch();
 										countDownLatch.countDown();
-										while (isRunning() && !countDownLatch.await(3L, TimeUnit.SECONDS)) {
-											if (logger.isDebugEnabled()) {
-												logger.debug(LOG_PREFIX + "thread-{} process completed, waiting other thread completed.", finalPartition);
-											}
-										}
+										awaitBarrier(countDownLatch, finalPartition);
 									}
 								}
-								if (CollectionUtils.isNotEmpty(processEvents)) {
-									eventProcessor.accept(processEvents);
-									processEvents.clear();
-								}
+								processEvents(processEvents);
 							}
 						} catch (InterruptedException e) {
 							break;
@@ -206,6 +225,32 @@ public class PartitionConcurrentProcessor {
 		}
 	}
 
+	private void processEvents(List<NormalEvent<TapdataEvent>> processEvents) {
+		if (CollectionUtils.isEmpty(processEvents)) {
+			return;
+		}
+		eventProcessor.accept(processEvents.stream().map(NormalEvent::getEvent).collect(Collectors.toList()));
+		for (NormalEvent<TapdataEvent> processEvent : processEvents) {
+			for (int key : processEvent.getPartitionKeys()) {
+				releaseKey(key);
+			}
+		}
+		processEvents.clear();
+	}
+
+	private void awaitBarrier(CountDownLatch countDownLatch, int partition) throws InterruptedException {
+		final long start = System.currentTimeMillis();
+		try {
+			while (isRunning() && !countDownLatch.await(3L, TimeUnit.SECONDS)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug(LOG_PREFIX + "thread-{} process completed, waiting other thread completed.", partition);
+				}
+			}
+		} finally {
+			barrierWaitMs.add(System.currentTimeMillis() - start);
+		}
+	}
+
 	public void process(List<TapdataEvent> tapdataEvents, boolean async) {
 		if (CollectionUtils.isNotEmpty(tapdataEvents)) {
 			for (TapdataEvent tapdataEvent : tapdataEvents) {
@@ -220,20 +265,23 @@ public class PartitionConcurrentProcessor {
 					} else if (tapEvent instanceof TapDeleteRecordEvent) {
 						row = ((TapDeleteRecordEvent) tapEvent).getBefore();
 					} else if (tapEvent instanceof TapUpdateRecordEvent) {
-						// if update partition value, will generate barrier event
-						if (updatePartitionValueEvent(tapEvent)) {
-							generateBarrierEvent();
-							row = ((TapUpdateRecordEvent) tapEvent).getBefore();
-						} else {
-							row = ((TapUpdateRecordEvent) tapEvent).getAfter();
+						final List<Object> beforeValues = partitionOriginalValues(tapEvent, ((TapUpdateRecordEvent) tapEvent).getBefore());
+						final List<Object> afterValues = partitionOriginalValues(tapEvent, ((TapUpdateRecordEvent) tapEvent).getAfter());
+						// if update partition value, only the partitions of the old and the new key are ordered
+						if (CollectionUtils.isNotEmpty(beforeValues) && CollectionUtils.isNotEmpty(afterValues)
+								&& KeysPartitioner.hash(beforeValues) != KeysPartitioner.hash(afterValues)) {
+							if (!enqueuePartitionValueChangedEvent(tapdataEvent, beforeValues, afterValues)) {
+								break;
+							}
+							continue;
 						}
+						row = ((TapUpdateRecordEvent) tapEvent).getAfter();
 					}
-					final List<Object> partitionValue = keySelector.select(tapEvent, row);
-					final List<Object> partitionOriginalValues = keySelector.convert2OriginValue(partitionValue);
-					final PartitionResult<TapdataEvent> partitionResult = partitioner.partition(partitionSize, tapdataEvent, partitionOriginalValues);
-					final int partition = partitionResult.getPartition() < 0 ? DEFAULT_PARTITION : partitionResult.getPartition();
- 					final LinkedBlockingQueue<PartitionEvent<TapdataEvent>> queue = partitionsQueue.get(partition);
-					final NormalEvent<TapdataEvent> normalEvent = new NormalEvent<>(eventSeq.incrementAndGet(), tapdataEvent);
+					final List<Object> partitionOriginalValues = partitionOriginalValues(tapEvent, row);
+					final int key = KeysPartitioner.hash(partitionOriginalValues);
+					final int partition = acquireKey(key, choosePartition(homePartition(tapdataEvent, partitionOriginalValues)));
+					final LinkedBlockingQueue<PartitionEvent<TapdataEvent>> queue = partitionsQueue.get(partition);
+					final NormalEvent<TapdataEvent> normalEvent = new NormalEvent<>(eventSeq.incrementAndGet(), tapdataEvent, new int[]{key});
 					if (!enqueuePartitionEvent(partition, queue, normalEvent)) {
 						break;
 					}
@@ -245,17 +293,104 @@ public class PartitionConcurrentProcessor {
 					}
 				}
 			}
-			generateWatermarkEvent(tapdataEvents.get(tapdataEvents.size() - 1));
+			final WatermarkEvent watermarkEvent = generateWatermarkEvent(tapdataEvents.get(tapdataEvents.size() - 1));
+
+			if (!async && watermarkEvent != null) {
+				waitingForProcessToCurrent(watermarkEvent);
+			}
+		}
+	}
+
+	/**
+	 * The update is processed by the partition of its old key, the partition the new key is bound to (if any) must
+	 * process the events of the new key before the update, and the ones after the update only after it:
+	 * <pre>
+	 * new key partition: ... [release L1, wait L2] ...
+	 * old key partition: ... [wait L1] update [release L2] ...
+	 * </pre>
+	 * Markers are enqueued in the order of the events, so each wait is on a marker enqueued before it and cannot
+	 * deadlock with other barriers.
+	 */
+	private boolean enqueuePartitionValueChangedEvent(TapdataEvent tapdataEvent, List<Object> beforeValues, List<Object> afterValues) {
+		final int beforeKey = KeysPartitioner.hash(beforeValues);
+		final int afterKey = KeysPartitioner.hash(afterValues);
+		// a new key without pending events follows the old one, no ordering is needed then
+		final KeyState afterKeyState = keyStates.get(afterKey);
+		final int beforePreferred = afterKeyState != null ? afterKeyState.partition : choosePartition(homePartition(tapdataEvent, beforeValues));
+		final int beforePartition = acquireKey(beforeKey, beforePreferred);
+		final int afterPartition = acquireKey(afterKey, beforePartition);
+		final NormalEvent<TapdataEvent> normalEvent = new NormalEvent<>(eventSeq.incrementAndGet(), tapdataEvent, new int[]{beforeKey, afterKey});
+		if (beforePartition == afterPartition) {
+			return enqueuePartitionEvent(beforePartition, partitionsQueue.get(beforePartition), normalEvent);
+		}
+		final CountDownLatch afterKeyProcessed = new CountDownLatch(1);
+		final CountDownLatch updateProcessed = new CountDownLatch(1);
+		return enqueuePartitionEvent(afterPartition, partitionsQueue.get(afterPartition), new DependencyEvent(updateProcessed, afterKeyProcessed))
+				&& enqueuePartitionEvent(beforePartition, partitionsQueue.get(beforePartition), new DependencyEvent(afterKeyProcessed, null))
+				&& enqueuePartitionEvent(beforePartition, partitionsQueue.get(beforePartition), normalEvent)
+				&& enqueuePartitionEvent(beforePartition, partitionsQueue.get(beforePartition), new DependencyEvent(null, updateProcessed));
+	}
 
-			if (!async) {
-				waitingForProcessToCurrent();
+	private List<Object> partitionOriginalValues(TapEvent tapEvent, Map<String, Object> row) {
+		return keySelector.convert2OriginValue(keySelector.select(tapEvent, row));
+	}
+
+	private int homePartition(TapdataEvent tapdataEvent, List<Object> partitionOriginalValues) {
+		final PartitionResult<TapdataEvent> partitionResult = partitioner.partition(partitionSize, tapdataEvent, partitionOriginalValues);
+		return partitionResult == null || partitionResult.getPartition() < 0 || partitionResult.getPartition() >= partitionSize
+				? DEFAULT_PARTITION : partitionResult.getPartition();
+	}
+
+	/**
+	 * Home partition of a key, or the least loaded partition when the home one is hot and at least twice as deep
+	 */
+	private int choosePartition(int home) {
+		final int homeDepth = partitionsQueue.get(home).size();
+		if (homeDepth < hotPartitionDepth) {
+			return home;
+		}
+		int partition = home;
+		int depth = homeDepth;
+		for (int i = 0; i < partitionsQueue.size(); i++) {
+			final int size = partitionsQueue.get(i).size();
+			if (size < depth) {
+				partition = i;
+				depth = size;
 			}
 		}
+		return depth * 2 <= homeDepth ? partition : home;
 	}
 
+	/**
+	 * Bind the key to the preferred partition if it has no pending event, otherwise keep the bound one
+	 *
+	 * @return partition the event of the key must be enqueued to
+	 */
+	private int acquireKey(int key, int preferred) {
+		return keyStates.compute(key, (k, state) -> {
+			if (state == null) {
+				state = new KeyState(preferred);
+			}
+			state.pending++;
+			return state;
+		}).partition;
+	}
+
+	private void releaseKey(int key) {
+		keyStates.computeIfPresent(key, (k, state) -> --state.pending <= 0 ? null : state);
+	}
+
+	/**
+	 * Wait until all partitions processed the events enqueued so far, without blocking them
+	 */
 	private void waitingForProcessToCurrent() {
-		final BarrierEvent barrierEvent = generateBarrierEvent();
-		final CountDownLatch countDownLatch = barrierEvent.getCountDownLatch();
+		final WatermarkEvent watermarkEvent = new WatermarkEvent(partitionSize, null);
+		enqueueToAllPartitions(watermarkEvent);
+		waitingForProcessToCurrent(watermarkEvent);
+	}
+
+	private void waitingForProcessToCurrent(WatermarkEvent watermarkEvent) {
+		final CountDownLatch countDownLatch = watermarkEvent.getCountDownLatch();
 		try {
 			while (isRunning() && !countDownLatch.await(3, TimeUnit.SECONDS)) {
 				if (logger.isInfoEnabled()) {
@@ -281,22 +416,40 @@ public class PartitionConcurrentProcessor {
 		return true;
 	}
 
-	private void generateWatermarkEvent(TapdataEvent tapdataEvent) {
-		if (CollectionUtils.isNotEmpty(partitionsQueue)) {
-			final WatermarkEvent watermarkEvent = new WatermarkEvent(partitionSize, tapdataEvent);
-			for (int i = 0; i < partitionsQueue.size(); i++) {
-				final LinkedBlockingQueue<PartitionEvent<TapdataEvent>> queue = partitionsQueue.get(i);
-				try {
-					while (isRunning() && !queue.offer(watermarkEvent, 3, TimeUnit.SECONDS)) {
-						if (logger.isInfoEnabled()) {
-							logger.info(LOG_PREFIX + "thread {} queue is full when generate barrier event to queue.", i);
-						}
+	private boolean enqueuePartitionEvent(int partition, LinkedBlockingQueue<PartitionEvent<TapdataEvent>> queue, DependencyEvent dependencyEvent) {
+		try {
+			while (isRunning() && !queue.offer(dependencyEvent, 3, TimeUnit.SECONDS)) {
+				if (logger.isInfoEnabled()) {
+					logger.info(LOG_PREFIX + "thread-{} process queue if full, waiting for enqueue dependency event.", partition);
+				}
+			}
+		} catch (InterruptedException e) {
+			// nothing to do
+			return false;
+		}
+		return true;
+	}
+
+	private void enqueueToAllPartitions(PartitionEvent<TapdataEvent> partitionEvent) {
+		for (int i = 0; i < partitionsQueue.size(); i++) {
+			final LinkedBlockingQueue<PartitionEvent<TapdataEvent>> queue = partitionsQueue.get(i);
+			try {
+				while (isRunning() && !queue.offer(partitionEvent, 3, TimeUnit.SECONDS)) {
+					if (logger.isInfoEnabled()) {
+						logger.info(LOG_PREFIX + "thread {} queue is full when generate barrier event to queue.", i);
 					}
-				} catch (InterruptedException e) {
-					// nothing to do
-					break;
 				}
+			} catch (InterruptedException e) {
+				// nothing to do
+				break;
 			}
+		}
+	}
+
+	private WatermarkEvent generateWatermarkEvent(TapdataEvent tapdataEvent) {
+		if (CollectionUtils.isNotEmpty(partitionsQueue)) {
+			final WatermarkEvent watermarkEvent = new WatermarkEvent(partitionSize, tapdataEvent);
+			enqueueToAllPartitions(watermarkEvent);
 
 			try {
 				while (isRunning() && !watermarkQueue.offer(watermarkEvent, 3, TimeUnit.SECONDS)) {
@@ -307,26 +460,15 @@ public class PartitionConcurrentProcessor {
 			} catch (InterruptedException e) {
 				// nothing to do
 			}
+			return watermarkEvent;
 		}
+		return null;
 	}
 
 	private BarrierEvent generateBarrierEvent(){
 		if (CollectionUtils.isNotEmpty(partitionsQueue)) {
 			final BarrierEvent barrierEvent = new BarrierEvent(partitionSize);
-			for (int i = 0; i < partitionsQueue.size(); i++) {
-				final LinkedBlockingQueue<PartitionEvent<TapdataEvent>> queue = partitionsQueue.get(i);
-				try {
-					while (isRunning() && !queue.offer(barrierEvent, 3, TimeUnit.SECONDS)){
-						if (logger.isInfoEnabled()) {
-							logger.info(LOG_PREFIX + "thread {} queue is full when generate barrier event to queue.", i);
-						}
-					}
-				} catch (InterruptedException e) {
-					// nothing to do
-					break;
-				}
-			}
-
+			enqueueToAllPartitions(barrierEvent);
 			return barrierEvent;
 		}
 
@@ -349,24 +491,31 @@ public class PartitionConcurrentProcessor {
 		ExecutorUtil.shutdownEx(this.executorService, 60L, TimeUnit.SECONDS);
 	}
 
-	private boolean updatePartitionValueEvent(TapEvent tapEvent) {
-		if (tapEvent instanceof TapUpdateRecordEvent) {
-			List<Object> beforeValue = null;
-			final Map<String, Object> before = ((TapUpdateRecordEvent) tapEvent).getBefore();
-			if (MapUtils.isNotEmpty(before)) {
-				beforeValue = keySelector.select(tapEvent, before);
-			}
-			List<Object> afterValue = null;
-			final Map<String, Object> after = ((TapUpdateRecordEvent) tapEvent).getAfter();
-			if (MapUtils.isNotEmpty(before)) {
-				afterValue = keySelector.select(tapEvent, after);
-			}
-			if (beforeValue != null && afterValue != null) {
-				return Objects.hash(beforeValue) != Objects.hash(afterValue);
-			}
-		}
+	public int getPartitionSize() {
+		return partitionSize;
+	}
+
+	/**
+	 * Events waiting in the queue of the partition, 0 for a partition out of range
+	 */
+	public int getPartitionQueueDepth(int partition) {
+		return partition >= 0 && partition < partitionsQueue.size() ? partitionsQueue.get(partition).size() : 0;
+	}
+
+	/**
+	 * Milliseconds all partition threads spent waiting on barrier and dependency events since the last call
+	 */
+	public long getAndResetBarrierWaitMs() {
+		return barrierWaitMs.sumThenReset();
+	}
 
-		return false;
+	private static class KeyState {
+		private final int partition;
+		private int pending;
+
+		private KeyState(int partition) {
+			this.partition = partition;
+		}
 	}
 
 	@FunctionalInterface
@@ -0,0 +1,186 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent;
+
+import com.tapdata.constant.ExecutorUtil;
+import com.tapdata.constant.Log4jUtil;
+import com.tapdata.entity.TapdataEvent;
+import com.tapdata.tm.commons.task.dto.TaskDto;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Write batches of a target node on a writer thread, so the node can drain and convert the next batches while the
+ * current one waits for the database.
+ * <p>
+ * Batches are written one by one in the order they are submitted, so the events of a table or key are written in
+ * order and the offsets flushed by a batch never run ahead of an earlier batch not yet acknowledged. At most
+ * inFlightWindow batches are submitted and not written, submit blocks when the window is full.
+ * A failed batch stops the pipeline, the following batches are skipped and the error is thrown by the next submit.
+ *
+ * @author agent
+ **/
+public class TargetWritePipeline {
+
+	private final static String LOG_PREFIX = "[write pipeline] ";
+
+	private Logger logger = LogManager.getLogger(TargetWritePipeline.class);
+
+	private final ExecutorService executorService;
+	private final int inFlightWindow;
+	private final Semaphore inFlight;
+	private final Consumer<List<TapdataEvent>> batchWriter;
+	private final PartitionConcurrentProcessor.ErrorHandler<Throwable, String> errorHandler;
+	private final Supplier<Boolean> nodeRunning;
+	private final TaskDto taskDto;
+
+	private final AtomicBoolean currentRunning = new AtomicBoolean(true);
+	private final AtomicLong batchSeq = new AtomicLong(0L);
+	private final AtomicReference<RuntimeException> error = new AtomicReference<>();
+
+	public TargetWritePipeline(
+			int inFlightWindow,
+			Consumer<List<TapdataEvent>> batchWriter,
+			PartitionConcurrentProcessor.ErrorHandler<Throwable, String> errorHandler,
+			Supplier<Boolean> nodeRunning,
+			TaskDto taskDto
+	) {
+		if (inFlightWindow <= 0) {
+			throw new IllegalArgumentException(LOG_PREFIX + "in flight window must be greater than 0: " + inFlightWindow);
+		}
+		this.inFlightWindow = inFlightWindow;
+		this.inFlight = new Semaphore(inFlightWindow);
+		this.batchWriter = batchWriter;
+		this.errorHandler = errorHandler;
+		this.nodeRunning = nodeRunning;
+		this.taskDto = taskDto;
+		this.executorService = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+			Thread thread = new Thread(r, "target-write-pipeline-" + taskDto.getId().toHexString() + "-" + taskDto.getName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		logger.info(LOG_PREFIX + "completed create write pipeline, in flight window {}", inFlightWindow);
+	}
+
+	/**
+	 * Submit a batch to be written after the batches submitted before it
+	 *
+	 * @throws RuntimeException error of a failed batch
+	 */
+	public void submit(List<TapdataEvent> tapdataEvents) {
+		throwIfFailed();
+		if (CollectionUtils.isEmpty(tapdataEvents)) {
+			return;
+		}
+		try {
+			while (isRunning() && !inFlight.tryAcquire(3L, TimeUnit.SECONDS)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug(LOG_PREFIX + "in flight window is full, waiting for write completed.");
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		if (!isRunning()) {
+			return;
+		}
+		final long seq = batchSeq.incrementAndGet();
+		executorService.execute(() -> {
+			try {
+				Log4jUtil.setThreadContext(taskDto);
+				if (isRunning()) {
+					batchWriter.accept(tapdataEvents);
+				}
+			} catch (Throwable throwable) {
+				final String message = batchMessage(seq, tapdataEvents, throwable);
+				// the error is set before stopping, a caller seeing the pipeline stopped also sees the error
+				error.compareAndSet(null, new RuntimeException(message, throwable));
+				currentRunning.compareAndSet(true, false);
+				errorHandler.accept(throwable, message);
+			} finally {
+				inFlight.release();
+				ThreadContext.clearAll();
+			}
+		});
+	}
+
+	/**
+	 * Wait until all submitted batches are written
+	 *
+	 * @throws RuntimeException error of a failed batch
+	 */
+	public void waitingForWriteToCurrent() {
+		try {
+			while (isRunning() && !inFlight.tryAcquire(inFlightWindow, 3L, TimeUnit.SECONDS)) {
+				if (logger.isInfoEnabled()) {
+					logger.info(LOG_PREFIX + "waiting {} batches written.", inFlightWindow - inFlight.availablePermits());
+				}
+			}
+			if (isRunning()) {
+				inFlight.release(inFlightWindow);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		throwIfFailed();
+	}
+
+	/**
+	 * Non-blocking form of {@link #waitingForWriteToCurrent()}, for callers which must not block
+	 *
+	 * @return true if all submitted batches are written or the pipeline is stopped
+	 * @throws RuntimeException error of a failed batch
+	 */
+	public boolean isWrittenToCurrent() {
+		throwIfFailed();
+		return !isRunning() || inFlight.availablePermits() >= inFlightWindow;
+	}
+
+	public void stop() {
+		try {
+			waitingForWriteToCurrent();
+		} finally {
+			forceStop();
+		}
+	}
+
+	/**
+	 * Batches not started yet are dropped, their offsets were never flushed. Only for a failed or cancelled node, a
+	 * completed node drains the pipeline first
+	 */
+	public void forceStop() {
+		currentRunning.compareAndSet(true, false);
+		ExecutorUtil.shutdownEx(this.executorService, 60L, TimeUnit.SECONDS);
+	}
+
+	private void throwIfFailed() {
+		final RuntimeException exception = error.get();
+		if (null != exception) {
+			throw exception;
+		}
+	}
+
+	private boolean isRunning() {
+		return currentRunning.get() && nodeRunning.get();
+	}
+
+	private static String batchMessage(long seq, List<TapdataEvent> tapdataEvents, Throwable throwable) {
+		final TapdataEvent first = tapdataEvents.get(0);
+		final TapdataEvent last = tapdataEvents.get(tapdataEvents.size() - 1);
+		return String.format("Write batch %s failed, size: %s, first event source time: %s, last event source time: %s, error: %s",
+				seq, tapdataEvents.size(), first.getSourceTime(), last.getSourceTime(), throwable.getMessage());
+	}
+}
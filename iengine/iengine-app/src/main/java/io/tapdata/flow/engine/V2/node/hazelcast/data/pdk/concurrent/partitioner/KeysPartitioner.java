@@ -3,8 +3,8 @@ package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.partitioner
 import com.tapdata.entity.TapdataEvent;
 import org.apache.commons.collections.CollectionUtils;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * @author jackin
@@ -21,9 +21,33 @@ public class KeysPartitioner implements Partitioner<TapdataEvent, List<Object>>
 
 		int partition = 0;
 		if (CollectionUtils.isNotEmpty(partitionValue)) {
-			partition = Math.abs(Objects.hash(partitionValue)) % partitionSize;
+			partition = Math.floorMod(spread(hash(partitionValue)), partitionSize);
 		}
 		return new PartitionResult<>(partition, tapdataEvent);
 	}
 
+	/**
+	 * Hash of the key values by content, binary keys are hashed by their bytes instead of the array identity
+	 */
+	public static int hash(List<Object> partitionValue) {
+		if (CollectionUtils.isEmpty(partitionValue)) {
+			return 0;
+		}
+		int hash = 1;
+		for (Object value : partitionValue) {
+			hash = 31 * hash + (value instanceof byte[] ? Arrays.hashCode((byte[]) value) : (value == null ? 0 : value.hashCode()));
+		}
+		return hash;
+	}
+
+	/**
+	 * Sequential keys (auto increment ids, dates) have sequential hashes, mix all bits before the modulo so they
+	 * do not pile up when the partition size shares a factor with the key step
+	 */
+	private static int spread(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		return hash;
+	}
 }
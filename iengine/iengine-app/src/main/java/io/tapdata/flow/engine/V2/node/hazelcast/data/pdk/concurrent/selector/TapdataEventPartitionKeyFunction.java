@@ -0,0 +1,100 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.selector;
+
+import com.hazelcast.function.FunctionEx;
+import com.tapdata.constant.MapUtil;
+import com.tapdata.entity.TapdataEvent;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.ddl.TapDDLEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.schema.value.TapValue;
+import io.tapdata.flow.engine.V2.util.TapEventUtil;
+import io.tapdata.schema.TapTableMap;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Partition key of the events on a jet edge into a vertex running with local parallelism.
+ * Record events are keyed on their table and logic primary key values, other events and records of a table without
+ * keys on the table only. Events with the same key always go to the same processor, in the order they were emitted,
+ * there is no order between keys, so processors only run in parallel for initial sync tasks without ddl sync, see
+ * HazelcastTaskService#getProcessorParallelism. The only control event of such a task is the snapshot complete
+ * marker, it may pass records of other keys, but the task does not finish until all of them are written.
+ *
+ * @author agent
+ **/
+public class TapdataEventPartitionKeyFunction implements FunctionEx<Object, Object> {
+
+	private static final long serialVersionUID = 2370914625863522310L;
+	/**
+	 * Schemas of the tables emitted by the upstream node
+	 */
+	private final TapTableMap<String, TapTable> tapTableMap;
+	private final Map<String, List<String>> tableKeys = new ConcurrentHashMap<>();
+
+	public TapdataEventPartitionKeyFunction(TapTableMap<String, TapTable> tapTableMap) {
+		this.tapTableMap = tapTableMap;
+	}
+
+	@Override
+	public Object applyEx(Object item) {
+		if (!(item instanceof TapdataEvent)) {
+			return 0;
+		}
+		TapEvent tapEvent = ((TapdataEvent) item).getTapEvent();
+		if (null == tapEvent) {
+			return 0;
+		}
+		String tableId = TapEventUtil.getTableId(tapEvent);
+		int hash = null == tableId ? 0 : tableId.hashCode();
+		if (tapEvent instanceof TapDDLEvent && null != tableId) {
+			tableKeys.remove(tableId);
+		}
+		if (!(tapEvent instanceof TapRecordEvent) || null == tableId) {
+			return hash;
+		}
+		List<String> keys = tableKeys.computeIfAbsent(tableId, this::keys);
+		Map<String, Object> row = TapEventUtil.getBefore(tapEvent);
+		if (MapUtils.isEmpty(row)) {
+			row = TapEventUtil.getAfter(tapEvent);
+		}
+		if (CollectionUtils.isEmpty(keys) || MapUtils.isEmpty(row)) {
+			return hash;
+		}
+		for (String key : keys) {
+			hash = 31 * hash + valueHash(MapUtil.getValueByKey(row, key));
+		}
+		return hash;
+	}
+
+	private List<String> keys(String tableId) {
+		if (null == tapTableMap || !tapTableMap.containsKey(tableId)) {
+			return Collections.emptyList();
+		}
+		TapTable tapTable = tapTableMap.get(tableId);
+		if (null == tapTable) {
+			return Collections.emptyList();
+		}
+		Collection<String> primaryKeys = tapTable.primaryKeys(true);
+		return null == primaryKeys ? Collections.emptyList() : new ArrayList<>(primaryKeys);
+	}
+
+	/**
+	 * Values are hashed by content, the same key read as different number types or objects must hash the same
+	 */
+	private static int valueHash(Object value) {
+		if (value instanceof TapValue) {
+			value = ((TapValue<?, ?>) value).getOriginValue();
+		}
+		if (null == value) {
+			return 0;
+		}
+		if (value instanceof byte[]) {
+			return Arrays.hashCode((byte[]) value);
+		}
+		return String.valueOf(value).hashCode();
+	}
+}
@@ -1,5 +1,6 @@
 package io.tapdata.flow.engine.V2.node.hazelcast.processor;
 
+import com.hazelcast.jet.core.Inbox;
 import com.oracle.truffle.js.scriptengine.GraalJSScriptEngine;
 import com.tapdata.constant.ConnectorConstant;
 import com.tapdata.constant.MapUtil;
@@ -16,39 +17,95 @@ import com.tapdata.tm.commons.dag.Node;
 import com.tapdata.tm.commons.dag.process.CacheLookupProcessorNode;
 import com.tapdata.tm.commons.dag.process.JsProcessorNode;
 import com.tapdata.tm.commons.dag.process.MigrateJsProcessorNode;
+import io.tapdata.aspect.JsProcessorNodeAspect;
+import io.tapdata.aspect.utils.AspectUtils;
 import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.partitioner.KeysPartitioner;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.selector.TapEventPartitionKeySelector;
 import io.tapdata.flow.engine.V2.util.TapEventUtil;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import lombok.SneakyThrows;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.graalvm.polyglot.proxy.ProxyArray;
 import org.graalvm.polyglot.proxy.ProxyObject;
+import org.jetbrains.annotations.NotNull;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.query.Query;
 
 import javax.script.Invocable;
 import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 
 import static org.springframework.data.mongodb.core.query.Criteria.where;
 
+/**
+ * Runs the script of js nodes.
+ * <p>
+ * If the script defines {@link #BATCH_FUNCTION_NAME}, the record events of an inbox are passed to it in one call:
+ * {@code processBatch(records, contexts)} returns an array with the result of each record, a result is handled the same
+ * as a result of {@code process(record)}.
+ * <p>
+ * With {@link #CONTEXT_NUM_PROP} above 1, the node keeps that many js contexts and the record events of an inbox are
+ * split by primary key, each key partition runs in order on its own context. Events are still emitted in inbox order.
+ */
 public class HazelcastJavaScriptProcessorNode extends HazelcastProcessorBaseNode{
 
   private static final Logger logger = LogManager.getLogger(HazelcastJavaScriptProcessorNode.class);
 
-  private final Invocable engine;
+  public static final String CONTEXT_NUM_PROP = "JS_PROCESSOR_CONTEXT_NUM";
+  public static final String BATCH_FUNCTION_NAME = "processBatch";
 
-  private final ThreadLocal<Map<String, Object>> processContextThreadLocal;
+  private final String script;
+
+  private final List<JavaScriptFunctions> javaScriptFunctions;
+
+  /**
+   * Runner of index 0 also processes events one by one in {@link #tryProcess(TapdataEvent, BiConsumer)}
+   */
+  private final List<ScriptRunner> runners = new ArrayList<>();
+
+  private boolean batchMode;
+
+  private ExecutorService scriptExecutor;
+
+  private TapEventPartitionKeySelector keySelector;
+
+  private final KeysPartitioner partitioner = new KeysPartitioner();
+
+  /**
+   * Events of inbox already run by the script, removed when the base node processes them
+   */
+  private final Map<TapdataEvent, ScriptResult> scriptResults = new IdentityHashMap<>();
+
+  private final LongAdder invocations = new LongAdder();
+
+  private final LongAdder scriptTimeNanos = new LongAdder();
 
   @SneakyThrows
   public HazelcastJavaScriptProcessorNode(ProcessorBaseContext processorBaseContext) {
     super(processorBaseContext);
     Node node = getNode();
-    String script;
     if (node instanceof JsProcessorNode) {
       script = ((JsProcessorNode) node).getScript();
     } else if (node instanceof MigrateJsProcessorNode) {
@@ -59,21 +116,155 @@ public class HazelcastJavaScriptProcessorNode extends HazelcastProcessorBaseNode
       throw new RuntimeException("unsupported node " + node.getClass().getName());
     }
 
-    List<JavaScriptFunctions> javaScriptFunctions = clientMongoOperator.find(
+    javaScriptFunctions = clientMongoOperator.find(
             new Query(where("type").ne("system")).with(Sort.by(Sort.Order.asc("last_update"))),
             ConnectorConstant.JAVASCRIPT_FUNCTION_COLLECTION, JavaScriptFunctions.class);
 
-      this.engine = ScriptUtil.getScriptEngine(
-              JSEngineEnum.GRAALVM_JS.getEngineName(),
-              script, javaScriptFunctions,
-              clientMongoOperator,
-              null,
-              null,
-              ((DataProcessorContext) processorBaseContext).getCacheService(),
-              logger
-      );
+    runners.add(new ScriptRunner(createEngine()));
+  }
+
+  private Invocable createEngine() throws ScriptException {
+    return ScriptUtil.getScriptEngine(
+            JSEngineEnum.GRAALVM_JS.getEngineName(),
+            script, javaScriptFunctions,
+            clientMongoOperator,
+            null,
+            null,
+            ((DataProcessorContext) processorBaseContext).getCacheService(),
+            logger
+    );
+  }
+
+  @Override
+  protected void doInit(@NotNull Context context) throws Exception {
+    super.doInit(context);
+    batchMode = runners.get(0).hasFunction(BATCH_FUNCTION_NAME);
+    int contextNum = Math.max(1, CommonUtils.getPropertyInt(CONTEXT_NUM_PROP, 1));
+    // the script is evaluated when a context is created, so all of them are warm before the first event
+    while (runners.size() < contextNum) {
+      runners.add(new ScriptRunner(createEngine()));
+    }
+    if (contextNum > 1) {
+      AtomicInteger threadNo = new AtomicInteger();
+      scriptExecutor = new ThreadPoolExecutor(contextNum, contextNum, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+              r -> new Thread(r, "Js-Processor-Runner-" + getNode().getId() + "-" + threadNo.incrementAndGet()));
+      keySelector = new TapEventPartitionKeySelector(tapEvent -> {
+        TapTable tapTable = processorBaseContext.getTapTableMap().get(getProcessResult(TapEventUtil.getTableId(tapEvent)).getTableId());
+        return null == tapTable ? Collections.emptyList() : new ArrayList<>(tapTable.primaryKeys(true));
+      });
+    }
+    if (batchMode || contextNum > 1) {
+      logger.info("Js processor {} runs with {} context(s), batch mode: {}", getNode().getName(), contextNum, batchMode);
+    }
+
+    AspectUtils.executeAspect(JsProcessorNodeAspect.class, () -> new JsProcessorNodeAspect()
+            .processorBaseContext(processorBaseContext)
+            .invocations(invocations::sum)
+            .scriptTimeMs(() -> TimeUnit.NANOSECONDS.toMillis(scriptTimeNanos.sum())));
+  }
 
-    this.processContextThreadLocal = ThreadLocal.withInitial(HashMap::new);
+  @Override
+  public void process(int ordinal, @NotNull Inbox inbox) {
+    if ((batchMode || null != scriptExecutor) && !inbox.isEmpty()) {
+      runScript(inbox);
+    }
+    super.process(ordinal, inbox);
+  }
+
+  /**
+   * Run the script for the leading record events of inbox before the base node takes them one by one.
+   * An update which changes the primary key runs in a round of its own, so it cannot overtake events of the old key
+   * or be overtaken by events of the new key.
+   */
+  @SneakyThrows
+  private void runScript(Inbox inbox) {
+    List<List<ScriptResult>> partitions = newPartitions();
+    for (Object item : inbox) {
+      if (!(item instanceof TapdataEvent)) {
+        break;
+      }
+      TapdataEvent tapdataEvent = (TapdataEvent) item;
+      if (scriptResults.containsKey(tapdataEvent)) {
+        continue;
+      }
+      if (!tapdataEvent.isDML() || !(tapdataEvent.getTapEvent() instanceof TapRecordEvent)) {
+        break;
+      }
+      TapEvent tapEvent = tapdataEvent.getTapEvent();
+      if (MapUtils.isEmpty(TapEventUtil.getAfter(tapEvent)) && MapUtils.isEmpty(TapEventUtil.getBefore(tapEvent))) {
+        continue;
+      }
+
+      tapdataEvent.ownTapEvent();
+      ScriptResult scriptResult = new ScriptResult(tapdataEvent, super.transformFromTapValue(tapdataEvent));
+      int partition = 0;
+      boolean keyChanged = false;
+      if (null != keySelector) {
+        List<Object> key = keySelector.select(tapEvent, keyRow(tapEvent));
+        if (tapEvent instanceof TapUpdateRecordEvent && MapUtils.isNotEmpty(TapEventUtil.getBefore(tapEvent))) {
+          List<Object> beforeKey = keySelector.select(tapEvent, TapEventUtil.getBefore(tapEvent));
+          if (null != beforeKey && null != key && !Objects.equals(beforeKey, key)) {
+            keyChanged = true;
+            key = beforeKey;
+          }
+        }
+        partition = Math.max(0, partitioner.partition(runners.size(), tapdataEvent, keySelector.convert2OriginValue(key)).getPartition());
+      }
+      if (keyChanged) {
+        runRound(partitions);
+        partitions = newPartitions();
+      }
+      partitions.get(partition).add(scriptResult);
+      scriptResults.put(tapdataEvent, scriptResult);
+      if (keyChanged) {
+        runRound(partitions);
+        partitions = newPartitions();
+      }
+    }
+    runRound(partitions);
+  }
+
+  private List<List<ScriptResult>> newPartitions() {
+    List<List<ScriptResult>> partitions = new ArrayList<>(runners.size());
+    for (int i = 0; i < runners.size(); i++) {
+      partitions.add(new ArrayList<>());
+    }
+    return partitions;
+  }
+
+  private static Map<String, Object> keyRow(TapEvent tapEvent) {
+    if (tapEvent instanceof TapDeleteRecordEvent) {
+      return TapEventUtil.getBefore(tapEvent);
+    }
+    return TapEventUtil.getAfter(tapEvent);
+  }
+
+  private void runRound(List<List<ScriptResult>> partitions) throws Exception {
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < partitions.size(); i++) {
+      List<ScriptResult> partition = partitions.get(i);
+      if (partition.isEmpty()) {
+        continue;
+      }
+      ScriptRunner runner = runners.get(i);
+      if (null == scriptExecutor) {
+        runner.run(partition);
+      } else {
+        futures.add(scriptExecutor.submit(() -> runner.run(partition)));
+      }
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+  }
+
+  @Override
+  protected TapValueTransform transformFromTapValue(TapdataEvent tapdataEvent) {
+    ScriptResult scriptResult = scriptResults.get(tapdataEvent);
+    if (null != scriptResult) {
+      return scriptResult.tapValueTransform;
+    }
+    return super.transformFromTapValue(tapdataEvent);
   }
 
   @SneakyThrows
@@ -98,30 +289,16 @@ public class HazelcastJavaScriptProcessorNode extends HazelcastProcessorBaseNode
     String tableName = TapEventUtil.getTableId(tapEvent);
     ProcessResult processResult = getProcessResult(tableName);
     String op = TapEventUtil.getOp(tapEvent);
-    ProcessContext processContext = new ProcessContext(op, tableName, null, null, null, tapdataEvent.getOffset());
-
-    Long referenceTime = ((TapRecordEvent) tapEvent).getReferenceTime();
-    long eventTime = referenceTime == null ? 0 : referenceTime;
-    processContext.setEventTime(eventTime);
-    processContext.setTs(eventTime);
-    SyncStage syncStage = tapdataEvent.getSyncStage();
-    processContext.setSyncType(syncStage == null ? SyncStage.INITIAL_SYNC.name() : syncStage.name());
-
-    if (processContext.getEvent() == null) {
-      processContext.setEvent(new ProcessContextEvent(op, tableName, processContext.getSyncType(), eventTime));
-    }
-
-    Map<String, Object> contextMap = MapUtil.obj2Map(processContext);
-    Map<String, Object> context = this.processContextThreadLocal.get();
-    context.putAll(contextMap);
-    ((ScriptEngine) this.engine).put("context", context);
     Object obj;
-    if (engine instanceof GraalJSScriptEngine) {
-      obj = engine.invokeFunction(ScriptUtil.FUNCTION_NAME, ProxyObject.fromMap(record));
+    ScriptResult scriptResult = scriptResults.remove(tapdataEvent);
+    if (null != scriptResult) {
+      if (null != scriptResult.error) {
+        throw scriptResult.error;
+      }
+      obj = scriptResult.result;
     } else {
-      obj = engine.invokeFunction(ScriptUtil.FUNCTION_NAME, record);
+      obj = runners.get(0).invoke(record, contextMap(tapdataEvent));
     }
-    context.clear();
 
     if (obj == null) {
       if (logger.isDebugEnabled()) {
@@ -145,6 +322,34 @@ public class HazelcastJavaScriptProcessorNode extends HazelcastProcessorBaseNode
     }
   }
 
+  private static Map<String, Object> contextMap(TapdataEvent tapdataEvent) {
+    TapEvent tapEvent = tapdataEvent.getTapEvent();
+    String tableName = TapEventUtil.getTableId(tapEvent);
+    String op = TapEventUtil.getOp(tapEvent);
+    ProcessContext processContext = new ProcessContext(op, tableName, null, null, null, tapdataEvent.getOffset());
+
+    Long referenceTime = ((TapRecordEvent) tapEvent).getReferenceTime();
+    long eventTime = referenceTime == null ? 0 : referenceTime;
+    processContext.setEventTime(eventTime);
+    processContext.setTs(eventTime);
+    SyncStage syncStage = tapdataEvent.getSyncStage();
+    processContext.setSyncType(syncStage == null ? SyncStage.INITIAL_SYNC.name() : syncStage.name());
+
+    if (processContext.getEvent() == null) {
+      processContext.setEvent(new ProcessContextEvent(op, tableName, processContext.getSyncType(), eventTime));
+    }
+
+    return MapUtil.obj2Map(processContext);
+  }
+
+  private static Map<String, Object> scriptRecord(TapEvent tapEvent) {
+    Map<String, Object> record = TapEventUtil.getAfter(tapEvent);
+    if (MapUtils.isEmpty(record)) {
+      record = TapEventUtil.getBefore(tapEvent);
+    }
+    return record;
+  }
+
   private static void setRecordMap(TapEvent tapEvent, String op, Map<String, Object> recordMap) {
     if (ConnectorConstant.MESSAGE_OPERATION_DELETE.equals(op)) {
       TapEventUtil.setBefore(tapEvent, recordMap);
@@ -155,9 +360,124 @@ public class HazelcastJavaScriptProcessorNode extends HazelcastProcessorBaseNode
 
   @Override
   protected void doClose() throws Exception {
-    super.doClose();
-    if (this.engine instanceof GraalJSScriptEngine) {
-      ((GraalJSScriptEngine) this.engine).close();
+    try {
+      if (null != scriptExecutor) {
+        scriptExecutor.shutdownNow();
+      }
+      super.doClose();
+    } finally {
+      for (ScriptRunner runner : runners) {
+        if (runner.engine instanceof GraalJSScriptEngine) {
+          ((GraalJSScriptEngine) runner.engine).close();
+        }
+      }
+    }
+  }
+
+  /**
+   * A js context, only used by one thread at a time
+   */
+  private class ScriptRunner {
+    private final Invocable engine;
+    private final Map<String, Object> context = new HashMap<>();
+
+    private ScriptRunner(Invocable engine) {
+      this.engine = engine;
+    }
+
+    private boolean hasFunction(String functionName) {
+      try {
+        return Boolean.TRUE.equals(((ScriptEngine) engine).eval("typeof " + functionName + " === 'function'"));
+      } catch (ScriptException e) {
+        return false;
+      }
+    }
+
+    private Object invoke(Map<String, Object> record, Map<String, Object> contextMap) throws Exception {
+      context.putAll(contextMap);
+      ((ScriptEngine) engine).put("context", context);
+      long start = System.nanoTime();
+      try {
+        if (engine instanceof GraalJSScriptEngine) {
+          return engine.invokeFunction(ScriptUtil.FUNCTION_NAME, ProxyObject.fromMap(record));
+        } else {
+          return engine.invokeFunction(ScriptUtil.FUNCTION_NAME, record);
+        }
+      } finally {
+        scriptTimeNanos.add(System.nanoTime() - start);
+        invocations.increment();
+        context.clear();
+      }
+    }
+
+    private Object invokeBatch(List<Map<String, Object>> records, List<Map<String, Object>> contexts) throws Exception {
+      long start = System.nanoTime();
+      try {
+        if (engine instanceof GraalJSScriptEngine) {
+          List<Object> recordProxies = new ArrayList<>(records.size());
+          List<Object> contextProxies = new ArrayList<>(contexts.size());
+          for (int i = 0; i < records.size(); i++) {
+            recordProxies.add(ProxyObject.fromMap(records.get(i)));
+            contextProxies.add(ProxyObject.fromMap(contexts.get(i)));
+          }
+          return engine.invokeFunction(BATCH_FUNCTION_NAME, ProxyArray.fromList(recordProxies), ProxyArray.fromList(contextProxies));
+        } else {
+          return engine.invokeFunction(BATCH_FUNCTION_NAME, records, contexts);
+        }
+      } finally {
+        scriptTimeNanos.add(System.nanoTime() - start);
+        invocations.increment();
+      }
+    }
+
+    /**
+     * Never throws, the error is kept on the failed event and thrown when the base node processes it
+     */
+    private void run(List<ScriptResult> partition) {
+      if (batchMode) {
+        List<Map<String, Object>> records = new ArrayList<>(partition.size());
+        List<Map<String, Object>> contexts = new ArrayList<>(partition.size());
+        try {
+          for (ScriptResult scriptResult : partition) {
+            records.add(scriptRecord(scriptResult.tapdataEvent.getTapEvent()));
+            contexts.add(contextMap(scriptResult.tapdataEvent));
+          }
+          Object results = invokeBatch(records, contexts);
+          if (!(results instanceof List) || ((List<?>) results).size() != partition.size()) {
+            throw new IllegalStateException(BATCH_FUNCTION_NAME + " must return an array with one result for each record, records: "
+                    + partition.size() + ", result: " + results);
+          }
+          for (int i = 0; i < partition.size(); i++) {
+            partition.get(i).result = ((List<?>) results).get(i);
+          }
+        } catch (Throwable e) {
+          partition.forEach(scriptResult -> scriptResult.error = e);
+        }
+      } else {
+        for (ScriptResult scriptResult : partition) {
+          try {
+            scriptResult.result = invoke(scriptRecord(scriptResult.tapdataEvent.getTapEvent()), contextMap(scriptResult.tapdataEvent));
+          } catch (Throwable e) {
+            // the base node stops at the failed event, later events of the partition are never emitted
+            for (int i = partition.indexOf(scriptResult); i < partition.size(); i++) {
+              partition.get(i).error = e;
+            }
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  private static class ScriptResult {
+    private final TapdataEvent tapdataEvent;
+    private final TapValueTransform tapValueTransform;
+    private Object result;
+    private Throwable error;
+
+    private ScriptResult(TapdataEvent tapdataEvent, TapValueTransform tapValueTransform) {
+      this.tapdataEvent = tapdataEvent;
+      this.tapValueTransform = tapValueTransform;
     }
   }
 }
@@ -1,6 +1,7 @@
 package io.tapdata.flow.engine.V2.node.hazelcast.processor;
 
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.core.Inbox;
 import com.tapdata.constant.*;
 import com.tapdata.entity.*;
 import com.tapdata.entity.task.context.DataProcessorContext;
@@ -8,15 +9,20 @@ import com.tapdata.tm.commons.dag.Node;
 import com.tapdata.tm.commons.dag.nodes.TableNode;
 import com.tapdata.tm.commons.dag.process.MergeTableNode;
 import com.tapdata.tm.commons.task.dto.MergeTableProperties;
+import io.tapdata.aspect.MergeNodeCacheAspect;
+import io.tapdata.aspect.utils.AspectUtils;
 import io.tapdata.constructImpl.ConstructIMap;
+import io.tapdata.constructImpl.ConstructIMapNearCache;
 import io.tapdata.entity.event.TapEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.schema.value.TapValue;
 import io.tapdata.exception.HazelcastNotExistsException;
 import io.tapdata.flow.engine.V2.util.GraphUtil;
 import io.tapdata.flow.engine.V2.util.TapEventUtil;
 import io.tapdata.pdk.apis.entity.merge.MergeInfo;
 import io.tapdata.pdk.apis.entity.merge.MergeLookupResult;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import io.tapdata.schema.SchemaList;
 import io.tapdata.schema.TapTableMap;
 import org.apache.commons.collections.CollectionUtils;
@@ -44,6 +50,10 @@ import static com.tapdata.constant.ConnectorConstant.LOOKUP_TABLE_SUFFIX;
 public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 
 	private Logger logger = LogManager.getLogger(HazelcastMergeNode.class);
+	/**
+	 * Max entries of local near cache in front of each merge cache imap, 0 means disable near cache
+	 */
+	public static final String NEAR_CACHE_SIZE_PROP = "MERGE_NODE_NEAR_CACHE_SIZE";
 
 	// 缓存表信息{"前置节点id": "Hazelcast缓存资源{"join value string": {"pk value string": "after data"}}"}
 	private Map<String, ConstructIMap<Document>> mergeCacheMap;
@@ -59,6 +69,12 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 	private Map<String, List<String>> sourcePkOrUniqueFieldMap;
 	// 存储所有需要反查的节点id，提高判断事件是否需要缓存的效率
 	private List<String> needCacheIdList;
+	private final int nearCacheSize = CommonUtils.getPropertyInt(NEAR_CACHE_SIZE_PROP, 10000);
+	/**
+	 * Changes of the merge caches made by the events of current inbox, written with one putAll per cache after the
+	 * inbox is processed. A null value means the join key is deleted
+	 */
+	private final Map<ConstructIMap<Document>, Map<String, Document>> pendingWrites = new HashMap<>();
 
 	public HazelcastMergeNode(DataProcessorContext dataProcessorContext) {
 		super(dataProcessorContext);
@@ -73,6 +89,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		initSourceNodeMap(null);
 		initSourceConnectionMap(null);
 		initSourcePkOrUniqueFieldMap(null);
+		initMergeCacheMetrics();
 	}
 
 	@Override
@@ -86,6 +103,110 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		initSourcePkOrUniqueFieldMap(null);
 	}
 
+	@Override
+	public void process(int ordinal, @NotNull Inbox inbox) {
+		if (nearCacheSize > 0 && !inbox.isEmpty()) {
+			try {
+				prefetch(inbox);
+			} catch (Exception e) {
+				logger.warn("Prefetch merge cache failed, will find one by one; Error: " + e.getMessage(), e);
+			}
+		}
+		super.process(ordinal, inbox);
+		flushPendingWrites();
+	}
+
+	/**
+	 * Near cache is updated by the writes only after the map is written, a failed write leaves it the same as the map
+	 */
+	private void flushPendingWrites() {
+		if (pendingWrites.isEmpty()) {
+			return;
+		}
+		try {
+			for (Map.Entry<ConstructIMap<Document>, Map<String, Document>> entry : pendingWrites.entrySet()) {
+				ConstructIMap<Document> hazelcastConstruct = entry.getKey();
+				Map<String, Document> upserts = new HashMap<>();
+				for (Map.Entry<String, Document> write : entry.getValue().entrySet()) {
+					if (null != write.getValue()) {
+						upserts.put(write.getKey(), write.getValue());
+						continue;
+					}
+					try {
+						hazelcastConstruct.delete(write.getKey());
+					} catch (Exception e) {
+						throw new RuntimeException("Remove value error, join value key: " + write.getKey() + ";\nError: " + e.getMessage(), e);
+					}
+				}
+				try {
+					hazelcastConstruct.upsertAll(upserts);
+				} catch (Exception e) {
+					throw new RuntimeException("Upsert values error, merge cache: " + hazelcastConstruct.getName() + ", size: " + upserts.size() + ";\nError: " + e.getMessage(), e);
+				}
+			}
+		} finally {
+			pendingWrites.clear();
+		}
+	}
+
+	/**
+	 * Find the group of a join key, including changes not written yet
+	 */
+	private Document findCache(ConstructIMap<Document> hazelcastConstruct, String joinValueKey) throws Exception {
+		if (isPendingWrite(hazelcastConstruct, joinValueKey)) {
+			return pendingWrites.get(hazelcastConstruct).get(joinValueKey);
+		}
+		return hazelcastConstruct.find(joinValueKey);
+	}
+
+	private boolean isPendingWrite(ConstructIMap<Document> hazelcastConstruct, String joinValueKey) {
+		Map<String, Document> pending = pendingWrites.get(hazelcastConstruct);
+		return null != pending && pending.containsKey(joinValueKey);
+	}
+
+	private void putPendingWrite(ConstructIMap<Document> hazelcastConstruct, String joinValueKey, Document groupByJoinKeyValues) {
+		pendingWrites.computeIfAbsent(hazelcastConstruct, k -> new HashMap<>()).put(joinValueKey, groupByJoinKeyValues);
+	}
+
+	/**
+	 * Load join values of all events in inbox into near cache with one getAll for each merge cache,
+	 * so {@link #cache(TapdataEvent)} and the first level of {@link #lookup(TapdataEvent)} can be served locally
+	 */
+	private void prefetch(Inbox inbox) throws Exception {
+		Map<String, Set<String>> keysByNodeId = new HashMap<>();
+		for (Object item : inbox) {
+			if (!(item instanceof TapdataEvent) || !((TapdataEvent) item).isDML()) {
+				continue;
+			}
+			TapdataEvent tapdataEvent = (TapdataEvent) item;
+			try {
+				String preNodeId = getPreNodeId(tapdataEvent);
+				MergeTableProperties mergeProperty = this.mergeTablePropertiesMap.get(preNodeId);
+				if (null == mergeProperty) {
+					continue;
+				}
+				if (needCache(tapdataEvent)) {
+					Map<String, Object> data = OperationType.DELETE.getOp().equals(getOp(tapdataEvent)) ? getBefore(tapdataEvent) : getAfter(tapdataEvent);
+					keysByNodeId.computeIfAbsent(preNodeId, k -> new HashSet<>()).add(getJoinValueKeyBySource(data, mergeProperty));
+				}
+				if (needLookup(tapdataEvent)) {
+					Map<String, Object> after = getAfter(tapdataEvent);
+					for (MergeTableProperties child : mergeProperty.getChildren()) {
+						keysByNodeId.computeIfAbsent(child.getId(), k -> new HashSet<>()).add(getJoinValueKeyByTarget(after, child, mergeProperty));
+					}
+				}
+			} catch (Exception ignored) {
+				// Wrong event will be reported when processing it
+			}
+		}
+		for (Map.Entry<String, Set<String>> entry : keysByNodeId.entrySet()) {
+			ConstructIMap<Document> hazelcastConstruct = this.mergeCacheMap.get(entry.getKey());
+			if (hazelcastConstruct instanceof ConstructIMapNearCache) {
+				((ConstructIMapNearCache<Document>) hazelcastConstruct).prefetch(entry.getValue());
+			}
+		}
+	}
+
 	@Override
 	protected void tryProcess(TapdataEvent tapdataEvent, BiConsumer<TapdataEvent, ProcessResult> consumer) {
 		TapEvent tapEvent = tapdataEvent.getTapEvent();
@@ -139,6 +260,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 	}
 
 	private void initMergeCache() {
+		closeMergeCache();
 		this.mergeCacheMap = new HashMap<>();
 		if (MapUtils.isEmpty(this.lookupMap)) {
 			return;
@@ -149,13 +271,61 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 				if (StringUtils.isBlank(cacheName)) {
 					break;
 				}
-				ConstructIMap<Document> hazelcastConstruct = new ConstructIMap<>(jetContext.hazelcastInstance(), cacheName);
+				ConstructIMap<Document> hazelcastConstruct;
+				if (nearCacheSize > 0) {
+					hazelcastConstruct = new ConstructIMapNearCache<>(jetContext.hazelcastInstance(), cacheName, nearCacheSize);
+				} else {
+					hazelcastConstruct = new ConstructIMap<>(jetContext.hazelcastInstance(), cacheName);
+				}
 				this.mergeCacheMap.put(mergeProperty.getId(), hazelcastConstruct);
-				logger.info("Init hazelcast cache, name: " + cacheName + "(" + mergeProperty.getId() + ")");
+				logger.info("Init hazelcast cache, name: " + cacheName + "(" + mergeProperty.getId() + "), near cache size: " + nearCacheSize);
 			}
 		}
 	}
 
+	private void closeMergeCache() {
+		if (MapUtils.isEmpty(this.mergeCacheMap)) {
+			return;
+		}
+		for (ConstructIMap<Document> hazelcastConstruct : this.mergeCacheMap.values()) {
+			if (hazelcastConstruct instanceof ConstructIMapNearCache) {
+				try {
+					((ConstructIMapNearCache<Document>) hazelcastConstruct).close();
+				} catch (Exception e) {
+					logger.warn("Close near cache of " + hazelcastConstruct.getName() + " failed; Error: " + e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Samplers look up the cache by node id every time, so they still work after caches are rebuilt by {@link #updateNodeConfig()}
+	 */
+	private void initMergeCacheMetrics() {
+		if (nearCacheSize <= 0 || MapUtils.isEmpty(this.lookupMap)) {
+			return;
+		}
+		for (List<MergeTableProperties> lookupList : this.lookupMap.values()) {
+			for (MergeTableProperties mergeProperty : lookupList) {
+				String nodeId = mergeProperty.getId();
+				String mergeTable = StringUtils.isNotBlank(mergeProperty.getTableName()) ? mergeProperty.getTableName() : nodeId;
+				AspectUtils.executeAspect(MergeNodeCacheAspect.class, () -> new MergeNodeCacheAspect()
+						.processorBaseContext(processorBaseContext)
+						.mergeTable(mergeTable)
+						.hitRatio(() -> getNearCache(nodeId).map(ConstructIMapNearCache::getAndResetHitRatio).orElse(null))
+						.lookupLatencyMs(() -> getNearCache(nodeId).map(ConstructIMapNearCache::getAndResetLookupLatencyMs).orElse(null)));
+			}
+		}
+	}
+
+	private Optional<ConstructIMapNearCache<Document>> getNearCache(String nodeId) {
+		ConstructIMap<Document> hazelcastConstruct = null == this.mergeCacheMap ? null : this.mergeCacheMap.get(nodeId);
+		if (hazelcastConstruct instanceof ConstructIMapNearCache) {
+			return Optional.of((ConstructIMapNearCache<Document>) hazelcastConstruct);
+		}
+		return Optional.empty();
+	}
+
 	private void initLookupMergeProperties() {
 		Node<?> node = this.processorBaseContext.getNode();
 		this.lookupMap = new HashMap<>();
@@ -374,19 +544,17 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		String pkOrUniqueKey = getPkOrUniqueValueKey(after, mergeTableProperty);
 		Document groupByJoinKeyValues;
 		try {
-			groupByJoinKeyValues = hazelcastConstruct.find(joinValueKey);
+			groupByJoinKeyValues = findCache(hazelcastConstruct, joinValueKey);
 		} catch (Exception e) {
 			throw new Exception("Find value by join key value string(" + joinValueKey + ") error", e);
 		}
-		if (null == groupByJoinKeyValues) {
-			groupByJoinKeyValues = new Document();
-		}
-		groupByJoinKeyValues.put(pkOrUniqueKey, after);
-		try {
-			hazelcastConstruct.upsert(joinValueKey, groupByJoinKeyValues);
-		} catch (Exception e) {
-			throw new Exception("Upsert value error, join value key: " + joinValueKey + ", data: " + groupByJoinKeyValues, e);
-		}
+		// The found group may be the near cache instance, change a copy of it
+		groupByJoinKeyValues = null == groupByJoinKeyValues ? new Document() : new Document(groupByJoinKeyValues);
+		// After is transformed to tap value in place after processed, before the group is written
+		Map<String, Object> copy = new HashMap<>();
+		MapUtil.copyToNewMap(after, copy);
+		groupByJoinKeyValues.put(pkOrUniqueKey, copy);
+		putPendingWrite(hazelcastConstruct, joinValueKey, groupByJoinKeyValues);
 	}
 
 	private void deleteCache(TapdataEvent tapdataEvent, MergeTableProperties mergeTableProperty, ConstructIMap<Document> hazelcastConstruct) throws Exception {
@@ -395,21 +563,16 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		String pkOrUniqueValueKey = getPkOrUniqueValueKey(before, mergeTableProperty);
 		Document groupByJoinKeyValues;
 		try {
-			groupByJoinKeyValues = hazelcastConstruct.find(joinValueKey);
+			groupByJoinKeyValues = findCache(hazelcastConstruct, joinValueKey);
 		} catch (Exception e) {
 			throw new Exception("Find value by join key value string(" + joinValueKey + ") error", e);
 		}
-		if (null == groupByJoinKeyValues) {
+		if (null == groupByJoinKeyValues || !groupByJoinKeyValues.containsKey(pkOrUniqueValueKey)) {
 			return;
 		}
+		groupByJoinKeyValues = new Document(groupByJoinKeyValues);
 		groupByJoinKeyValues.remove(pkOrUniqueValueKey);
-		if (MapUtils.isEmpty(groupByJoinKeyValues)) {
-			try {
-				hazelcastConstruct.delete(joinValueKey);
-			} catch (Exception e) {
-				throw new Exception("Remove value error, join value key: " + joinValueKey, e);
-			}
-		}
+		putPendingWrite(hazelcastConstruct, joinValueKey, MapUtils.isEmpty(groupByJoinKeyValues) ? null : groupByJoinKeyValues);
 	}
 
 	private Map<String, Object> getAfter(TapdataEvent tapdataEvent) {
@@ -448,11 +611,21 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 			if (value instanceof NotExistsNode) {
 				throw new RuntimeException("Cannot found value in data by join key: " + joinKey + ", data: " + data);
 			}
-			values.add(String.valueOf(value));
+			values.add(joinValueString(value));
 		}
 		return String.join("_", values);
 	}
 
+	/**
+	 * Events in inbox still hold tap values when prefetching, use the origin value so the key is the same as processing
+	 */
+	private static String joinValueString(Object value) {
+		if (value instanceof TapValue) {
+			value = ((TapValue<?, ?>) value).getValue();
+		}
+		return String.valueOf(value);
+	}
+
 	private String getJoinValueKeyByTarget(Map<String, Object> data, MergeTableProperties mergeProperty, MergeTableProperties lastMergeProperty) {
 		List<Map<String, String>> joinKeys = mergeProperty.getJoinKeys();
 		List<String> joinKeyList;
@@ -473,7 +646,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 			if (value instanceof NotExistsNode) {
 				throw new RuntimeException("Cannot found value in data by join key: " + joinKey + ", data: " + data);
 			}
-			values.add(String.valueOf(value));
+			values.add(joinValueString(value));
 		}
 		return String.join("_", values);
 	}
@@ -569,20 +742,21 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 			String joinValueKey = getJoinValueKeyByTarget(data, childMergeProperty, mergeTableProperties);
 			Document findData;
 			try {
-				findData = hazelcastConstruct.find(joinValueKey);
+				findData = findCache(hazelcastConstruct, joinValueKey);
 			} catch (Exception e) {
 				throw new RuntimeException("Merge table node lookup in cache failed, join values key" + joinValueKey + ", data: " + data);
 			}
 			if (MapUtils.isEmpty(findData)) {
 				return mergeLookupResults;
 			}
+			boolean cachedInstance = hazelcastConstruct instanceof ConstructIMapNearCache || isPendingWrite(hazelcastConstruct, joinValueKey);
 			io.tapdata.pdk.apis.entity.merge.MergeTableProperties pdkMergeTableProperty = copyMergeTableProperty(childMergeProperty);
 			if (MergeTableProperties.MergeType.updateWrite == mergeType) {
 				if (findData.size() > 1) {
 					logger.warn("Update write merge lookup, find more than one row by join key: " + joinValueKey + ", will use first row: " + data);
 				}
 				String firstKey = findData.keySet().iterator().next();
-				Map<String, Object> lookupMap = (Map<String, Object>) findData.get(firstKey);
+				Map<String, Object> lookupMap = copyLookupData(cachedInstance, (Map<String, Object>) findData.get(firstKey));
 				MergeLookupResult mergeLookupResult = new MergeLookupResult();
 				mergeLookupResult.setProperty(pdkMergeTableProperty);
 				mergeLookupResult.setData(lookupMap);
@@ -592,10 +766,11 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 				Collection<Object> lookupArray = findData.values();
 				for (Object arrayData : lookupArray) {
 					if (!(arrayData instanceof Map)) continue;
+					Map<String, Object> lookupData = copyLookupData(cachedInstance, (Map<String, Object>) arrayData);
 					MergeLookupResult mergeLookupResult = new MergeLookupResult();
 					mergeLookupResult.setProperty(pdkMergeTableProperty);
-					mergeLookupResult.setData((Map<String, Object>) arrayData);
-					mergeLookupResult.setMergeLookupResults(recursiveLookup(childMergeProperty, (Map<String, Object>) arrayData));
+					mergeLookupResult.setData(lookupData);
+					mergeLookupResult.setMergeLookupResults(recursiveLookup(childMergeProperty, lookupData));
 					mergeLookupResults.add(mergeLookupResult);
 				}
 			}
@@ -603,6 +778,27 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		return mergeLookupResults;
 	}
 
+	/**
+	 * Data found from near cache or pending writes is the cached instance, downstream must not change it
+	 */
+	private static Map<String, Object> copyLookupData(boolean cachedInstance, Map<String, Object> data) {
+		if (!cachedInstance || null == data) {
+			return data;
+		}
+		Map<String, Object> copy = new HashMap<>();
+		MapUtil.copyToNewMap(data, copy);
+		return copy;
+	}
+
+	@Override
+	protected void doClose() throws Exception {
+		try {
+			closeMergeCache();
+		} finally {
+			super.doClose();
+		}
+	}
+
 	private enum JoinConditionType {
 		SOURCE("source"), TARGET("target"),
 		;
@@ -54,6 +54,11 @@ public class HazelcastMigrateFieldRenameProcessorNode  extends HazelcastProcesso
                             .collect(Collectors.toMap(FieldInfo::getSourceFieldName, Function.identity()))));
   }
 
+  @Override
+  protected boolean supportCooperative() {
+    return true;
+  }
+
   @Override
   protected void tryProcess(TapdataEvent tapdataEvent, BiConsumer<TapdataEvent, ProcessResult> consumer) {
 
@@ -14,6 +14,13 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 
@@ -26,11 +33,25 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 	private Logger logger = LogManager.getLogger(HazelcastProcessorBaseNode.class);
 
 	private TapdataEvent pendingEvent;
+	/**
+	 * Only used in cooperative mode, ddl event may update memory through http or disk, it cannot run in cooperative thread
+	 */
+	private ExecutorService blockingExecutor;
+	private CompletableFuture<Void> ddlFuture;
 
 	public HazelcastProcessorBaseNode(ProcessorBaseContext processorBaseContext) {
 		super(processorBaseContext);
 	}
 
+	@Override
+	protected void doInit(@NotNull Context context) throws Exception {
+		super.doInit(context);
+		if (isCooperative()) {
+			// schema lookups in cooperative thread must not load from TM
+			Optional.ofNullable(processorBaseContext.getTapTableMap()).ifPresent(tapTableMap -> tapTableMap.preload(tapTableMap.keySet()));
+		}
+	}
+
 	@Override
 	protected final boolean tryProcess(int ordinal, @NotNull Object item) throws Exception {
 		try {
@@ -43,6 +64,15 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 				}
 			}
 			TapdataEvent tapdataEvent = (TapdataEvent) item;
+			tapdataEvent.ownTapEvent();
+			boolean memoryUpdated = false;
+			if (isCooperative() && tapdataEvent.isDDL()) {
+				if (!updateMemoryAsync(tapdataEvent)) {
+					return false;
+				}
+				memoryUpdated = true;
+			}
+			boolean finalMemoryUpdated = memoryUpdated;
 			AtomicReference<TapdataEvent> processedEvent = new AtomicReference<>();
 			try {
 				AspectUtils.executeProcessorFuncAspect(ProcessorNodeProcessAspect.class, () -> new ProcessorNodeProcessAspect()
@@ -58,7 +88,9 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 						return;
 					}
 					// Update memory from ddl event info map
-					updateMemoryFromDDLInfoMap(tapdataEvent, getTgtTableNameFromTapEvent(tapdataEvent.getTapEvent()));
+					if (!finalMemoryUpdated) {
+						updateMemoryFromDDLInfoMap(tapdataEvent, getTgtTableNameFromTapEvent(tapdataEvent.getTapEvent()));
+					}
 					AtomicReference<TapValueTransform> tapValueTransform = new AtomicReference<>();
 					if (tapdataEvent.isDML()) {
 						tapValueTransform.set(transformFromTapValue(tapdataEvent));
@@ -103,6 +135,44 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 		return true;
 	}
 
+	/**
+	 * Run {@link #updateMemoryFromDDLInfoMap(TapdataEvent, String)} in a blocking thread
+	 *
+	 * @return true if memory update is done, false means call again later with the same event
+	 */
+	private boolean updateMemoryAsync(TapdataEvent tapdataEvent) throws Exception {
+		if (null == ddlFuture) {
+			if (null == blockingExecutor) {
+				blockingExecutor = new ThreadPoolExecutor(0, 1, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+						r -> new Thread(r, "Processor-Blocking-Runner-" + getNode().getId()));
+			}
+			String tableName = getTgtTableNameFromTapEvent(tapdataEvent.getTapEvent());
+			ddlFuture = CompletableFuture.runAsync(() -> updateMemoryFromDDLInfoMap(tapdataEvent, tableName), blockingExecutor);
+		}
+		if (!ddlFuture.isDone()) {
+			return false;
+		}
+		try {
+			ddlFuture.get();
+		} catch (ExecutionException e) {
+			throw new NodeException("Update memory from ddl event failed: " + e.getCause().getMessage(), e.getCause())
+					.context(getProcessorBaseContext())
+					.event(tapdataEvent.getTapEvent());
+		} finally {
+			ddlFuture = null;
+		}
+		return true;
+	}
+
+	@Override
+	protected void doClose() throws Exception {
+		try {
+			Optional.ofNullable(blockingExecutor).ifPresent(ExecutorService::shutdownNow);
+		} finally {
+			super.doClose();
+		}
+	}
+
 	protected ProcessResult getProcessResult(String tableName) {
 		if (!multipleTables && !StringUtils.equalsAnyIgnoreCase(processorBaseContext.getTaskDto().getSyncType(),
 				TaskDto.SYNC_TYPE_DEDUCE_SCHEMA)) {
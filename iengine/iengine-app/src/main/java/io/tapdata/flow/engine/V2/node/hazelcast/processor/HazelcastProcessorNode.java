@@ -84,6 +84,27 @@ public class HazelcastProcessorNode extends HazelcastProcessorBaseNode {
 		dataFlowProcessor.initialize(processorContext, stage);
 	}
 
+	/**
+	 * Field processors are pure cpu work, script processors (including field calculation, which evaluates scripts)
+	 * may call blocking functions so they keep a dedicated thread
+	 */
+	@Override
+	protected boolean supportCooperative() {
+		NodeTypeEnum nodeType = NodeTypeEnum.get(processorBaseContext.getNode().getType());
+		if (null == nodeType) {
+			return false;
+		}
+		switch (nodeType) {
+			case FIELD_PROCESSOR:
+			case FIELD_RENAME_PROCESSOR:
+			case FIELD_ADD_DEL_PROCESSOR:
+			case FIELD_MOD_TYPE_PROCESSOR:
+				return true;
+			default:
+				return false;
+		}
+	}
+
 	@Override
 	protected void tryProcess(TapdataEvent tapdataEvent, BiConsumer<TapdataEvent, ProcessResult> consumer) {
 		TapEvent tapEvent = tapdataEvent.getTapEvent();
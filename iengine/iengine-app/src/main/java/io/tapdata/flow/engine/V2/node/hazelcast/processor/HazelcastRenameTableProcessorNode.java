@@ -50,6 +50,11 @@ public class HazelcastRenameTableProcessorNode extends HazelcastProcessorBaseNod
     consumer.accept(tapdataEvent, getProcessResult(TapEventUtil.getTableId(tapEvent)));
   }
 
+  @Override
+  protected boolean supportCooperative() {
+    return true;
+  }
+
   @Override
   protected String getTgtTableNameFromTapEvent(TapEvent tapEvent) {
     String tableId = TapEventUtil.getTableId(tapEvent);
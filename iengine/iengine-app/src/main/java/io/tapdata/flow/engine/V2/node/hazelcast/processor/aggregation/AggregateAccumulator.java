@@ -0,0 +1,90 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.processor.aggregation;
+
+import java.math.BigDecimal;
+
+/**
+ * 可变的累加器，用于COUNT、SUM、AVG以及分组行数
+ * 只要累加的值都是整数且不溢出，就用long累加，不产生对象；
+ * 遇到小数或者溢出时切换成BigDecimal，之后一直用BigDecimal，结果与全程用BigDecimal累加一致
+ *
+ * @Date 2026/10/18
+ */
+public class AggregateAccumulator {
+
+    private long longValue;
+
+    /**
+     * 不为null时表示已经切换成BigDecimal
+     */
+    private BigDecimal decimalValue;
+
+    public AggregateAccumulator() {
+    }
+
+    public AggregateAccumulator(BigDecimal value) {
+        if (value != null) {
+            add(value);
+        }
+    }
+
+    public void add(long delta) {
+        if (decimalValue != null) {
+            decimalValue = decimalValue.add(BigDecimal.valueOf(delta));
+            return;
+        }
+        long result = longValue + delta;
+        // 两个同号的数相加结果变号即溢出
+        if (((longValue ^ result) & (delta ^ result)) < 0) {
+            decimalValue = BigDecimal.valueOf(longValue).add(BigDecimal.valueOf(delta));
+        } else {
+            longValue = result;
+        }
+    }
+
+    public void add(BigDecimal delta) {
+        if (decimalValue == null && delta.scale() == 0) {
+            try {
+                add(delta.longValueExact());
+                return;
+            } catch (ArithmeticException ignore) {
+                // 超出long的范围
+            }
+        }
+        decimalValue = toBigDecimal().add(delta);
+    }
+
+    /**
+     * 累加字段原始值，整数类型直接按long累加，不经过BigDecimal
+     *
+     * @param negate 是否减去这个值
+     */
+    public void add(Object value, boolean negate) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            long longDelta = ((Number) value).longValue();
+            if (!negate) {
+                add(longDelta);
+                return;
+            } else if (longDelta != Long.MIN_VALUE) {
+                add(-longDelta);
+                return;
+            }
+        }
+        BigDecimal delta = AggregatorUtils.getBigDecimal(value);
+        if (delta != null) {
+            add(negate ? delta.negate() : delta);
+        }
+    }
+
+    public int signum() {
+        return decimalValue == null ? Long.signum(longValue) : decimalValue.signum();
+    }
+
+    public BigDecimal toBigDecimal() {
+        return decimalValue == null ? BigDecimal.valueOf(longValue) : decimalValue;
+    }
+
+    @Override
+    public String toString() {
+        return decimalValue == null ? String.valueOf(longValue) : decimalValue.toPlainString();
+    }
+}
@@ -2,7 +2,6 @@ package io.tapdata.flow.engine.V2.node.hazelcast.processor.aggregation;
 
 import com.tapdata.entity.MessageEntity;
 import com.tapdata.entity.OperationType;
-import io.tapdata.constructImpl.ConstructIMap;
 import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
 import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
@@ -48,81 +47,70 @@ public class AggregateOps {
 
     private final static int MAX_LENGTH = 1000;
 
-    public static boolean count(String aggregatorName, ConstructIMap<BigDecimal> cache,
+    public static boolean count(String aggregatorName, AggregateState state,
                                 WrapItem wrappedItem, boolean isMessageEntity) throws Exception {
         if (isMessageEntity) {
-            return countMessageEntity(aggregatorName, cache, wrappedItem);
+            return countMessageEntity(aggregatorName, state, wrappedItem);
         } else {
-            return countTapRecordEvent(aggregatorName, cache, wrappedItem);
+            return countTapRecordEvent(aggregatorName, state, wrappedItem);
         }
     }
 
-    public static boolean sum(String aggregatorName, String aggregatorField, ConstructIMap<BigDecimal> cache,
+    public static boolean sum(String aggregatorName, String aggregatorField, AggregateState state,
                               WrapItem wrappedItem, boolean isMessageEntity) throws Exception {
         if (isMessageEntity) {
-            return sumMessageEntity(aggregatorName, aggregatorField, cache, wrappedItem);
+            return sumMessageEntity(aggregatorName, aggregatorField, state, wrappedItem);
         } else {
-            return sumTapRecordEvent(aggregatorName, aggregatorField, cache, wrappedItem);
+            return sumTapRecordEvent(aggregatorName, aggregatorField, state, wrappedItem, false);
         }
     }
 
-    public static boolean avg(String aggregatorName, String aggregatorField, ConstructIMap<BigDecimal> cache,
+    public static boolean avg(String aggregatorName, String aggregatorField, AggregateState state,
                               WrapItem wrappedItem, boolean isMessageEntity) throws Exception {
         if (isMessageEntity) {
-            return avgMessageEntity(aggregatorName, aggregatorField, cache, wrappedItem);
+            return avgMessageEntity(aggregatorName, aggregatorField, state, wrappedItem);
         } else {
-            return avgTapRecordEvent(aggregatorName, aggregatorField, cache, wrappedItem);
+            return sumTapRecordEvent(aggregatorName, aggregatorField, state, wrappedItem, true);
         }
     }
 
-    public static void avg(TapRecordEvent tapRecordEvent, ConstructIMap<BigDecimal> cache, WrapItem wrappedItem) {
-
-    }
-
-    public static boolean max(String aggregatorField, ConstructIMap<BigDecimal> cache, ConstructIMap<List<BigDecimal>> cacheList,
+    public static boolean max(String aggregatorField, AggregateState state,
                               WrapItem wrappedItem, boolean isMessageEntity) throws Exception {
         if (isMessageEntity) {
-            return maxMessageEntity(aggregatorField, cache, cacheList, wrappedItem);
+            return maxMessageEntity(aggregatorField, state, wrappedItem);
         } else {
-            return maxTapRecordEvent(aggregatorField, cache, cacheList, wrappedItem);
+            return maxTapRecordEvent(aggregatorField, state, wrappedItem);
         }
     }
 
-    public static boolean min(String aggregatorField, ConstructIMap<BigDecimal> cache, ConstructIMap<List<BigDecimal>> cacheList,
+    public static boolean min(String aggregatorField, AggregateState state,
                               WrapItem wrappedItem, boolean isMessageEntity) throws Exception {
         if (isMessageEntity) {
-            return minMessageEntity(aggregatorField, cache, cacheList, wrappedItem);
+            return minMessageEntity(aggregatorField, state, wrappedItem);
         } else {
-            return minTapRecordEvent(aggregatorField, cache, cacheList, wrappedItem);
+            return minTapRecordEvent(aggregatorField, state, wrappedItem);
         }
     }
 
-    public static void min(TapRecordEvent tapRecordEvent, ConstructIMap<BigDecimal> cache, WrapItem wrappedItem) {
-
-    }
-
-    private static BigDecimal updateCounter(ConstructIMap<BigDecimal> cache, String cacheKey, MessageEntity event, BigDecimal changedCount) throws Exception {
+    private static BigDecimal updateCounter(AggregateState state, String cacheKey, MessageEntity event, BigDecimal changedCount) throws Exception {
         String counterCacheKey = cacheKey + "#counter";
         final OperationType operationType = OperationType.fromOp(event.getOp());
-        if (cache.exists(counterCacheKey)) {
-            BigDecimal counter = cache.find(counterCacheKey);
+        AggregateAccumulator counter = state.find(counterCacheKey);
+        if (counter != null) {
             if (operationType == OperationType.DELETE) {
-                BigDecimal newValue = counter.subtract(BigDecimal.ONE);
-                cache.update(counterCacheKey, newValue);
-                return newValue;
+                counter = state.accumulator(counterCacheKey);
+                counter.add(-1L);
             } else if (operationType == OperationType.INSERT) {
-                BigDecimal newValue = counter.add(BigDecimal.ONE);
-                cache.update(counterCacheKey, newValue);
-                return newValue;
-            } else {
-                return counter;
+                counter = state.accumulator(counterCacheKey);
+                counter.add(1L);
             }
+            return counter.toBigDecimal();
         } else {
             if (operationType == OperationType.DELETE) {
                 logger.error("counter not exist." + event);
                 return BigDecimal.ZERO;
             } else if (operationType == OperationType.INSERT) {
-                cache.insert(counterCacheKey, BigDecimal.ONE);
+                state.accumulator(counterCacheKey).add(1L);
                 return BigDecimal.ONE;
             } else {
                 return BigDecimal.ZERO;
@@ -130,15 +118,13 @@ public class AggregateOps {
         }
     }
 
-    private static BigDecimal updateCounter(ConstructIMap<BigDecimal> cache, String cacheKey, TapRecordEvent event, BigDecimal changedCount) throws Exception {
+    private static BigDecimal updateCounter(AggregateState state, String cacheKey, TapRecordEvent event, BigDecimal changedCount) throws Exception {
         String counterCacheKey = cacheKey + "#counter";
         OperationType operationType = OperationType.fromOp(TapEventUtil.getOp(event));
-        if (cache.exists(counterCacheKey)) {
-            BigDecimal counter = cache.find(counterCacheKey);
-            BigDecimal addition = preProcessCount(operationType, changedCount);
-            BigDecimal newValue = counter.add(addition);
-            cache.update(counterCacheKey, newValue);
-            return newValue;
+        if (state.exists(counterCacheKey)) {
+            AggregateAccumulator counter = state.accumulator(counterCacheKey);
+            counter.add(preProcessCount(operationType, changedCount));
+            return counter.toBigDecimal();
 //            if (event instanceof TapDeleteRecordEvent) {
 //                BigDecimal newValue = counter.subtract(BigDecimal.ONE);
 //                cache.update(counterCacheKey, newValue);
@@ -156,7 +142,7 @@ public class AggregateOps {
                 logger.error("counter not exist." + event);
                 return BigDecimal.ZERO;
             } else if (event instanceof TapInsertRecordEvent) {
-                cache.insert(counterCacheKey, BigDecimal.ONE);
+                state.accumulator(counterCacheKey).add(1L);
                 return BigDecimal.ONE;
             } else {
                 return BigDecimal.ZERO;
@@ -181,27 +167,48 @@ public class AggregateOps {
         }
     }
 
-    private static BigDecimal preProcessSum(TapRecordEvent event, String aggregatorField, BigDecimal changedCount) {
+    /**
+     * @return 1表示加上after中的值，-1表示减去before中的值，0表示不变
+     */
+    private static int preProcessSumSign(TapRecordEvent event, BigDecimal changedCount) {
         if (changedCount == null) {
-            return BigDecimal.ZERO;
+            return 0;
         }
-        if (changedCount.compareTo(BigDecimal.ZERO) != 0) {
-            boolean positive = changedCount.compareTo(BigDecimal.ZERO) > 0;
-            Map<String, Object> before = TapEventUtil.getBefore(event);
-            Map<String, Object> after = TapEventUtil.getAfter(event);
-            return positive ? getNumberForPreProcessSum(after, aggregatorField) : getNumberForPreProcessSum(before, aggregatorField).negate();
+        if (changedCount.signum() != 0) {
+            return changedCount.signum();
         }
         if (event instanceof TapDeleteRecordEvent) {
-            Map<String, Object> before = TapEventUtil.getBefore(event);
-            return getNumberForPreProcessSum(before, aggregatorField).negate();
+            return -1;
         } else if (event instanceof TapInsertRecordEvent) {
-            Map<String, Object> after = TapEventUtil.getAfter(event);
-            return getNumberForPreProcessSum(after, aggregatorField);
+            return 1;
         } else {
             throw new RuntimeException("unimplemented code");
         }
     }
 
+    /**
+     * 取字段的原始值，不转换成BigDecimal，整数可以直接按long累加
+     * @return null表示字段值为空
+     */
+    private static Object preProcessSumValue(TapRecordEvent event, String aggregatorField, int sign) {
+        if (sign == 0) {
+            return BigDecimal.ZERO;
+        }
+        Map<String, Object> map = sign > 0 ? TapEventUtil.getAfter(event) : TapEventUtil.getBefore(event);
+        if (map == null) {
+            return BigDecimal.ZERO;
+        }
+        return map.get(aggregatorField);
+    }
+
+    private static void accumulate(AggregateAccumulator accumulator, Object fieldValue, boolean negate) {
+        try {
+            accumulator.add(fieldValue, negate);
+        } catch (Exception ignore) {
+            // 无法转换成数字的值按0处理
+        }
+    }
+
     private static BigDecimal getNumberForPreProcessSum(Map<String, Object> map, final String aggregatorField) {
         if (map == null) {
             return BigDecimal.ZERO;
@@ -293,20 +300,20 @@ public class AggregateOps {
         }
     }
 
-    private static BigDecimal preProcessCount(OperationType operationType, BigDecimal changedCount) {
+    private static long preProcessCount(OperationType operationType, BigDecimal changedCount) {
         if (changedCount == null) {
-            return BigDecimal.ZERO;
+            return 0L;
         }
-        if (changedCount.compareTo(BigDecimal.ZERO) != 0) {
-            return changedCount;
+        if (changedCount.signum() != 0) {
+            return changedCount.longValue();
         }
 
         if (operationType == OperationType.INSERT) {
-            return BigDecimal.ONE;
+            return 1L;
         } else if (operationType == OperationType.DELETE) {
-            return BigDecimal.ONE.negate();
+            return -1L;
         } else {
-            return BigDecimal.ZERO;
+            return 0L;
         }
     }
 
@@ -358,74 +365,50 @@ public class AggregateOps {
         }
     }
 
-    private static boolean countMessageEntity(String aggregatorName, ConstructIMap<BigDecimal> cache,
+    private static boolean countMessageEntity(String aggregatorName, AggregateState state,
                                               WrapItem wrappedItem) throws Exception {
         String cacheKey = wrappedItem.getCachedGroupByKey();
         MessageEntity messageEntity = (MessageEntity) wrappedItem.getMessage();
         OperationType operationType = OperationType.fromOp(messageEntity.getOp());
 
-        BigDecimal countValue = preProcessCount(operationType, wrappedItem.getChangedCount());
-
-        if (cache.exists(cacheKey)) {
-            BigDecimal valueInCache = cache.find(cacheKey);
-            BigDecimal count = valueInCache.add(countValue);
-            /**
-             * 把count==0的记录和缓存清空
-             */
-            if (count.compareTo(BigDecimal.ZERO) == 0) {
-                cache.delete(cacheKey);
-                postProcessCount(messageEntity, count);
-            } else {
-                cache.update(cacheKey, count);
-                postProcessCount(messageEntity, count);
-            }
-            wrappedItem.setCachedRollingAggregateCounter(count);
-            wrappedItem.setCachedGroupByKey(null);
-
-        } else {
-            cache.insert(cacheKey, countValue);
-            postProcessCount(messageEntity, countValue);
-            wrappedItem.setCachedRollingAggregateCounter(countValue);
-            wrappedItem.setCachedGroupByKey(null);
-        }
+        long countValue = preProcessCount(operationType, wrappedItem.getChangedCount());
+        BigDecimal count = rollingCount(state, cacheKey, countValue);
+        postProcessCount(messageEntity, count);
+        wrappedItem.setCachedRollingAggregateCounter(count);
+        wrappedItem.setCachedGroupByKey(null);
         return true;
     }
 
-    private static boolean countTapRecordEvent(String aggregatorName, ConstructIMap<BigDecimal> cache,
+    private static boolean countTapRecordEvent(String aggregatorName, AggregateState state,
                                                WrapItem wrappedItem) throws Exception {
         String cacheKey = wrappedItem.getCachedGroupByKey();
         TapRecordEvent tapRecordEvent = (TapRecordEvent) wrappedItem.getMessage();
         OperationType operationType = OperationType.fromOp(TapEventUtil.getOp(tapRecordEvent));
 
-        BigDecimal countValue = preProcessCount(operationType, wrappedItem.getChangedCount());
-
-        if (cache.exists(cacheKey)) {
-            BigDecimal valueInCache = cache.find(cacheKey);
-            BigDecimal count = valueInCache.add(countValue);
-            /**
-             * 把count==0的记录和缓存清空
-             */
-            if (count.compareTo(BigDecimal.ZERO) == 0) {
-                cache.delete(cacheKey);
-                postProcessCount(tapRecordEvent, count);
-            } else {
-                cache.update(cacheKey, count);
-                postProcessCount(tapRecordEvent, count);
-            }
-            wrappedItem.setCachedRollingAggregateCounter(count);
-            wrappedItem.setCachedGroupByKey(null);
+        long countValue = preProcessCount(operationType, wrappedItem.getChangedCount());
+        BigDecimal count = rollingCount(state, cacheKey, countValue);
+        postProcessCount(tapRecordEvent, count);
+        wrappedItem.setCachedRollingAggregateCounter(count);
+        wrappedItem.setCachedGroupByKey(null);
+        return true;
+    }
 
-        } else {
-            cache.insert(cacheKey, countValue);
-            postProcessCount(tapRecordEvent, countValue);
-            wrappedItem.setCachedRollingAggregateCounter(countValue);
-            wrappedItem.setCachedGroupByKey(null);
+    private static BigDecimal rollingCount(AggregateState state, String cacheKey, long countValue) throws Exception {
+        boolean exists = state.exists(cacheKey);
+        AggregateAccumulator accumulator = state.accumulator(cacheKey);
+        accumulator.add(countValue);
+        BigDecimal count = accumulator.toBigDecimal();
+        /**
+         * 把count==0的记录和缓存清空
+         */
+        if (exists && accumulator.signum() == 0) {
+            state.delete(cacheKey);
         }
-        return true;
+        return count;
     }
 
 
-    private static boolean sumMessageEntity(String aggregatorName, String aggregatorField, ConstructIMap<BigDecimal> cache,
+    private static boolean sumMessageEntity(String aggregatorName, String aggregatorField, AggregateState state,
                                             WrapItem wrappedItem) throws Exception {
         String cacheKey = wrappedItem.getCachedGroupByKey();
         MessageEntity messageEntity = (MessageEntity) wrappedItem.getMessage();
@@ -435,67 +418,61 @@ public class AggregateOps {
             return false;
         }
         // 累计的行数
-        BigDecimal groupedRecordCount = updateCounter(cache, cacheKey, messageEntity, wrappedItem.getChangedCount());
+        BigDecimal groupedRecordCount = updateCounter(state, cacheKey, messageEntity, wrappedItem.getChangedCount());
 
-        if (cache.exists(cacheKey)) {
+        if (state.exists(cacheKey) && groupedRecordCount.signum() == 0) {
             // 删除
-            if (groupedRecordCount.compareTo(BigDecimal.ZERO) == 0) {
-                logger.info("cacheKey=" + cacheKey + " counter=" + groupedRecordCount);
-                cache.delete(cacheKey);
-                cache.delete(cacheKey + "#counter");
-            } else {
-                BigDecimal valueInCache = cache.find(cacheKey);
-                BigDecimal sum = valueInCache.add(fieldValue);
-                // 更新
-                cache.update(cacheKey, sum);
-                postProcessSum(messageEntity, sum);
-            }
+            logger.info("cacheKey=" + cacheKey + " counter=" + groupedRecordCount);
+            state.delete(cacheKey);
+            state.delete(cacheKey + "#counter");
         } else {
-            // 插入
-            cache.insert(cacheKey, fieldValue);
-            postProcessSum(messageEntity, fieldValue);
+            // 插入或更新
+            AggregateAccumulator sum = state.accumulator(cacheKey);
+            sum.add(fieldValue);
+            postProcessSum(messageEntity, sum.toBigDecimal());
         }
         wrappedItem.setCachedRollingAggregateCounter(groupedRecordCount);
         wrappedItem.setCachedGroupByKey(null);
         return true;
     }
 
-    private static boolean sumTapRecordEvent(String aggregatorName, String aggregatorField, ConstructIMap<BigDecimal> cache,
-                                             WrapItem wrappedItem) throws Exception {
+    /**
+     * SUM和AVG都是累加字段值，只是输出不同
+     */
+    private static boolean sumTapRecordEvent(String aggregatorName, String aggregatorField, AggregateState state,
+                                             WrapItem wrappedItem, boolean avg) throws Exception {
         String cacheKey = wrappedItem.getCachedGroupByKey();
         TapRecordEvent tapRecordEvent = (TapRecordEvent) wrappedItem.getMessage();
-        BigDecimal fieldValue = preProcessSum(tapRecordEvent, aggregatorField, wrappedItem.getChangedCount());
+        int sign = preProcessSumSign(tapRecordEvent, wrappedItem.getChangedCount());
+        Object fieldValue = preProcessSumValue(tapRecordEvent, aggregatorField, sign);
         if (fieldValue == null) {
             logger.error("value is null for aggregatorField name: " + aggregatorField);
             return false;
         }
         // 累计的行数
-        BigDecimal groupedRecordCount = updateCounter(cache, cacheKey, tapRecordEvent, wrappedItem.getChangedCount());
+        BigDecimal groupedRecordCount = updateCounter(state, cacheKey, tapRecordEvent, wrappedItem.getChangedCount());
 
-        if (cache.exists(cacheKey)) {
+        if (state.exists(cacheKey) && groupedRecordCount.signum() == 0) {
             // 删除
-            if (groupedRecordCount.compareTo(BigDecimal.ZERO) == 0) {
-                logger.info("cacheKey=" + cacheKey + " counter=" + groupedRecordCount);
-                cache.delete(cacheKey);
-                cache.delete(cacheKey + "#counter");
+            logger.info("cacheKey=" + cacheKey + " counter=" + groupedRecordCount);
+            state.delete(cacheKey);
+            state.delete(cacheKey + "#counter");
+        } else {
+            // 插入或更新
+            AggregateAccumulator sum = state.accumulator(cacheKey);
+            accumulate(sum, fieldValue, sign < 0);
+            if (avg) {
+                postProcessAvg(tapRecordEvent, sum.toBigDecimal(), groupedRecordCount);
             } else {
-                BigDecimal valueInCache = cache.find(cacheKey);
-                BigDecimal sum = valueInCache.add(fieldValue);
-                // 更新
-                cache.update(cacheKey, sum);
-                postProcessSum(tapRecordEvent, sum);
+                postProcessSum(tapRecordEvent, sum.toBigDecimal());
             }
-        } else {
-            // 插入
-            cache.insert(cacheKey, fieldValue);
-            postProcessSum(tapRecordEvent, fieldValue);
         }
         wrappedItem.setCachedRollingAggregateCounter(groupedRecordCount);
         wrappedItem.setCachedGroupByKey(null);
         return true;
     }
 
-    private static boolean avgMessageEntity(String aggregatorName, String aggregatorField, ConstructIMap<BigDecimal> cache,
+    private static boolean avgMessageEntity(String aggregatorName, String aggregatorField, AggregateState state,
                                             WrapItem wrappedItem) throws Exception {
         String cacheKey = wrappedItem.getCachedGroupByKey();
         MessageEntity messageEntity = (MessageEntity) wrappedItem.getMessage();
@@ -506,67 +483,25 @@ public class AggregateOps {
             return false;
         }
         // 累计的行数
-        BigDecimal groupedRecordCount = updateCounter(cache, cacheKey, messageEntity, wrappedItem.getChangedCount());
+        BigDecimal groupedRecordCount = updateCounter(state, cacheKey, messageEntity, wrappedItem.getChangedCount());
 
-        if (cache.exists(cacheKey)) {
+        if (state.exists(cacheKey) && groupedRecordCount.signum() == 0) {
             // 删除
-            if (groupedRecordCount.compareTo(BigDecimal.ZERO) == 0) {
-                logger.info("cacheKey=" + cacheKey + " counter=" + groupedRecordCount);
-                cache.delete(cacheKey);
-                cache.delete(cacheKey + "#counter");
-            } else {
-                BigDecimal valueInCache = cache.find(cacheKey);
-                BigDecimal sum = valueInCache.add(fieldValue);
-                // 更新
-                cache.update(cacheKey, sum);
-                postProcessAvg(messageEntity, sum, groupedRecordCount);
-            }
-        } else {
-            // 插入
-            cache.insert(cacheKey, fieldValue);
-            postProcessAvg(messageEntity, fieldValue, groupedRecordCount);
-        }
-        wrappedItem.setCachedRollingAggregateCounter(groupedRecordCount);
-        wrappedItem.setCachedGroupByKey(null);
-        return true;
-    }
-
-    private static boolean avgTapRecordEvent(String aggregatorName, String aggregatorField, ConstructIMap<BigDecimal> cache,
-                                             WrapItem wrappedItem) throws Exception {
-        String cacheKey = wrappedItem.getCachedGroupByKey();
-        TapRecordEvent tapRecordEvent = (TapRecordEvent) wrappedItem.getMessage();
-        // 这一步跟SUM是一样的
-        BigDecimal fieldValue = preProcessSum(tapRecordEvent, aggregatorField, wrappedItem.getChangedCount());
-        if (fieldValue == null) {
-            logger.error("value is null for aggregatorField name: " + aggregatorField);
-            return false;
-        }
-        // 累计的行数
-        BigDecimal groupedRecordCount = updateCounter(cache, cacheKey, tapRecordEvent, wrappedItem.getChangedCount());
-        if (cache.exists(cacheKey)) {
-            // 删除
-            if (groupedRecordCount.compareTo(BigDecimal.ZERO) == 0) {
-                logger.info("cacheKey=" + cacheKey + " counter=" + groupedRecordCount);
-                cache.delete(cacheKey);
-                cache.delete(cacheKey + "#counter");
-            } else {
-                BigDecimal valueInCache = cache.find(cacheKey);
-                BigDecimal sum = valueInCache.add(fieldValue);
-                // 更新
-                cache.update(cacheKey, sum);
-                postProcessAvg(tapRecordEvent, sum, groupedRecordCount);
-            }
+            logger.info("cacheKey=" + cacheKey + " counter=" + groupedRecordCount);
+            state.delete(cacheKey);
+            state.delete(cacheKey + "#counter");
         } else {
-            // 插入
-            cache.insert(cacheKey, fieldValue);
-            postProcessAvg(tapRecordEvent, fieldValue, groupedRecordCount);
+            // 插入或更新
+            AggregateAccumulator sum = state.accumulator(cacheKey);
+            sum.add(fieldValue);
+            postProcessAvg(messageEntity, sum.toBigDecimal(), groupedRecordCount);
         }
         wrappedItem.setCachedRollingAggregateCounter(groupedRecordCount);
         wrappedItem.setCachedGroupByKey(null);
         return true;
     }
 
-    private static boolean maxMessageEntity(String aggregatorField, ConstructIMap<BigDecimal> cache, ConstructIMap<List<BigDecimal>> cacheList,
+    private static boolean maxMessageEntity(String aggregatorField, AggregateState state,
                                             WrapItem wrappedItem) throws Exception {
         String cacheKey = wrappedItem.getCachedGroupByKey();
         MessageEntity messageEntity = (MessageEntity) wrappedItem.getMessage();
@@ -575,10 +510,10 @@ public class AggregateOps {
         BigDecimal fieldValue = preProcessField(messageEntity, aggregatorField);
         BigDecimal changedCount = wrappedItem.getChangedCount();
         // 累计的行数
-        BigDecimal groupedRecordCount = updateCounter(cache, cacheKey, messageEntity, changedCount);
+        BigDecimal groupedRecordCount = updateCounter(state, cacheKey, messageEntity, changedCount);
 
-        if (cacheList.exists(cacheKey)) {
-            List<BigDecimal> groupedMaxList = cacheList.find(cacheKey);
+        if (state.existsList(cacheKey)) {
+            List<BigDecimal> groupedMaxList = state.findList(cacheKey);
             if (groupedMaxList.contains(fieldValue)) {
                 if (operationType == OperationType.DELETE) {
                     groupedMaxList.remove(fieldValue);
@@ -601,16 +536,16 @@ public class AggregateOps {
                 }
             }
             if (groupedMaxList.size() > 0) {
-                cacheList.update(cacheKey, groupedMaxList);
+                state.updateList(cacheKey, groupedMaxList);
             } else {
-                cacheList.delete(cacheKey);
+                state.deleteList(cacheKey);
             }
             postProcessMax(messageEntity, groupedMaxList);
         } else {
             if (operationType == OperationType.INSERT) {
                 ArrayList<BigDecimal> groupedMaxList = new ArrayList<>(1);
                 groupedMaxList.add(fieldValue);
-                cacheList.insert(cacheKey, groupedMaxList);
+                state.updateList(cacheKey, groupedMaxList);
                 postProcessMax(messageEntity, groupedMaxList);
             } else {
                 throw new RuntimeException("unexpect logic");
@@ -623,17 +558,17 @@ public class AggregateOps {
 
     }
 
-    private static boolean maxTapRecordEvent(String aggregatorField, ConstructIMap<BigDecimal> cache, ConstructIMap<List<BigDecimal>> cacheList, WrapItem wrappedItem) throws Exception {
+    private static boolean maxTapRecordEvent(String aggregatorField, AggregateState state, WrapItem wrappedItem) throws Exception {
         String cacheKey = wrappedItem.getCachedGroupByKey();
         TapRecordEvent tapRecordEvent = (TapRecordEvent) wrappedItem.getMessage();
 
         BigDecimal fieldValue = preProcessField(tapRecordEvent, aggregatorField);
 
         // 累计的行数
-        BigDecimal groupedRecordCount = updateCounter(cache, cacheKey, tapRecordEvent, wrappedItem.getChangedCount());
+        BigDecimal groupedRecordCount = updateCounter(state, cacheKey, tapRecordEvent, wrappedItem.getChangedCount());
         BigDecimal changedCount = wrappedItem.getChangedCount();
-        if (cacheList.exists(cacheKey)) {
-            List<BigDecimal> groupedMaxList = cacheList.find(cacheKey);
+        if (state.existsList(cacheKey)) {
+            List<BigDecimal> groupedMaxList = state.findList(cacheKey);
             groupedMaxList.sort(new MaxComparator());
             if (groupedMaxList.contains(fieldValue)) {
                 if (tapRecordEvent instanceof TapDeleteRecordEvent) {
@@ -663,16 +598,16 @@ public class AggregateOps {
                 }
             }
             if (groupedMaxList.size() > 0) {
-                cacheList.update(cacheKey, groupedMaxList);
+                state.updateList(cacheKey, groupedMaxList);
             } else {
-                cacheList.delete(cacheKey);
+                state.deleteList(cacheKey);
             }
             postProcessMax(tapRecordEvent, groupedMaxList);
         } else {
             if (tapRecordEvent instanceof TapInsertRecordEvent) {
                 ArrayList<BigDecimal> groupedMaxList = new ArrayList<>(1);
                 groupedMaxList.add(fieldValue);
-                cacheList.insert(cacheKey, groupedMaxList);
+                state.updateList(cacheKey, groupedMaxList);
                 postProcessMax(tapRecordEvent, groupedMaxList);
             } else {
                 throw new RuntimeException("unexpect logic");
@@ -721,7 +656,7 @@ public class AggregateOps {
         }
     }
 
-    private static boolean minMessageEntity(String aggregatorField, ConstructIMap<BigDecimal> cache, ConstructIMap<List<BigDecimal>> cacheList,
+    private static boolean minMessageEntity(String aggregatorField, AggregateState state,
                                             WrapItem wrappedItem) throws Exception {
         String cacheKey = wrappedItem.getCachedGroupByKey();
         MessageEntity messageEntity = (MessageEntity) wrappedItem.getMessage();
@@ -730,10 +665,10 @@ public class AggregateOps {
         BigDecimal fieldValue = preProcessField(messageEntity, aggregatorField);
 
         // 累计的行数
-        BigDecimal groupedRecordCount = updateCounter(cache, cacheKey, messageEntity, wrappedItem.getChangedCount());
+        BigDecimal groupedRecordCount = updateCounter(state, cacheKey, messageEntity, wrappedItem.getChangedCount());
         BigDecimal changedCount = wrappedItem.getChangedCount();
-        if (cacheList.exists(cacheKey)) {
-            List<BigDecimal> groupedMinList = cacheList.find(cacheKey);
+        if (state.existsList(cacheKey)) {
+            List<BigDecimal> groupedMinList = state.findList(cacheKey);
             if (groupedMinList.contains(fieldValue)) {
                 if (operationType == OperationType.DELETE) {
                     groupedMinList.remove(fieldValue);
@@ -760,16 +695,16 @@ public class AggregateOps {
                 }
             }
             if (groupedMinList.size() > 0) {
-                cacheList.update(cacheKey, groupedMinList);
+                state.updateList(cacheKey, groupedMinList);
             } else {
-                cacheList.delete(cacheKey);
+                state.deleteList(cacheKey);
             }
             postProcessMin(messageEntity, groupedMinList);
         } else {
             if (operationType == OperationType.INSERT) {
                 ArrayList<BigDecimal> groupedMinList = new ArrayList<>(1);
                 groupedMinList.add(fieldValue);
-                cacheList.insert(cacheKey, groupedMinList);
+                state.updateList(cacheKey, groupedMinList);
                 postProcessMin(messageEntity, groupedMinList);
             } else {
                 throw new RuntimeException("unexpect logic");
@@ -781,17 +716,17 @@ public class AggregateOps {
         return true;
     }
 
-    private static boolean minTapRecordEvent(String aggregatorField, ConstructIMap<BigDecimal> cache, ConstructIMap<List<BigDecimal>> cacheList, WrapItem wrappedItem) throws Exception {
+    private static boolean minTapRecordEvent(String aggregatorField, AggregateState state, WrapItem wrappedItem) throws Exception {
         String cacheKey = wrappedItem.getCachedGroupByKey();
         TapRecordEvent tapRecordEvent = (TapRecordEvent) wrappedItem.getMessage();
 
         BigDecimal fieldValue = preProcessField(tapRecordEvent, aggregatorField);
 
         // 累计的行数
-        BigDecimal groupedRecordCount = updateCounter(cache, cacheKey, tapRecordEvent, wrappedItem.getChangedCount());
+        BigDecimal groupedRecordCount = updateCounter(state, cacheKey, tapRecordEvent, wrappedItem.getChangedCount());
         BigDecimal changedCount = wrappedItem.getChangedCount();
-        if (cacheList.exists(cacheKey)) {
-            List<BigDecimal> groupedMinList = cacheList.find(cacheKey);
+        if (state.existsList(cacheKey)) {
+            List<BigDecimal> groupedMinList = state.findList(cacheKey);
             groupedMinList.sort(new MinComparator());
             if (groupedMinList.contains(fieldValue)) {
                 if (tapRecordEvent instanceof TapDeleteRecordEvent) {
@@ -821,16 +756,16 @@ public class AggregateOps {
                 }
             }
             if (groupedMinList.size() > 0) {
-                cacheList.update(cacheKey, groupedMinList);
+                state.updateList(cacheKey, groupedMinList);
             } else {
-                cacheList.delete(cacheKey);
+                state.deleteList(cacheKey);
             }
             postProcessMin(tapRecordEvent, groupedMinList);
         } else {
             if (tapRecordEvent instanceof TapInsertRecordEvent) {
                 ArrayList<BigDecimal> groupedMinList = new ArrayList<>(1);
                 groupedMinList.add(fieldValue);
-                cacheList.insert(cacheKey, groupedMinList);
+                state.updateList(cacheKey, groupedMinList);
                 postProcessMin(tapRecordEvent, groupedMinList);
             } else {
                 throw new RuntimeException("unexpect logic");
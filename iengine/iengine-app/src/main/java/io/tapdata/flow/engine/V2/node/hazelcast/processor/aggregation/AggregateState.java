@@ -0,0 +1,160 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.processor.aggregation;
+
+import io.tapdata.constructImpl.ConstructIMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 聚合节点的本地状态
+ * 分组的累加值和MAX/MIN候选列表保存在本地的HashMap里，直接修改，不再每个事件读写一次Hazelcast；
+ * 修改过的key记为脏数据，由{@link #flush()}批量写回AggregatorCache和AggregatorCacheList，作为checkpoint，
+ * 本地不存在的key从Hazelcast加载，所以任务重启后可以从上次写回的状态继续聚合
+ *
+ * @Date 2026/10/18
+ */
+public class AggregateState {
+
+    private final static Logger logger = LogManager.getLogger(AggregateState.class);
+
+    private final ConstructIMap<BigDecimal> cacheNumbers;
+
+    private final ConstructIMap<List<BigDecimal>> cacheList;
+
+    /**
+     * 脏数据达到这个数量时写回
+     */
+    private final int flushBatchSize;
+
+    /**
+     * 写回后本地key的数量超过这个值就清空本地状态，防止分组过多时内存无限增长
+     */
+    private final int maxLocalSize;
+
+    /**
+     * value为null表示Hazelcast中也不存在
+     */
+    private final Map<String, AggregateAccumulator> numbers = new HashMap<>();
+
+    private final Map<String, List<BigDecimal>> lists = new HashMap<>();
+
+    private final Set<String> dirtyNumbers = new HashSet<>();
+
+    private final Set<String> dirtyLists = new HashSet<>();
+
+    public AggregateState(ConstructIMap<BigDecimal> cacheNumbers, ConstructIMap<List<BigDecimal>> cacheList,
+                          int flushBatchSize, int maxLocalSize) {
+        this.cacheNumbers = cacheNumbers;
+        this.cacheList = cacheList;
+        this.flushBatchSize = Math.max(1, flushBatchSize);
+        this.maxLocalSize = Math.max(1, maxLocalSize);
+    }
+
+    /**
+     * @return null表示不存在，返回的累加器修改前必须调用{@link #accumulator(String)}标记为脏数据
+     */
+    public AggregateAccumulator find(String key) throws Exception {
+        AggregateAccumulator accumulator = numbers.get(key);
+        if (accumulator == null && !numbers.containsKey(key)) {
+            BigDecimal value = cacheNumbers.find(key);
+            accumulator = value == null ? null : new AggregateAccumulator(value);
+            numbers.put(key, accumulator);
+        }
+        return accumulator;
+    }
+
+    public boolean exists(String key) throws Exception {
+        return find(key) != null;
+    }
+
+    /**
+     * 获取用于修改的累加器，不存在时创建一个值为0的累加器
+     */
+    public AggregateAccumulator accumulator(String key) throws Exception {
+        AggregateAccumulator accumulator = find(key);
+        if (accumulator == null) {
+            accumulator = new AggregateAccumulator();
+            numbers.put(key, accumulator);
+        }
+        dirtyNumbers.add(key);
+        return accumulator;
+    }
+
+    public void delete(String key) {
+        numbers.put(key, null);
+        dirtyNumbers.add(key);
+    }
+
+    /**
+     * @return null表示不存在，返回的列表修改后必须调用{@link #updateList(String, List)}
+     */
+    public List<BigDecimal> findList(String key) throws Exception {
+        List<BigDecimal> list = lists.get(key);
+        if (list == null && !lists.containsKey(key)) {
+            list = cacheList.find(key);
+            lists.put(key, list);
+        }
+        return list;
+    }
+
+    public boolean existsList(String key) throws Exception {
+        return findList(key) != null;
+    }
+
+    public void updateList(String key, List<BigDecimal> list) {
+        lists.put(key, list);
+        dirtyLists.add(key);
+    }
+
+    public void deleteList(String key) {
+        lists.put(key, null);
+        dirtyLists.add(key);
+    }
+
+    public boolean needFlush() {
+        return dirtyNumbers.size() + dirtyLists.size() >= flushBatchSize;
+    }
+
+    /**
+     * 把脏数据批量写回Hazelcast
+     */
+    public void flush() throws Exception {
+        if (!dirtyNumbers.isEmpty()) {
+            Map<String, BigDecimal> upserts = new HashMap<>(dirtyNumbers.size() * 4 / 3 + 1);
+            for (String key : dirtyNumbers) {
+                AggregateAccumulator accumulator = numbers.get(key);
+                if (accumulator == null) {
+                    cacheNumbers.delete(key);
+                } else {
+                    upserts.put(key, accumulator.toBigDecimal());
+                }
+            }
+            cacheNumbers.upsertAll(upserts);
+            dirtyNumbers.clear();
+        }
+        if (!dirtyLists.isEmpty()) {
+            Map<String, List<BigDecimal>> upserts = new HashMap<>(dirtyLists.size() * 4 / 3 + 1);
+            for (String key : dirtyLists) {
+                List<BigDecimal> list = lists.get(key);
+                if (list == null) {
+                    cacheList.delete(key);
+                } else {
+                    upserts.put(key, list);
+                }
+            }
+            cacheList.upsertAll(upserts);
+            dirtyLists.clear();
+        }
+        if (numbers.size() + lists.size() > maxLocalSize) {
+            logger.debug("aggregate local state size {} exceeds {}, clear it", numbers.size() + lists.size(), maxLocalSize);
+            numbers.clear();
+            lists.clear();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package io.tapdata.flow.engine.V2.node.hazelcast.processor.aggregation;
 
 import com.google.common.collect.Lists;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.core.Inbox;
 import com.tapdata.constant.MapUtil;
 import com.tapdata.entity.MessageEntity;
 import com.tapdata.entity.OperationType;
@@ -22,6 +23,7 @@ import io.tapdata.entity.utils.InstanceFactory;
 import io.tapdata.entity.utils.TapUtils;
 import io.tapdata.flow.engine.V2.node.hazelcast.HazelcastBaseNode;
 import io.tapdata.flow.engine.V2.util.TapEventUtil;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import io.tapdata.schema.TapTableMap;
 import lombok.Getter;
 import lombok.Setter;
@@ -43,9 +45,19 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
 
     private final Logger logger = LogManager.getLogger(HazelcastMultiAggregatorProcessor.class);
 
+    /**
+     * 本地聚合状态中脏数据达到这个数量时批量写回Hazelcast，另外每处理完一批事件也会写回
+     */
+    public static final String CHECKPOINT_BATCH_SIZE_PROP = "AGGREGATE_NODE_CHECKPOINT_BATCH_SIZE";
+
+    /**
+     * 本地聚合状态最多保留的分组key数量，超过后写回并清空
+     */
+    public static final String LOCAL_STATE_SIZE_PROP = "AGGREGATE_NODE_LOCAL_STATE_SIZE";
+
     private final List<Aggregator> aggregators = new ArrayList<>();
 
-    private final Queue<Object> eventQueue = new LinkedList<>();
+    private final Queue<Object> eventQueue = new ArrayDeque<>();
 
     private final String nodeId;
 
@@ -55,6 +67,8 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
 
     private volatile ConstructIMap<List<BigDecimal>> cacheList;
 
+    private AggregateState aggregateState;
+
     private final List<String> targetFieldsName = new ArrayList<>();
 
     private TapRecordEvent originalTapRecordEvent;
@@ -78,6 +92,9 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
                 nodeId + "-" + "AggregatorCache");
         cacheList = new DocumentIMap<>(hazelcastInstance,
                 nodeId + "-" + "AggregatorCacheList");
+        aggregateState = new AggregateState(cacheNumbers, cacheList,
+                CommonUtils.getPropertyInt(CHECKPOINT_BATCH_SIZE_PROP, 1000),
+                CommonUtils.getPropertyInt(LOCAL_STATE_SIZE_PROP, 100000));
     }
 
     public static void clearCache(String nodeId, HazelcastInstance hazelcastInstance) {
@@ -146,15 +163,41 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
 
     @Override
     public void doClose() throws Exception {
+        if (aggregateState != null) {
+            try {
+                aggregateState.flush();
+            } catch (Exception e) {
+                logger.warn("flush aggregate state failed when close, nodeId: {}, error: {}", nodeId, e.getMessage(), e);
+            }
+        }
         for (Aggregator aggregator : aggregators) {
             aggregator.close();
         }
         logger.info("close aggregator, nodeId: {}", nodeId);
     }
 
+    /**
+     * 聚合状态在本地累加，处理完一批事件后批量写回Hazelcast
+     */
+    @Override
+    public void process(int ordinal, @NotNull Inbox inbox) {
+        super.process(ordinal, inbox);
+        flushAggregateState();
+    }
+
+    private void flushAggregateState() {
+        if (aggregateState == null) {
+            return;
+        }
+        try {
+            aggregateState.flush();
+        } catch (Exception e) {
+            throw errorHandle(e, "Flush aggregate state failed, nodeId: " + nodeId + ", error: " + e.getMessage());
+        }
+    }
+
     @Override
     protected boolean tryProcess(int ordinal, @NotNull Object item) {
-        logger.info("try process aggregator, nodeId: {}", nodeId);
         Node<?> node = processorBaseContext.getNode();
         if (logger.isDebugEnabled()) {
             logger.debug(
@@ -168,6 +211,7 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
         TapdataEvent tapdataEvent;
         if (item instanceof TapdataEvent) {
             tapdataEvent = (TapdataEvent) item;
+            tapdataEvent.ownTapEvent();
         } else {
             return true;
         }
@@ -198,6 +242,9 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
                 }
             }
         }
+        if (aggregateState != null && aggregateState.needFlush()) {
+            flushAggregateState();
+        }
         return true;
     }
 
@@ -318,7 +365,7 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
                 } else {
                     throw new RuntimeException("Unimplemented message type");
                 }
-                return Lists.newArrayList(item);
+                return Collections.singletonList(item);
             }
 
 
@@ -458,7 +505,7 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
                 }
                 WrapItem wrappedItem = (WrapItem) item;
                 if (groupbyList == null || groupbyList.isEmpty()) {
-                    return Lists.newArrayList(item);
+                    return Collections.singletonList(item);
                 } else {
                     List<Object> result;
                     Object event = wrappedItem.getMessage();
@@ -579,7 +626,7 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
                     return Collections.emptyList();
                 }
                 if (groupbyList == null || groupbyList.isEmpty()) {
-                    return Lists.newArrayList(item);
+                    return Collections.singletonList(item);
                 }
 
                 WrapItem wrappedItem = (WrapItem) item;
@@ -845,37 +892,37 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
                         switch (aggregatorOp) {
                             case "COUNT":
                                 if (wrappedItem.isEvent()) {
-                                    boolean rs = AggregateOps.count(name, cacheNumbers, wrappedItem, wrappedItem.isMessageEntity());
+                                    boolean rs = AggregateOps.count(name, aggregateState, wrappedItem, wrappedItem.isMessageEntity());
 
-                                    return rs ? Lists.newArrayList(wrappedItem) : Collections.emptyList();
+                                    return rs ? Collections.singletonList(wrappedItem) : Collections.emptyList();
                                 } else {
                                     throw new RuntimeException("Unimplemented type: " + event.getClass().getSimpleName());
                                 }
                             case "SUM":
                                 if (wrappedItem.isEvent()) {
-                                    boolean rs = AggregateOps.sum(name, aggregatorField, cacheNumbers, wrappedItem, wrappedItem.isMessageEntity());
-                                    return rs ? Lists.newArrayList(wrappedItem) : Collections.emptyList();
+                                    boolean rs = AggregateOps.sum(name, aggregatorField, aggregateState, wrappedItem, wrappedItem.isMessageEntity());
+                                    return rs ? Collections.singletonList(wrappedItem) : Collections.emptyList();
                                 } else {
                                     throw new RuntimeException("Unimplemented type: " + event.getClass().getSimpleName());
                                 }
                             case "AVG":
                                 if (wrappedItem.isEvent()) {
-                                    boolean rs = AggregateOps.avg(name, aggregatorField, cacheNumbers, wrappedItem, wrappedItem.isMessageEntity());
-                                    return rs ? Lists.newArrayList(wrappedItem) : Collections.emptyList();
+                                    boolean rs = AggregateOps.avg(name, aggregatorField, aggregateState, wrappedItem, wrappedItem.isMessageEntity());
+                                    return rs ? Collections.singletonList(wrappedItem) : Collections.emptyList();
                                 } else {
                                     throw new RuntimeException("Unimplemented type: " + event.getClass().getSimpleName());
                                 }
                             case "MAX":
                                 if (wrappedItem.isEvent()) {
-                                    boolean rs = AggregateOps.max(aggregatorField, cacheNumbers, cacheList, wrappedItem, wrappedItem.isMessageEntity());
-                                    return rs ? Lists.newArrayList(wrappedItem) : Collections.emptyList();
+                                    boolean rs = AggregateOps.max(aggregatorField, aggregateState, wrappedItem, wrappedItem.isMessageEntity());
+                                    return rs ? Collections.singletonList(wrappedItem) : Collections.emptyList();
                                 } else {
                                     throw new RuntimeException("Unimplemented type: " + event.getClass().getSimpleName());
                                 }
                             case "MIN":
                                 if (wrappedItem.isEvent()) {
-                                    boolean rs = AggregateOps.min(aggregatorField, cacheNumbers, cacheList, wrappedItem, wrappedItem.isMessageEntity());
-                                    return rs ? Lists.newArrayList(wrappedItem) : Collections.emptyList();
+                                    boolean rs = AggregateOps.min(aggregatorField, aggregateState, wrappedItem, wrappedItem.isMessageEntity());
+                                    return rs ? Collections.singletonList(wrappedItem) : Collections.emptyList();
                                 } else {
                                     throw new RuntimeException("Unimplemented type");
                                 }
@@ -919,7 +966,7 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
 
                 WrapItem wrappedItem = (WrapItem) item;
                 if (wrappedItem.getEvent() == null || wrappedItem.getEvent().getSyncStage() != SyncStage.CDC) {
-                    return Lists.newArrayList(item);
+                    return Collections.singletonList(item);
                 }
                 Object event = wrappedItem.getMessage();
                 BigDecimal changedCounter = wrappedItem.getChangedCount();
@@ -929,10 +976,10 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
                 }
                 try {
                     if (event instanceof MessageEntity) {
-                        return Lists.newArrayList(item);
+                        return Collections.singletonList(item);
                     } else if (event instanceof TapRecordEvent) {
                         if (changedCounter.compareTo(BigDecimal.ZERO) != 0) {
-                            return Lists.newArrayList(item);
+                            return Collections.singletonList(item);
                         }
                         TapRecordEvent tapRecordEvent = (TapRecordEvent) event;
                         if (tapRecordEvent instanceof TapInsertRecordEvent) {
@@ -944,7 +991,7 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
                             WrapItem updateWrap = wrappedItem.clone();
                             updateWrap.setMessage(cloneUpdate);
                             updateWrap.setChangedCount(BigDecimal.ZERO);
-                            return Lists.newArrayList(updateWrap);
+                            return Collections.singletonList(updateWrap);
                         } else if (tapRecordEvent instanceof TapDeleteRecordEvent) {
                             return Collections.emptyList();
                         } else {
@@ -1056,9 +1103,9 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
 
         private boolean checkCacheKeyIfExist(final String cacheKey, final String aggregatorOp) throws Exception {
             if ("COUNT".equalsIgnoreCase(aggregatorOp) || "SUM".equalsIgnoreCase(aggregatorOp) || "AVG".equalsIgnoreCase(aggregatorOp)) {
-                return cacheNumbers.exists(cacheKey);
+                return aggregateState.exists(cacheKey);
             } else {
-                return cacheList.exists(cacheKey);
+                return aggregateState.existsList(cacheKey);
             }
         }
 
@@ -1089,9 +1136,9 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
                 return null;
             }
             if ("MAX".equalsIgnoreCase(ops) || "MIN".equalsIgnoreCase(ops)) {
-                return cacheList.find(cacheKey).get(0);
+                return aggregateState.findList(cacheKey).get(0);
             } else {
-                return cacheNumbers.find(cacheKey);
+                return aggregateState.find(cacheKey).toBigDecimal();
             }
         }
     }// end class Aggregator
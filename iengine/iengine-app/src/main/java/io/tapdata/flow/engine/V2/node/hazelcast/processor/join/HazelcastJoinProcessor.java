@@ -6,7 +6,6 @@ import com.tapdata.entity.TapdataEvent;
 import com.tapdata.entity.task.context.ProcessorBaseContext;
 import com.tapdata.tm.commons.dag.Node;
 import com.tapdata.tm.commons.dag.process.JoinProcessorNode;
-import io.tapdata.constructImpl.ConstructIMap;
 import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
 import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
@@ -17,6 +16,7 @@ import io.tapdata.entity.schema.TapTable;
 import io.tapdata.flow.engine.V2.exception.node.NodeException;
 import io.tapdata.flow.engine.V2.node.hazelcast.processor.HazelcastProcessorBaseNode;
 import io.tapdata.flow.engine.V2.util.TapEventUtil;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import io.tapdata.schema.TapTableMap;
 import lombok.SneakyThrows;
 import org.apache.commons.collections.CollectionUtils;
@@ -45,9 +45,14 @@ public class HazelcastJoinProcessor extends HazelcastProcessorBaseNode {
 	private JoinType joinType;
 
 	private final static String IMAP_NAME_DELIMITER = "-";
+	/**
+	 * Where to keep join state: imap(default), or local, a memory mapped file on local disk of this engine
+	 */
+	public final static String JOIN_CACHE_TYPE_PROP = "JOIN_CACHE_TYPE";
+	public final static String JOIN_CACHE_TYPE_LOCAL = "local";
 
-	private ConstructIMap<Map<String, Map<String, Object>>> leftJoinCache;
-	private ConstructIMap<Map<String, Map<String, Object>>> rightJoinCache;
+	private JoinCache leftJoinCache;
+	private JoinCache rightJoinCache;
 
 //  private List<String> keyFields;
 
@@ -117,20 +122,35 @@ public class HazelcastJoinProcessor extends HazelcastProcessorBaseNode {
 		this.leftPrimaryKeys = joinNode.getLeftPrimaryKeys();
 		this.rightPrimaryKeys = joinNode.getRightPrimaryKeys();
 		pkChecker();
-		this.leftJoinCache = new ConstructIMap<>(
-				context.hazelcastInstance(),
-				joinCacheMapName(leftNodeId, "leftJoinCache")
-		);
-		this.rightJoinCache = new ConstructIMap<>(
-				context.hazelcastInstance(),
-				joinCacheMapName(rightNodeId, "rightCache")
-		);
+		closeJoinCache();
+		this.leftJoinCache = createJoinCache(joinCacheMapName(leftNodeId, "leftJoinCache"));
+		this.rightJoinCache = createJoinCache(joinCacheMapName(rightNodeId, "rightCache"));
 		if (!taskHasBeenRun()) {
 			leftJoinCache.clear();
 			rightJoinCache.clear();
 		}
 	}
 
+	private JoinCache createJoinCache(String name) throws Exception {
+		if (JOIN_CACHE_TYPE_LOCAL.equalsIgnoreCase(CommonUtils.getProperty(JOIN_CACHE_TYPE_PROP, "imap"))) {
+			return new LocalJoinCache(name);
+		}
+		return new IMapJoinCache(context.hazelcastInstance(), name);
+	}
+
+	private void closeJoinCache() {
+		for (JoinCache joinCache : Arrays.asList(leftJoinCache, rightJoinCache)) {
+			if (null == joinCache) {
+				continue;
+			}
+			try {
+				joinCache.close();
+			} catch (Exception e) {
+				logger.warn("Close join cache failed: " + e.getMessage(), e);
+			}
+		}
+	}
+
 	@Override
 	protected void updateNodeConfig() {
 		try {
@@ -207,7 +227,11 @@ public class HazelcastJoinProcessor extends HazelcastProcessorBaseNode {
 
 	@Override
 	public void doClose() throws Exception {
-		super.doClose();
+		try {
+			closeJoinCache();
+		} finally {
+			super.doClose();
+		}
 	}
 
 	private void vatidate(Node<?> node) {
@@ -346,41 +370,23 @@ public class HazelcastJoinProcessor extends HazelcastProcessorBaseNode {
 				return null;
 		}
 
-		if (!OperationType.DELETE.getOp().equals(opType) && !leftJoinCache.exists(afterJoinKey)) {
-			Map<String, Map<String, Object>> leftKeyCache = new HashMap<>();
-			leftKeyCache.put(afterLeftKey, afterLeftRow);
-			leftJoinCache.insert(afterJoinKey, leftKeyCache);
+		if (OperationType.DELETE.getOp().equals(opType)) {
+			leftJoinCache.removeRow(beforeJoinKey, beforeLeftKey);
 		} else {
-			String joinKey = afterJoinKey;
-			String key = afterLeftKey;
-			if (OperationType.DELETE.getOp().equals(opType)) {
-				deleteRowFromCache(beforeJoinKey, beforeLeftKey, leftJoinCache);
-			} else {
-				final Map<String, Map<String, Object>> leftKeyCache = leftJoinCache.find(joinKey);
-				if (MapUtils.isNotEmpty(beforeLeftRow) && leftKeyCache.containsKey(key)) {
-					beforeLeftRow = leftKeyCache.get(key);
+			if (MapUtils.isNotEmpty(beforeLeftRow)) {
+				final Map<String, Object> cachedLeftRow = leftJoinCache.findRow(afterJoinKey, afterLeftKey);
+				if (null != cachedLeftRow) {
+					beforeLeftRow = cachedLeftRow;
 					beforeLeftKey = project(beforeLeftRow, leftPrimaryKeys);
 					beforeJoinKey = project(beforeLeftRow, leftJoinKeyFields);
 				}
-				leftKeyCache.put(afterLeftKey, afterLeftRow);
-				leftJoinCache.insert(afterJoinKey, leftKeyCache);
 			}
+			leftJoinCache.putRow(afterJoinKey, afterLeftKey, afterLeftRow);
 		}
 
 		return leftJoinLeftRow(afterJoinKey, afterLeftKey, afterLeftRow, beforeJoinKey, beforeLeftKey, beforeLeftRow, opType);
 	}
 
-	private void deleteRowFromCache(String joinKey, String key, ConstructIMap<Map<String, Map<String, Object>>> joinCache) throws Exception {
-		final Map<String, Map<String, Object>> keyCache = joinCache.find(joinKey);
-		String finalBeforeKey = key;
-		Optional.ofNullable(keyCache).ifPresent(m -> m.remove(finalBeforeKey));
-		if (MapUtils.isEmpty(keyCache)) {
-			joinCache.delete(joinKey);
-		} else {
-			joinCache.update(joinKey, keyCache);
-		}
-	}
-
 	@SneakyThrows
 	private List<JoinResult> leftJoinRightProcess(
 			Map<String, Object> before,
@@ -418,23 +424,18 @@ public class HazelcastJoinProcessor extends HazelcastProcessorBaseNode {
 				return null;
 		}
 
-		if (!OperationType.DELETE.getOp().equals(opType) && !rightJoinCache.exists(afterJoinKey)) {
-			Map<String, Map<String, Object>> rightKeyCache = new HashMap<>();
-			rightKeyCache.put(afterRightKey, afterRightRow);
-			rightJoinCache.insert(afterJoinKey, rightKeyCache);
+		if (OperationType.DELETE.getOp().equals(opType)) {
+			rightJoinCache.removeRow(beforeJoinKey, beforeRightKey);
 		} else {
-			if (OperationType.DELETE.getOp().equals(opType)) {
-				deleteRowFromCache(beforeJoinKey, beforeRightKey, rightJoinCache);
-			} else {
-				final Map<String, Map<String, Object>> rightKeyCache = rightJoinCache.find(afterJoinKey);
-				if (MapUtils.isEmpty(beforeRightRow) && rightKeyCache.containsKey(beforeRightKey)) {
-					beforeRightRow = rightKeyCache.get(beforeRightKey);
+			if (MapUtils.isEmpty(beforeRightRow)) {
+				final Map<String, Object> cachedRightRow = rightJoinCache.findRow(afterJoinKey, beforeRightKey);
+				if (null != cachedRightRow) {
+					beforeRightRow = cachedRightRow;
 					beforeRightKey = project(beforeRightRow, rightPrimaryKeys);
 					beforeJoinKey = project(beforeRightRow, rightJoinKeyFields);
 				}
-				rightKeyCache.put(afterRightKey, afterRightRow);
-				rightJoinCache.insert(afterJoinKey, rightKeyCache);
 			}
+			rightJoinCache.putRow(afterJoinKey, afterRightKey, afterRightRow);
 		}
 
 		return leftJoinRightRow(afterJoinKey, afterRightKey, afterRightRow, beforeJoinKey, beforeRightKey, beforeRightRow, joinOperation, opType);
@@ -518,8 +519,8 @@ public class HazelcastJoinProcessor extends HazelcastProcessorBaseNode {
 		List<JoinResult> joinResults = null;
 		String joinKey = StringUtils.isNotBlank(afterJoinKey) ? afterJoinKey : beforeJoinKey;
 
-		if (leftJoinCache.exists(joinKey)) {
-			final Map<String, Map<String, Object>> leftKeyCache = leftJoinCache.find(joinKey);
+		final Map<String, Map<String, Object>> leftKeyCache = leftJoinCache.find(joinKey);
+		if (MapUtils.isNotEmpty(leftKeyCache)) {
 			joinResults = new ArrayList<>(leftKeyCache.size());
 			for (Map<String, Object> beforeLeftRow : leftKeyCache.values()) {
 
@@ -574,8 +575,7 @@ public class HazelcastJoinProcessor extends HazelcastProcessorBaseNode {
 	) throws Exception {
 		if (OperationType.DELETE.getOp().equals(opType)) {
 
-			final Map<String, Map<String, Object>> rightKeyCache = rightJoinCache.find(joinKey);
-			if (MapUtils.isNotEmpty(rightKeyCache)) {
+			if (rightJoinCache.exists(joinKey)) {
 				return OperationType.DELETE.getOp();
 			} else {
 				return OperationType.UPDATE.getOp();
@@ -0,0 +1,74 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.processor.join;
+
+import com.hazelcast.core.HazelcastInstance;
+import io.tapdata.constructImpl.ConstructIMap;
+import org.apache.commons.collections.MapUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keep each join key group as one entry in hazelcast IMap, every probe deserializes the whole group
+ *
+ * @create 2026-10-18
+ **/
+public class IMapJoinCache implements JoinCache {
+
+	private final ConstructIMap<Map<String, Map<String, Object>>> joinCache;
+
+	public IMapJoinCache(HazelcastInstance hazelcastInstance, String name) {
+		this.joinCache = new ConstructIMap<>(hazelcastInstance, name);
+	}
+
+	@Override
+	public boolean exists(String joinKey) throws Exception {
+		return joinCache.exists(joinKey);
+	}
+
+	@Override
+	public Map<String, Map<String, Object>> find(String joinKey) throws Exception {
+		Map<String, Map<String, Object>> keyCache = joinCache.find(joinKey);
+		return null == keyCache ? new HashMap<>() : keyCache;
+	}
+
+	@Override
+	public Map<String, Object> findRow(String joinKey, String key) throws Exception {
+		if (null == key) {
+			return null;
+		}
+		Map<String, Map<String, Object>> keyCache = joinCache.find(joinKey);
+		return null == keyCache ? null : keyCache.get(key);
+	}
+
+	@Override
+	public void putRow(String joinKey, String key, Map<String, Object> row) throws Exception {
+		Map<String, Map<String, Object>> keyCache = joinCache.find(joinKey);
+		if (null == keyCache) {
+			keyCache = new HashMap<>();
+		}
+		keyCache.put(key, row);
+		joinCache.insert(joinKey, keyCache);
+	}
+
+	@Override
+	public void removeRow(String joinKey, String key) throws Exception {
+		Map<String, Map<String, Object>> keyCache = joinCache.find(joinKey);
+		if (null != keyCache) {
+			keyCache.remove(key);
+		}
+		if (MapUtils.isEmpty(keyCache)) {
+			joinCache.delete(joinKey);
+		} else {
+			joinCache.update(joinKey, keyCache);
+		}
+	}
+
+	@Override
+	public void clear() throws Exception {
+		joinCache.clear();
+	}
+
+	@Override
+	public void close() {
+	}
+}
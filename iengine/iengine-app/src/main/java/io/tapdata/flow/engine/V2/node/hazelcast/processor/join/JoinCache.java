@@ -0,0 +1,36 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.processor.join;
+
+import java.util.Map;
+
+/**
+ * State of one side of the join, rows are grouped by join key and identified by primary key in the group
+ *
+ * @create 2026-10-18
+ **/
+public interface JoinCache {
+
+	boolean exists(String joinKey) throws Exception;
+
+	/**
+	 * @return rows of the join key, primary key -> row, empty if not exists
+	 */
+	Map<String, Map<String, Object>> find(String joinKey) throws Exception;
+
+	/**
+	 * Probe one row, other rows of the join key are not loaded when the implementation supports it
+	 *
+	 * @return null if not exists
+	 */
+	Map<String, Object> findRow(String joinKey, String key) throws Exception;
+
+	void putRow(String joinKey, String key, Map<String, Object> row) throws Exception;
+
+	void removeRow(String joinKey, String key) throws Exception;
+
+	void clear() throws Exception;
+
+	/**
+	 * Release resources, the state is kept for next run
+	 */
+	void close() throws Exception;
+}
@@ -0,0 +1,224 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.processor.join;
+
+import io.tapdata.entity.schema.value.DateTime;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Compact binary encoding of a row: one type byte before each value, field names and strings are length prefixed utf-8.
+ * Types which are not known fall back to java serialization.
+ *
+ * @create 2026-10-18
+ **/
+final class JoinRowCodec {
+
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte INT = 2;
+	private static final byte LONG = 3;
+	private static final byte DOUBLE = 4;
+	private static final byte FLOAT = 5;
+	private static final byte BOOLEAN = 6;
+	private static final byte SHORT = 7;
+	private static final byte BYTE = 8;
+	private static final byte BIG_DECIMAL = 9;
+	private static final byte BIG_INTEGER = 10;
+	private static final byte BYTES = 11;
+	private static final byte DATE = 12;
+	private static final byte DATE_TIME = 13;
+	private static final byte MAP = 14;
+	private static final byte LIST = 15;
+	private static final byte JAVA = 16;
+
+	private JoinRowCodec() {
+	}
+
+	static byte[] encode(Map<String, Object> row) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+		try (DataOutputStream dos = new DataOutputStream(bos)) {
+			writeValue(dos, row);
+		}
+		return bos.toByteArray();
+	}
+
+	static Map<String, Object> decode(byte[] bytes) throws IOException {
+		if (null == bytes) {
+			return null;
+		}
+		try (DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			return (Map<String, Object>) readValue(dis);
+		}
+	}
+
+	private static void writeValue(DataOutputStream dos, Object value) throws IOException {
+		if (null == value) {
+			dos.writeByte(NULL);
+		} else if (value instanceof String) {
+			dos.writeByte(STRING);
+			writeString(dos, (String) value);
+		} else if (value instanceof Integer) {
+			dos.writeByte(INT);
+			dos.writeInt((Integer) value);
+		} else if (value instanceof Long) {
+			dos.writeByte(LONG);
+			dos.writeLong((Long) value);
+		} else if (value instanceof Double) {
+			dos.writeByte(DOUBLE);
+			dos.writeDouble((Double) value);
+		} else if (value instanceof Float) {
+			dos.writeByte(FLOAT);
+			dos.writeFloat((Float) value);
+		} else if (value instanceof Boolean) {
+			dos.writeByte(BOOLEAN);
+			dos.writeBoolean((Boolean) value);
+		} else if (value instanceof Short) {
+			dos.writeByte(SHORT);
+			dos.writeShort((Short) value);
+		} else if (value instanceof Byte) {
+			dos.writeByte(BYTE);
+			dos.writeByte((Byte) value);
+		} else if (value instanceof BigDecimal) {
+			dos.writeByte(BIG_DECIMAL);
+			writeString(dos, value.toString());
+		} else if (value instanceof BigInteger) {
+			dos.writeByte(BIG_INTEGER);
+			writeBytes(dos, ((BigInteger) value).toByteArray());
+		} else if (value instanceof byte[]) {
+			dos.writeByte(BYTES);
+			writeBytes(dos, (byte[]) value);
+		} else if (value.getClass() == Date.class) {
+			dos.writeByte(DATE);
+			dos.writeLong(((Date) value).getTime());
+		} else if (value instanceof DateTime) {
+			DateTime dateTime = (DateTime) value;
+			dos.writeByte(DATE_TIME);
+			dos.writeLong(null == dateTime.getSeconds() ? 0L : dateTime.getSeconds());
+			dos.writeInt(null == dateTime.getNano() ? 0 : dateTime.getNano());
+			writeString(dos, null == dateTime.getTimeZone() ? "" : dateTime.getTimeZone().getID());
+		} else if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			dos.writeByte(MAP);
+			dos.writeInt(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				writeString(dos, String.valueOf(entry.getKey()));
+				writeValue(dos, entry.getValue());
+			}
+		} else if (value instanceof Collection) {
+			Collection<?> collection = (Collection<?>) value;
+			dos.writeByte(LIST);
+			dos.writeInt(collection.size());
+			for (Object element : collection) {
+				writeValue(dos, element);
+			}
+		} else if (value instanceof Serializable) {
+			dos.writeByte(JAVA);
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+				oos.writeObject(value);
+			}
+			writeBytes(dos, bos.toByteArray());
+		} else {
+			throw new IOException("Unsupported join row value type: " + value.getClass().getName());
+		}
+	}
+
+	private static Object readValue(DataInputStream dis) throws IOException {
+		byte type = dis.readByte();
+		switch (type) {
+			case NULL:
+				return null;
+			case STRING:
+				return readString(dis);
+			case INT:
+				return dis.readInt();
+			case LONG:
+				return dis.readLong();
+			case DOUBLE:
+				return dis.readDouble();
+			case FLOAT:
+				return dis.readFloat();
+			case BOOLEAN:
+				return dis.readBoolean();
+			case SHORT:
+				return dis.readShort();
+			case BYTE:
+				return dis.readByte();
+			case BIG_DECIMAL:
+				return new BigDecimal(readString(dis));
+			case BIG_INTEGER:
+				return new BigInteger(readBytes(dis));
+			case BYTES:
+				return readBytes(dis);
+			case DATE:
+				return new Date(dis.readLong());
+			case DATE_TIME:
+				DateTime dateTime = new DateTime();
+				dateTime.setSeconds(dis.readLong());
+				dateTime.setNano(dis.readInt());
+				String timeZone = readString(dis);
+				if (!timeZone.isEmpty()) {
+					dateTime.setTimeZone(TimeZone.getTimeZone(timeZone));
+				}
+				return dateTime;
+			case MAP:
+				int size = dis.readInt();
+				Map<String, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+				for (int i = 0; i < size; i++) {
+					String key = readString(dis);
+					map.put(key, readValue(dis));
+				}
+				return map;
+			case LIST:
+				int length = dis.readInt();
+				List<Object> list = new ArrayList<>(length);
+				for (int i = 0; i < length; i++) {
+					list.add(readValue(dis));
+				}
+				return list;
+			case JAVA:
+				try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(readBytes(dis)))) {
+					return ois.readObject();
+				} catch (ClassNotFoundException e) {
+					throw new IOException("Decode join row value failed: " + e.getMessage(), e);
+				}
+			default:
+				throw new IOException("Unknown join row value type: " + type);
+		}
+	}
+
+	private static void writeString(DataOutputStream dos, String value) throws IOException {
+		writeBytes(dos, value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String readString(DataInputStream dis) throws IOException {
+		return new String(readBytes(dis), StandardCharsets.UTF_8);
+	}
+
+	private static void writeBytes(DataOutputStream dos, byte[] bytes) throws IOException {
+		dos.writeInt(bytes.length);
+		dos.write(bytes);
+	}
+
+	private static byte[] readBytes(DataInputStream dis) throws IOException {
+		byte[] bytes = new byte[dis.readInt()];
+		dis.readFully(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,130 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.processor.join;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mapdb.BTreeMap;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.Serializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keep rows in a memory mapped mapdb file on local disk, rows are encoded by {@link JoinRowCodec}.
+ * <p>
+ * Each row is an entry of a sorted map, the key is join key + {@link #SEPARATOR} + primary key, so rows of one join
+ * key are a continuous range: a probe reads only the rows of that join key, or only one row, never the whole group.
+ * Nothing is kept on heap, hot pages stay in page cache and cold pages are written back to disk by the OS.
+ * <p>
+ * The file is kept when closed, so the state survives a task restart on the same engine.
+ *
+ * @create 2026-10-18
+ **/
+public class LocalJoinCache implements JoinCache {
+
+	private static final Logger logger = LogManager.getLogger(LocalJoinCache.class);
+	private static final char SEPARATOR = '\u0000';
+	private static final char SEPARATOR_NEXT = '\u0001';
+	private static final String DIR_NAME = "join-cache";
+
+	private final String name;
+	private final File file;
+	private DB db;
+	private BTreeMap<String, byte[]> rows;
+
+	public LocalJoinCache(String name) throws IOException {
+		this.name = name;
+		String workDir = System.getenv("TAPDATA_WORK_DIR");
+		if (StringUtils.isBlank(workDir)) {
+			workDir = System.getProperty("user.dir");
+		}
+		Path dir = Paths.get(workDir, DIR_NAME);
+		Files.createDirectories(dir);
+		this.file = dir.resolve(name.replaceAll("[^A-Za-z0-9_.-]", "_") + ".db").toFile();
+		open();
+	}
+
+	private void open() {
+		try {
+			this.db = DBMaker.fileDB(file)
+					.fileMmapEnableIfSupported()
+					.fileMmapPreclearDisable()
+					.cleanerHackEnable()
+					.closeOnJvmShutdown()
+					.make();
+		} catch (Exception e) {
+			throw new RuntimeException("Open local join cache " + file + " failed, it may be broken by an unclean shutdown, reset the task to rebuild it; Error: " + e.getMessage(), e);
+		}
+		this.rows = db.treeMap(name, Serializer.STRING, Serializer.BYTE_ARRAY).createOrOpen();
+		logger.info("Open local join cache " + file + ", rows: " + rows.sizeLong());
+	}
+
+	@Override
+	public boolean exists(String joinKey) {
+		String key = rows.ceilingKey(from(joinKey));
+		return null != key && key.compareTo(to(joinKey)) < 0;
+	}
+
+	@Override
+	public Map<String, Map<String, Object>> find(String joinKey) throws Exception {
+		Map<String, Map<String, Object>> keyCache = new HashMap<>();
+		int prefixLength = from(joinKey).length();
+		for (Map.Entry<String, byte[]> entry : rows.subMap(from(joinKey), true, to(joinKey), false).entrySet()) {
+			keyCache.put(entry.getKey().substring(prefixLength), JoinRowCodec.decode(entry.getValue()));
+		}
+		return keyCache;
+	}
+
+	@Override
+	public Map<String, Object> findRow(String joinKey, String key) throws Exception {
+		if (null == key) {
+			return null;
+		}
+		return JoinRowCodec.decode(rows.get(from(joinKey) + key));
+	}
+
+	@Override
+	public void putRow(String joinKey, String key, Map<String, Object> row) throws Exception {
+		rows.put(from(joinKey) + key, JoinRowCodec.encode(row));
+	}
+
+	@Override
+	public void removeRow(String joinKey, String key) {
+		if (null == key) {
+			return;
+		}
+		rows.remove(from(joinKey) + key);
+	}
+
+	/**
+	 * Drop the file instead of removing entries one by one
+	 */
+	@Override
+	public void clear() throws Exception {
+		close();
+		Files.deleteIfExists(file.toPath());
+		open();
+	}
+
+	@Override
+	public void close() {
+		if (null != db && !db.isClosed()) {
+			db.close();
+		}
+	}
+
+	private static String from(String joinKey) {
+		return joinKey + SEPARATOR;
+	}
+
+	private static String to(String joinKey) {
+		return joinKey + SEPARATOR_NEXT;
+	}
+}
@@ -0,0 +1,396 @@
+package io.tapdata.flow.engine.V2.progress;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.tapdata.constant.ExecutorUtil;
+import com.tapdata.constant.JSONUtil;
+import com.tapdata.entity.SyncStage;
+import com.tapdata.entity.dataflow.SyncProgress;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the sync progress of a target node, in a memory mapped file on local disk.
+ * <p>
+ * A snapshot appends one record per changed progress key instead of uploading the whole map, a shipper thread uploads
+ * the latest value of all keys to TM when something changed since the last upload, so many snapshots in one interval
+ * cost one request. Records are written to the page cache, they survive an engine crash, not a machine crash.
+ * <p>
+ * Record: length(int) | seq(long) | key length(int) | key | value length(int) | value | crc32(int).
+ * Reading stops at the first empty, torn or broken record. When the file is full, the latest values are rewritten to a
+ * new file which replaces the old one.
+ * <p>
+ * Logs of a task run are kept in one directory, named by the task record id which changes when the task is reset, so
+ * records of a run are never applied to another one. {@link #restore(String, String, Map)} lets any node of the task
+ * use the progress not uploaded yet when the run starts again on the same engine.
+ *
+ * @author agent
+ * @Description
+ * @create 2026-10-18
+ **/
+public class SyncProgressCheckpointLog implements Closeable {
+
+	private static final Logger logger = LogManager.getLogger(SyncProgressCheckpointLog.class);
+
+	/**
+	 * Keep sync progress in a local log and upload it in background
+	 */
+	public static final String SYNC_PROGRESS_LOCAL_CHECKPOINT_PROP = "SYNC_PROGRESS_LOCAL_CHECKPOINT";
+	public static final String SYNC_PROGRESS_SHIP_INTERVAL_MS_PROP = "SYNC_PROGRESS_SHIP_INTERVAL_MS";
+	public static final String SYNC_PROGRESS_LOG_SIZE_MB_PROP = "SYNC_PROGRESS_LOG_SIZE_MB";
+	private static final String DIR_NAME = "checkpoint";
+	private static final String SUFFIX = ".log";
+	private static final int HEADER_SIZE = 4 + 8 + 4 + 4;
+	private static final int CRC_SIZE = 4;
+
+	private final File file;
+	private final Consumer<Map<String, String>> uploader;
+	private final Map<String, String> latest = new LinkedHashMap<>();
+	private final ScheduledExecutorService shipper;
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private int mappedSize;
+	private long seq;
+	private long shippedSeq;
+
+	/**
+	 * @param taskId           task of the node
+	 * @param taskRecordId     run of the task, logs of the other runs of the task are deleted
+	 * @param nodeId           target node writing the log
+	 * @param remoteProgress   syncProgress of the task attrs, if empty the run has no progress yet and the records are
+	 *                         dropped, otherwise only the records of keys in it and newer than it are kept
+	 * @param uploader         uploads the latest progress of the keys, same format as the task attrs syncProgress
+	 */
+	public SyncProgressCheckpointLog(String taskId, String taskRecordId, String nodeId, Map<?, ?> remoteProgress, Consumer<Map<String, String>> uploader) throws IOException {
+		Path dir = runDir(taskId, taskRecordId);
+		deleteOtherRuns(dir);
+		Files.createDirectories(dir);
+		this.file = dir.resolve(fileName(nodeId) + SUFFIX).toFile();
+		this.uploader = uploader;
+		if (StringUtils.isBlank(taskRecordId) || null == remoteProgress || remoteProgress.isEmpty()) {
+			Files.deleteIfExists(file.toPath());
+		} else {
+			readRecords(file, latest);
+			latest.entrySet().removeIf(entry -> !advances(entry.getKey(), entry.getValue(), remoteProgress));
+		}
+		this.mappedSize = Math.max(CommonUtils.getPropertyInt(SYNC_PROGRESS_LOG_SIZE_MB_PROP, 4), 1) * 1024 * 1024;
+		rewrite();
+		// records kept from the last run are newer than TM's, upload them
+		this.shippedSeq = latest.isEmpty() ? seq : 0L;
+
+		long interval = Math.max(CommonUtils.getPropertyLong(SYNC_PROGRESS_SHIP_INTERVAL_MS_PROP, 5000L), 100L);
+		this.shipper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "sync-progress-shipper-" + taskId + "-" + nodeId);
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.shipper.scheduleWithFixedDelay(this::shipQuietly, interval, interval, TimeUnit.MILLISECONDS);
+		logger.info("Open sync progress checkpoint log " + file + ", keys: " + latest.size());
+	}
+
+	public static boolean enabled() {
+		return CommonUtils.getPropertyBool(SYNC_PROGRESS_LOCAL_CHECKPOINT_PROP, false);
+	}
+
+	/**
+	 * Append the changed progress, key and value are the json strings uploaded to TM
+	 */
+	public synchronized void append(Map<String, String> changed) throws IOException {
+		if (null == buffer) {
+			throw new IOException("Sync progress checkpoint log " + file + " is closed");
+		}
+		for (Map.Entry<String, String> entry : changed.entrySet()) {
+			byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+			byte[] value = entry.getValue().getBytes(StandardCharsets.UTF_8);
+			int length = HEADER_SIZE + key.length + value.length + CRC_SIZE;
+			latest.put(entry.getKey(), entry.getValue());
+			if (buffer.remaining() < length + 4) {
+				// the new value is already in latest
+				rewrite();
+				continue;
+			}
+			writeRecord(buffer, ++seq, key, value);
+		}
+	}
+
+	/**
+	 * Upload the latest progress if it changed since the last upload
+	 */
+	public void ship() {
+		Map<String, String> snapshot;
+		long snapshotSeq;
+		synchronized (this) {
+			if (seq == shippedSeq || latest.isEmpty()) {
+				return;
+			}
+			snapshot = new HashMap<>(latest);
+			snapshotSeq = seq;
+			buffer.force();
+		}
+		uploader.accept(snapshot);
+		synchronized (this) {
+			shippedSeq = Math.max(shippedSeq, snapshotSeq);
+		}
+	}
+
+	private void shipQuietly() {
+		try {
+			ship();
+		} catch (Throwable e) {
+			logger.warn("Upload sync progress from " + file + " failed, will retry; Error: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Upload what is left and close the file, the file is kept for the next start
+	 */
+	@Override
+	public void close() {
+		ExecutorUtil.shutdown(shipper, 10L, TimeUnit.SECONDS);
+		try {
+			ship();
+		} catch (Throwable e) {
+			logger.warn("Upload sync progress from " + file + " when close failed, it will be restored from local log; Error: " + e.getMessage(), e);
+		}
+		synchronized (this) {
+			try {
+				if (null != buffer) {
+					buffer.force();
+				}
+				if (null != channel) {
+					channel.close();
+				}
+			} catch (IOException e) {
+				logger.warn("Close sync progress checkpoint log " + file + " failed; Error: " + e.getMessage(), e);
+			}
+			buffer = null;
+			channel = null;
+		}
+	}
+
+	/**
+	 * Replace the progress of TM by the one in local logs of the same task run if it is newer, see {@link #isNewer}.
+	 * Only keys TM already has are replaced, local logs are ignored when TM has no progress or the run is unknown.
+	 *
+	 * @param taskRecordId    run of the task, see {@link com.tapdata.tm.commons.task.dto.TaskDto#getTaskRecordId()}
+	 * @param syncProgressMap syncProgress of the task attrs, json key list -> json sync progress
+	 * @return the same map if nothing is newer, otherwise a merged copy
+	 */
+	public static Map<?, ?> restore(String taskId, String taskRecordId, Map<?, ?> syncProgressMap) {
+		if (!enabled() || StringUtils.isBlank(taskRecordId) || null == syncProgressMap || syncProgressMap.isEmpty()) {
+			return syncProgressMap;
+		}
+		Path dir = runDir(taskId, taskRecordId);
+		if (!Files.isDirectory(dir)) {
+			return syncProgressMap;
+		}
+		Map<String, String> local = new LinkedHashMap<>();
+		try (DirectoryStream<Path> logs = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+			for (Path log : logs) {
+				readRecords(log.toFile(), local);
+			}
+		} catch (IOException e) {
+			logger.warn("Read sync progress checkpoint logs in " + dir + " failed, use the progress of TM; Error: " + e.getMessage(), e);
+			return syncProgressMap;
+		}
+		Map<Object, Object> merged = null;
+		for (Map.Entry<String, String> entry : local.entrySet()) {
+			if (!advances(entry.getKey(), entry.getValue(), syncProgressMap)) {
+				continue;
+			}
+			if (null == merged) {
+				merged = new LinkedHashMap<>(syncProgressMap);
+			}
+			merged.put(entry.getKey(), entry.getValue());
+			logger.info("Restore sync progress " + entry.getKey() + " from local checkpoint log, it is newer than TM's");
+		}
+		return null == merged ? syncProgressMap : merged;
+	}
+
+	/**
+	 * A local record only moves forward a key TM already knows, a key TM does not have can be from a node or table
+	 * removed since, it is not brought back
+	 */
+	private static boolean advances(String key, String localJson, Map<?, ?> remoteProgress) {
+		Object remote = remoteProgress.get(key);
+		return remote instanceof String && isNewer(localJson, (String) remote);
+	}
+
+	/**
+	 * Cdc is newer than initial sync, then the later source time, then the larger event serial number
+	 */
+	static boolean isNewer(String localJson, String remoteJson) {
+		SyncProgress local;
+		SyncProgress remote;
+		try {
+			local = JSONUtil.json2POJO(localJson, new TypeReference<SyncProgress>() {
+			});
+			remote = JSONUtil.json2POJO(remoteJson, new TypeReference<SyncProgress>() {
+			});
+		} catch (IOException e) {
+			return false;
+		}
+		int stage = Boolean.compare(SyncStage.CDC.name().equals(local.getSyncStage()), SyncStage.CDC.name().equals(remote.getSyncStage()));
+		if (stage != 0) {
+			return stage > 0;
+		}
+		int sourceTime = Long.compare(Optional.ofNullable(local.getSourceTime()).orElse(0L), Optional.ofNullable(remote.getSourceTime()).orElse(0L));
+		if (sourceTime != 0) {
+			return sourceTime > 0;
+		}
+		return local.compareTo(remote) > 0;
+	}
+
+	/**
+	 * Write the latest values to a new file and map it, the old file is replaced atomically
+	 */
+	private void rewrite() throws IOException {
+		int needed = 4;
+		List<byte[][]> records = new ArrayList<>(latest.size());
+		for (Map.Entry<String, String> entry : latest.entrySet()) {
+			byte[][] record = {entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue().getBytes(StandardCharsets.UTF_8)};
+			records.add(record);
+			needed += HEADER_SIZE + record[0].length + record[1].length + CRC_SIZE;
+		}
+		while (mappedSize < needed * 2) {
+			mappedSize *= 2;
+		}
+		File tmp = new File(file.getPath() + ".tmp");
+		try (FileChannel tmpChannel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer tmpBuffer = tmpChannel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize);
+			for (byte[][] record : records) {
+				writeRecord(tmpBuffer, ++seq, record[0], record[1]);
+			}
+			tmpBuffer.force();
+		}
+		if (null != channel) {
+			channel.close();
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize);
+		int position = needed - 4;
+		buffer.position(position);
+	}
+
+	private static void writeRecord(ByteBuffer buffer, long seq, byte[] key, byte[] value) {
+		int start = buffer.position();
+		int length = HEADER_SIZE + key.length + value.length + CRC_SIZE;
+		buffer.putInt(length);
+		buffer.putLong(seq);
+		buffer.putInt(key.length);
+		buffer.put(key);
+		buffer.putInt(value.length);
+		buffer.put(value);
+		CRC32 crc32 = new CRC32();
+		ByteBuffer body = buffer.duplicate();
+		body.position(start);
+		body.limit(start + length - CRC_SIZE);
+		crc32.update(body);
+		buffer.putInt((int) crc32.getValue());
+	}
+
+	static void readRecords(File file, Map<String, String> result) throws IOException {
+		if (!file.isFile()) {
+			return;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		try {
+			while (buffer.remaining() >= HEADER_SIZE + CRC_SIZE) {
+				int start = buffer.position();
+				int length = buffer.getInt();
+				if (length < HEADER_SIZE + CRC_SIZE || length > buffer.remaining() + 4) {
+					break;
+				}
+				CRC32 crc32 = new CRC32();
+				ByteBuffer body = buffer.duplicate();
+				body.position(start);
+				body.limit(start + length - CRC_SIZE);
+				crc32.update(body);
+				buffer.getLong();
+				byte[] key = readBytes(buffer, start + length);
+				byte[] value = null == key ? null : readBytes(buffer, start + length);
+				if (null == value) {
+					break;
+				}
+				if (buffer.position() != start + length - CRC_SIZE || buffer.getInt() != (int) crc32.getValue()) {
+					break;
+				}
+				result.put(new String(key, StandardCharsets.UTF_8), new String(value, StandardCharsets.UTF_8));
+			}
+		} catch (BufferUnderflowException e) {
+			// torn record of an unclean shutdown, the records before it are kept
+		}
+	}
+
+	/**
+	 * Length prefixed bytes ending before the end of the record, null if the length is broken
+	 */
+	private static byte[] readBytes(ByteBuffer buffer, int recordEnd) {
+		int length = buffer.getInt();
+		if (length < 0 || buffer.position() + length > recordEnd - CRC_SIZE) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Logs of the run dir, a blank task record id gets a dir of its own which is never restored
+	 */
+	static Path runDir(String taskId, String taskRecordId) {
+		String workDir = CommonUtils.getProperty("TAPDATA_WORK_DIR");
+		if (StringUtils.isBlank(workDir)) {
+			workDir = System.getProperty("user.dir");
+		}
+		return Paths.get(workDir, DIR_NAME, fileName(taskId), StringUtils.isBlank(taskRecordId) ? "_" : fileName(taskRecordId));
+	}
+
+	/**
+	 * Delete the logs of the earlier runs of the task, and the logs written before they were kept by run
+	 */
+	private static void deleteOtherRuns(Path runDir) throws IOException {
+		Path taskDir = runDir.getParent();
+		if (!Files.isDirectory(taskDir)) {
+			return;
+		}
+		List<Path> others = new ArrayList<>();
+		try (DirectoryStream<Path> children = Files.newDirectoryStream(taskDir)) {
+			for (Path child : children) {
+				if (!child.equals(runDir)) {
+					others.add(child);
+				}
+			}
+		}
+		for (Path other : others) {
+			try (Stream<Path> paths = Files.walk(other)) {
+				paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+			}
+			logger.info("Delete sync progress checkpoint log of another run " + other);
+		}
+	}
+
+	private static String fileName(String name) {
+		return name.replaceAll("[^A-Za-z0-9_.-]", "_");
+	}
+}
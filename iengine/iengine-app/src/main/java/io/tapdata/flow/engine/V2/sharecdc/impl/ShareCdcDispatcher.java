@@ -0,0 +1,332 @@
+package io.tapdata.flow.engine.V2.sharecdc.impl;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.spi.exception.DistributedObjectDestroyedException;
+import io.tapdata.ConstructIterator;
+import io.tapdata.constructImpl.ConstructRingBuffer;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.flow.engine.V2.sharecdc.impl.ShareCdcBaseReader.ShareCDCReaderEvent;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.Document;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * One dispatcher per log collector construct in this engine.
+ * <p>
+ * It reads every log of the construct once, decodes it once, and routes the decoded event to the bounded queue of
+ * each subscribed task reader whose table list contains the log's table.
+ * A task reader first catches up by reading the construct by itself, and subscribes when its sequence is in the replay
+ * window of the dispatcher (the last logs it dispatched), the logs from its sequence are replayed into its queue.
+ * When the queue of a subscriber is full, the subscriber is detached with the sequence of the first log it missed,
+ * and goes back to read by itself from there, so a slow task never blocks the others.
+ * Every subscriber receives its own copy of the event and decodes its own offset, the decoded event is kept in the
+ * replay window and never handed out.
+ *
+ * @create 2026-10-18
+ **/
+public class ShareCdcDispatcher {
+
+	private static final Logger logger = LogManager.getLogger(ShareCdcDispatcher.class);
+	private static final String LOG_PREFIX = "[Share CDC Dispatcher] - ";
+	private static final String THREAD_NAME_PREFIX = "Share-CDC-Dispatcher-";
+	public static final String ENABLE_PROP = "SHARE_CDC_DISPATCHER_ENABLE";
+	public static final String QUEUE_SIZE_PROP = "SHARE_CDC_DISPATCHER_QUEUE_SIZE";
+	public static final String REPLAY_SIZE_PROP = "SHARE_CDC_DISPATCHER_REPLAY_SIZE";
+	private static final Map<String, ShareCdcDispatcher> DISPATCHERS = new ConcurrentHashMap<>();
+
+	private final String constructName;
+	private final ConstructRingBuffer<Document> hazelcastConstruct;
+	private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+	private final AtomicBoolean running = new AtomicBoolean(true);
+	private final Thread dispatchThread;
+	/**
+	 * Sequence of the next log to dispatch, guarded by this
+	 */
+	private long nextSequence;
+	/**
+	 * The last dispatched logs, the last one is at nextSequence - 1, guarded by this
+	 */
+	private final ArrayDeque<ReplayLog> replayLogs = new ArrayDeque<>();
+	private final int replaySize;
+
+	private ShareCdcDispatcher(HazelcastInstance hazelcastInstance, String constructName, long sequence) {
+		this.constructName = constructName;
+		this.hazelcastConstruct = new ConstructRingBuffer<>(hazelcastInstance, constructName);
+		this.nextSequence = sequence;
+		this.replaySize = Math.max(0, CommonUtils.getPropertyInt(REPLAY_SIZE_PROP, 500));
+		this.dispatchThread = new Thread(this::dispatch, THREAD_NAME_PREFIX + constructName);
+		this.dispatchThread.setDaemon(true);
+	}
+
+	public static boolean isEnable() {
+		return CommonUtils.getPropertyBool(ENABLE_PROP, true);
+	}
+
+	/**
+	 * Subscribe logs of the construct from the given sequence
+	 *
+	 * @param sequence      next sequence the reader would read
+	 * @param decoder       decode a log document, will be called only once for each log
+	 * @param offsetDecoder decode the offset of a log document for this subscriber
+	 * @return null if the sequence is not in the replay window of the dispatcher, the reader should keep reading by
+	 * itself and try again later
+	 */
+	public static synchronized Subscription subscribe(HazelcastInstance hazelcastInstance, String constructName,
+													  Collection<String> tableNames, long sequence,
+													  Function<Document, ShareCDCReaderEvent> decoder,
+													  Function<Document, Object> offsetDecoder) {
+		ShareCdcDispatcher dispatcher = DISPATCHERS.get(constructName);
+		boolean created = false;
+		if (null == dispatcher) {
+			dispatcher = new ShareCdcDispatcher(hazelcastInstance, constructName, sequence);
+			created = true;
+		}
+		Subscription subscription = dispatcher.attach(tableNames, sequence, decoder, offsetDecoder);
+		if (created && null != subscription) {
+			DISPATCHERS.put(constructName, dispatcher);
+			dispatcher.dispatchThread.start();
+			logger.info(LOG_PREFIX + "Started dispatcher of " + constructName + " from sequence " + sequence);
+		}
+		return subscription;
+	}
+
+	public static synchronized void unsubscribe(Subscription subscription) {
+		if (null == subscription) {
+			return;
+		}
+		ShareCdcDispatcher dispatcher = subscription.dispatcher;
+		dispatcher.subscriptions.remove(subscription);
+		subscription.detach(-1L);
+		dispatcher.stopIfIdle();
+	}
+
+	private synchronized Subscription attach(Collection<String> tableNames, long sequence,
+											 Function<Document, ShareCDCReaderEvent> decoder, Function<Document, Object> offsetDecoder) {
+		if (!running.get() || sequence > nextSequence || nextSequence - sequence > replayLogs.size()) {
+			return null;
+		}
+		Subscription subscription = new Subscription(this, tableNames, decoder, offsetDecoder, CommonUtils.getPropertyInt(QUEUE_SIZE_PROP, 1000));
+		// Replay the logs from the sequence of the reader, all of them must fit in the queue
+		for (ReplayLog replayLog : replayLogs) {
+			if (replayLog.sequence < sequence || !subscription.accept(replayLog.document)) {
+				continue;
+			}
+			ShareCDCReaderEvent event = copyFor(subscription, replayLog);
+			if (null != event && !subscription.queue.offer(event)) {
+				return null;
+			}
+		}
+		subscription.nextSequence = nextSequence;
+		subscriptions.add(subscription);
+		return subscription;
+	}
+
+	/**
+	 * Must be called when holding the class lock, so no reader can subscribe a dispatcher which is stopping
+	 */
+	private void stopIfIdle() {
+		if (subscriptions.isEmpty() && running.compareAndSet(true, false)) {
+			DISPATCHERS.remove(constructName, this);
+			logger.info(LOG_PREFIX + "No subscriber, stopped dispatcher of " + constructName);
+		}
+	}
+
+	private void dispatch() {
+		ConstructIterator<Document> iterator;
+		try {
+			Map<String, Object> filter = new HashMap<>();
+			synchronized (this) {
+				filter.put(ConstructRingBuffer.SEQUENCE_KEY, nextSequence);
+			}
+			filter.put(ConstructRingBuffer.BATCH_SIZE_KEY, CommonUtils.getPropertyInt(ShareCdcPDKTaskReader.READ_BATCH_SIZE_PROP, 100));
+			filter.put(ConstructRingBuffer.MAX_WAIT_MS_KEY, CommonUtils.getPropertyInt(ShareCdcPDKTaskReader.READ_MAX_WAIT_MS_PROP, 1000));
+			iterator = hazelcastConstruct.find(filter);
+		} catch (Exception e) {
+			logger.warn(LOG_PREFIX + "Find from " + constructName + " failed, all subscribers will read by themselves; Error: " + e.getMessage(), e);
+			stop();
+			return;
+		}
+		while (running.get()) {
+			Document document;
+			try {
+				document = iterator.next();
+			} catch (DistributedObjectDestroyedException e) {
+				stop();
+				break;
+			} catch (Exception e) {
+				logger.warn(LOG_PREFIX + "Read from " + constructName + " failed, all subscribers will read by themselves; Error: " + e.getMessage(), e);
+				stop();
+				break;
+			}
+			if (subscriptions.isEmpty()) {
+				synchronized (ShareCdcDispatcher.class) {
+					stopIfIdle();
+				}
+			}
+			if (null == document) {
+				continue;
+			}
+			// Without filter, logs are continuous, so sequence of this log is the next sequence minus one
+			long sequence = iterator.getSequence() - 1;
+			try {
+				dispatch(document, sequence);
+			} catch (Exception e) {
+				logger.warn(LOG_PREFIX + "Decode log of " + constructName + " at sequence " + sequence + " failed, all subscribers will read by themselves; Error: " + e.getMessage(), e);
+				stop();
+				break;
+			}
+		}
+	}
+
+	private synchronized void dispatch(Document document, long sequence) {
+		ReplayLog replayLog = new ReplayLog(sequence, document);
+		for (Subscription subscription : subscriptions) {
+			if (!subscription.accept(document)) {
+				subscription.nextSequence = sequence + 1;
+				continue;
+			}
+			ShareCDCReaderEvent event = copyFor(subscription, replayLog);
+			if (null == event || subscription.queue.offer(event)) {
+				subscription.nextSequence = sequence + 1;
+			} else {
+				subscriptions.remove(subscription);
+				subscription.detach(sequence);
+				logger.info(LOG_PREFIX + "Subscriber queue is full, detached it from " + constructName + " at sequence " + sequence + ", it will read by itself");
+			}
+		}
+		nextSequence = sequence + 1;
+		if (replaySize > 0) {
+			replayLogs.addLast(replayLog);
+			while (replayLogs.size() > replaySize) {
+				replayLogs.removeFirst();
+			}
+		}
+	}
+
+	/**
+	 * Decode the log once with the decoder of the first subscriber that wants it, every subscriber gets a copy of the
+	 * decoded event with its own offset, so no two tasks share one tap event or offset
+	 *
+	 * @return null if the log is not a record event
+	 */
+	private static ShareCDCReaderEvent copyFor(Subscription subscription, ReplayLog replayLog) {
+		if (!replayLog.decoded) {
+			replayLog.event = subscription.decoder.apply(replayLog.document);
+			replayLog.decoded = true;
+		}
+		if (null == replayLog.event) {
+			return null;
+		}
+		return new ShareCDCReaderEvent(copyTapEvent(replayLog.event.getTapEvent()), subscription.offsetDecoder.apply(replayLog.document));
+	}
+
+	private void stop() {
+		synchronized (ShareCdcDispatcher.class) {
+			running.set(false);
+			DISPATCHERS.remove(constructName, this);
+			synchronized (this) {
+				// A log may be delivered to part of the subscribers, each continues from its own next sequence
+				for (Subscription subscription : subscriptions) {
+					subscription.detach(subscription.nextSequence);
+				}
+				replayLogs.clear();
+				subscriptions.clear();
+			}
+		}
+	}
+
+	private static TapEvent copyTapEvent(TapEvent tapEvent) {
+		try {
+			TapEvent copy = tapEvent.getClass().newInstance();
+			tapEvent.clone(copy);
+			return copy;
+		} catch (InstantiationException | IllegalAccessException e) {
+			throw new RuntimeException("Copy tap event failed: " + e.getMessage(), e);
+		}
+	}
+
+	private static class ReplayLog {
+		private final long sequence;
+		private final Document document;
+		/**
+		 * Decoded event, only copies of it are handed out
+		 */
+		private ShareCDCReaderEvent event;
+		private boolean decoded;
+
+		private ReplayLog(long sequence, Document document) {
+			this.sequence = sequence;
+			this.document = document;
+		}
+	}
+
+	public static class Subscription {
+		private final ShareCdcDispatcher dispatcher;
+		private final Set<String> tableNames;
+		private final Function<Document, ShareCDCReaderEvent> decoder;
+		private final Function<Document, Object> offsetDecoder;
+		private final LinkedBlockingQueue<ShareCDCReaderEvent> queue;
+		/**
+		 * Sequence of the next log this subscriber has not received, guarded by the dispatcher
+		 */
+		private long nextSequence;
+		/**
+		 * Sequence the subscriber should continue to read from by itself, -1 means still attached
+		 */
+		private volatile long detachedSequence = -1L;
+		private volatile boolean detached;
+
+		private Subscription(ShareCdcDispatcher dispatcher, Collection<String> tableNames,
+							 Function<Document, ShareCDCReaderEvent> decoder, Function<Document, Object> offsetDecoder,
+							 int queueSize) {
+			this.dispatcher = dispatcher;
+			this.tableNames = null == tableNames ? new HashSet<>() : new HashSet<>(tableNames);
+			this.decoder = decoder;
+			this.offsetDecoder = offsetDecoder;
+			this.queue = new LinkedBlockingQueue<>(Math.max(1, queueSize));
+		}
+
+		private boolean accept(Document document) {
+			String tableName = document.getString("fromTable");
+			return StringUtils.isBlank(tableName) || tableNames.contains(tableName);
+		}
+
+		private void detach(long sequence) {
+			if (!detached) {
+				this.detachedSequence = sequence;
+				this.detached = true;
+			}
+		}
+
+		/**
+		 * @return null if timeout; when null is returned and {@link #isDetached()}, no more event will come
+		 */
+		ShareCDCReaderEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+			return queue.poll(timeout, unit);
+		}
+
+		boolean isDetached() {
+			return detached && queue.isEmpty();
+		}
+
+		long getDetachedSequence() {
+			return detachedSequence;
+		}
+	}
+}
@@ -25,6 +25,7 @@ import io.tapdata.flow.engine.V2.sharecdc.ShareCdcTaskContext;
 import io.tapdata.flow.engine.V2.sharecdc.ShareCdcTaskPdkContext;
 import io.tapdata.flow.engine.V2.sharecdc.exception.ShareCdcUnsupportedException;
 import io.tapdata.flow.engine.V2.util.PdkUtil;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.bson.BsonType;
@@ -57,6 +58,9 @@ public class ShareCdcPDKTaskReader extends ShareCdcHZReader implements Serializa
 	private static final String THREAD_NAME_PREFIX = "Share-CDC-Task-Reader-";
 	private static final String LOG_PREFIX = "[Share CDC Task HZ Reader] - ";
 	private static final long WAIT_FOR_AT_LEAST_ONE_LOG_INTERVAL_MS = 3000L;
+	private static final long SUBSCRIBE_INTERVAL_MS = 1000L;
+	public static final String READ_BATCH_SIZE_PROP = "SHARE_CDC_READ_BATCH_SIZE";
+	public static final String READ_MAX_WAIT_MS_PROP = "SHARE_CDC_READ_MAX_WAIT_MS";
 
 	private ExecutorService readThreadPool;
 	private Future<?> readFuture;
@@ -208,28 +212,36 @@ public class ShareCdcPDKTaskReader extends ShareCdcHZReader implements Serializa
 			return;
 		}
 
-		// Find hazelcast construct iterator
-		Map<String, Object> filter = new HashMap<>();
-		filter.put(ConstructRingBuffer.SEQUENCE_KEY, this.headSequence);
-		ConstructIterator<Document> iterator;
-		try {
-			iterator = this.hazelcastConstruct.find(filter);
-			logger.info(logWrapper(++step, "Find by filter: " + filter));
-		} catch (Exception e) {
-			String err = "Find from hazelcast construct " + this.hazelcastConstruct.getClass().getName() + " failed, filter: " + filter + "; Error: " + e.getMessage();
-			handleFailed(err);
-			return;
-		}
+		ConstructIterator<Document> iterator = findIterator(this.headSequence.get());
 		if (iterator == null) {
-			String err = "Find hazelcast construct " + this.hazelcastConstruct.getClass().getName() + " failed, iterator result is null, filter: " + filter;
-			handleFailed(err);
 			return;
 		}
+		logger.info(logWrapper(++step, "Find iterator from sequence: " + this.headSequence.get()));
 		Document document = null;
 		AtomicBoolean firstDocument = new AtomicBoolean(true);
+		boolean dispatcherEnable = ShareCdcDispatcher.isEnable();
+		long nextSubscribeTime = 0L;
 
 		// Loop iterator, produce message entity and put in queue
 		while (running.get()) {
+			// Try to receive logs from the dispatcher which is shared by all tasks of this log collector, it succeeds once
+			// this reader is within the replay window of the dispatcher
+			if (dispatcherEnable && System.currentTimeMillis() >= nextSubscribeTime) {
+				nextSubscribeTime = System.currentTimeMillis() + SUBSCRIBE_INTERVAL_MS;
+				ShareCdcDispatcher.Subscription subscription = ShareCdcDispatcher.subscribe(this.hazelcastInstance,
+						this.hazelcastConstruct.getName(), this.tableNames, iterator.getSequence(), this::tapEventWrapper, this::decodeOffset);
+				if (null != subscription) {
+					long detachedSequence = consume(subscription);
+					if (detachedSequence < 0) {
+						break;
+					}
+					iterator = findIterator(detachedSequence);
+					if (iterator == null) {
+						break;
+					}
+					continue;
+				}
+			}
 			try {
 				document = iterator.next();
 			} catch (DistributedObjectDestroyedException e) {
@@ -256,6 +268,56 @@ public class ShareCdcPDKTaskReader extends ShareCdcHZReader implements Serializa
 		}
 	}
 
+	private ConstructIterator<Document> findIterator(long sequence) {
+		Map<String, Object> filter = new HashMap<>();
+		filter.put(ConstructRingBuffer.SEQUENCE_KEY, sequence);
+		// Read in batch and filter foreign tables on hazelcast member, so only the logs of this task are transferred
+		filter.put(ConstructRingBuffer.BATCH_SIZE_KEY, CommonUtils.getPropertyInt(READ_BATCH_SIZE_PROP, 100));
+		filter.put(ConstructRingBuffer.MAX_WAIT_MS_KEY, CommonUtils.getPropertyInt(READ_MAX_WAIT_MS_PROP, 1000));
+		filter.put(ConstructRingBuffer.FROM_TABLES_KEY, this.tableNames);
+		ConstructIterator<Document> iterator;
+		try {
+			iterator = this.hazelcastConstruct.find(filter);
+		} catch (Exception e) {
+			String err = "Find from hazelcast construct " + this.hazelcastConstruct.getClass().getName() + " failed, filter: " + filter + "; Error: " + e.getMessage();
+			handleFailed(err);
+			return null;
+		}
+		if (iterator == null) {
+			String err = "Find hazelcast construct " + this.hazelcastConstruct.getClass().getName() + " failed, iterator result is null, filter: " + filter;
+			handleFailed(err);
+		}
+		return iterator;
+	}
+
+	/**
+	 * Move logs from the dispatcher to the reader queue, until detached by the dispatcher or this reader stopped
+	 *
+	 * @return sequence to continue to read by self, -1 if this reader stopped
+	 */
+	private long consume(ShareCdcDispatcher.Subscription subscription) {
+		logger.info(logWrapper("Reached replay window of share cdc dispatcher, receive logs from it"));
+		try {
+			while (running.get()) {
+				ShareCDCReaderEvent shareCDCReaderEvent;
+				try {
+					shareCDCReaderEvent = subscription.poll(1L, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					break;
+				}
+				if (null != shareCDCReaderEvent) {
+					enqueue(shareCDCReaderEvent);
+				} else if (subscription.isDetached()) {
+					logger.info(logWrapper("Detached from share cdc dispatcher, will read by self from sequence: " + subscription.getDetachedSequence()));
+					return subscription.getDetachedSequence();
+				}
+			}
+		} finally {
+			ShareCdcDispatcher.unsubscribe(subscription);
+		}
+		return -1L;
+	}
+
 	private ShareCDCReaderEvent tapEventWrapper(Document document) {
 		LogContent logContent = LogContent.valueOf(document);
 		logDocumentVerify(document);
@@ -306,14 +368,20 @@ public class ShareCdcPDKTaskReader extends ShareCdcHZReader implements Serializa
 		}
 		((TapRecordEvent) tapEvent).setReferenceTime(logContent.getTimestamp());
 		((TapRecordEvent) tapEvent).setTableId(logContent.getFromTable());
-		Object offsetObj;
+		return new ShareCDCReaderEvent(tapEvent, decodeOffset(logContent.getOffsetString()));
+	}
+
+	private Object decodeOffset(Document document) {
+		return decodeOffset(document.getString("offsetString"));
+	}
+
+	private Object decodeOffset(String offsetString) {
 		try {
-			offsetObj = PdkUtil.decodeOffset(logContent.getOffsetString(), ((ShareCdcTaskPdkContext) shareCdcContext).getConnectorNode());
+			return PdkUtil.decodeOffset(offsetString, ((ShareCdcTaskPdkContext) shareCdcContext).getConnectorNode());
 		} catch (Throwable e) {
-			String err = "Decode offset string failed: " + logContent.getOffsetString() + "; Error: " + e.getMessage();
+			String err = "Decode offset string failed: " + offsetString + "; Error: " + e.getMessage();
 			throw new RuntimeException(err, e);
 		}
-		return new ShareCDCReaderEvent(tapEvent, offsetObj);
 	}
 
 	private String logWrapper(String message) {
@@ -8,6 +8,7 @@ import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.AbstractProcessor;
 import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.Partitioner;
 import com.hazelcast.jet.core.Vertex;
 import com.tapdata.cache.ICacheService;
 import com.tapdata.cache.hazelcast.HazelcastCacheService;
@@ -44,6 +45,7 @@ import io.tapdata.flow.engine.V2.exception.node.NodeException;
 import io.tapdata.flow.engine.V2.node.hazelcast.HazelcastBaseNode;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.*;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.*;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.selector.TapdataEventPartitionKeyFunction;
 import io.tapdata.flow.engine.V2.node.hazelcast.processor.*;
 import io.tapdata.flow.engine.V2.node.hazelcast.processor.aggregation.HazelcastMultiAggregatorProcessor;
 import io.tapdata.flow.engine.V2.node.hazelcast.processor.join.HazelcastJoinProcessor;
@@ -58,6 +60,7 @@ import io.tapdata.milestone.MilestoneFlowServiceJetV2;
 import io.tapdata.milestone.MilestoneJetEdgeService;
 import io.tapdata.observable.logging.ObsLogger;
 import io.tapdata.observable.logging.ObsLoggerFactory;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import io.tapdata.schema.TapTableMap;
 import io.tapdata.schema.TapTableUtil;
 import lombok.SneakyThrows;
@@ -86,6 +89,20 @@ import static org.springframework.data.mongodb.core.query.Criteria.where;
 public class HazelcastTaskService implements TaskService<TaskDto> {
 
 	private static final Logger logger = LogManager.getLogger(HazelcastTaskService.class);
+	/**
+	 * Local parallelism of the processor nodes which keep no state across records, 1 runs them on one thread
+	 */
+	public static final String PROCESSOR_NODE_PARALLELISM_PROP = "PROCESSOR_NODE_PARALLELISM";
+	private static final EnumSet<NodeTypeEnum> PARALLEL_PROCESSOR_NODE_TYPES = EnumSet.of(
+			NodeTypeEnum.JS_PROCESSOR,
+			NodeTypeEnum.MIGRATE_JS_PROCESSOR,
+			NodeTypeEnum.FIELD_PROCESSOR,
+			NodeTypeEnum.ROW_FILTER_PROCESSOR,
+			NodeTypeEnum.FIELD_RENAME_PROCESSOR,
+			NodeTypeEnum.FIELD_MOD_TYPE_PROCESSOR,
+			NodeTypeEnum.FIELD_CALC_PROCESSOR,
+			NodeTypeEnum.FIELD_ADD_DEL_PROCESSOR
+	);
 
 	private static HazelcastInstance hazelcastInstance;
 	private static HazelcastTaskService taskService;
@@ -192,6 +209,8 @@ public class HazelcastTaskService implements TaskService<TaskDto> {
 		Map<String, AbstractProcessor> hazelcastBaseNodeMap = new HashMap<>();
 		Map<String, AbstractProcessor> typeConvertMap = new HashMap<>();
 		Map<String, Node<?>> nodeMap = nodes.stream().collect(Collectors.toMap(Element::getId, n -> n));
+		Map<String, TapTableMap<String, TapTable>> tapTableMaps = new HashMap<>();
+		int processorParallelism = getProcessorParallelism(taskDto, nodes);
 
 		final ConfigurationCenter config = (ConfigurationCenter) configurationCenter.clone();
 		if (CollectionUtils.isNotEmpty(nodes)) {
@@ -217,6 +236,7 @@ public class HazelcastTaskService implements TaskService<TaskDto> {
 				Connections connection = null;
 				DatabaseTypeEnum.DatabaseType databaseType = null;
 				TapTableMap<String, TapTable> tapTableMap = getTapTableMap(taskDto, tmCurrentTime, node);
+				tapTableMaps.put(node.getId(), tapTableMap);
 				if (CollectionUtils.isEmpty(tapTableMap.keySet())
 						&& !(node instanceof AutoInspectNode)
 						&& !(node instanceof CacheNode)
@@ -282,11 +302,11 @@ public class HazelcastTaskService implements TaskService<TaskDto> {
 				});
 				vertexMap.put(node.getId(), vertex);
 
-				vertex.localParallelism(1);
+				vertex.localParallelism(isParallelProcessor(node) ? processorParallelism : 1);
 				dag.vertex(vertex);
 			}
 
-			handleEdge(dag, edges, nodeMap, vertexMap);
+			handleEdge(dag, edges, nodeMap, vertexMap, tapTableMaps);
 		}
 
 		return new JetDag(dag, hazelcastBaseNodeMap, typeConvertMap);
@@ -623,11 +643,42 @@ public class HazelcastTaskService implements TaskService<TaskDto> {
 		return hazelcastNode;
 	}
 
+	/**
+	 * Events are spread over the processor instances by table and primary key, which is only safe for plain inserts:
+	 * a cdc update can change the key, and ddl must reach every instance before the records behind it. So tasks with
+	 * cdc or with ddl sync enabled run every processor as one instance
+	 */
+	private static int getProcessorParallelism(TaskDto taskDto, List<Node> nodes) {
+		if (StringUtils.equalsAnyIgnoreCase(taskDto.getSyncType(), TaskDto.SYNC_TYPE_DEDUCE_SCHEMA, TaskDto.SYNC_TYPE_TEST_RUN)) {
+			return 1;
+		}
+		if (!TaskDto.TYPE_INITIAL_SYNC.equals(taskDto.getType())) {
+			return 1;
+		}
+		if (null != nodes && nodes.stream().anyMatch(n -> n instanceof DataParentNode && Boolean.TRUE.equals(((DataParentNode<?>) n).getEnableDDL()))) {
+			return 1;
+		}
+		return Math.max(1, CommonUtils.getPropertyInt(PROCESSOR_NODE_PARALLELISM_PROP, 1));
+	}
+
+	/**
+	 * Processor nodes which can run as several instances, events are distributed to them by primary key on the
+	 * inbound edge so the events of a key are still processed in order. Data nodes always run as one instance
+	 */
+	private static boolean isParallelProcessor(Node<?> node) {
+		if (null == node.getType() || CollectionUtils.size(node.predecessors()) != 1) {
+			return false;
+		}
+		NodeTypeEnum nodeTypeEnum = NodeTypeEnum.get(node.getType());
+		return null != nodeTypeEnum && PARALLEL_PROCESSOR_NODE_TYPES.contains(nodeTypeEnum);
+	}
+
 	private void handleEdge(
 			DAG dag,
 			List<Edge> edges,
 			Map<String, Node<?>> nodeMap,
-			Map<String, Vertex> vertexMap
+			Map<String, Vertex> vertexMap,
+			Map<String, TapTableMap<String, TapTable>> tapTableMaps
 	) {
 		if (CollectionUtils.isNotEmpty(edges)) {
 			for (Edge edge : edges) {
@@ -637,11 +688,13 @@ public class HazelcastTaskService implements TaskService<TaskDto> {
 				final Node<?> tgtNode = nodeMap.get(target);
 				List<com.hazelcast.jet.core.Edge> outboundEdges = dag.getOutboundEdges(NodeUtil.getVertexName(srcNode));
 				List<com.hazelcast.jet.core.Edge> inboundEdges = dag.getInboundEdges(NodeUtil.getVertexName(tgtNode));
-				dag.edge(
-						com.hazelcast.jet.core.Edge
-								.from(vertexMap.get(source), outboundEdges.size())
-								.to(vertexMap.get(target), inboundEdges.size())
-				);
+				com.hazelcast.jet.core.Edge jetEdge = com.hazelcast.jet.core.Edge
+						.from(vertexMap.get(source), outboundEdges.size())
+						.to(vertexMap.get(target), inboundEdges.size());
+				if (vertexMap.get(target).getLocalParallelism() > 1) {
+					jetEdge.partitioned(new TapdataEventPartitionKeyFunction(tapTableMaps.get(source)), Partitioner.HASH_CODE);
+				}
+				dag.edge(jetEdge);
 			}
 		}
 	}
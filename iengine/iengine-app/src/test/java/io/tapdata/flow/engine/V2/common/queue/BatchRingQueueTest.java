@@ -0,0 +1,117 @@
+package io.tapdata.flow.engine.V2.common.queue;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class BatchRingQueueTest extends TestCase {
+
+	public void testBatchIsDrainedElementByElement() throws Exception {
+		BatchRingQueue<Integer> queue = new BatchRingQueue<>(2, 4, 100);
+		assertTrue(queue.offer(Arrays.asList(1, 2, 3), 1, TimeUnit.SECONDS));
+		assertTrue(queue.offer(Collections.singletonList(4), 1, TimeUnit.SECONDS));
+		assertEquals(4, queue.size());
+		assertEquals(2, queue.batches());
+
+		assertEquals(Integer.valueOf(1), queue.poll(1, TimeUnit.SECONDS));
+		// the first batch left the ring, its remaining elements are still counted
+		assertEquals(1, queue.batches());
+		assertEquals(3, queue.size());
+		assertEquals(Integer.valueOf(2), queue.poll(1, TimeUnit.SECONDS));
+		assertEquals(Integer.valueOf(3), queue.poll(1, TimeUnit.SECONDS));
+		assertEquals(Integer.valueOf(4), queue.poll(1, TimeUnit.SECONDS));
+		assertTrue(queue.isEmpty());
+		assertEquals(0, queue.batches());
+	}
+
+	public void testEmptyBatchIsIgnored() throws Exception {
+		BatchRingQueue<Integer> queue = new BatchRingQueue<>(1, 1, 10);
+		assertTrue(queue.offer(new ArrayList<>(), 1, TimeUnit.SECONDS));
+		assertTrue(queue.isEmpty());
+		assertEquals(0, queue.batches());
+	}
+
+	public void testPollTimeoutWhenEmpty() throws Exception {
+		BatchRingQueue<Integer> queue = new BatchRingQueue<>(1, 2, 10);
+		long start = System.nanoTime();
+		assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue("returned after " + elapsedMs + "ms", elapsedMs >= 90);
+	}
+
+	public void testOfferTimeoutWhenFull() throws Exception {
+		BatchRingQueue<Integer> queue = new BatchRingQueue<>(1, 1, 10);
+		assertTrue(queue.offer(Arrays.asList(1, 2), 1, TimeUnit.SECONDS));
+		long start = System.nanoTime();
+		assertFalse(queue.offer(Collections.singletonList(3), 100, TimeUnit.MILLISECONDS));
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue("returned after " + elapsedMs + "ms", elapsedMs >= 90);
+		assertEquals(2, queue.size());
+	}
+
+	public void testOfferTimeoutWhenElementsFull() throws Exception {
+		BatchRingQueue<Integer> queue = new BatchRingQueue<>(4, 4, 3);
+		assertTrue(queue.offer(Arrays.asList(1, 2), 1, TimeUnit.SECONDS));
+		assertFalse(queue.offer(Arrays.asList(3, 4), 50, TimeUnit.MILLISECONDS));
+		// a batch larger than max elements is accepted by an empty ring
+		BatchRingQueue<Integer> empty = new BatchRingQueue<>(4, 4, 3);
+		assertTrue(empty.offer(Arrays.asList(1, 2, 3, 4, 5), 50, TimeUnit.MILLISECONDS));
+	}
+
+	public void testWaitingConsumerIsWokenUp() throws Exception {
+		BatchRingQueue<Integer> queue = new BatchRingQueue<>(1, 2, 10);
+		AtomicReference<Integer> polled = new AtomicReference<>();
+		Thread consumer = new Thread(() -> {
+			try {
+				polled.set(queue.poll(10, TimeUnit.SECONDS));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		consumer.start();
+		Thread.sleep(100L);
+		long start = System.nanoTime();
+		assertTrue(queue.offer(Collections.singletonList(1), 1, TimeUnit.SECONDS));
+		consumer.join(5000L);
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertEquals(Integer.valueOf(1), polled.get());
+		assertTrue("woken up after " + elapsedMs + "ms", elapsedMs < 1000);
+	}
+
+	public void testWrapAroundKeepsOrder() throws Exception {
+		final int total = 20000;
+		BatchRingQueue<Integer> queue = new BatchRingQueue<>(1, 4, 16);
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		Thread producer = new Thread(() -> {
+			try {
+				int next = 0;
+				while (next < total) {
+					int size = Math.min(1 + next % 5, total - next);
+					List<Integer> batch = new ArrayList<>(size);
+					for (int i = 0; i < size; i++) {
+						batch.add(next++);
+					}
+					if (!queue.offer(batch, 10, TimeUnit.SECONDS)) {
+						throw new IllegalStateException("offer timeout at " + next);
+					}
+				}
+			} catch (Throwable e) {
+				error.set(e);
+			}
+		});
+		producer.start();
+		for (int expected = 0; expected < total; expected++) {
+			Integer element = queue.poll(10, TimeUnit.SECONDS);
+			assertNotNull("poll timeout at " + expected, element);
+			assertEquals(expected, element.intValue());
+		}
+		producer.join(5000L);
+		assertNull(error.get());
+		assertTrue(queue.isEmpty());
+	}
+}
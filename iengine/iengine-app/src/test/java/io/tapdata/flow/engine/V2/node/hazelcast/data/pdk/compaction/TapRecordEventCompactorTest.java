@@ -0,0 +1,152 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.compaction;
+
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapIndex;
+import io.tapdata.entity.schema.TapIndexField;
+import junit.framework.TestCase;
+
+import java.util.*;
+
+public class TapRecordEventCompactorTest extends TestCase {
+
+	private static final List<String> PRIMARY_KEYS = Collections.singletonList("id");
+
+	private final TapRecordEventCompactor compactor = new TapRecordEventCompactor();
+
+	private static Map<String, Object> row(Object id, Object... fieldValues) {
+		Map<String, Object> row = new LinkedHashMap<>();
+		if (null != id) {
+			row.put("id", id);
+		}
+		for (int i = 0; i < fieldValues.length; i += 2) {
+			row.put((String) fieldValues[i], fieldValues[i + 1]);
+		}
+		return row;
+	}
+
+	private static TapInsertRecordEvent insert(Object id, Object... fieldValues) {
+		return TapInsertRecordEvent.create().table("t").after(row(id, fieldValues));
+	}
+
+	private static TapUpdateRecordEvent update(Map<String, Object> before, Map<String, Object> after) {
+		return TapUpdateRecordEvent.create().table("t").before(before).after(after);
+	}
+
+	private static TapDeleteRecordEvent delete(Object id) {
+		return TapDeleteRecordEvent.create().table("t").before(row(id));
+	}
+
+	private List<TapRecordEvent> compact(TapRecordEvent... events) {
+		return compactor.compact(new ArrayList<>(Arrays.asList(events)), PRIMARY_KEYS);
+	}
+
+	public void testInsertThenUpdatesBecomeOneInsert() {
+		TapInsertRecordEvent insert = insert(1, "name", "a", "age", 1);
+		List<TapRecordEvent> result = compact(
+				insert,
+				update(row(1, "name", "a"), row(1, "name", "b")),
+				update(row(1, "name", "b"), row(1, "age", 2)));
+
+		assertEquals(1, result.size());
+		assertSame(insert, result.get(0));
+		assertEquals(row(1, "name", "b", "age", 2), insert.getAfter());
+	}
+
+	public void testUpdatesKeepTheFirstBefore() {
+		List<TapRecordEvent> result = compact(
+				update(row(1, "name", "a"), row(1, "name", "b")),
+				update(row(1, "name", "b"), row(1, "name", "c", "age", 3)));
+
+		assertEquals(1, result.size());
+		TapUpdateRecordEvent update = (TapUpdateRecordEvent) result.get(0);
+		assertEquals(row(1, "name", "a"), update.getBefore());
+		assertEquals(row(1, "name", "c", "age", 3), update.getAfter());
+	}
+
+	public void testDeleteAfterInsertOrUpdate() {
+		TapDeleteRecordEvent deleteInserted = delete(1);
+		TapDeleteRecordEvent deleteUpdated = delete(2);
+		List<TapRecordEvent> result = compact(
+				insert(1, "name", "a"),
+				update(row(2, "name", "a"), row(2, "name", "b")),
+				deleteInserted,
+				deleteUpdated);
+
+		assertEquals(Arrays.asList(deleteInserted, deleteUpdated), result);
+	}
+
+	public void testInsertAfterDeleteStartsANewEvent() {
+		TapDeleteRecordEvent delete = delete(1);
+		TapInsertRecordEvent reinsert = insert(1, "name", "b");
+		List<TapRecordEvent> result = compact(
+				update(row(1, "name", "a"), row(1, "name", "x")),
+				delete,
+				reinsert,
+				update(row(1, "name", "b"), row(1, "name", "c")));
+
+		assertEquals(Arrays.asList(delete, reinsert), result);
+		assertEquals(row(1, "name", "c"), reinsert.getAfter());
+	}
+
+	public void testKeyChangingUpdateEndsBothKeys() {
+		TapUpdateRecordEvent first = update(row(1, "name", "a"), row(1, "name", "b"));
+		TapUpdateRecordEvent other = update(row(2, "name", "a"), row(2, "name", "b"));
+		TapUpdateRecordEvent changeKey = update(row(1, "name", "b"), row(2, "name", "b"));
+		TapUpdateRecordEvent afterChange1 = update(row(1, "name", "b"), row(1, "name", "c"));
+		TapUpdateRecordEvent afterChange2 = update(row(2, "name", "b"), row(2, "name", "c"));
+		List<TapRecordEvent> result = compact(first, other, changeKey, afterChange1, afterChange2);
+
+		assertEquals(Arrays.asList(first, other, changeKey, afterChange1, afterChange2), result);
+	}
+
+	public void testEventWithoutKeyEndsAllKeys() {
+		TapUpdateRecordEvent first = update(row(1, "name", "a"), row(1, "name", "b"));
+		TapInsertRecordEvent withoutKey = insert(null, "name", "x");
+		TapUpdateRecordEvent second = update(row(1, "name", "b"), row(1, "name", "c"));
+		TapUpdateRecordEvent third = update(row(1, "name", "c"), row(1, "name", "d"));
+		List<TapRecordEvent> result = compact(first, withoutKey, second, third);
+
+		assertEquals(Arrays.asList(first, withoutKey, second), result);
+		assertEquals(row(1, "name", "d"), second.getAfter());
+	}
+
+	public void testFoldedEventTakesThePositionOfTheFirstEventOfItsKey() {
+		// unique secondary index swap: a x -> tmp, b y -> x, a tmp -> y
+		TapUpdateRecordEvent a1 = update(row(1, "email", "x"), row(1, "email", "tmp"));
+		TapUpdateRecordEvent b1 = update(row(2, "email", "y"), row(2, "email", "x"));
+		TapUpdateRecordEvent a2 = update(row(1, "email", "tmp"), row(1, "email", "y"));
+		List<TapRecordEvent> result = compact(a1, b1, a2);
+
+		// the net change of a is written before b1
+		assertEquals(Arrays.asList(a1, b1), result);
+		assertEquals(row(1, "email", "x"), a1.getBefore());
+		assertEquals(row(1, "email", "y"), a1.getAfter());
+	}
+
+	public void testInsertsOnlyAreReturnedAsIs() {
+		List<TapRecordEvent> events = new ArrayList<>(Arrays.asList(insert(1), insert(1), insert(2)));
+		assertSame(events, compactor.compact(events, PRIMARY_KEYS));
+		List<TapRecordEvent> notFolded = new ArrayList<>(Arrays.asList(insert(1), delete(2)));
+		assertSame(notFolded, compactor.compact(notFolded, PRIMARY_KEYS));
+	}
+
+	public void testCompactionRatio() {
+		compact(insert(1), update(row(1), row(1, "name", "a")), update(row(1), row(1, "name", "b")), delete(2));
+		assertEquals(2.0, compactor.getAndResetCompactionRatio());
+		assertNull(compactor.getAndResetCompactionRatio());
+	}
+
+	public void testOtherUniqueIndex() {
+		TapIndex primary = new TapIndex().unique(true).primary(true).indexField(new TapIndexField().name("id"));
+		TapIndex uniqueOnKey = new TapIndex().unique(true).indexField(new TapIndexField().name("id"));
+		TapIndex email = new TapIndex().unique(true).indexField(new TapIndexField().name("email"));
+		TapIndex name = new TapIndex().unique(false).indexField(new TapIndexField().name("name"));
+
+		assertFalse(TapRecordEventCompactor.hasOtherUniqueIndex(null, PRIMARY_KEYS));
+		assertFalse(TapRecordEventCompactor.hasOtherUniqueIndex(Arrays.asList(primary, uniqueOnKey, name), PRIMARY_KEYS));
+		assertTrue(TapRecordEventCompactor.hasOtherUniqueIndex(Arrays.asList(primary, email), PRIMARY_KEYS));
+	}
+}
@@ -0,0 +1,79 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent;
+
+import com.tapdata.entity.TapdataEvent;
+import com.tapdata.tm.commons.task.dto.TaskDto;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.partitioner.KeysPartitioner;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.selector.TapEventPartitionKeySelector;
+import junit.framework.TestCase;
+import org.bson.types.ObjectId;
+
+import java.util.*;
+
+public class PartitionConcurrentProcessorTest extends TestCase {
+
+	private final List<TapdataEvent> written = Collections.synchronizedList(new ArrayList<>());
+
+	private PartitionConcurrentProcessor newProcessor() {
+		TaskDto taskDto = new TaskDto();
+		taskDto.setId(new ObjectId());
+		taskDto.setName("test");
+		PartitionConcurrentProcessor processor = new PartitionConcurrentProcessor(
+				2,
+				10,
+				new KeysPartitioner(),
+				new TapEventPartitionKeySelector(tapEvent -> Collections.singletonList("id")),
+				events -> {
+					// a slow target, so a waiter returning early would see missing events
+					try {
+						Thread.sleep(200L);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					written.addAll(events);
+				},
+				event -> {
+				},
+				(throwable, message) -> fail(message),
+				() -> true,
+				taskDto
+		);
+		processor.start();
+		return processor;
+	}
+
+	private List<TapdataEvent> newInsertEvents(int count) {
+		List<TapdataEvent> events = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Map<String, Object> after = new HashMap<>();
+			after.put("id", i);
+			TapdataEvent tapdataEvent = new TapdataEvent();
+			tapdataEvent.setTapEvent(TapInsertRecordEvent.create().table("t").after(after));
+			events.add(tapdataEvent);
+		}
+		return events;
+	}
+
+	public void testSyncProcessReturnsAfterAllEventsWritten() {
+		PartitionConcurrentProcessor processor = newProcessor();
+		try {
+			List<TapdataEvent> events = newInsertEvents(8);
+			processor.process(events, false);
+
+			assertEquals(events.size(), written.size());
+			assertTrue(written.containsAll(events));
+		} finally {
+			processor.forceStop();
+		}
+	}
+
+	public void testStopReturnsAfterAllEventsWritten() {
+		PartitionConcurrentProcessor processor = newProcessor();
+		List<TapdataEvent> events = newInsertEvents(8);
+		processor.process(events, true);
+		processor.stop();
+
+		assertEquals(events.size(), written.size());
+		assertTrue(written.containsAll(events));
+	}
+}
@@ -0,0 +1,171 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent;
+
+import com.tapdata.entity.TapdataEvent;
+import com.tapdata.tm.commons.task.dto.TaskDto;
+import org.bson.types.ObjectId;
+import junit.framework.TestCase;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+public class TargetWritePipelineTest extends TestCase {
+
+	private final List<TapdataEvent> written = Collections.synchronizedList(new ArrayList<>());
+	private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+	private TargetWritePipeline newPipeline(int inFlightWindow, Consumer<List<TapdataEvent>> batchWriter) {
+		TaskDto taskDto = new TaskDto();
+		taskDto.setId(new ObjectId());
+		taskDto.setName("test");
+		return new TargetWritePipeline(
+				inFlightWindow,
+				batchWriter,
+				(throwable, message) -> errors.add(message),
+				() -> true,
+				taskDto
+		);
+	}
+
+	private static List<TapdataEvent> newBatch(int size) {
+		List<TapdataEvent> batch = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			batch.add(new TapdataEvent());
+		}
+		return batch;
+	}
+
+	public void testBatchesAreWrittenInSubmitOrder() {
+		TargetWritePipeline pipeline = newPipeline(3, batch -> {
+			try {
+				Thread.sleep(5L);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			written.addAll(batch);
+		});
+		try {
+			List<TapdataEvent> expected = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				List<TapdataEvent> batch = newBatch(1 + i % 3);
+				expected.addAll(batch);
+				pipeline.submit(batch);
+			}
+			pipeline.waitingForWriteToCurrent();
+
+			assertEquals(expected, written);
+			assertTrue(pipeline.isWrittenToCurrent());
+			assertTrue(errors.isEmpty());
+		} finally {
+			pipeline.forceStop();
+		}
+	}
+
+	public void testSubmitBlocksWhenWindowIsFull() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		TargetWritePipeline pipeline = newPipeline(2, batch -> {
+			try {
+				release.await(10L, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			written.addAll(batch);
+		});
+		try {
+			pipeline.submit(newBatch(1));
+			pipeline.submit(newBatch(1));
+			assertFalse(pipeline.isWrittenToCurrent());
+
+			AtomicBoolean submitted = new AtomicBoolean();
+			Thread submitter = new Thread(() -> {
+				pipeline.submit(newBatch(1));
+				submitted.set(true);
+			});
+			submitter.start();
+			submitter.join(300L);
+			assertFalse("submit returned with a full window", submitted.get());
+
+			release.countDown();
+			submitter.join(5000L);
+			assertTrue(submitted.get());
+			pipeline.waitingForWriteToCurrent();
+			assertEquals(3, written.size());
+			assertTrue(pipeline.isWrittenToCurrent());
+		} finally {
+			release.countDown();
+			pipeline.forceStop();
+		}
+	}
+
+	public void testFailedBatchIsThrownByNextSubmit() throws Exception {
+		CountDownLatch failed = new CountDownLatch(1);
+		List<TapdataEvent> failedBatch = newBatch(2);
+		TargetWritePipeline pipeline = newPipeline(4, batch -> {
+			if (batch == failedBatch) {
+				failed.countDown();
+				throw new IllegalStateException("write failed");
+			}
+			written.addAll(batch);
+		});
+		try {
+			List<TapdataEvent> first = newBatch(1);
+			pipeline.submit(first);
+			pipeline.submit(failedBatch);
+			assertTrue(failed.await(5L, TimeUnit.SECONDS));
+			pipeline.waitingForWriteToCurrent();
+			fail("error of the failed batch is not thrown");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("write failed"));
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+
+		AtomicReference<RuntimeException> error = new AtomicReference<>();
+		try {
+			pipeline.submit(newBatch(1));
+		} catch (RuntimeException e) {
+			error.set(e);
+		}
+		try {
+			assertNotNull("next submit does not throw the error", error.get());
+			assertTrue(error.get().getCause() instanceof IllegalStateException);
+			try {
+				pipeline.isWrittenToCurrent();
+				fail("error of the failed batch is not thrown");
+			} catch (RuntimeException e) {
+				assertSame(error.get(), e);
+			}
+			assertEquals(1, written.size());
+			assertEquals(1, errors.size());
+		} finally {
+			pipeline.forceStop();
+		}
+	}
+
+	public void testForceStopDropsBatchesNotStarted() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		TargetWritePipeline pipeline = newPipeline(3, batch -> {
+			started.countDown();
+			try {
+				release.await(10L, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			written.addAll(batch);
+		});
+		pipeline.submit(newBatch(1));
+		pipeline.submit(newBatch(1));
+		assertTrue(started.await(5L, TimeUnit.SECONDS));
+		Thread stopper = new Thread(pipeline::forceStop);
+		stopper.start();
+		Thread.sleep(100L);
+		release.countDown();
+		stopper.join(5000L);
+
+		assertEquals(1, written.size());
+		assertTrue(pipeline.isWrittenToCurrent());
+	}
+}
@@ -0,0 +1,204 @@
+package io.tapdata.flow.engine.V2.progress;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+public class SyncProgressCheckpointLogTest extends TestCase {
+
+	private static final String WORK_DIR_PROP = "TAPDATA_WORK_DIR";
+	/**
+	 * length, seq, key length, value length and crc of a record
+	 */
+	private static final int RECORD_OVERHEAD = 4 + 8 + 4 + 4 + 4;
+
+	private final List<Map<String, String>> uploaded = Collections.synchronizedList(new ArrayList<>());
+	private Path workDir;
+
+	@Override
+	protected void setUp() throws Exception {
+		workDir = Files.createTempDirectory("sync-progress-checkpoint");
+		System.setProperty(WORK_DIR_PROP, workDir.toString());
+		System.setProperty(SyncProgressCheckpointLog.SYNC_PROGRESS_LOCAL_CHECKPOINT_PROP, "true");
+		System.setProperty(SyncProgressCheckpointLog.SYNC_PROGRESS_LOG_SIZE_MB_PROP, "1");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		System.clearProperty(WORK_DIR_PROP);
+		System.clearProperty(SyncProgressCheckpointLog.SYNC_PROGRESS_LOCAL_CHECKPOINT_PROP);
+		System.clearProperty(SyncProgressCheckpointLog.SYNC_PROGRESS_LOG_SIZE_MB_PROP);
+		try (Stream<Path> paths = Files.walk(workDir)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	private static String progress(String syncStage, long sourceTime, long eventSerialNo) {
+		return String.format("{\"syncStage\":\"%s\",\"sourceTime\":%s,\"eventSerialNo\":%s}", syncStage, sourceTime, eventSerialNo);
+	}
+
+	private SyncProgressCheckpointLog open(String taskRecordId, Map<?, ?> remoteProgress) throws IOException {
+		return new SyncProgressCheckpointLog("task", taskRecordId, "node", remoteProgress, uploaded::add);
+	}
+
+	private File logFile(String taskRecordId) {
+		return SyncProgressCheckpointLog.runDir("task", taskRecordId).resolve("node.log").toFile();
+	}
+
+	private static Map<String, String> read(File file) throws IOException {
+		Map<String, String> records = new LinkedHashMap<>();
+		SyncProgressCheckpointLog.readRecords(file, records);
+		return records;
+	}
+
+	private static int recordLength(String key, String value) {
+		return RECORD_OVERHEAD + key.getBytes(StandardCharsets.UTF_8).length + value.getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	public void testAppendThenReadRecords() throws Exception {
+		SyncProgressCheckpointLog log = open("run", null);
+		Map<String, String> changed = new LinkedHashMap<>();
+		changed.put("[\"a\"]", progress("CDC", 1L, 1L));
+		changed.put("[\"b\"]", progress("CDC", 1L, 2L));
+		log.append(changed);
+		log.append(Collections.singletonMap("[\"a\"]", progress("CDC", 2L, 3L)));
+		log.close();
+
+		Map<String, String> expected = new LinkedHashMap<>();
+		expected.put("[\"a\"]", progress("CDC", 2L, 3L));
+		expected.put("[\"b\"]", progress("CDC", 1L, 2L));
+		assertEquals(expected, read(logFile("run")));
+		// close uploads the latest value of every key
+		assertEquals(1, uploaded.size());
+		assertEquals(expected, uploaded.get(0));
+	}
+
+	public void testBrokenRecordStopsReading() throws Exception {
+		String a = progress("CDC", 1L, 1L);
+		String b = progress("CDC", 2L, 2L);
+		String c = progress("CDC", 3L, 3L);
+		SyncProgressCheckpointLog log = open("run", null);
+		Map<String, String> changed = new LinkedHashMap<>();
+		changed.put("a", a);
+		changed.put("b", b);
+		changed.put("c", c);
+		log.append(changed);
+		log.close();
+		File file = logFile("run");
+		assertEquals(3, read(file).size());
+
+		// crc mismatch in the value of b, c after it is not read either
+		int valueOfB = recordLength("a", a) + 4 + 8 + 4 + "b".length() + 4;
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			randomAccessFile.seek(valueOfB);
+			byte original = randomAccessFile.readByte();
+			randomAccessFile.seek(valueOfB);
+			randomAccessFile.writeByte(original ^ 0x1);
+			assertEquals(Collections.singletonMap("a", a), read(file));
+
+			randomAccessFile.seek(valueOfB);
+			randomAccessFile.writeByte(original);
+			assertEquals(3, read(file).size());
+
+			// torn record: the file ends inside b
+			randomAccessFile.setLength(recordLength("a", a) + recordLength("b", b) - 1);
+			assertEquals(Collections.singletonMap("a", a), read(file));
+			// the file ends inside the header of b
+			randomAccessFile.setLength(recordLength("a", a) + 6);
+			assertEquals(Collections.singletonMap("a", a), read(file));
+		}
+	}
+
+	public void testRewriteWhenFileIsFull() throws Exception {
+		SyncProgressCheckpointLog log = open("run", null);
+		char[] padding = new char[1000];
+		Arrays.fill(padding, 'x');
+		String last = null;
+		// about 3 times the mapped size
+		for (int i = 0; i < 3000; i++) {
+			last = progress("CDC", i, i) + new String(padding);
+			log.append(Collections.singletonMap("k" + i % 2, last));
+		}
+		log.close();
+
+		File file = logFile("run");
+		assertEquals(1024 * 1024, file.length());
+		Map<String, String> records = read(file);
+		assertEquals(2, records.size());
+		assertEquals(last, records.get("k1"));
+		assertEquals(progress("CDC", 2998, 2998) + new String(padding), records.get("k0"));
+	}
+
+	public void testReopenKeepsRecordsNewerThanTm() throws Exception {
+		SyncProgressCheckpointLog log = open("run", null);
+		Map<String, String> changed = new LinkedHashMap<>();
+		changed.put("a", progress("CDC", 5L, 5L));
+		changed.put("b", progress("CDC", 5L, 5L));
+		changed.put("c", progress("CDC", 1L, 1L));
+		log.append(changed);
+		log.close();
+		uploaded.clear();
+
+		Map<String, Object> remote = new HashMap<>();
+		remote.put("a", progress("CDC", 4L, 4L));
+		remote.put("c", progress("CDC", 2L, 2L));
+		open("run", remote).close();
+
+		// b is unknown to TM, c is older than TM
+		assertEquals(Collections.singletonList(Collections.singletonMap("a", progress("CDC", 5L, 5L))), uploaded);
+		assertEquals(Collections.singletonMap("a", progress("CDC", 5L, 5L)), read(logFile("run")));
+	}
+
+	public void testRestoreOnlyAdvancesKeysTmHas() throws Exception {
+		SyncProgressCheckpointLog log = open("run", null);
+		Map<String, String> changed = new LinkedHashMap<>();
+		changed.put("a", progress("CDC", 5L, 5L));
+		changed.put("b", progress("CDC", 5L, 5L));
+		changed.put("c", progress("CDC", 1L, 1L));
+		log.append(changed);
+		log.close();
+
+		Map<String, Object> remote = new LinkedHashMap<>();
+		remote.put("a", progress("CDC", 4L, 4L));
+		remote.put("c", progress("CDC", 2L, 2L));
+		remote.put("d", progress("CDC", 2L, 2L));
+		Map<?, ?> restored = SyncProgressCheckpointLog.restore("task", "run", remote);
+
+		Map<String, Object> expected = new LinkedHashMap<>(remote);
+		expected.put("a", progress("CDC", 5L, 5L));
+		assertEquals(expected, restored);
+		assertEquals(progress("CDC", 4L, 4L), remote.get("a"));
+
+		// nothing newer, another run, no progress in TM
+		Map<String, Object> newer = Collections.singletonMap("a", progress("CDC", 6L, 6L));
+		assertSame(newer, SyncProgressCheckpointLog.restore("task", "run", newer));
+		assertSame(remote, SyncProgressCheckpointLog.restore("task", "other", remote));
+		Map<String, Object> empty = new HashMap<>();
+		assertSame(empty, SyncProgressCheckpointLog.restore("task", "run", empty));
+
+		System.setProperty(SyncProgressCheckpointLog.SYNC_PROGRESS_LOCAL_CHECKPOINT_PROP, "false");
+		assertSame(remote, SyncProgressCheckpointLog.restore("task", "run", remote));
+	}
+
+	public void testIsNewer() {
+		// cdc is newer than initial sync whatever the source time
+		assertTrue(SyncProgressCheckpointLog.isNewer(progress("CDC", 1L, 1L), progress("INITIAL_SYNC", 9L, 9L)));
+		assertFalse(SyncProgressCheckpointLog.isNewer(progress("INITIAL_SYNC", 9L, 9L), progress("CDC", 1L, 1L)));
+		// then the source time
+		assertTrue(SyncProgressCheckpointLog.isNewer(progress("CDC", 2L, 1L), progress("CDC", 1L, 9L)));
+		assertFalse(SyncProgressCheckpointLog.isNewer(progress("CDC", 1L, 9L), progress("CDC", 2L, 1L)));
+		// then the event serial number
+		assertTrue(SyncProgressCheckpointLog.isNewer(progress("CDC", 1L, 2L), progress("CDC", 1L, 1L)));
+		assertFalse(SyncProgressCheckpointLog.isNewer(progress("CDC", 1L, 1L), progress("CDC", 1L, 1L)));
+		assertFalse(SyncProgressCheckpointLog.isNewer(progress("CDC", 1L, 1L), progress("CDC", 1L, 2L)));
+		// a broken record never replaces TM's progress
+		assertFalse(SyncProgressCheckpointLog.isNewer("{broken", progress("CDC", 1L, 1L)));
+	}
+}
@@ -11,6 +11,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author jackin
@@ -49,6 +50,12 @@ public class TapdataEvent implements Serializable, Cloneable {
 
 	private String fromNodeId;
 
+	/**
+	 * Number of events which hold the same {@link #tapEvent} instance after fan out, null means the tap event is owned by this event.
+	 * Not serialized, an event from another member always owns its tap event
+	 */
+	private transient AtomicInteger tapEventSharers;
+
 	public SyncStage getSyncStage() {
 		return syncStage;
 	}
@@ -162,17 +169,65 @@ public class TapdataEvent implements Serializable, Cloneable {
 		}
 
 		if (tapEvent != null) {
-			try {
-				TapEvent cloneTapEvent = tapEvent.getClass().newInstance();
-				tapEvent.clone(cloneTapEvent);
-				tapdataEvent.setTapEvent(cloneTapEvent);
-			} catch (InstantiationException | IllegalAccessException e) {
-				throw new RuntimeException("Clone tap event failed: " + e.getMessage(), e);
+			if (null != tapEventSharers) {
+				// copy on write, see shareTapEvent
+				tapdataEvent.setTapEvent(tapEvent);
+				tapdataEvent.tapEventSharers = tapEventSharers;
+			} else {
+				tapdataEvent.setTapEvent(cloneTapEvent(tapEvent));
 			}
 		}
 		return tapdataEvent;
 	}
 
+	private static TapEvent cloneTapEvent(TapEvent tapEvent) {
+		try {
+			TapEvent cloneTapEvent = tapEvent.getClass().newInstance();
+			tapEvent.clone(cloneTapEvent);
+			return cloneTapEvent;
+		} catch (InstantiationException | IllegalAccessException e) {
+			throw new RuntimeException("Clone tap event failed: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Prepare to fan out this event to {@code sharers} downstream nodes.
+	 * After calling this, {@link #clone()} shares the tap event instead of deep copying it,
+	 * every receiver must call {@link #ownTapEvent()} before modifying the tap event
+	 */
+	public void shareTapEvent(int sharers) {
+		if (null == tapEvent || sharers <= 1) {
+			return;
+		}
+		if (null == tapEventSharers) {
+			tapEventSharers = new AtomicInteger(sharers);
+		} else {
+			// already shared by upstream, this event is one of the holders
+			tapEventSharers.addAndGet(sharers - 1);
+		}
+	}
+
+	/**
+	 * Make the tap event private to this event, copy it only if it is still shared with other events.
+	 * The last holder takes the shared instance without copying
+	 */
+	public void ownTapEvent() {
+		AtomicInteger sharers = this.tapEventSharers;
+		if (null == sharers) {
+			return;
+		}
+		this.tapEventSharers = null;
+		if (sharers.get() > 1) {
+			// Copy before releasing, other holders can only take the shared instance after this copy completed
+			this.tapEvent = cloneTapEvent(tapEvent);
+			sharers.decrementAndGet();
+		}
+	}
+
+	public boolean isTapEventShared() {
+		return null != tapEventSharers;
+	}
+
 	public String getFromNodeId() {
 		return fromNodeId;
 	}
@@ -0,0 +1,343 @@
+package com.tapdata.processor;
+
+import com.tapdata.constant.CollectionUtil;
+import com.tapdata.constant.MapUtil;
+import com.tapdata.constant.MapUtilV2;
+import com.tapdata.constant.NotExistsNode;
+import com.tapdata.constant.StringUtil;
+import com.tapdata.constant.TapList;
+import com.tapdata.entity.FieldProcess;
+import com.tapdata.entity.dataflow.Capitalized;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.text.ParseException;
+import java.util.*;
+
+/**
+ * Field processes of a table compiled once: operations are parsed, nested paths are split and rename operands are
+ * resolved when the plan is built, so each record only pays for the work on its own values.
+ * <p>
+ * Rename and convert read the values the record had before processing. Instead of deep cloning the whole record,
+ * only the top level fields those operations can reach are cloned.
+ *
+ * @author agent
+ */
+public class FieldProcessPlan {
+
+	private static Logger logger = LogManager.getLogger(FieldProcessPlan.class);
+	private static final NotExistsNode NOT_EXISTS = new NotExistsNode();
+
+	private final List<Step> steps;
+	private final String fieldsNameTransform;
+	/**
+	 * Top level keys of the record which rename/convert may read before processing
+	 */
+	private final Set<String> readOnlyRoots;
+
+	private FieldProcessPlan(List<Step> steps, String fieldsNameTransform, Set<String> readOnlyRoots) {
+		this.steps = steps;
+		this.fieldsNameTransform = fieldsNameTransform;
+		this.readOnlyRoots = readOnlyRoots;
+	}
+
+	public static FieldProcessPlan compile(List<FieldProcess> fieldsProcess) {
+		return compile(fieldsProcess, "");
+	}
+
+	/**
+	 * @param fieldsProcess       field processes in the order they are applied, see {@link FieldProcessUtil#sortFieldProcess}
+	 * @param fieldsNameTransform {@link Capitalized} value applied to all field names, blank means no transform
+	 */
+	public static FieldProcessPlan compile(List<FieldProcess> fieldsProcess, String fieldsNameTransform) {
+		List<Step> steps = new ArrayList<>();
+		if (CollectionUtils.isNotEmpty(fieldsProcess)) {
+			for (FieldProcess process : fieldsProcess) {
+				FieldProcess.FieldOp fieldOp = FieldProcess.FieldOp.fromOperation(process.getOp());
+				if (fieldOp == null) {
+					continue;
+				}
+				if (fieldOp == FieldProcess.FieldOp.OP_RENAME && StringUtils.isBlank(process.getOperand())) {
+					continue;
+				}
+				steps.add(new Step(fieldOp, process));
+			}
+		}
+
+		Set<String> readOnlyRoots = new HashSet<>();
+		for (Step step : steps) {
+			if (StringUtils.isBlank(step.field)) {
+				continue;
+			}
+			if (step.fieldOp == FieldProcess.FieldOp.OP_RENAME) {
+				readOnlyRoots.add(root(step.field));
+			} else if (step.fieldOp == FieldProcess.FieldOp.OP_CONVERT) {
+				// convert reads the field after rename, the first level of the path may be renamed by the fields name
+				// transform or by a rename of that level
+				String root = root(step.field);
+				readOnlyRoots.add(root);
+				if (StringUtils.isNotBlank(fieldsNameTransform)) {
+					readOnlyRoots.add(Capitalized.convert(root, fieldsNameTransform));
+				}
+				String firstLevel = step.prefixes != null ? step.prefixes[0] : step.field;
+				for (Step rename : steps) {
+					if (rename.fieldOp == FieldProcess.FieldOp.OP_RENAME && firstLevel.equals(rename.field)) {
+						readOnlyRoots.add(root(rename.operand));
+					}
+				}
+			}
+		}
+		return new FieldProcessPlan(steps, fieldsNameTransform, readOnlyRoots);
+	}
+
+	public void process(List<Map<String, Object>> records) throws Exception {
+		for (Map<String, Object> record : records) {
+			process(record);
+		}
+	}
+
+	public void process(Map<String, Object> record) throws Exception {
+
+		// 记录字段改名的隐射关系
+		Map<String, String> renameMapping = new HashMap<>();
+
+		// 只clone会被rename/convert读取的字段
+		Map<String, Object> readOnlyRecord = readOnlyRecord(record);
+
+		if (StringUtils.isNotBlank(fieldsNameTransform)) {
+			FieldProcessUtil.fieldsNameTransform(record, fieldsNameTransform, renameMapping);
+		}
+
+		for (Step step : steps) {
+			switch (step.fieldOp) {
+				case OP_CONVERT:
+					convert(record, step, renameMapping, readOnlyRecord);
+					break;
+				case OP_REMOVE:
+					MapUtilV2.removeValueByKey(record, step.field);
+					break;
+				case OP_RENAME:
+					rename(record, step, renameMapping, readOnlyRecord);
+					break;
+				case OP_CREATE:
+					try {
+						addFieldDefaultValue(record, step, renameMapping);
+					} catch (ParseException e) {
+						logger.warn("Add new field failed, err: {}, field name: {}", e.getMessage(), step.field);
+					}
+					break;
+				default:
+					break;
+			}
+		}
+	}
+
+	private Map<String, Object> readOnlyRecord(Map<String, Object> record) throws Exception {
+		Map<String, Object> readOnlyRecord = new HashMap<>();
+		if (readOnlyRoots.isEmpty() || MapUtils.isEmpty(record)) {
+			return readOnlyRecord;
+		}
+		Map<String, Object> readable = new HashMap<>();
+		for (Map.Entry<String, Object> entry : record.entrySet()) {
+			if (entry.getKey() != null && readOnlyRoots.contains(root(entry.getKey()))) {
+				readable.put(entry.getKey(), entry.getValue());
+			}
+		}
+		MapUtilV2.deepCloneMap(readable, readOnlyRecord);
+		return readOnlyRecord;
+	}
+
+	private static void rename(Map<String, Object> record, Step step, Map<String, String> renameMapping, Map<String, Object> readOnlyRecord) throws Exception {
+		Object value = step.valueOf(readOnlyRecord, step.field);
+		if (value instanceof TapList || value instanceof NotExistsNode) {
+			return;
+		}
+
+		if (!renameMapping.containsKey(step.operand)) {
+			MapUtilV2.removeValueByKey(record, step.field);
+		}
+		renameMapping.put(step.field, step.operand);
+		MapUtilV2.putValueInMap(record, step.operand, value);
+	}
+
+	private static void convert(Map<String, Object> record, Step step, Map<String, String> renameMapping, Map<String, Object> readOnlyRecord) throws Exception {
+		if (MapUtils.isEmpty(record)) {
+			return;
+		}
+
+		// 从renameMapping里面，找到改名后的字段
+		// 防止改名后无法获取到值，导致无法正确进行类型转换
+		String field = step.renamed(renameMapping);
+
+		Object value = step.valueOf(readOnlyRecord, field);
+
+		Object afterConvertValue = FieldProcessUtil.convertType(step.operand, step.convertType, step.originalDataType, value);
+
+		if (afterConvertValue == null) {
+			return;
+		}
+
+		MapUtilV2.putValueInMap(record, field, afterConvertValue);
+	}
+
+	private static void addFieldDefaultValue(Map<String, Object> record, Step step, Map<String, String> renameMapping) throws Exception {
+		Object valueByKey = step.valueOf(record, step.field);
+		Object defaultValue = FieldProcessUtil.getDefaultValue(step.javaType);
+		valueByKey = valueByKey != null ? valueByKey : defaultValue;
+		String field = step.renamed(renameMapping);
+		if (valueByKey instanceof TapList && CollectionUtil.isNotEmpty((TapList) valueByKey)) {
+
+			if (MapUtil.needSplit(field)) {
+				int lastIndexOf = field.lastIndexOf(".");
+				if (lastIndexOf > 0) {
+					String parentKey = field.substring(0, lastIndexOf);
+					String addKey = field.substring(lastIndexOf + 1);
+
+					Object parentValue = MapUtilV2.getValueByKey(record, parentKey);
+
+					if (parentValue instanceof TapList) {
+
+						CollectionUtil.putInTapList((TapList) parentValue, addKey, defaultValue);
+						MapUtilV2.putValueInMap(record, parentKey, parentValue);
+					}
+				}
+			}
+
+		} else {
+			MapUtilV2.putValueInMap(record, field, defaultValue);
+		}
+	}
+
+	/**
+	 * Top level key a path is read from, a key containing "." as a whole shares the same root
+	 */
+	private static String root(String key) {
+		int index = key.indexOf('.');
+		return index < 0 ? key : key.substring(0, index);
+	}
+
+	private static class Step {
+		private final FieldProcess.FieldOp fieldOp;
+		private final String field;
+		/**
+		 * Rename: new name with the parent path of field, convert: new data type
+		 */
+		private final String operand;
+		private final String convertType;
+		private final String originalDataType;
+		private final String javaType;
+		/**
+		 * Split levels of a nested field, the path up to each level and the path from each level, null if not nested
+		 */
+		private final String[] keys;
+		private final String[] prefixes;
+		private final String[] suffixes;
+
+		private Step(FieldProcess.FieldOp fieldOp, FieldProcess process) {
+			this.fieldOp = fieldOp;
+			this.field = process.getField();
+			this.originalDataType = process.getOriginalDataType();
+			this.javaType = process.getJavaType();
+
+			String operand = process.getOperand();
+			if (fieldOp == FieldProcess.FieldOp.OP_RENAME && StringUtils.isNotBlank(field)) {
+				int index = field.lastIndexOf(".");
+				if (index > 0) {
+					operand = field.substring(0, index + 1) + operand;
+				}
+			}
+			this.operand = operand;
+			this.convertType = StringUtils.isBlank(operand) ? null : operand.toUpperCase();
+
+			List<String> splitKeys = StringUtils.isNotBlank(field) && MapUtil.needSplit(field) ? StringUtil.splitKey2List(field, "\\.") : null;
+			if (CollectionUtils.isNotEmpty(splitKeys)) {
+				this.keys = splitKeys.toArray(new String[0]);
+				this.prefixes = new String[keys.length];
+				StringBuilder prefix = new StringBuilder();
+				for (int i = 0; i < keys.length; i++) {
+					if (i > 0) {
+						prefix.append(".");
+					}
+					prefixes[i] = prefix.append(keys[i]).toString();
+				}
+				this.suffixes = new String[keys.length];
+				suffixes[0] = field;
+				for (int i = 1; i < keys.length; i++) {
+					suffixes[i] = String.join(".", Arrays.asList(keys).subList(i, keys.length));
+				}
+			} else {
+				this.keys = null;
+				this.prefixes = null;
+				this.suffixes = null;
+			}
+		}
+
+		/**
+		 * Value of the path in the record, same as {@link MapUtilV2#getValueByKeyV2} but the field of the step is not
+		 * split again for each record, other paths (field renamed by an earlier step) are looked up as usual
+		 */
+		private Object valueOf(Map<String, Object> record, String path) {
+			if (keys == null || !field.equals(path)) {
+				return MapUtilV2.getValueByKeyV2(record, path);
+			}
+			Object value = valueOf(record, 0);
+			return value instanceof NotExistsNode ? null : value;
+		}
+
+		private Object valueOf(Map<String, Object> map, int level) {
+			if (MapUtils.isEmpty(map)) {
+				return null;
+			}
+			if (level == keys.length - 1) {
+				return map.getOrDefault(keys[level], NOT_EXISTS);
+			}
+			Object value = map.getOrDefault(keys[level], NOT_EXISTS);
+			if (value == null) {
+				// a key containing "." as a whole
+				return map.getOrDefault(suffixes[level], NOT_EXISTS);
+			}
+			if (value instanceof Map) {
+				value = valueOf((Map<String, Object>) value, level + 1);
+				if (value instanceof NotExistsNode) {
+					value = map.getOrDefault(suffixes[level], NOT_EXISTS);
+				}
+			} else if (value instanceof List) {
+				value = CollectionUtil.getValueByKey((List) value, suffixes[level + 1]);
+			}
+			return value;
+		}
+
+		/**
+		 * Field name after the renames applied so far, each level of a nested field is looked up by its full path
+		 */
+		private String renamed(Map<String, String> renameMapping) {
+			if (StringUtils.isBlank(field) || renameMapping.isEmpty()) {
+				return field;
+			}
+			if (prefixes == null) {
+				return renameMapping.getOrDefault(field, field);
+			}
+
+			StringJoiner newKeys = new StringJoiner(".");
+			for (int i = 0; i < prefixes.length; i++) {
+				if (renameMapping.containsKey(prefixes[i])) {
+					String renamed = renameMapping.get(prefixes[i]);
+					if (MapUtil.needSplit(renamed)) {
+						List<String> splitKeys = StringUtil.splitKey2List(renamed, "\\.");
+						if (CollectionUtils.isNotEmpty(splitKeys)) {
+							newKeys.add(splitKeys.get(i));
+						}
+					} else {
+						newKeys.add(renamed);
+					}
+				} else {
+					newKeys.add(keys[i]);
+				}
+			}
+			return newKeys.toString();
+		}
+	}
+}
@@ -13,15 +13,12 @@ import net.sf.jsqlparser.statement.alter.Alter;
 import net.sf.jsqlparser.statement.alter.AlterExpression;
 import net.sf.jsqlparser.statement.comment.Comment;
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.math.BigDecimal;
-import java.text.ParseException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * @author jackin
@@ -36,67 +33,38 @@ public class FieldProcessUtil {
 		filedProcess(record, fieldsProcess, "");
 	}
 
+	/**
+	 * Compiles the field processes for this record only, callers processing many records with the same field processes
+	 * should keep a {@link FieldProcessPlan} instead
+	 */
 	public static void filedProcess(Map<String, Object> record, List<FieldProcess> fieldsProcess, String fieldsNameTransform) throws Exception {
+		FieldProcessPlan.compile(fieldsProcess, fieldsNameTransform).process(record);
+	}
 
-		// 记录字段改名的隐射关系
-		Map<String, String> renameMapping = new HashMap<>();
-
-		// clone一个record，用于rename
-		Map<String, Object> readOnlyRecord = new HashMap<>();
-		MapUtilV2.deepCloneMap(record, readOnlyRecord);
-
-		if (StringUtils.isNotBlank(fieldsNameTransform)) {
-			Map<String, Object> newRecord = MapUtil.recursiveMap(record, (key, value, parentKey) -> {
-				String allPathKey;
-				String allPathNewKey;
-				String newKey = Capitalized.convert(key, fieldsNameTransform);
-				if (StringUtils.isNotBlank(parentKey)) {
-					allPathKey = parentKey + "." + key;
-					allPathNewKey = Capitalized.convert(parentKey, fieldsNameTransform) + "." + newKey;
-				} else {
-					allPathKey = key;
-					allPathNewKey = newKey;
-				}
-				renameMapping.put(allPathKey, allPathNewKey);
-				return new MapUtil.MapEntry(key.toUpperCase(), value);
-			});
-			record.clear();
-			record.putAll(newRecord);
-		}
-
-		for (FieldProcess process : fieldsProcess) {
-			String field = process.getField();
-			String op = process.getOp();
-			FieldProcess.FieldOp fieldOp = FieldProcess.FieldOp.fromOperation(op);
-			switch (fieldOp) {
-				case OP_CONVERT:
-
-					convertDataTyeProcess(record, process, renameMapping, readOnlyRecord);
-					break;
-
-				case OP_REMOVE:
-
-					MapUtilV2.removeValueByKey(record, field);
-					break;
-
-				case OP_RENAME:
-
-					renameField(record, renameMapping, process, field, readOnlyRecord);
-					break;
-
-				case OP_CREATE:
-
-					try {
-						addFieldDefaultValue(process, field, record, renameMapping);
-					} catch (ParseException e) {
-						logger.warn("Add new field failed, err: {}, field name: {}", e.getMessage(), field);
-					}
-					break;
-
-				default:
-					break;
+	/**
+	 * 字段名大小写转换，并记录改名的映射关系
+	 *
+	 * @param record
+	 * @param fieldsNameTransform
+	 * @param renameMapping
+	 */
+	static void fieldsNameTransform(Map<String, Object> record, String fieldsNameTransform, Map<String, String> renameMapping) {
+		Map<String, Object> newRecord = MapUtil.recursiveMap(record, (key, value, parentKey) -> {
+			String allPathKey;
+			String allPathNewKey;
+			String newKey = Capitalized.convert(key, fieldsNameTransform);
+			if (StringUtils.isNotBlank(parentKey)) {
+				allPathKey = parentKey + "." + key;
+				allPathNewKey = Capitalized.convert(parentKey, fieldsNameTransform) + "." + newKey;
+			} else {
+				allPathKey = key;
+				allPathNewKey = newKey;
 			}
-		}
+			renameMapping.put(allPathKey, allPathNewKey);
+			return new MapUtil.MapEntry(key.toUpperCase(), value);
+		});
+		record.clear();
+		record.putAll(newRecord);
 	}
 
 	public static boolean filedProcess(TableIndex tableIndex, List<FieldProcess> fieldsProcess) throws Exception {
@@ -212,30 +180,6 @@ public class FieldProcessUtil {
 		}
 	}
 
-	private static void renameField(Map<String, Object> record, Map<String, String> renameMapping, FieldProcess process, String field, Map<String, Object> readOnlyRecord) throws Exception {
-		Object value = MapUtilV2.getValueByKeyV2(readOnlyRecord, field);
-		if (value instanceof TapList || value instanceof NotExistsNode) {
-			return;
-		}
-
-		String operand = process.getOperand();
-		if (StringUtils.isBlank(operand)) {
-			return;
-		}
-		if (StringUtils.isNotBlank(field)) {
-			int index = field.lastIndexOf(".");
-			if (index > 0) {
-				operand = field.substring(0, index + 1) + operand;
-			}
-		}
-
-		if (!renameMapping.containsKey(operand)) {
-			MapUtilV2.removeValueByKey(record, field);
-		}
-		renameMapping.put(field, operand);
-		MapUtilV2.putValueInMap(record, operand, value);
-	}
-
 	public static void sortFieldProcess(List<FieldProcess> fieldsProcess) {
 		if (CollectionUtils.isNotEmpty(fieldsProcess)) {
 			Collections.sort(fieldsProcess, (f1, f2) -> {
@@ -267,36 +211,7 @@ public class FieldProcessUtil {
 		}
 	}
 
-	private static void addFieldDefaultValue(FieldProcess fieldProcess, String field, Map<String, Object> record, Map<String, String> renameMapping) throws Exception {
-		String javaType = fieldProcess.getJavaType();
-		Object valueByKey = MapUtilV2.getValueByKeyV2(record, field);
-		Object defaultValue = getDefaultValue(javaType);
-		valueByKey = valueByKey != null ? valueByKey : defaultValue;
-		field = handleRename(field, renameMapping);
-		if (valueByKey instanceof TapList && CollectionUtil.isNotEmpty((TapList) valueByKey)) {
-
-			if (MapUtil.needSplit(field)) {
-				int lastIndexOf = field.lastIndexOf(".");
-				if (lastIndexOf > 0) {
-					String parentKey = field.substring(0, lastIndexOf);
-					String addKey = field.substring(lastIndexOf + 1);
-
-					Object parentValue = MapUtilV2.getValueByKey(record, parentKey);
-
-					if (parentValue instanceof TapList) {
-
-						CollectionUtil.putInTapList((TapList) parentValue, addKey, defaultValue);
-						MapUtilV2.putValueInMap(record, parentKey, parentValue);
-					}
-				}
-			}
-
-		} else {
-			MapUtilV2.putValueInMap(record, field, defaultValue);
-		}
-	}
-
-	private static Object getDefaultValue(String javaType) {
+	static Object getDefaultValue(String javaType) {
 		Object result = null;
 		switch (javaType) {
 			case "Map":
@@ -327,94 +242,26 @@ public class FieldProcessUtil {
 		return result;
 	}
 
-	private static void convertDataTyeProcess(Map<String, Object> record, FieldProcess filedProcess,
-											  Map<String, String> renameMapping, Map<String, Object> readOnlyRecord) throws Exception {
-
-		if (MapUtils.isNotEmpty(record)) {
-			String field = filedProcess.getField();
-
-			// 从renameMapping里面，找到改名后的字段
-			// 防止改名后无法获取到值，导致无法正确进行类型转换
-			field = handleRename(field, renameMapping);
-
-			String newDataType = filedProcess.getOperand();
-			String dataType = filedProcess.getOriginalDataType();
-
-			Object value = MapUtilV2.getValueByKeyV2(readOnlyRecord, field);
-
-			Object afterConvertValue = convertType(newDataType, dataType, value);
-
-			if (afterConvertValue == null) {
-				return;
-			}
-
-			MapUtilV2.putValueInMap(record, field, afterConvertValue);
-		}
-	}
-
 	/**
-	 * 从renameMapping里面，找到改名后的字段
-	 * 防止改名后无法获取到值，导致无法正确进行类型转换
-	 *
-	 * @param field
-	 * @param renameMapping
+	 * @param newDataType 目标类型
+	 * @param convertType 大写的目标类型，编译处理计划时预先转换
+	 * @param dataType    原类型
+	 * @param value
 	 * @return
+	 * @throws Exception
 	 */
-	private static String handleRename(String field, Map<String, String> renameMapping) {
-
-		if (StringUtils.isBlank(field) || MapUtils.isEmpty(renameMapping)) {
-			return field;
-		}
-
-		if (MapUtil.needSplit(field)) {
-
-			List<String> keys = StringUtil.splitKey2List(field, "\\.");
-			List<String> newKeys = new ArrayList<>();
-
-			if (CollectionUtils.isEmpty(keys)) {
-				return field;
-			}
-
-			for (int i = 0; i < keys.size(); i++) {
-				String key = keys.get(i);
-				String keyConcatPreKey = keys.subList(0, i + 1).stream().collect(Collectors.joining("."));
-
-				if (renameMapping.containsKey(keyConcatPreKey)) {
-					keyConcatPreKey = renameMapping.get(keyConcatPreKey);
-					if (MapUtil.needSplit(keyConcatPreKey)) {
-						List<String> splitKeys = StringUtil.splitKey2List(keyConcatPreKey, "\\.");
-						if (CollectionUtils.isNotEmpty(splitKeys)) {
-							newKeys.add(splitKeys.get(i));
-						}
-					} else {
-						newKeys.add(keyConcatPreKey);
-					}
-				} else {
-					newKeys.add(key);
-				}
-			}
-
-			field = newKeys.stream().collect(Collectors.joining("."));
-
-		} else {
-			field = renameMapping.getOrDefault(field, field);
-		}
-
-		return field;
-	}
-
-	private static Object convertType(String newDataType, String dataType, Object value) throws Exception {
+	static Object convertType(String newDataType, String convertType, String dataType, Object value) throws Exception {
 		Object afterConvertValue = null;
 		if (value instanceof TapList) {
 			try {
-				convertTapList((TapList) value, newDataType);
+				convertTapList((TapList) value, newDataType, convertType);
 			} catch (Exception e) {
 				throw new Exception(String.format("Convert embedded list value %s to %s failed: %s, value: %s",
 						e.getMessage(), dataType, newDataType, value), e);
 			}
 		} else {
 			try {
-				afterConvertValue = convert(value, newDataType);
+				afterConvertValue = convert(value, newDataType, convertType);
 			} catch (Exception e) {
 				throw new Exception(String.format("Convert value %s to %s failed: %s, value: %s", dataType, newDataType, e.getMessage(), value), e);
 			}
@@ -422,7 +269,7 @@ public class FieldProcessUtil {
 		return afterConvertValue == null ? value : afterConvertValue;
 	}
 
-	private static void convertTapList(TapList value, String newDataType) {
+	private static void convertTapList(TapList value, String newDataType, String convertType) {
 		if (CollectionUtil.isEmpty(value) || StringUtils.isBlank(newDataType)) {
 			return;
 		}
@@ -430,19 +277,19 @@ public class FieldProcessUtil {
 		for (int i = 0; i < value.size(); i++) {
 			Object tapValue = value.getValue(i);
 			if (tapValue instanceof TapList) {
-				convertTapList((TapList) tapValue, newDataType);
+				convertTapList((TapList) tapValue, newDataType, convertType);
 			} else {
-				tapValue = convert(tapValue, newDataType);
+				tapValue = convert(tapValue, newDataType, convertType);
 				value.setValue(i, tapValue);
 			}
 		}
 	}
 
-	private static Object convert(Object value, String newDataType) {
+	private static Object convert(Object value, String newDataType, String convertType) {
 		if (value == null || StringUtils.isBlank(newDataType)) {
 			return value;
 		}
-		switch (newDataType.toUpperCase()) {
+		switch (convertType) {
 			case "STRING":
 				if (value instanceof Map || value instanceof List) {
 					try {
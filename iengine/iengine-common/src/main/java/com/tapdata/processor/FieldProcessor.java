@@ -32,6 +32,11 @@ public class FieldProcessor implements Processor {
 
 	private Map<String, Stage> stageMap;
 
+	/**
+	 * Field processes of each mapping compiled once, keyed by the fields process list of the mapping
+	 */
+	private final Map<List<FieldProcess>, FieldProcessPlan> fieldProcessPlans = new IdentityHashMap<>();
+
 	static {
 		// number type
 		SUPPORTED_DATA_TYPE.add("INT");
@@ -64,6 +69,7 @@ public class FieldProcessor implements Processor {
 			List<FieldProcess> fieldsProcess = mapping.getFields_process();
 			if (CollectionUtils.isNotEmpty(fieldsProcess)) {
 				Collections.sort(fieldsProcess);
+				fieldProcessPlans.put(fieldsProcess, FieldProcessPlan.compile(fieldsProcess));
 			}
 
 			stageMap = new HashMap<>();
@@ -105,7 +111,12 @@ public class FieldProcessor implements Processor {
 						continue;
 					}
 
-					FieldProcessUtil.filedProcess(record, filedsProcesses);
+					FieldProcessPlan fieldProcessPlan = fieldProcessPlans.get(filedsProcesses);
+					if (fieldProcessPlan != null) {
+						fieldProcessPlan.process(record);
+					} else {
+						FieldProcessUtil.filedProcess(record, filedsProcesses);
+					}
 
 				}
 			}
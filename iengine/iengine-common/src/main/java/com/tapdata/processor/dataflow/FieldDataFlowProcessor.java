@@ -4,6 +4,7 @@ import com.tapdata.constant.*;
 import com.tapdata.entity.*;
 import com.tapdata.entity.dataflow.CloneFieldProcess;
 import com.tapdata.entity.dataflow.Stage;
+import com.tapdata.processor.FieldProcessPlan;
 import com.tapdata.processor.FieldProcessUtil;
 import com.tapdata.processor.ProcessorUtil;
 import com.tapdata.processor.ScriptConnection;
@@ -44,6 +45,8 @@ public class FieldDataFlowProcessor implements DataFlowProcessor {
 
 	private List<FieldProcess> fieldProcesses;
 
+	private FieldProcessPlan fieldProcessPlan;
+
 	private List<FieldScript> fieldScripts;
 
 	private Map<String, Invocable> fieldScriptEngine;
@@ -54,6 +57,8 @@ public class FieldDataFlowProcessor implements DataFlowProcessor {
 
 	private List<CloneFieldProcess> cloneFieldProcesses;
 
+	private Map<String, FieldProcessPlan> cloneFieldProcessPlans;
+
 	private HashSet<String> tableNames;
 
 	private DatabaseTypeEnum targetDatabaseTypeEnum;
@@ -77,6 +82,9 @@ public class FieldDataFlowProcessor implements DataFlowProcessor {
 		if (CollectionUtils.isNotEmpty(fieldProcesses)) {
 			FieldProcessUtil.sortFieldProcess(fieldProcesses);
 		}
+		if (fieldProcesses != null) {
+			this.fieldProcessPlan = FieldProcessPlan.compile(fieldProcesses, fieldsNameTransform);
+		}
 		this.fieldScripts = stage.getScripts();
 
 		if (CollectionUtils.isNotEmpty(fieldScripts)) {
@@ -108,6 +116,7 @@ public class FieldDataFlowProcessor implements DataFlowProcessor {
 
 		processContext = new ConcurrentHashMap<>();
 		tableNames = new HashSet<>();
+		cloneFieldProcessPlans = new ConcurrentHashMap<>();
 	}
 
 	@Override
@@ -135,12 +144,12 @@ public class FieldDataFlowProcessor implements DataFlowProcessor {
 				// so that it cat be get by mapping
 				Map<String, Object> before = message.getBefore();
 				if (before != null) {
-					FieldProcessUtil.filedProcess(before, fieldProcesses, fieldsNameTransform);
+					fieldProcessPlan.process(before);
 					message.setBefore(before);
 				}
 				Map<String, Object> after = message.getAfter();
 				if (after != null) {
-					FieldProcessUtil.filedProcess(after, fieldProcesses, fieldsNameTransform);
+					fieldProcessPlan.process(after);
 					message.setAfter(after);
 				}
 				fieldScript(message, record);
@@ -153,7 +162,8 @@ public class FieldDataFlowProcessor implements DataFlowProcessor {
 					return message;
 				}
 
-				FieldProcessUtil.filedProcess(record, cloneFieldProcess.getOperations());
+				cloneFieldProcessPlans.computeIfAbsent(cloneFieldProcess.getTable_name(),
+						tableName -> FieldProcessPlan.compile(cloneFieldProcess.getOperations())).process(record);
 			} else {
 				return message;
 			}
@@ -16,7 +16,9 @@ import org.springframework.data.mongodb.core.query.Query;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
@@ -38,7 +40,22 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 	public static final String TAP_TABLE_OFF_HEAP_MB_KEY = "TAP_TABLE_OFF_HEAP_MB";
 	public static final String TAP_TABLE_DISK_MB_KEY = "TAP_TABLE_DISK_MB";
 	public static final String TAP_TABLE_PREFIX = "TAP_TABLE_";
+	public static final String TAP_TABLE_SNAPSHOT_ENTRIES_KEY = "TAP_TABLE_SNAPSHOT_ENTRIES";
+	public static final int DEFAULT_SNAPSHOT_ENTRIES = 5000;
 	private Map<K, String> tableNameAndQualifiedNameMap;
+	/**
+	 * On-heap schema snapshot in front of the ehcache store, a cached table is only replaced by put/putNew/remove,
+	 * which are called when a ddl event is applied. Lookups of a cached table never deserialize from ehcache
+	 */
+	private final Map<K, V> snapshot = new ConcurrentHashMap<>();
+	/**
+	 * Bumped on every change, a table loaded before a change is not cached after it
+	 */
+	private final AtomicLong version = new AtomicLong();
+	private int maxSnapshotEntries = DEFAULT_SNAPSHOT_ENTRIES;
+	private final LongAdder snapshotHits = new LongAdder();
+	private final LongAdder snapshotMisses = new LongAdder();
+	private final LongAdder deserializeCount = new LongAdder();
 	private String mapKey;
 	private Lock lock = new ReentrantLock();
 	private String nodeId;
@@ -106,6 +123,7 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 //			throw new RuntimeException("Missing table name and qualified name map");
 //		}
 		this.mapKey = TAP_TABLE_PREFIX + nodeId;
+		this.maxSnapshotEntries = CommonUtils.getPropertyInt(TAP_TABLE_SNAPSHOT_ENTRIES_KEY, DEFAULT_SNAPSHOT_ENTRIES);
 		if (StringUtils.isNotEmpty(prefix)) {
 			this.mapKey = prefix + "_" + this.mapKey;
 		}
@@ -150,6 +168,14 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 
 	@Override
 	public V get(Object key) {
+		if (null != key) {
+			V tapTable = snapshot.get(key);
+			if (null != tapTable) {
+				snapshotHits.increment();
+				return tapTable;
+			}
+		}
+		snapshotMisses.increment();
 		return (V) getTapTable((K) key);
 	}
 
@@ -164,6 +190,7 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 			throw new IllegalArgumentException("Table " + key + " does not exists, cannot put in table map");
 		}
 		EhcacheService.getInstance().getEhcacheKVMap(mapKey).put(key, value);
+		replaceSnapshot(key, value);
 		return value;
 	}
 
@@ -173,6 +200,59 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 		}
 		this.tableNameAndQualifiedNameMap.put(key, qualifiedName);
 		EhcacheService.getInstance().getEhcacheKVMap(mapKey).put(key, value);
+		replaceSnapshot(key, value);
+	}
+
+	/**
+	 * Load the tables into the on-heap snapshot before they are read, e.g. the tables of an initial sync batch
+	 */
+	public void preload(Collection<K> keys) {
+		if (null == keys) {
+			return;
+		}
+		for (K key : keys) {
+			if (null == key || snapshot.containsKey(key) || !containsKey(key)) {
+				continue;
+			}
+			if (snapshot.size() >= maxSnapshotEntries) {
+				break;
+			}
+			getTapTable(key);
+		}
+	}
+
+	/**
+	 * True if every table can be held by the on-heap snapshot, after {@link #preload(Collection)} of all tables,
+	 * a lookup never takes the lock or loads the schema from TM
+	 */
+	public boolean canSnapshotAll() {
+		return size() <= maxSnapshotEntries;
+	}
+
+	public long getSnapshotHits() {
+		return snapshotHits.sum();
+	}
+
+	public long getSnapshotMisses() {
+		return snapshotMisses.sum();
+	}
+
+	public long getDeserializeCount() {
+		return deserializeCount.sum();
+	}
+
+	/**
+	 * Lookup statistics of the on-heap snapshot, for logging
+	 */
+	public String stats() {
+		return "snapshot hits: " + getSnapshotHits()
+				+ ", snapshot misses: " + getSnapshotMisses()
+				+ ", deserialized: " + getDeserializeCount()
+				+ ", snapshot tables: " + snapshot.size() + "/" + maxSnapshotEntries;
+	}
+
+	public long getVersion() {
+		return version.get();
 	}
 
 	@Override
@@ -184,6 +264,10 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 	public V remove(Object key) {
 		this.tableNameAndQualifiedNameMap.remove(key);
 		EhcacheService.getInstance().getEhcacheKVMap(mapKey).remove((String) key);
+		version.incrementAndGet();
+		if (null != key) {
+			snapshot.remove(key);
+		}
 		return null;
 	}
 
@@ -191,6 +275,8 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 	public void clear() {
 		this.tableNameAndQualifiedNameMap.clear();
 		EhcacheService.getInstance().getEhcacheKVMap(this.mapKey).clear();
+		version.incrementAndGet();
+		snapshot.clear();
 	}
 
 	@Override
@@ -276,6 +362,7 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 	}
 
 	private TapTable getTapTable(K key) {
+		long loadVersion = version.get();
 		EhcacheKVMap<TapTable> tapTableMap = EhcacheService.getInstance().getEhcacheKVMap(this.mapKey);
 		AtomicReference<TapTable> tapTable = new AtomicReference<>(tapTableMap.get(key));
 		if (null == tapTable.get()) {
@@ -285,15 +372,43 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 					if (null == tapTable.get()) {
 						tapTable.set(findSchema(key));
 						tapTableMap.put(key, tapTable.get());
+					} else {
+						deserializeCount.increment();
 					}
 				});
 			} catch (Exception e) {
 				throw new RuntimeException("Find schema failed, message: " + e.getMessage(), e);
 			}
+		} else {
+			deserializeCount.increment();
 		}
+		cacheSnapshot(key, (V) tapTable.get(), loadVersion);
 		return tapTable.get();
 	}
 
+	private void cacheSnapshot(K key, V tapTable, long loadVersion) {
+		if (null == key || null == tapTable || snapshot.size() >= maxSnapshotEntries) {
+			return;
+		}
+		snapshot.put(key, tapTable);
+		// changed while loading, the loaded table may be stale
+		if (version.get() != loadVersion) {
+			snapshot.remove(key, tapTable);
+		}
+	}
+
+	private void replaceSnapshot(K key, V tapTable) {
+		version.incrementAndGet();
+		if (null == key) {
+			return;
+		}
+		if (null == tapTable || (!snapshot.containsKey(key) && snapshot.size() >= maxSnapshotEntries)) {
+			snapshot.remove(key);
+		} else {
+			snapshot.put(key, tapTable);
+		}
+	}
+
 	private V findSchema(K k) {
 		String qualifiedName = tableNameAndQualifiedNameMap.get(k);
 		if (StringUtils.isBlank(qualifiedName)) {
@@ -380,5 +495,7 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 			ehcacheService.removeEhcacheKVMap(mapKey);
 		}
 		this.tableNameAndQualifiedNameMap.clear();
+		version.incrementAndGet();
+		snapshot.clear();
 	}
 }
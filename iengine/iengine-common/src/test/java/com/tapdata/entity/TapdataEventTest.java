@@ -0,0 +1,47 @@
+package com.tapdata.entity;
+
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import junit.framework.TestCase;
+
+public class TapdataEventTest extends TestCase {
+
+	private TapdataEvent newInsertEvent() {
+		TapInsertRecordEvent tapInsertRecordEvent = new TapInsertRecordEvent();
+		tapInsertRecordEvent.setTableId("t1");
+		TapdataEvent tapdataEvent = new TapdataEvent();
+		tapdataEvent.setTapEvent(tapInsertRecordEvent);
+		return tapdataEvent;
+	}
+
+	public void testCloneWithoutShareIsDeepCopy() {
+		TapdataEvent tapdataEvent = newInsertEvent();
+		TapdataEvent clone = (TapdataEvent) tapdataEvent.clone();
+
+		assertNotSame(tapdataEvent.getTapEvent(), clone.getTapEvent());
+		assertFalse(clone.isTapEventShared());
+	}
+
+	public void testShareThenOwn() {
+		TapdataEvent tapdataEvent = newInsertEvent();
+		tapdataEvent.shareTapEvent(3);
+		TapdataEvent clone1 = (TapdataEvent) tapdataEvent.clone();
+		TapdataEvent clone2 = (TapdataEvent) tapdataEvent.clone();
+
+		assertSame(tapdataEvent.getTapEvent(), clone1.getTapEvent());
+		assertSame(tapdataEvent.getTapEvent(), clone2.getTapEvent());
+
+		// first two holders copy
+		clone1.ownTapEvent();
+		assertNotSame(tapdataEvent.getTapEvent(), clone1.getTapEvent());
+		assertFalse(clone1.isTapEventShared());
+		clone2.ownTapEvent();
+		assertNotSame(tapdataEvent.getTapEvent(), clone2.getTapEvent());
+
+		// last holder takes the shared instance
+		Object shared = tapdataEvent.getTapEvent();
+		tapdataEvent.ownTapEvent();
+		assertSame(shared, tapdataEvent.getTapEvent());
+		assertFalse(tapdataEvent.isTapEventShared());
+		assertEquals("t1", ((TapInsertRecordEvent) clone1.getTapEvent()).getTableId());
+	}
+}
@@ -0,0 +1,114 @@
+package com.tapdata.processor;
+
+import com.tapdata.constant.MapUtilV2;
+import com.tapdata.entity.FieldProcess;
+import junit.framework.TestCase;
+
+import java.util.*;
+
+public class FieldProcessPlanTest extends TestCase {
+
+	private FieldProcess fieldProcess(String op, String field, String operand) {
+		FieldProcess fieldProcess = new FieldProcess();
+		fieldProcess.setOp(op);
+		fieldProcess.setField(field);
+		fieldProcess.setOperand(operand);
+		return fieldProcess;
+	}
+
+	private Map<String, Object> newRecord() {
+		Map<String, Object> address = new HashMap<>();
+		address.put("city", "sz");
+		address.put("zip", "518000");
+		Map<String, Object> record = new HashMap<>();
+		record.put("id", 1);
+		record.put("name", "tapdata");
+		record.put("age", "18");
+		record.put("address", address);
+		record.put("tags", new ArrayList<>(Arrays.asList("a", "b")));
+		return record;
+	}
+
+	public void testRenameRemoveConvertCreate() throws Exception {
+		List<FieldProcess> fieldProcesses = new ArrayList<>();
+		fieldProcesses.add(fieldProcess("CREATE", "score", null));
+		fieldProcesses.get(0).setJavaType("Integer");
+		fieldProcesses.add(fieldProcess("CONVERT", "age", "Integer"));
+		fieldProcesses.add(fieldProcess("REMOVE", "tags", null));
+		fieldProcesses.add(fieldProcess("RENAME", "name", "title"));
+		fieldProcesses.add(fieldProcess("RENAME", "address.city", "town"));
+		FieldProcessUtil.sortFieldProcess(fieldProcesses);
+		FieldProcessPlan plan = FieldProcessPlan.compile(fieldProcesses);
+
+		List<Map<String, Object>> records = Arrays.asList(newRecord(), newRecord());
+		plan.process(records);
+
+		for (Map<String, Object> record : records) {
+			assertFalse(record.containsKey("name"));
+			assertFalse(record.containsKey("tags"));
+			assertEquals("tapdata", record.get("title"));
+			assertEquals(18, record.get("age"));
+			assertEquals(0, record.get("score"));
+			assertEquals("sz", MapUtilV2.getValueByKeyV2(record, "address.town"));
+			Map<?, ?> address = (Map<?, ?>) record.get("address");
+			assertFalse(address.containsKey("city"));
+			assertEquals("518000", address.get("zip"));
+		}
+	}
+
+	public void testRenameObjectAndConvert() throws Exception {
+		List<FieldProcess> fieldProcesses = new ArrayList<>();
+		fieldProcesses.add(fieldProcess("RENAME", "address", "location"));
+		fieldProcesses.add(fieldProcess("CONVERT", "id", "String"));
+		FieldProcessUtil.sortFieldProcess(fieldProcesses);
+
+		Map<String, Object> record = newRecord();
+		FieldProcessPlan.compile(fieldProcesses).process(record);
+
+		assertFalse(record.containsKey("address"));
+		assertEquals("1", record.get("id"));
+		assertEquals("tapdata", record.get("name"));
+		assertEquals("18", record.get("age"));
+		assertEquals(Arrays.asList("a", "b"), record.get("tags"));
+		Map<?, ?> location = (Map<?, ?>) record.get("location");
+		assertEquals("sz", location.get("city"));
+		assertEquals("518000", location.get("zip"));
+		assertEquals(2, location.size());
+		assertEquals(5, record.size());
+	}
+
+	public void testUntouchedFieldsAreNotCloned() throws Exception {
+		List<FieldProcess> fieldProcesses = new ArrayList<>();
+		fieldProcesses.add(fieldProcess("RENAME", "name", "title"));
+		FieldProcessPlan plan = FieldProcessPlan.compile(fieldProcesses);
+
+		Map<String, Object> record = newRecord();
+		Object address = record.get("address");
+		Object tags = record.get("tags");
+		plan.process(record);
+
+		assertSame(address, record.get("address"));
+		assertSame(tags, record.get("tags"));
+		assertEquals("tapdata", record.get("title"));
+	}
+
+	public void testNestedValuesUsePrecomputedPath() throws Exception {
+		List<FieldProcess> fieldProcesses = new ArrayList<>();
+		fieldProcesses.add(fieldProcess("CONVERT", "address.zip", "Integer"));
+		fieldProcesses.add(fieldProcess("CONVERT", "info.level", "Integer"));
+		fieldProcesses.add(fieldProcess("RENAME", "address.city", "town"));
+		FieldProcessUtil.sortFieldProcess(fieldProcesses);
+		FieldProcessPlan plan = FieldProcessPlan.compile(fieldProcesses);
+
+		for (int i = 0; i < 2; i++) {
+			Map<String, Object> record = newRecord();
+			// a key containing "." as a whole is found when the nested path is missing
+			record.put("info.level", "3");
+			plan.process(record);
+
+			assertEquals(518000, MapUtilV2.getValueByKeyV2(record, "address.zip"));
+			assertEquals("sz", MapUtilV2.getValueByKeyV2(record, "address.town"));
+			assertEquals(3, MapUtilV2.getValueByKeyV2(record, "info.level"));
+		}
+	}
+}
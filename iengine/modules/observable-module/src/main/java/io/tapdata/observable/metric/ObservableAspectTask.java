@@ -16,6 +16,7 @@ import io.tapdata.observable.metric.handler.ProcessorNodeSampleHandler;
 import io.tapdata.observable.metric.handler.TaskSampleHandler;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @AspectTaskSession(includeTypes = {TaskDto.SYNC_TYPE_MIGRATE, TaskDto.SYNC_TYPE_SYNC})
 public class ObservableAspectTask extends AspectTask {
@@ -37,6 +38,7 @@ public class ObservableAspectTask extends AspectTask {
 		observerClassHandlers.register(StreamReadFuncAspect.class, this::handleStreamReadFunc);
 		observerClassHandlers.register(SourceStateAspect.class, this::handleSourceState);
 		observerClassHandlers.register(SourceDynamicTableAspect.class, this::handleSourceDynamicTable);
+		observerClassHandlers.register(SourceEventQueueAspect.class, this::handleSourceEventQueue);
 		// target data node aspects
 		observerClassHandlers.register(WriteRecordFuncAspect.class, this::handleWriteRecordFunc);
 		observerClassHandlers.register(NewFieldFuncAspect.class, this::handleNewFieldFun);
@@ -45,11 +47,15 @@ public class ObservableAspectTask extends AspectTask {
 		observerClassHandlers.register(DropFieldFuncAspect.class, this::handleDropFieldFunc);
 		observerClassHandlers.register(CreateTableFuncAspect.class, this::handleCreateTableFunc);
 		observerClassHandlers.register(DropTableFuncAspect.class, this::handleDropTableFunc);
+		observerClassHandlers.register(TargetConcurrentWriteAspect.class, this::handleTargetConcurrentWrite);
+		observerClassHandlers.register(TargetEventCompactionAspect.class, this::handleTargetEventCompaction);
 
 		// processor node aspects
 		observerClassHandlers.register(ProcessorNodeInitAspect.class, this::handleProcessorNodeInit);
 		observerClassHandlers.register(ProcessorNodeCloseAspect.class, this::handleProcessorNodeClose);
 		observerClassHandlers.register(ProcessorNodeProcessAspect.class, this::handleProcessorNodeProcess);
+		observerClassHandlers.register(MergeNodeCacheAspect.class, this::handleMergeNodeCache);
+		observerClassHandlers.register(JsProcessorNodeAspect.class, this::handleJsProcessorNode);
 	}
 
 
@@ -284,8 +290,35 @@ public class ObservableAspectTask extends AspectTask {
 		return null;
 	}
 
+	public Void handleSourceEventQueue(SourceEventQueueAspect aspect) {
+		String nodeId = aspect.getDataProcessorContext().getNode().getId();
+		Optional.ofNullable(dataNodeSampleHandlers.get(nodeId)).ifPresent(
+				handler -> handler.handleSourceEventQueue(aspect.getOccupancy(), aspect.getProducerStallMs(), aspect.getConsumerStallMs())
+		);
+
+		return null;
+	}
+
 	// target data node related
 
+	public Void handleTargetConcurrentWrite(TargetConcurrentWriteAspect aspect) {
+		String nodeId = aspect.getDataProcessorContext().getNode().getId();
+		Optional.ofNullable(dataNodeSampleHandlers.get(nodeId)).ifPresent(
+				handler -> handler.handleTargetConcurrentWrite(aspect.getBarrierWaitMs(), aspect.getPartitionQueueDepths())
+		);
+
+		return null;
+	}
+
+	public Void handleTargetEventCompaction(TargetEventCompactionAspect aspect) {
+		String nodeId = aspect.getDataProcessorContext().getNode().getId();
+		Optional.ofNullable(dataNodeSampleHandlers.get(nodeId)).ifPresent(
+				handler -> handler.handleTargetEventCompaction(aspect.getCompactionRatio())
+		);
+
+		return null;
+	}
+
 	public Void handleCreateTableFunc(CreateTableFuncAspect aspect) {
 		String nodeId = aspect.getDataProcessorContext().getNode().getId();
 		switch (aspect.getState()) {
@@ -413,13 +446,18 @@ public class ObservableAspectTask extends AspectTask {
 	// processor node related
 
 	public Void handleProcessorNodeInit(ProcessorNodeInitAspect aspect) {
-		if (null == processorNodeSampleHandlers) {
-			processorNodeSampleHandlers = new HashMap<>();
+		synchronized (this) {
+			if (null == processorNodeSampleHandlers) {
+				processorNodeSampleHandlers = new ConcurrentHashMap<>();
+			}
 		}
 		Node<?> node = aspect.getProcessorBaseContext().getNode();
-		ProcessorNodeSampleHandler handler = new ProcessorNodeSampleHandler(task, node);
-		processorNodeSampleHandlers.put(node.getId(), handler);
-		handler.init();
+		// a node running with local parallelism is inited once for each instance, the instances share one handler
+		processorNodeSampleHandlers.computeIfAbsent(node.getId(), nodeId -> {
+			ProcessorNodeSampleHandler handler = new ProcessorNodeSampleHandler(task, node);
+			handler.init();
+			return handler;
+		});
 
 		return null;
 	}
@@ -431,6 +469,24 @@ public class ObservableAspectTask extends AspectTask {
 		return null;
 	}
 
+	public Void handleMergeNodeCache(MergeNodeCacheAspect aspect) {
+		String nodeId = aspect.getProcessorBaseContext().getNode().getId();
+		Optional.ofNullable(processorNodeSampleHandlers.get(nodeId)).ifPresent(
+				handler -> handler.handleMergeCache(aspect.getMergeTable(), aspect.getHitRatio(), aspect.getLookupLatencyMs())
+		);
+
+		return null;
+	}
+
+	public Void handleJsProcessorNode(JsProcessorNodeAspect aspect) {
+		String nodeId = aspect.getProcessorBaseContext().getNode().getId();
+		Optional.ofNullable(processorNodeSampleHandlers.get(nodeId)).ifPresent(
+				handler -> handler.handleJsProcessor(aspect.getInvocations(), aspect.getScriptTimeMs())
+		);
+
+		return null;
+	}
+
 	public Void handleProcessorNodeProcess(ProcessorNodeProcessAspect aspect) {
 		String nodeId = aspect.getProcessorBaseContext().getNode().getId();
 
@@ -7,6 +7,7 @@ import io.tapdata.common.executor.ExecutorsManager;
 import io.tapdata.common.sample.SampleCollector;
 import io.tapdata.common.sample.sampler.AverageSampler;
 import io.tapdata.common.sample.sampler.CounterSampler;
+import io.tapdata.common.sample.sampler.HistogramSampler;
 import io.tapdata.common.sample.sampler.NumberSampler;
 import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.node.pdk.ConnectorNodeService;
@@ -27,6 +28,7 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * @author Dexter
@@ -44,6 +46,16 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
     static final String SNAPSHOT_SOURCE_READ_TIME_COST_AVG = "snapshotSourceReadTimeCostAvg";
     static final String INCR_SOURCE_READ_TIME_COST_AVG     = "incrementalSourceReadTimeCostAvg";
     static final String TARGET_WRITE_TIME_COST_AVG         = "targetWriteTimeCostAvg";
+    static final String SNAPSHOT_SOURCE_READ_TIME_COST     = "snapshotSourceReadTimeCost";
+    static final String INCR_SOURCE_READ_TIME_COST         = "incrementalSourceReadTimeCost";
+    static final String TARGET_WRITE_TIME_COST             = "targetWriteTimeCost";
+    static final String TARGET_REPLICATE_LAG               = "targetReplicateLag";
+    static final String SOURCE_QUEUE_OCCUPANCY             = "sourceQueueOccupancy";
+    static final String SOURCE_QUEUE_PRODUCER_STALL_MS     = "sourceQueueProducerStallMs";
+    static final String SOURCE_QUEUE_CONSUMER_STALL_MS     = "sourceQueueConsumerStallMs";
+    static final String TARGET_BARRIER_WAIT_MS             = "targetBarrierWaitMs";
+    static final String TARGET_PARTITION_QUEUE_DEPTH       = "targetPartitionQueueDepth_";
+    static final String TARGET_COMPACTION_RATIO            = "targetCompactionRatio";
 
     static final String CURR_SNAPSHOT_TABLE                   = "currentSnapshotTable";
     static final String CURR_SNAPSHOT_TABLE_ROW_TOTAL         = "currentSnapshotTableRowTotal";
@@ -59,6 +71,13 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
     private AverageSampler snapshotSourceReadTimeCostAvg;
     private AverageSampler incrementalSourceReadTimeCostAvg;
     private AverageSampler targetWriteTimeCostAvg;
+    /**
+     * Percentiles of the batch time costs and of the replicate lag of written events, see {@link HistogramSampler}
+     */
+    private HistogramSampler snapshotSourceReadTimeCost;
+    private HistogramSampler incrementalSourceReadTimeCost;
+    private HistogramSampler targetWriteTimeCost;
+    private HistogramSampler targetReplicateLag;
 
     private final Set<String> nodeTables = new HashSet<>();
 
@@ -96,6 +115,9 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
         snapshotInsertRowCounter = getCounterSampler(values, SNAPSHOT_INSERT_ROW_TOTAL);
         snapshotSourceReadTimeCostAvg = collector.getAverageSampler(SNAPSHOT_SOURCE_READ_TIME_COST_AVG);
         targetWriteTimeCostAvg = collector.getAverageSampler(TARGET_WRITE_TIME_COST_AVG);
+        snapshotSourceReadTimeCost = collector.getHistogramSampler(SNAPSHOT_SOURCE_READ_TIME_COST);
+        targetWriteTimeCost = collector.getHistogramSampler(TARGET_WRITE_TIME_COST);
+        targetReplicateLag = collector.getHistogramSampler(TARGET_REPLICATE_LAG);
 
         Number retrieveSnapshotStartAt = values.getOrDefault(SNAPSHOT_START_AT, null);
         if (retrieveSnapshotStartAt != null) {
@@ -144,6 +166,8 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
         Optional.ofNullable(inputSpeed).ifPresent(speed -> speed.add(size));
         Optional.ofNullable(snapshotSourceReadTimeCostAvg).ifPresent(
                 avg -> avg.add(size, readCompleteAt - batchAcceptLastTs));
+        Optional.ofNullable(snapshotSourceReadTimeCost).ifPresent(
+                histogram -> histogram.add(readCompleteAt - batchAcceptLastTs));
 
         batchProcessStartTs = readCompleteAt;
     }
@@ -181,6 +205,7 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
     private Long streamProcessStartTs;
     public void handleStreamReadStreamStart(List<String> tables, Long startAt) {
         incrementalSourceReadTimeCostAvg = collector.getAverageSampler(INCR_SOURCE_READ_TIME_COST_AVG);
+        incrementalSourceReadTimeCost = collector.getHistogramSampler(INCR_SOURCE_READ_TIME_COST);
         streamAcceptLastTs = startAt;
         for(String table : tables) {
             addTable(table);
@@ -259,17 +284,21 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
                     //                            incrementalSourceReadTimeCost
                     long oldestRefTs = recorder.getOldestEventTimestamp();
                     long newestRefTs = recorder.getNewestEventTimestamp();
+                    long timeCost;
                     if (newestRefTs >= streamAcceptLastTs && oldestRefTs >= streamAcceptLastTs) {
-                        avg.add(total, readCompleteAt - oldestRefTs);
+                        timeCost = readCompleteAt - oldestRefTs;
                     } else if (newestRefTs > streamAcceptLastTs && oldestRefTs < streamAcceptLastTs) {
-                        avg.add(total, readCompleteAt - newestRefTs);
+                        timeCost = readCompleteAt - newestRefTs;
                     } else if (newestRefTs < streamAcceptLastTs && oldestRefTs < streamAcceptLastTs) {
-                        avg.add(total, readCompleteAt - streamAcceptLastTs);
+                        timeCost = readCompleteAt - streamAcceptLastTs;
                     } else {
                         logger.warn("Another condition happens when calculate incrementalSourceReadTimeCost, " +
                                 "oldestRef: {}, newestRef:{}, lastEnqueueTs: {}, readCompleteTs: {}", oldestRefTs,
                                 newestRefTs, readCompleteAt, streamAcceptLastTs);
+                        return;
                     }
+                    avg.add(total, timeCost);
+                    Optional.ofNullable(incrementalSourceReadTimeCost).ifPresent(histogram -> histogram.add(timeCost));
                 }
         );
 
@@ -329,6 +358,7 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
         Optional.ofNullable(outputDeleteCounter).ifPresent(counter -> counter.inc(deleted));
         Optional.ofNullable(outputSpeed).ifPresent(speed -> speed.add(total));
 
+        Optional.ofNullable(targetWriteTimeCost).ifPresent(histogram -> histogram.add(acceptTime - writeRecordAcceptLastTs));
         Optional.ofNullable(targetWriteTimeCostAvg).ifPresent(average -> {
             average.add(total, acceptTime - writeRecordAcceptLastTs);
             writeRecordAcceptLastTs = acceptTime;
@@ -340,6 +370,12 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
                 speed.add(recorder.getTotal(), recorder.getReplicateLagTotal());
             }
         });
+        // events of a batch only carry the total lag, each of them counts with the average
+        Optional.ofNullable(targetReplicateLag).ifPresent(histogram -> {
+            if (null != recorder.getReplicateLagTotal() && recorder.getTotal() > 0) {
+                histogram.add(recorder.getReplicateLagTotal() / recorder.getTotal(), recorder.getTotal());
+            }
+        });
     }
 
     AtomicBoolean firstTableCount = new AtomicBoolean(true);
@@ -378,6 +414,37 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
         Optional.ofNullable(outputDdlCounter).ifPresent(counter -> counter.inc(tables.size()));
     }
 
+    /**
+     * producer stall means the source is waiting for downstream, consumer stall means downstream is waiting for source
+     */
+    public void handleSourceEventQueue(Supplier<Number> occupancy, Supplier<Number> producerStallMs, Supplier<Number> consumerStallMs) {
+        Optional.ofNullable(occupancy).ifPresent(supplier -> collector.addSampler(SOURCE_QUEUE_OCCUPANCY, supplier::get));
+        Optional.ofNullable(producerStallMs).ifPresent(supplier -> collector.addSampler(SOURCE_QUEUE_PRODUCER_STALL_MS, supplier::get));
+        Optional.ofNullable(consumerStallMs).ifPresent(supplier -> collector.addSampler(SOURCE_QUEUE_CONSUMER_STALL_MS, supplier::get));
+    }
+
+    /**
+     * barrier wait is the time the concurrent write threads spent waiting for each other, queue depth is reported
+     * for each write thread
+     */
+    public void handleTargetConcurrentWrite(Supplier<Number> barrierWaitMs, List<Supplier<Number>> partitionQueueDepths) {
+        Optional.ofNullable(barrierWaitMs).ifPresent(supplier -> collector.addSampler(TARGET_BARRIER_WAIT_MS, supplier::get));
+        if (null == partitionQueueDepths) {
+            return;
+        }
+        for (int i = 0; i < partitionQueueDepths.size(); i++) {
+            Supplier<Number> supplier = partitionQueueDepths.get(i);
+            collector.addSampler(TARGET_PARTITION_QUEUE_DEPTH + i, supplier::get);
+        }
+    }
+
+    /**
+     * events received per event written after compaction
+     */
+    public void handleTargetEventCompaction(Supplier<Number> compactionRatio) {
+        Optional.ofNullable(compactionRatio).ifPresent(supplier -> collector.addSampler(TARGET_COMPACTION_RATIO, supplier::get));
+    }
+
     public static class HealthCheckRunner {
         private static final String TAG = HealthCheckRunner.class.getSimpleName();
         private static final Logger logger = LogManager.getLogger(DataNodeSampleHandler.class);
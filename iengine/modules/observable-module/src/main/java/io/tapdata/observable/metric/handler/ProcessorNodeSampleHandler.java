@@ -2,18 +2,35 @@ package io.tapdata.observable.metric.handler;
 
 import com.tapdata.tm.commons.dag.Node;
 import com.tapdata.tm.commons.task.dto.TaskDto;
+import io.tapdata.common.sample.sampler.HistogramSampler;
 import io.tapdata.common.sample.sampler.SpeedSampler;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * @author Dexter
  */
 public class ProcessorNodeSampleHandler extends AbstractNodeSampleHandler {
+    static final String MERGE_CACHE_HIT_RATIO          = "mergeCacheHitRatio";
+    static final String MERGE_CACHE_LOOKUP_LATENCY_MS  = "mergeCacheLookupLatencyMs";
+    static final String JS_INVOCATION_TOTAL            = "jsInvocationTotal";
+    static final String JS_SCRIPT_TIME_MS_TOTAL        = "jsScriptTimeMsTotal";
+    static final String PROCESS_TIME_COST              = "processTimeCost";
+
+    private HistogramSampler processTimeCost;
+
     public ProcessorNodeSampleHandler(TaskDto task, Node<?> node) {
         super(task, node);
     }
 
+    @Override
+    void doInit(Map<String, Number> values) {
+        super.doInit(values);
+        processTimeCost = collector.getHistogramSampler(PROCESS_TIME_COST);
+    }
+
     public void handleProcessStart(HandlerUtil.EventTypeRecorder recorder) {
         Optional.ofNullable(inputInsertCounter).ifPresent(counter -> counter.inc(recorder.getInsertTotal()));
         Optional.ofNullable(inputUpdateCounter).ifPresent(counter -> counter.inc(recorder.getUpdateTotal()));
@@ -42,5 +59,22 @@ public class ProcessorNodeSampleHandler extends AbstractNodeSampleHandler {
     public void handleProcessEnd(Long startAt, Long endAt, long total) {
         Optional.ofNullable(timeCostAverage).ifPresent(average ->
                 average.add(total, endAt - startAt));
+        Optional.ofNullable(processTimeCost).ifPresent(histogram -> histogram.add(endAt - startAt));
+    }
+
+    /**
+     * One pair of samplers for each merged table, named as sampler name + "_" + table
+     */
+    public void handleMergeCache(String mergeTable, Supplier<Number> hitRatio, Supplier<Number> lookupLatencyMs) {
+        Optional.ofNullable(hitRatio).ifPresent(supplier -> collector.addSampler(MERGE_CACHE_HIT_RATIO + "_" + mergeTable, supplier::get));
+        Optional.ofNullable(lookupLatencyMs).ifPresent(supplier -> collector.addSampler(MERGE_CACHE_LOOKUP_LATENCY_MS + "_" + mergeTable, supplier::get));
+    }
+
+    /**
+     * Script function calls and the time spent in them since the node started, a batch call counts once
+     */
+    public void handleJsProcessor(Supplier<Number> invocations, Supplier<Number> scriptTimeMs) {
+        Optional.ofNullable(invocations).ifPresent(supplier -> collector.addSampler(JS_INVOCATION_TOTAL, supplier::get));
+        Optional.ofNullable(scriptTimeMs).ifPresent(supplier -> collector.addSampler(JS_SCRIPT_TIME_MS_TOTAL, supplier::get));
     }
 }
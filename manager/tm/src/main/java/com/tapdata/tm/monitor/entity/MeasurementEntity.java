@@ -1,11 +1,13 @@
 package com.tapdata.tm.monitor.entity;
 
 import io.tapdata.common.sample.request.Sample;
+import io.tapdata.common.sample.sampler.HistogramSampler;
 import io.tapdata.common.utils.NumberUtils;
 import lombok.Data;
 import org.bson.codecs.pojo.annotations.BsonId;
 import org.springframework.data.mongodb.core.mapping.Field;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -81,6 +83,13 @@ public class MeasurementEntity {
                     }
                 }
             }
+
+            // percentiles can not be averaged, roll up the histogram buckets instead
+            List<Map<String, Number>> values = new ArrayList<>();
+            for (Sample sample : samples) {
+                values.add(sample.getVs());
+            }
+            HistogramSampler.merge(values, finalKeyValueMap);
         }
         return finalKeyValueMap;
     }
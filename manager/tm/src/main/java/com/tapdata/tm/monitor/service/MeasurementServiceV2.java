@@ -22,6 +22,7 @@ import com.tapdata.tm.utils.FunctionUtils;
 import com.tapdata.tm.utils.TimeUtil;
 import io.tapdata.common.sample.request.Sample;
 import io.tapdata.common.sample.request.SampleRequest;
+import io.tapdata.common.sample.sampler.HistogramSampler;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
@@ -162,6 +163,15 @@ public class MeasurementServiceV2 {
                                 for (String field : querySample.getFields()) {
                                     includedFields.add(String.format(FIELD_FORMAT, field));
                                 }
+                                // percentiles are merged from the histogram buckets, not averaged
+                                for (String histogramId : querySample.getFields().stream().map(HistogramSampler::histogramId)
+                                        .filter(Objects::nonNull).collect(Collectors.toSet())) {
+                                    includedFields.add(String.format(FIELD_FORMAT, histogramId + HistogramSampler.MAX));
+                                    for (int bucket = 0; bucket < HistogramSampler.BUCKET_COUNT; bucket++) {
+                                        includedFields.add(String.format(FIELD_FORMAT, histogramId + HistogramSampler.BUCKET + bucket));
+                                    }
+                                }
+                                includedFields = includedFields.stream().distinct().collect(Collectors.toList());
 
                                 Query query = new Query(criteria);
                                 query.fields().include(includedFields.toArray(new String[]{}));
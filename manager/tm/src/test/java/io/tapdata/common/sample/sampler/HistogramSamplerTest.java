@@ -0,0 +1,104 @@
+package io.tapdata.common.sample.sampler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramSamplerTest {
+
+    @Test
+    public void testBucketIndexAndHighestValue() {
+        for (long value = 0; value < HistogramSampler.SUB_BUCKET_COUNT; value++) {
+            assertEquals(value, HistogramSampler.bucketIndex(value));
+            assertEquals(value, HistogramSampler.highestValue((int) value));
+        }
+        int previous = -1;
+        for (long value = 0; value < 1L << 20; value += 1 + value / 64) {
+            int index = HistogramSampler.bucketIndex(value);
+            assertTrue(index >= previous, "bucket index decreases at " + value);
+            previous = index;
+            long highest = HistogramSampler.highestValue(index);
+            assertTrue(highest >= value, "value " + value + " above highest " + highest);
+            // relative error is bounded by the sub buckets
+            assertTrue(highest - value <= value / HistogramSampler.SUB_BUCKET_COUNT, "value " + value + ", highest " + highest);
+            if (index > 0) {
+                assertTrue(HistogramSampler.highestValue(index - 1) < value);
+            }
+            assertEquals(index, HistogramSampler.bucketIndex(highest));
+            assertEquals(index + 1, HistogramSampler.bucketIndex(highest + 1));
+        }
+        assertEquals(HistogramSampler.BUCKET_COUNT - 1, HistogramSampler.bucketIndex(Long.MAX_VALUE));
+        assertEquals(HistogramSampler.BUCKET_COUNT - 1, HistogramSampler.bucketIndex(1L << HistogramSampler.MAX_VALUE_BITS));
+        assertEquals((1L << HistogramSampler.MAX_VALUE_BITS) - 1, HistogramSampler.highestValue(HistogramSampler.BUCKET_COUNT - 1));
+    }
+
+    @Test
+    public void testSampleTakesAndClearsBuckets() {
+        HistogramSampler sampler = new HistogramSampler();
+        for (long value = 1; value <= 100; value++) {
+            sampler.add(value);
+        }
+        Map<String, Number> result = new HashMap<>();
+        sampler.sample("lag", result);
+        assertEquals(100L, result.get("lag" + HistogramSampler.COUNT));
+        assertEquals(100L, result.get("lag" + HistogramSampler.MAX));
+        assertEquals(HistogramSampler.highestValue(HistogramSampler.bucketIndex(50)), result.get("lag" + HistogramSampler.P50));
+        assertEquals(HistogramSampler.highestValue(HistogramSampler.bucketIndex(95)), result.get("lag" + HistogramSampler.P95));
+        assertEquals(HistogramSampler.highestValue(HistogramSampler.bucketIndex(99)), result.get("lag" + HistogramSampler.P99));
+
+        Map<String, Number> next = new HashMap<>();
+        sampler.sample("lag", next);
+        assertEquals(0L, next.get("lag" + HistogramSampler.COUNT));
+        assertNull(next.get("lag" + HistogramSampler.P99));
+        assertNull(sampler.value());
+    }
+
+    @Test
+    public void testMergeRecalculatesPercentiles() {
+        // one busy period of fast events and one quiet period of slow events, averaging the p50 would give 505
+        HistogramSampler fast = new HistogramSampler();
+        fast.add(10, 99);
+        HistogramSampler slow = new HistogramSampler();
+        slow.add(1000, 1);
+        Map<String, Number> first = new HashMap<>();
+        fast.sample("lag", first);
+        first.put("other", 1);
+        Map<String, Number> second = new HashMap<>();
+        slow.sample("lag", second);
+
+        Map<String, Number> result = new HashMap<>();
+        result.put("other", 1);
+        HistogramSampler.merge(Arrays.asList(first, null, second), result);
+
+        assertEquals(100L, result.get("lag" + HistogramSampler.COUNT));
+        assertEquals(1000L, result.get("lag" + HistogramSampler.MAX));
+        assertEquals(10L, result.get("lag" + HistogramSampler.P50));
+        assertEquals(10L, result.get("lag" + HistogramSampler.P99));
+        assertEquals(99L, result.get("lag" + HistogramSampler.BUCKET + HistogramSampler.bucketIndex(10)));
+        assertEquals(1L, result.get("lag" + HistogramSampler.BUCKET + HistogramSampler.bucketIndex(1000)));
+        assertEquals(1, result.get("other").intValue());
+
+        // merged again with a period of slow events only
+        Map<String, Number> third = new HashMap<>();
+        slow.add(2000, 100);
+        slow.sample("lag", third);
+        Map<String, Number> merged = new HashMap<>();
+        HistogramSampler.merge(Arrays.asList(result, third), merged);
+        assertEquals(200L, merged.get("lag" + HistogramSampler.COUNT));
+        assertEquals(2000L, merged.get("lag" + HistogramSampler.MAX));
+        assertEquals(HistogramSampler.highestValue(HistogramSampler.bucketIndex(1000)), merged.get("lag" + HistogramSampler.P50));
+        assertEquals(2000L, merged.get("lag" + HistogramSampler.P99));
+    }
+
+    @Test
+    public void testHistogramId() {
+        assertEquals("lag", HistogramSampler.histogramId("lag" + HistogramSampler.P95));
+        assertEquals("lag", HistogramSampler.histogramId("lag" + HistogramSampler.MAX));
+        assertNull(HistogramSampler.histogramId("lag" + HistogramSampler.COUNT));
+        assertNull(HistogramSampler.histogramId(HistogramSampler.P50));
+        assertNull(HistogramSampler.histogramId("inputQps"));
+        assertNull(HistogramSampler.histogramId(null));
+    }
+}
@@ -121,7 +121,11 @@ public class SampleCollector {
                         continue;
                     }
                     long time = System.currentTimeMillis();
-                    result.put(entry.getKey(), entry.getValue().value());
+                    if (entry.getValue() instanceof HistogramSampler) {
+                        ((HistogramSampler) entry.getValue()).sample(entry.getKey(), result);
+                    } else {
+                        result.put(entry.getKey(), entry.getValue().value());
+                    }
                     long takes = System.currentTimeMillis() - time;
                     if(takes > 10) {
                         logger.warn("PointSampler {} execute more than 10 milliseconds, {}", entry.getValue().getClass().getSimpleName(), takes);
@@ -238,6 +242,16 @@ public class SampleCollector {
         return (AverageSampler) idSamplerMap.computeIfAbsent(id, s -> new AverageSampler());
     }
 
+    /**
+     * 根据业务指定的ID获得直方图采集器，上报 id + 后缀的多个值，见 {@link HistogramSampler}
+     *
+     * @param id
+     * @return
+     */
+    public HistogramSampler getHistogramSampler(String id) {
+        return (HistogramSampler) idSamplerMap.computeIfAbsent(id, s -> new HistogramSampler());
+    }
+
     /**
      * 根据业务指定的ID获得速度采集器
      *
@@ -0,0 +1,230 @@
+package io.tapdata.common.sample.sampler;
+
+import io.tapdata.common.sample.Sampler;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative values (HDR style log-linear buckets).
+ * Values below 2^SUB_BUCKET_BITS have their own bucket, larger values share a bucket with the values of the same
+ * power of two and the same highest SUB_BUCKET_BITS bits, so the relative error is less than 1/2^SUB_BUCKET_BITS
+ * and the memory is fixed to BUCKET_COUNT counters.
+ *
+ * Buckets are taken and cleared when upload. One sampler reports several values, named as id + suffix:
+ * p50/p95/p99/max/count of the period and the count of each non-empty bucket, the buckets of several periods can be
+ * merged by {@link #merge(List, Map)} to calculate the percentiles of a longer period.
+ */
+public class HistogramSampler implements Sampler {
+    public static final String P50 = "_p50";
+    public static final String P95 = "_p95";
+    public static final String P99 = "_p99";
+    public static final String MAX = "_max";
+    public static final String COUNT = "_cnt";
+    public static final String BUCKET = "_hb";
+
+    static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * Values from 2^MAX_VALUE_BITS (about 50 days in milliseconds) are counted in the last bucket
+     */
+    static final int MAX_VALUE_BITS = 42;
+    public static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_VALUE_BITS - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong(-1);
+
+    public void add(long value) {
+        add(value, 1);
+    }
+
+    /**
+     * Record the value count times, e.g. the average latency of a batch of events
+     */
+    public void add(long value, long count) {
+        if (count <= 0) {
+            return;
+        }
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.addAndGet(bucketIndex(value), count);
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * p99 of the current period, does not clear the buckets
+     */
+    @Override
+    public Number value() {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return null;
+        }
+        return percentile(counts, total, 0.99, max.get());
+    }
+
+    /**
+     * Take and clear the buckets, put the values of the period into result.
+     * A value added at the same time is counted either in this period or in the next one.
+     */
+    public void sample(String id, Map<String, Number> result) {
+        long periodMax = max.getAndSet(-1);
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        long highest = -1;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.getAndSet(i, 0);
+            if (counts[i] > 0) {
+                total += counts[i];
+                highest = highestValue(i);
+                result.put(id + BUCKET + i, counts[i]);
+            }
+        }
+        result.put(id + COUNT, total);
+        if (total == 0) {
+            return;
+        }
+        // max of a value counted in this period may be set after it was taken
+        putPercentiles(id, counts, total, periodMax < 0 ? highest : periodMax, result);
+    }
+
+    /**
+     * Merge the histograms of several samples into result: bucket counts and count are summed, max is the largest one
+     * and the percentiles are calculated again from the merged buckets. Other values in result are not changed.
+     */
+    public static void merge(List<Map<String, Number>> samples, Map<String, Number> result) {
+        Map<String, long[]> histograms = new HashMap<>();
+        for (Map<String, Number> sample : samples) {
+            if (null == sample) {
+                continue;
+            }
+            for (Map.Entry<String, Number> entry : sample.entrySet()) {
+                if (null == entry.getValue()) {
+                    continue;
+                }
+                String key = entry.getKey();
+                int index = key.lastIndexOf(BUCKET);
+                if (index <= 0) {
+                    continue;
+                }
+                int bucket = parseBucket(key.substring(index + BUCKET.length()));
+                if (bucket < 0) {
+                    continue;
+                }
+                histograms.computeIfAbsent(key.substring(0, index), k -> new long[BUCKET_COUNT])[bucket] += entry.getValue().longValue();
+            }
+        }
+
+        for (Map.Entry<String, long[]> entry : histograms.entrySet()) {
+            String id = entry.getKey();
+            long[] counts = entry.getValue();
+            long total = 0;
+            long highest = -1;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                if (counts[i] > 0) {
+                    total += counts[i];
+                    highest = highestValue(i);
+                    result.put(id + BUCKET + i, counts[i]);
+                }
+            }
+            long mergedMax = -1;
+            for (Map<String, Number> sample : samples) {
+                Number value = null == sample ? null : sample.get(id + MAX);
+                if (null != value && value.longValue() > mergedMax) {
+                    mergedMax = value.longValue();
+                }
+            }
+            result.put(id + COUNT, total);
+            putPercentiles(id, counts, total, mergedMax < 0 ? highest : mergedMax, result);
+        }
+    }
+
+    /**
+     * Id of the histogram whose percentile or max is named by key, null if key is not one of them.
+     * A query of these values must load the buckets (id + BUCKET + index) to {@link #merge(List, Map)} them.
+     */
+    public static String histogramId(String key) {
+        if (null == key) {
+            return null;
+        }
+        for (String suffix : new String[]{P50, P95, P99, MAX}) {
+            if (key.length() > suffix.length() && key.endsWith(suffix)) {
+                return key.substring(0, key.length() - suffix.length());
+            }
+        }
+        return null;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_VALUE_BITS) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + (exponent - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * The largest value counted in the bucket
+     */
+    static long highestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        long subBucket = SUB_BUCKET_COUNT + (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    static long percentile(long[] counts, long total, double percentile, long max) {
+        long rank = Math.max(1, (long) Math.ceil(total * percentile));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                long value = highestValue(i);
+                return max >= 0 ? Math.min(value, max) : value;
+            }
+        }
+        return Math.max(max, 0);
+    }
+
+    private static void putPercentiles(String id, long[] counts, long total, long max, Map<String, Number> result) {
+        result.put(id + P50, percentile(counts, total, 0.5, max));
+        result.put(id + P95, percentile(counts, total, 0.95, max));
+        result.put(id + P99, percentile(counts, total, 0.99, max));
+        result.put(id + MAX, max);
+    }
+
+    private static int parseBucket(String text) {
+        if (text.isEmpty() || text.length() > 4) {
+            return -1;
+        }
+        int bucket = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            bucket = bucket * 10 + (c - '0');
+        }
+        return bucket < BUCKET_COUNT ? bucket : -1;
+    }
+}
@@ -0,0 +1,81 @@
+package io.tapdata.pdk.apis.entity;
+
+import java.io.Serializable;
+
+/**
+ * A part of a table which can be batch read independently, like a key range of a JDBC table, an _id range of a MongoDB
+ * collection or a partition of a Kafka topic.
+ * start and end are defined by the connector, they are saved in batch offset, so must be serializable.
+ */
+public class TapReadSplit implements Serializable {
+    private static final long serialVersionUID = 2957351745204436275L;
+    private String id;
+    /**
+     * null means from the very beginning
+     */
+    private Object start;
+    /**
+     * null means to the very end
+     */
+    private Object end;
+
+    public TapReadSplit() {}
+
+    public TapReadSplit(String id, Object start, Object end) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+    }
+
+    public static TapReadSplit create(String id) {
+        return new TapReadSplit().id(id);
+    }
+
+    public TapReadSplit id(String id) {
+        this.id = id;
+        return this;
+    }
+
+    public TapReadSplit start(Object start) {
+        this.start = start;
+        return this;
+    }
+
+    public TapReadSplit end(Object end) {
+        this.end = end;
+        return this;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Object getStart() {
+        return start;
+    }
+
+    public void setStart(Object start) {
+        this.start = start;
+    }
+
+    public Object getEnd() {
+        return end;
+    }
+
+    public void setEnd(Object end) {
+        this.end = end;
+    }
+
+    @Override
+    public String toString() {
+        return "TapReadSplit{" +
+                "id='" + id + '\'' +
+                ", start=" + start +
+                ", end=" + end +
+                '}';
+    }
+}
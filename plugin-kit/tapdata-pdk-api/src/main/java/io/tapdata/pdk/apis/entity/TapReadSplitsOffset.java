@@ -0,0 +1,72 @@
+package io.tapdata.pdk.apis.entity;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Batch offset of a table read by splits, it keeps the splits, the offset of each split and the completed splits.
+ * Saved by engine as the batch offset of the table, so the table can be resumed split by split.
+ */
+public class TapReadSplitsOffset implements Serializable {
+    private static final long serialVersionUID = -1706497390284187326L;
+    private List<TapReadSplit> splits;
+    private Map<String, Object> offsets;
+    private Set<String> completed;
+
+    public TapReadSplitsOffset() {}
+
+    public TapReadSplitsOffset(List<TapReadSplit> splits) {
+        this.splits = new ArrayList<>(splits);
+        this.offsets = new HashMap<>();
+        this.completed = new HashSet<>();
+    }
+
+    public synchronized Object offset(String splitId) {
+        return offsets.get(splitId);
+    }
+
+    public synchronized void offset(String splitId, Object offset) {
+        offsets.put(splitId, offset);
+    }
+
+    public synchronized void complete(String splitId) {
+        completed.add(splitId);
+    }
+
+    public synchronized boolean isCompleted(String splitId) {
+        return completed.contains(splitId);
+    }
+
+    public List<TapReadSplit> getSplits() {
+        return splits;
+    }
+
+    public void setSplits(List<TapReadSplit> splits) {
+        this.splits = splits;
+    }
+
+    public Map<String, Object> getOffsets() {
+        return offsets;
+    }
+
+    public void setOffsets(Map<String, Object> offsets) {
+        this.offsets = offsets;
+    }
+
+    public Set<String> getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(Set<String> completed) {
+        this.completed = completed;
+    }
+
+    @Override
+    public String toString() {
+        return "TapReadSplitsOffset{" +
+                "splits=" + splits +
+                ", offsets=" + offsets +
+                ", completed=" + completed +
+                '}';
+    }
+}
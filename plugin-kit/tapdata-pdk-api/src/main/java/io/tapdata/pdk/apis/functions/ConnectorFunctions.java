@@ -21,6 +21,8 @@ public class ConnectorFunctions extends ConnectionFunctions<ConnectorFunctions>
     protected BatchReadFunction batchReadFunction;
     protected StreamReadFunction streamReadFunction;
     protected BatchCountFunction batchCountFunction;
+    protected GetReadSplitsFunction getReadSplitsFunction;
+    protected BatchReadSplitFunction batchReadSplitFunction;
     protected TimestampToStreamOffsetFunction timestampToStreamOffsetFunction;
     protected WriteRecordFunction writeRecordFunction;
     protected QueryByFilterFunction queryByFilterFunction;
@@ -182,6 +184,23 @@ public class ConnectorFunctions extends ConnectionFunctions<ConnectorFunctions>
         return this;
     }
 
+    /**
+     * Optional, together with BatchReadSplitFunction, flow engine will split a table and read the splits concurrently during initial sync.
+     * BatchReadFunction is still required, it is used for tables which are not split.
+     *
+     * @param function
+     * @return
+     */
+    public ConnectorFunctions supportGetReadSplits(GetReadSplitsFunction function) {
+        getReadSplitsFunction = function;
+        return this;
+    }
+
+    public ConnectorFunctions supportBatchReadSplit(BatchReadSplitFunction function) {
+        batchReadSplitFunction = function;
+        return this;
+    }
+
     /**
      *
      */
@@ -253,6 +272,14 @@ public class ConnectorFunctions extends ConnectionFunctions<ConnectorFunctions>
         return batchReadFunction;
     }
 
+    public GetReadSplitsFunction getGetReadSplitsFunction() {
+        return getReadSplitsFunction;
+    }
+
+    public BatchReadSplitFunction getBatchReadSplitFunction() {
+        return batchReadSplitFunction;
+    }
+
     public StreamReadFunction getStreamReadFunction() {
         return streamReadFunction;
     }
@@ -44,7 +44,9 @@ public enum PDKMethod {
     ALTER_FIELD_ATTRIBUTES,
     GET_TABLE_NAMES,
     CONNECTION_CHECK,
-    DROP_FIELD, RAW_DATA_CALLBACK_FILTER;
+    DROP_FIELD, RAW_DATA_CALLBACK_FILTER,
+    SOURCE_GET_READ_SPLITS,
+    SOURCE_BATCH_READ_SPLIT;
 
     PDKMethod() {
 
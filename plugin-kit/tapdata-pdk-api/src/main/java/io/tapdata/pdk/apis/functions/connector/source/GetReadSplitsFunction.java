@@ -0,0 +1,21 @@
+package io.tapdata.pdk.apis.functions.connector.source;
+
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.apis.context.TapConnectorContext;
+import io.tapdata.pdk.apis.entity.TapReadSplit;
+import io.tapdata.pdk.apis.functions.connector.TapConnectorFunction;
+
+import java.util.List;
+
+public interface GetReadSplitsFunction extends TapConnectorFunction {
+    /**
+     * Split the table for batch read, the splits will be read by BatchReadSplitFunction concurrently.
+     * Splits must not overlap and must cover the whole table together.
+     *
+     * @param connectorContext the node context in a DAG
+     * @param table the table to split
+     * @param maxSplits the max count of splits engine expects
+     * @return splits of the table, null or less than two splits means the table will be read by BatchReadFunction
+     */
+    List<TapReadSplit> getReadSplits(TapConnectorContext connectorContext, TapTable table, int maxSplits) throws Throwable;
+}